@@ -1,15 +1,32 @@
 package co.za.payments.ledger.api.controller;
 
 
+import co.za.payments.ledger.config.LedgerAccountQueryProperties;
+import co.za.payments.ledger.service.AccountImportService;
 import co.za.payments.ledger.service.AccountService;
+import co.za.payments.ledger.service.AccountStatementService;
+import co.za.payments.ledger.dto.AccountBalanceResponse;
+import co.za.payments.ledger.dto.AccountEntriesResponse;
+import co.za.payments.ledger.dto.AccountQueryRequest;
 import co.za.payments.ledger.dto.AccountResponse;
 import co.za.payments.ledger.dto.CreateAccountRequest;
+import co.za.payments.ledger.dto.EntryCursor;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.time.Instant;
 import java.util.UUID;
 
 @RestController
@@ -18,6 +35,10 @@ import java.util.UUID;
 public class AccountController {
 
     private final AccountService accountService;
+    private final AccountImportService importService;
+    private final AccountStatementService statementService;
+    private final LedgerAccountQueryProperties queryProperties;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public ResponseEntity<AccountResponse> createAccount(@RequestBody @Valid CreateAccountRequest request) {
@@ -26,10 +47,118 @@ public class AccountController {
                 .body(createdAccountDto);
     }
 
+    /**
+     * Creates an account per line of a CSV or newline delimited JSON body of opening balances and returns them as
+     * newline delimited JSON, in the order of the lines. The accounts are created before the response starts, so an
+     * invalid line fails the request with nothing created.
+     */
+    @PostMapping(value = "/bulk", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importAccounts(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                                InputStream input) {
+        var format = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+                ? AccountImportService.Format.NDJSON
+                : AccountImportService.Format.CSV;
+        var accounts = importService.importAccounts(input, format);
+
+        StreamingResponseBody body = outputStream -> {
+            try (var generator = objectMapper.createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                accounts.forEach(account -> writeLine(generator, account));
+            }
+        };
+
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<AccountResponse> getAccount(@PathVariable UUID id) {
         return ResponseEntity.ok(accountService.getAccount(id));
     }
 
+    /**
+     * Returns the accounts of up to {@code ledger.account-query.max-ids} ids as a JSON array, written element by
+     * element while the accounts are read. Ids that do not exist are left out.
+     */
+    @PostMapping("/query")
+    public ResponseEntity<StreamingResponseBody> queryAccounts(@RequestBody @Valid AccountQueryRequest request) {
+        request.validate(queryProperties.getMaxIds());
+
+        StreamingResponseBody body = outputStream -> {
+            try (var generator = objectMapper.createGenerator(outputStream)) {
+                generator.writeStartArray();
+                accountService.queryAccounts(request.ids(), account -> write(generator, account));
+                generator.writeEndArray();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    /**
+     * Returns the balance of the account as of the given instant, including the entries created at it, or the
+     * current balance without one.
+     */
+    @GetMapping("/{id}/balance")
+    public ResponseEntity<AccountBalanceResponse> getBalance(@PathVariable UUID id,
+                                                             @RequestParam(required = false) Instant asOf) {
+        return ResponseEntity.ok(statementService.getBalance(id, asOf == null ? Instant.now() : asOf));
+    }
+
+    /**
+     * Returns one page of the account's ledger entries, oldest first. The {@code next_cursor} of a page is passed
+     * back as {@code cursor} to read the next one and is absent on the last page.
+     */
+    @GetMapping(value = "/{id}/entries", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<AccountEntriesResponse> getEntries(@PathVariable UUID id,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(statementService.getEntries(id, EntryCursor.decode(cursor), size));
+    }
+
+    /**
+     * Streams every ledger entry of the account after the optional cursor as newline delimited JSON, one entry
+     * per line written while the entries are read, for statements too large to page through.
+     */
+    @GetMapping(value = "/{id}/entries", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamEntries(@PathVariable UUID id,
+                                                               @RequestParam(required = false) String cursor) {
+        var after = EntryCursor.decode(cursor);
+        // fails with not found before the response starts
+        accountService.getAccount(id);
+
+        StreamingResponseBody body = outputStream -> {
+            try (var generator = objectMapper.createGenerator(outputStream)) {
+                // entries are separated by the newline of each line rather than jackson's default space
+                generator.setRootValueSeparator(null);
+                statementService.streamEntries(id, after, entry -> writeLine(generator, entry));
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    private static void write(JsonGenerator generator, AccountResponse account) {
+        try {
+            generator.writeObject(account);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private static void writeLine(JsonGenerator generator, Object value) {
+        try {
+            generator.writeObject(value);
+            generator.writeRaw('\n');
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
 
 }
@@ -1,6 +1,9 @@
 package co.za.payments.ledger.api.controller;
 
 
+import co.za.payments.ledger.dto.BatchTransferRequest;
+import co.za.payments.ledger.dto.BatchTransferResponse;
+import co.za.payments.ledger.service.LedgerBatchService;
 import co.za.payments.ledger.service.LedgerService;
 import co.za.payments.ledger.dto.LedgerTransferResponse;
 import co.za.payments.ledger.dto.TransferRequest;
@@ -19,6 +22,7 @@ import org.springframework.web.bind.annotation.RestController;
 public class LedgerEntryController {
 
     private final LedgerService ledgerService;
+    private final LedgerBatchService ledgerBatchService;
 
     @PostMapping("/transfer")
     public ResponseEntity<LedgerTransferResponse> recordTransfer(@RequestBody @Valid TransferRequest request) {
@@ -27,4 +31,9 @@ public class LedgerEntryController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @PostMapping("/transfers/batch")
+    public ResponseEntity<BatchTransferResponse> recordTransfers(@RequestBody @Valid BatchTransferRequest request) {
+        return ResponseEntity.ok(ledgerBatchService.createEntries(request));
+    }
+
 }
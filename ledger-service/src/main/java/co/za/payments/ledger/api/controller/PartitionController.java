@@ -0,0 +1,39 @@
+package co.za.payments.ledger.api.controller;
+
+
+import co.za.payments.ledger.dto.LedgerPartitionResponse;
+import co.za.payments.ledger.service.partition.LedgerPartitionManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/admin/partitions")
+@ConditionalOnProperty(prefix = "ledger.partitions", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class PartitionController {
+
+    private final LedgerPartitionManager partitionManager;
+
+    @GetMapping
+    public ResponseEntity<List<LedgerPartitionResponse>> getPartitions() {
+        return ResponseEntity.ok(partitionManager.partitions());
+    }
+
+    /**
+     * Detaches the partition from {@code ledger_entry}, its rows stay in a table of the same name.
+     */
+    @PostMapping("/{name}/detach")
+    public ResponseEntity<Void> detach(@PathVariable String name) {
+        partitionManager.detach(name);
+        return ResponseEntity.noContent().build();
+    }
+
+}
@@ -0,0 +1,29 @@
+package co.za.payments.ledger.api.controller;
+
+
+import co.za.payments.ledger.dto.ReconciliationReport;
+import co.za.payments.ledger.service.ReconciliationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/admin/reconciliation")
+@RequiredArgsConstructor
+public class ReconciliationController {
+
+    private final ReconciliationService reconciliationService;
+
+    /**
+     * Returns how far the continuous reconciliation has got and the most recent accounts and transfers it found
+     * not to add up.
+     */
+    @GetMapping
+    public ResponseEntity<ReconciliationReport> getReport(@RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(reconciliationService.getReport(limit));
+    }
+
+}
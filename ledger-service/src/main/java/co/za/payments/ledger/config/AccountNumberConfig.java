@@ -0,0 +1,24 @@
+package co.za.payments.ledger.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Configuration;
+import util.AccountNumberGenerator;
+
+/**
+ * Gives the {@link AccountNumberGenerator} the node id of this instance before any account is created.
+ */
+@Configuration
+@RequiredArgsConstructor
+@Slf4j
+public class AccountNumberConfig {
+
+    private final LedgerAccountNumberProperties properties;
+
+    @PostConstruct
+    void useNodeId() {
+        AccountNumberGenerator.useNodeId(properties.getNodeId());
+        log.info("Account numbers are generated with node id [{}]", properties.getNodeId());
+    }
+}
@@ -8,4 +8,9 @@ public final class AppConstants {
     public static final String INSUFFICIENT_BAL = "INSUFFICIENT_BALANCE";
     public static final String INVALID_AMT_CODE = "INVALID_AMOUNT";
     public static final String INVALID_REQUEST = "INVALID_REQUEST";
+    public static final String INVALID_BATCH_SIZE = "INVALID_BATCH_SIZE";
+    public static final String ACCOUNT_LOCK_TIMEOUT = "ACCOUNT_LOCK_TIMEOUT";
+    public static final String PARTITION_NOT_FOUND_CODE = "PARTITION_NOT_FOUND";
+    public static final String TRANSFER_ARCHIVED = "TRANSFER_ARCHIVED";
+    public static final String ACCOUNT_NOT_BATCHABLE = "ACCOUNT_NOT_BATCHABLE";
 }
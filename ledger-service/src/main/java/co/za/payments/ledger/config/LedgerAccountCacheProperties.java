@@ -0,0 +1,41 @@
+package co.za.payments.ledger.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "ledger.account-cache")
+@Validated
+public class LedgerAccountCacheProperties {
+
+    private boolean enabled;
+
+    @Min(value = 1, message = "maximum-size must have a minimum value of 1")
+    private long maximumSize = 100_000;
+
+    /**
+     * Upper bound on the age of a cached account, a safety net for balance changes made outside the ledger.
+     */
+    @NotNull(message = "expire-after-write must not be null")
+    private Duration expireAfterWrite = Duration.ofMinutes(5);
+
+    /**
+     * Number of the most active accounts loaded at startup, {@code 0} to start cold.
+     */
+    @Min(value = 0, message = "warm-up-size must have a minimum value of 0")
+    private int warmUpSize;
+
+    /**
+     * Period whose ledger entries rank the accounts for the warm up.
+     */
+    @NotNull(message = "warm-up-window must not be null")
+    private Duration warmUpWindow = Duration.ofDays(1);
+
+}
@@ -0,0 +1,27 @@
+package co.za.payments.ledger.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "ledger.account-import")
+@Validated
+public class LedgerAccountImportProperties {
+
+    /**
+     * Maximum number of accounts accepted by one {@code POST /accounts/bulk}, all of them are held in memory.
+     */
+    @Min(value = 1, message = "max-accounts must have a minimum value of 1")
+    private int maxAccounts = 1_000_000;
+
+    /**
+     * Accounts inserted per JDBC batch.
+     */
+    @Min(value = 1, message = "batch-size must have a minimum value of 1")
+    private int batchSize = 1000;
+
+}
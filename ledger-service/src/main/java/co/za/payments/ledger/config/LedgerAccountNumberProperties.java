@@ -0,0 +1,23 @@
+package co.za.payments.ledger.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "ledger.account-numbers")
+@Validated
+public class LedgerAccountNumberProperties {
+
+    /**
+     * Part of every account number generated by this instance, instances creating accounts must each have their own.
+     */
+    @Min(value = 0, message = "node-id must have a minimum value of 0")
+    @Max(value = 999, message = "node-id must have a maximum value of 999")
+    private int nodeId;
+
+}
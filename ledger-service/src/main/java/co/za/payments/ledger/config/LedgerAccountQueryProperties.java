@@ -0,0 +1,21 @@
+package co.za.payments.ledger.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "ledger.account-query")
+@Validated
+public class LedgerAccountQueryProperties {
+
+    /**
+     * Maximum number of account ids accepted by {@code POST /accounts/query}.
+     */
+    @Min(value = 1, message = "max-ids must have a minimum value of 1")
+    private int maxIds = 5_000;
+
+}
@@ -0,0 +1,56 @@
+package co.za.payments.ledger.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "ledger.archive")
+@Validated
+public class LedgerArchiveProperties {
+
+    /**
+     * Whether ledger-service moves old ledger entries out of {@code ledger_entry} into segment files.
+     */
+    private boolean enabled;
+
+    /**
+     * Directory of the segment files, it must survive restarts.
+     */
+    @NotBlank(message = "directory must not be blank")
+    private String directory = "ledger-archive";
+
+    /**
+     * Months before the current one whose entries stay in {@code ledger_entry}, older months are archived.
+     */
+    @Min(value = 1, message = "retain-months must have a minimum value of 1")
+    private int retainMonths = 12;
+
+    /**
+     * Entries of an account per compressed block, the unit read to serve a statement page.
+     */
+    @Min(value = 1, message = "block-size must have a minimum value of 1")
+    private int blockSize = 1024;
+
+    @Min(value = 0, message = "compression-level must have a minimum value of 0")
+    @Max(value = 9, message = "compression-level must have a maximum value of 9")
+    private int compressionLevel = 6;
+
+    /**
+     * Archived entries deleted from {@code ledger_entry} per transaction.
+     */
+    @Min(value = 1, message = "delete-batch-size must have a minimum value of 1")
+    private int deleteBatchSize = 5000;
+
+    @NotNull(message = "check-interval must not be null")
+    private Duration checkInterval = Duration.ofHours(1);
+
+}
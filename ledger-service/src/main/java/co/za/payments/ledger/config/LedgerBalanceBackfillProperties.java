@@ -0,0 +1,33 @@
+package co.za.payments.ledger.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "ledger.balance-backfill")
+@Validated
+public class LedgerBalanceBackfillProperties {
+
+    /**
+     * Whether to fill {@code ledger_entry.balance_after} of existing rows in the background once the application
+     * is ready.
+     */
+    private boolean runOnStartup;
+
+    /**
+     * Number of workers, each fills the accounts of one partition one after another.
+     */
+    @Min(value = 1, message = "parallelism must have a minimum value of 1")
+    private int parallelism = 4;
+
+    /**
+     * Entries loaded, filled and flushed at a time while walking the history of an account.
+     */
+    @Min(value = 1, message = "page-size must have a minimum value of 1")
+    private int pageSize = 1_000;
+
+}
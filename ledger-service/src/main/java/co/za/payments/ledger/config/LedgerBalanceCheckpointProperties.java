@@ -0,0 +1,51 @@
+package co.za.payments.ledger.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "ledger.balance-checkpoints")
+@Validated
+public class LedgerBalanceCheckpointProperties {
+
+    private boolean enabled;
+
+    /**
+     * Time between checkpoints, aligned to the epoch so a day checkpoints every account at midnight UTC.
+     */
+    @NotNull(message = "interval must not be null")
+    private Duration interval = Duration.ofDays(1);
+
+    /**
+     * How long after a checkpoint instant the job waits before taking it, so transfers created just before it
+     * have committed.
+     */
+    @NotNull(message = "settle-delay must not be null")
+    private Duration settleDelay = Duration.ofMinutes(5);
+
+    /**
+     * How often the job looks for a checkpoint that is due, an account already checkpointed is skipped.
+     */
+    @NotNull(message = "check-interval must not be null")
+    private Duration checkInterval = Duration.ofMinutes(5);
+
+    /**
+     * Accounts checkpointed per transaction.
+     */
+    @Min(value = 1, message = "chunk-size must have a minimum value of 1")
+    private int chunkSize = 500;
+
+    /**
+     * Number of chunks checkpointed in parallel.
+     */
+    @Min(value = 1, message = "parallelism must have a minimum value of 1")
+    private int parallelism = 4;
+
+}
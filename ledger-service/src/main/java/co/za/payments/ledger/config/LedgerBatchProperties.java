@@ -0,0 +1,44 @@
+package co.za.payments.ledger.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "ledger.batch")
+@Validated
+public class LedgerBatchProperties {
+
+    @Min(value = 1, message = "max-size must have a minimum value of 1")
+    private int maxSize = 1000;
+
+    /**
+     * Number of transfers applied per database transaction.
+     */
+    @Min(value = 1, message = "chunk-size must have a minimum value of 1")
+    private int chunkSize = 250;
+
+    @NotNull(message = "scheduler must not be null")
+    private Scheduler scheduler = Scheduler.SEQUENTIAL;
+
+    /**
+     * Number of chunks the conflict graph scheduler writes at the same time, each on its own connection.
+     */
+    @Min(value = 1, message = "parallelism must have a minimum value of 1")
+    private int parallelism = 4;
+
+    public enum Scheduler {
+        /**
+         * Writes the chunks one after another in submission order.
+         */
+        SEQUENTIAL,
+        /**
+         * Splits the batch into waves of transfers sharing no account and writes the chunks of a wave in parallel.
+         */
+        CONFLICT_GRAPH
+    }
+}
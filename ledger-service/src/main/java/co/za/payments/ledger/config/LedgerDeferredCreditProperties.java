@@ -0,0 +1,38 @@
+package co.za.payments.ledger.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "ledger.deferred-credits")
+@Validated
+public class LedgerDeferredCreditProperties {
+
+    private boolean enabled;
+
+    /**
+     * Credit-heavy accounts whose credits are applied to the balance by the aggregator.
+     */
+    @NotNull(message = "account-ids must not be null")
+    private Set<UUID> accountIds = new HashSet<>();
+
+    /**
+     * Delay between two aggregator runs.
+     */
+    @NotNull(message = "apply-interval must not be null")
+    private Duration applyInterval = Duration.ofMillis(5);
+
+    @Min(value = 1, message = "max-batch-size must have a minimum value of 1")
+    private int maxBatchSize = 5_000;
+
+}
@@ -0,0 +1,41 @@
+package co.za.payments.ledger.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "ledger.group-commit")
+@Validated
+public class LedgerGroupCommitProperties {
+
+    private boolean enabled;
+
+    @Min(value = 1, message = "writer-threads must have a minimum value of 1")
+    private int writerThreads = 2;
+
+    @Min(value = 1, message = "max-batch-size must have a minimum value of 1")
+    private int maxBatchSize = 64;
+
+    /**
+     * How long a writer waits for more transfers after the first one of a micro-batch arrives.
+     */
+    @NotNull(message = "max-wait must not be null")
+    private Duration maxWait = Duration.ofNanos(500_000);
+
+    @Min(value = 1, message = "queue-capacity must have a minimum value of 1")
+    private int queueCapacity = 10_000;
+
+    /**
+     * How long a transfer waits for room in the queue, and then for its micro-batch to commit.
+     */
+    @NotNull(message = "submit-timeout must not be null")
+    private Duration submitTimeout = Duration.ofSeconds(5);
+
+}
@@ -0,0 +1,66 @@
+package co.za.payments.ledger.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "ledger.hot-accounts")
+@Validated
+public class LedgerHotAccountProperties {
+
+    private boolean enabled;
+
+    /**
+     * Accounts whose balances are held in memory by the hot account engine.
+     */
+    @NotNull(message = "account-ids must not be null")
+    private Set<UUID> accountIds = new HashSet<>();
+
+    @NotNull(message = "journal-dir must not be null")
+    private Path journalDir = Path.of("data", "journal");
+
+    @Min(value = 1, message = "queue-capacity must have a minimum value of 1")
+    private int queueCapacity = 10_000;
+
+    /**
+     * Maximum number of transfers journaled per fsync.
+     */
+    @Min(value = 1, message = "max-batch-size must have a minimum value of 1")
+    private int maxBatchSize = 256;
+
+    /**
+     * How long a hot account transfer waits for room in the queue, and then for its outcome.
+     */
+    @NotNull(message = "submit-timeout must not be null")
+    private Duration submitTimeout = Duration.ofSeconds(5);
+
+    @NotNull(message = "flush-interval must not be null")
+    private Duration flushInterval = Duration.ofMillis(50);
+
+    @Min(value = 1, message = "flush-batch-size must have a minimum value of 1")
+    private int flushBatchSize = 1_000;
+
+    /**
+     * How long flushed transfer ids are still remembered in memory to catch duplicates already in flight.
+     */
+    @NotNull(message = "duplicate-retention must not be null")
+    private Duration duplicateRetention = Duration.ofMinutes(1);
+
+    /**
+     * Journal size after which a fully flushed journal is truncated.
+     */
+    @Min(value = 1, message = "compact-threshold-bytes must have a minimum value of 1")
+    private long compactThresholdBytes = 64L * 1024 * 1024;
+
+}
@@ -0,0 +1,38 @@
+package co.za.payments.ledger.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "ledger.ingest")
+@Validated
+public class LedgerIngestProperties {
+
+    /**
+     * File of ledger entries ingested when the application starts, nothing is ingested without one.
+     */
+    private String file = "";
+
+    /**
+     * Identifies an ingestion, starting one with the id of an unfinished ingestion resumes it where it stopped.
+     */
+    @NotBlank(message = "run-id must not be blank")
+    private String runId = "default";
+
+    /**
+     * Transfers loaded, together with their balance changes and the file offset, per transaction.
+     */
+    @Min(value = 1, message = "chunk-size must have a minimum value of 1")
+    private int chunkSize = 50_000;
+
+    /**
+     * Whether to shut the application down once the ingestion has finished, for running it as a one-off command.
+     */
+    private boolean exitOnCompletion;
+
+}
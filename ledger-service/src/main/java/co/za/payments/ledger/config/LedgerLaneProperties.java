@@ -0,0 +1,23 @@
+package co.za.payments.ledger.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "ledger.lanes")
+@Validated
+public class LedgerLaneProperties {
+
+    private boolean enabled;
+
+    /**
+     * Number of lanes account ids are hashed to, more lanes means fewer unrelated transfers sharing one.
+     */
+    @Min(value = 1, message = "count must have a minimum value of 1")
+    private int count = 256;
+
+}
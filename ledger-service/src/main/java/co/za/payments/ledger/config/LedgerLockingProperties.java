@@ -0,0 +1,37 @@
+package co.za.payments.ledger.config;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "ledger.locking")
+@Validated
+public class LedgerLockingProperties {
+
+    @NotNull(message = "strategy must not be null")
+    private LockingStrategy strategy = LockingStrategy.OPTIMISTIC;
+
+    /**
+     * How long a transfer waits for an account row lock in pessimistic mode before giving up.
+     */
+    @NotNull(message = "lock-timeout must not be null")
+    private Duration lockTimeout = Duration.ofSeconds(2);
+
+    public enum LockingStrategy {
+        /**
+         * Reads accounts without locks and relies on {@code @Version} plus retries with backoff.
+         */
+        OPTIMISTIC,
+        /**
+         * Reads accounts with {@code SELECT ... FOR UPDATE} in ascending account id order, so concurrent
+         * transfers on the same account wait for each other instead of failing and retrying.
+         */
+        PESSIMISTIC
+    }
+}
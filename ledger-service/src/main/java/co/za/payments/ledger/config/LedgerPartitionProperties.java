@@ -0,0 +1,39 @@
+package co.za.payments.ledger.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "ledger.partitions")
+@Validated
+public class LedgerPartitionProperties {
+
+    /**
+     * Whether ledger-service range partitions {@code ledger_entry} by month of {@code created_at}, PostgreSQL only.
+     */
+    private boolean enabled;
+
+    /**
+     * Months after the current one that always have a partition, so inserts never wait for maintenance.
+     */
+    @Min(value = 1, message = "months-ahead must have a minimum value of 1")
+    private int monthsAhead = 3;
+
+    /**
+     * Months before the current one whose partitions stay attached, older ones are detached and kept as plain
+     * tables. {@code 0} keeps every partition attached.
+     */
+    @Min(value = 0, message = "retain-months must have a minimum value of 0")
+    private int retainMonths;
+
+    @NotNull(message = "check-interval must not be null")
+    private Duration checkInterval = Duration.ofHours(1);
+
+}
@@ -0,0 +1,56 @@
+package co.za.payments.ledger.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "ledger.reconciliation")
+@Validated
+public class LedgerReconciliationProperties {
+
+    private boolean enabled;
+
+    /**
+     * How often the reconciler looks for entries created since its last run.
+     */
+    @NotNull(message = "check-interval must not be null")
+    private Duration checkInterval = Duration.ofMinutes(1);
+
+    /**
+     * How far behind the present the reconciler stays, so transfers created before its cutoff have committed.
+     */
+    @NotNull(message = "settle-delay must not be null")
+    private Duration settleDelay = Duration.ofMinutes(1);
+
+    /**
+     * Ledger entries read per chunk, which bounds the accounts and transfers held in memory at a time.
+     */
+    @Min(value = 1, message = "chunk-size must have a minimum value of 1")
+    private int chunkSize = 1_000;
+
+    /**
+     * Number of account partitions of a chunk reconciled in parallel.
+     */
+    @Min(value = 1, message = "parallelism must have a minimum value of 1")
+    private int parallelism = 4;
+
+    /**
+     * Pause after each chunk, which throttles the load the reconciler puts on the database.
+     */
+    @NotNull(message = "chunk-pause must not be null")
+    private Duration chunkPause = Duration.ofMillis(50);
+
+    /**
+     * Most mismatches of each kind returned by the admin endpoint.
+     */
+    @Min(value = 1, message = "max-report-size must have a minimum value of 1")
+    private int maxReportSize = 1_000;
+
+}
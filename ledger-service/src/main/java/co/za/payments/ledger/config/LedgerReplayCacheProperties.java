@@ -0,0 +1,29 @@
+package co.za.payments.ledger.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "ledger.replay-cache")
+@Validated
+public class LedgerReplayCacheProperties {
+
+    private boolean enabled;
+
+    @Min(value = 1, message = "maximum-size must have a minimum value of 1")
+    private long maximumSize = 100_000;
+
+    /**
+     * How long a written transfer is answered from memory, should cover the retry window of the transfer service.
+     */
+    @NotNull(message = "ttl must not be null")
+    private Duration ttl = Duration.ofMinutes(10);
+
+}
@@ -0,0 +1,71 @@
+package co.za.payments.ledger.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "ledger.replay")
+@Validated
+public class LedgerReplayProperties {
+
+    /**
+     * What the replay does when the application starts, nothing by default.
+     */
+    @NotNull(message = "mode must not be null")
+    private ReplayMode mode = ReplayMode.OFF;
+
+    /**
+     * Identifies a replay, starting one with the id of an unfinished replay resumes it where it stopped.
+     */
+    @NotBlank(message = "run-id must not be blank")
+    private String runId = "default";
+
+    /**
+     * Number of workers, each streams the entries of one partition at a time. Every worker holds two
+     * connections, so it can be at most half the connection pool.
+     */
+    @Min(value = 1, message = "parallelism must have a minimum value of 1")
+    private int parallelism = 4;
+
+    /**
+     * Number of account id ranges the accounts are split into, more than the workers so the ranges with the most
+     * entries do not hold up the end of the replay.
+     */
+    @Min(value = 1, message = "partitions must have a minimum value of 1")
+    private int partitions = 64;
+
+    /**
+     * Accounts written back, together with the progress of their partition, per transaction.
+     */
+    @Min(value = 1, message = "batch-size must have a minimum value of 1")
+    private int batchSize = 1_000;
+
+    @NotNull(message = "progress-interval must not be null")
+    private Duration progressInterval = Duration.ofSeconds(10);
+
+    /**
+     * Whether to shut the application down once a replay started on startup has finished, for running it as a
+     * one-off command.
+     */
+    private boolean exitOnCompletion;
+
+    public enum ReplayMode {
+        OFF,
+        /**
+         * Records the accounts whose balance differs from the one replayed, without changing them.
+         */
+        REPORT,
+        /**
+         * Records the differences and writes the replayed balances back.
+         */
+        APPLY
+    }
+}
@@ -0,0 +1,88 @@
+package co.za.payments.ledger.config;
+
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.service.LedgerService;
+import co.za.payments.ledger.service.dedup.ReplayCachingLedgerService;
+import co.za.payments.ledger.service.dedup.TransferResponseCache;
+import co.za.payments.ledger.service.deferred.DeferredCreditLedgerService;
+import co.za.payments.ledger.service.deferred.DeferredCreditWriter;
+import co.za.payments.ledger.service.hot.HotAccountEngine;
+import co.za.payments.ledger.service.hot.HotAccountLedgerService;
+import co.za.payments.ledger.service.hot.HotAccountStore;
+import co.za.payments.ledger.service.impl.AccountLanes;
+import co.za.payments.ledger.service.impl.GroupCommitEngine;
+import co.za.payments.ledger.service.impl.GroupCommitLedgerService;
+import co.za.payments.ledger.service.impl.LaneLedgerService;
+import co.za.payments.ledger.service.impl.LedgerEntryServiceImpl;
+import co.za.payments.ledger.service.shard.AccountShardRegistry;
+import co.za.payments.ledger.service.shard.ShardedAccountLedgerService;
+import co.za.payments.ledger.service.shard.ShardedTransferWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Composes the {@link LedgerService} used by the API from the optional write engines that are enabled.
+ * Group commit takes precedence over lanes, as both only change how transfers reach the database. When none is
+ * enabled {@link LedgerEntryServiceImpl} is the only {@link LedgerService}. The replay cache wraps all of them, so a
+ * replayed transfer is answered before any engine sees it.
+ */
+@Configuration
+@Slf4j
+public class LedgerServiceConfig {
+
+    @Bean
+    @Primary
+    @ConditionalOnExpression("${ledger.group-commit.enabled:false} or ${ledger.lanes.enabled:false} or ${ledger.sharding.enabled:false}"
+            + " or ${ledger.deferred-credits.enabled:false} or ${ledger.hot-accounts.enabled:false}"
+            + " or ${ledger.replay-cache.enabled:false}")
+    public LedgerService ledgerService(LedgerEntryServiceImpl ledgerEntryService,
+                                       ObjectProvider<GroupCommitEngine> groupCommitEngine,
+                                       ObjectProvider<AccountLanes> accountLanes,
+                                       ObjectProvider<AccountShardRegistry> shardRegistry,
+                                       ObjectProvider<ShardedTransferWriter> shardedTransferWriter,
+                                       ObjectProvider<DeferredCreditWriter> deferredCreditWriter,
+                                       ObjectProvider<HotAccountEngine> hotAccountEngine,
+                                       ObjectProvider<HotAccountStore> hotAccountStore,
+                                       ObjectProvider<TransferResponseCache> transferResponseCache,
+                                       AccountRepository accountRepository,
+                                       LedgerGroupCommitProperties groupCommitProperties,
+                                       LedgerHotAccountProperties hotAccountProperties) {
+        LedgerService ledgerService = ledgerEntryService;
+
+        var groupCommit = groupCommitEngine.getIfAvailable();
+        var lanes = accountLanes.getIfAvailable();
+        if (null != groupCommit) {
+            ledgerService = new GroupCommitLedgerService(groupCommit, groupCommitProperties);
+        } else if (null != lanes) {
+            ledgerService = new LaneLedgerService(lanes, ledgerService);
+        }
+
+        var shards = shardRegistry.getIfAvailable();
+        if (null != shards) {
+            ledgerService = new ShardedAccountLedgerService(shards, shardedTransferWriter.getObject(), ledgerService);
+        }
+
+        var deferredCredits = deferredCreditWriter.getIfAvailable();
+        if (null != deferredCredits) {
+            ledgerService = new DeferredCreditLedgerService(deferredCredits, ledgerService);
+        }
+
+        var hotAccounts = hotAccountEngine.getIfAvailable();
+        if (null != hotAccounts) {
+            ledgerService = new HotAccountLedgerService(hotAccounts, hotAccountStore.getObject(), accountRepository,
+                    hotAccountProperties, ledgerService);
+        }
+
+        var replayCache = transferResponseCache.getIfAvailable();
+        if (null != replayCache) {
+            ledgerService = new ReplayCachingLedgerService(replayCache, ledgerService);
+        }
+
+        log.info("Ledger transfers are handled by [{}]", ledgerService.getClass().getSimpleName());
+        return ledgerService;
+    }
+}
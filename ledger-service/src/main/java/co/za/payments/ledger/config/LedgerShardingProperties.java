@@ -0,0 +1,27 @@
+package co.za.payments.ledger.config;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "ledger.sharding")
+@Validated
+public class LedgerShardingProperties {
+
+    private boolean enabled;
+
+    /**
+     * Accounts to split into balance buckets on startup, by account id and number of buckets.
+     */
+    @NotNull(message = "accounts must not be null")
+    private Map<UUID, Integer> accounts = new HashMap<>();
+
+}
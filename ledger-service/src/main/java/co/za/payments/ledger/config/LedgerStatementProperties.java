@@ -0,0 +1,27 @@
+package co.za.payments.ledger.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "ledger.statements")
+@Validated
+public class LedgerStatementProperties {
+
+    /**
+     * Entries per page of {@code GET /accounts/{id}/entries} when the request has no size.
+     */
+    @Min(value = 1, message = "default-page-size must have a minimum value of 1")
+    private int defaultPageSize = 100;
+
+    /**
+     * Largest page size a request may ask for, the NDJSON stream is not limited.
+     */
+    @Min(value = 1, message = "max-page-size must have a minimum value of 1")
+    private int maxPageSize = 1_000;
+
+}
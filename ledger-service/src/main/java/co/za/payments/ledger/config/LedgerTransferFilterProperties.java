@@ -0,0 +1,44 @@
+package co.za.payments.ledger.config;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "ledger.transfer-filter")
+@Validated
+public class LedgerTransferFilterProperties {
+
+    private boolean enabled;
+
+    /**
+     * Transfer ids one generation of the filter is sized for, a full generation is rotated early.
+     */
+    @Min(value = 1, message = "expected-insertions must have a minimum value of 1")
+    private int expectedInsertions = 1_000_000;
+
+    @DecimalMin(value = "0.000001", message = "false-positive-probability must have a minimum value of 0.000001")
+    @DecimalMax(value = "0.5", message = "false-positive-probability must have a maximum value of 0.5")
+    private double falsePositiveProbability = 0.01;
+
+    /**
+     * Time after which a new generation is started.
+     */
+    @NotNull(message = "window must not be null")
+    private Duration window = Duration.ofHours(1);
+
+    /**
+     * Generations kept, the oldest one is dropped on rotation.
+     */
+    @Min(value = 1, message = "generations must have a minimum value of 1")
+    private int generations = 24;
+
+}
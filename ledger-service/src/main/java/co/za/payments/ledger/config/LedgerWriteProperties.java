@@ -0,0 +1,30 @@
+package co.za.payments.ledger.config;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+@Component
+@Data
+@ConfigurationProperties(prefix = "ledger.write")
+@Validated
+public class LedgerWriteProperties {
+
+    @NotNull(message = "mode must not be null")
+    private WriteMode mode = WriteMode.JPA;
+
+    public enum WriteMode {
+        /**
+         * Loads both accounts, applies debit/credit on the entities and relies on
+         * {@code @Version} optimistic locking plus retries.
+         */
+        JPA,
+        /**
+         * Applies the debit as a guarded {@code UPDATE ... WHERE balance >= :amount} and the
+         * credit as a plain increment, without reading the accounts first.
+         */
+        CONDITIONAL
+    }
+}
@@ -10,8 +10,6 @@ import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import util.AccountNumberGenerator;
 
-import java.math.BigDecimal;
-
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @Data
 @EqualsAndHashCode(callSuper = true)
@@ -19,42 +17,45 @@ import java.math.BigDecimal;
 @Table(name = "accounts")
 public class Account extends VersionedEntity {
 
-    @Column(nullable = false, precision = 18, scale = 2)
-    private BigDecimal balance;
+    /**
+     * Balance in minor units, see {@link Money}.
+     */
+    @Column(nullable = false)
+    private long balance;
 
     @Column(nullable = false, unique = true)
     private String accountNumber;
 
-    public static Account instanceOf(BigDecimal balance) {
+    public static Account instanceOf(long balance) {
         return new Account(balance, AccountNumberGenerator.generate());
     }
 
-    private Account(BigDecimal balance, String accountNumber) {
+    private Account(long balance, String accountNumber) {
         this.balance = balance;
         this.accountNumber = accountNumber;
     }
 
-    public void credit(BigDecimal amount) {
+    public void credit(long amount) {
         this.validateAmount(amount, EntryType.CREDIT);
-        this.balance = this.balance.add(amount);
+        this.balance += amount;
     }
 
-    public void debit(BigDecimal amount) {
+    public void debit(long amount) {
         validateAmount(amount, EntryType.DEBIT);
 
         if (hasInsufficientFunds(amount)) {
             throw new InsufficientAccountBalanceException(this.getId());
         }
 
-        this.balance = this.balance.subtract(amount);
+        this.balance -= amount;
     }
 
-    private boolean hasInsufficientFunds(BigDecimal amount) {
-        return this.balance.compareTo(amount) < 0;
+    private boolean hasInsufficientFunds(long amount) {
+        return this.balance < amount;
     }
 
-    private void validateAmount(BigDecimal amount, EntryType type) {
-        if (null == amount || amount.compareTo(BigDecimal.ZERO) <= 0) {
+    private void validateAmount(long amount, EntryType type) {
+        if (amount <= 0) {
             throw new InvalidAmountException(type, amount);
         }
     }
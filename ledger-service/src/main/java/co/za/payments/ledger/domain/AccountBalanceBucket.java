@@ -0,0 +1,37 @@
+package co.za.payments.ledger.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.UUID;
+
+/**
+ * One of the balance buckets of a sharded account. The balance of a sharded account is the balance on its
+ * {@link Account} row plus the balances of all its buckets.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Entity
+@Table(name = "account_balance_bucket", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"account_id", "bucket_index"})
+})
+public class AccountBalanceBucket extends AbstractEntity {
+
+    @Column(name = "account_id", nullable = false, updatable = false)
+    private UUID accountId;
+
+    @Column(name = "bucket_index", nullable = false, updatable = false)
+    private int bucketIndex;
+
+    /**
+     * Balance in minor units, see {@link Money}.
+     */
+    @Column(nullable = false)
+    private long balance;
+
+    public static AccountBalanceBucket empty(UUID accountId, int bucketIndex) {
+        return new AccountBalanceBucket(accountId, bucketIndex, 0);
+    }
+}
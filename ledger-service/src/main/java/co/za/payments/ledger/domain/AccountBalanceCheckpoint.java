@@ -0,0 +1,38 @@
+package co.za.payments.ledger.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Balance of an account as of a point in time, including every ledger entry created up to and at that instant.
+ * A balance at any other time is the nearest checkpoint plus or minus the entries in between.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Entity
+@Table(name = "account_balance_checkpoint", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"account_id", "as_of"})
+})
+public class AccountBalanceCheckpoint extends AbstractEntity {
+
+    @Column(name = "account_id", nullable = false, updatable = false)
+    private UUID accountId;
+
+    @Column(name = "as_of", nullable = false, updatable = false)
+    private Instant asOf;
+
+    /**
+     * Balance in minor units, see {@link Money}.
+     */
+    @Column(nullable = false, updatable = false)
+    private long balance;
+
+    public static AccountBalanceCheckpoint of(UUID accountId, Instant asOf, long balance) {
+        return new AccountBalanceCheckpoint(accountId, asOf, balance);
+    }
+}
@@ -0,0 +1,27 @@
+package co.za.payments.ledger.domain;
+
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * <p>The one order in which account rows are locked, so that two transactions locking overlapping accounts always
+ * take them in the same order and cannot deadlock.</p>
+ * <p>PostgreSQL and H2 sort uuids as unsigned bytes, while {@link UUID#compareTo} compares signed longs, and the
+ * two disagree whenever the top bit of either half differs. Paths locking rows one statement at a time order them
+ * with {@link #COMPARATOR}, which matches the {@code ORDER BY id} of the paths locking them in one statement.</p>
+ */
+public final class AccountLockOrder {
+
+    public static final Comparator<UUID> COMPARATOR = Comparator
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    private AccountLockOrder() { }
+
+    /**
+     * @return whether the row of the first account is locked before that of the second
+     */
+    public static boolean lockedFirst(UUID first, UUID second) {
+        return COMPARATOR.compare(first, second) <= 0;
+    }
+}
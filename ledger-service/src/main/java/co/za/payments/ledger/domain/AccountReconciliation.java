@@ -0,0 +1,60 @@
+package co.za.payments.ledger.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Running balance of an account derived from its ledger entries, carried forward by the reconciler from one
+ * cutoff to the next. {@code difference} is what the stored balance of the account differed from it by at the
+ * last check, zero when they agree.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Entity
+@Table(name = "account_reconciliation")
+public class AccountReconciliation extends AbstractEntity {
+
+    @Column(name = "account_id", nullable = false, updatable = false, unique = true)
+    private UUID accountId;
+
+    /**
+     * Balance in minor units including every entry created up to and at {@code reconciledTo}, see {@link Money}.
+     */
+    @Column(nullable = false)
+    private long balance;
+
+    @Column(name = "reconciled_to", nullable = false)
+    private Instant reconciledTo;
+
+    /**
+     * Stored balance less the derived one in minor units.
+     */
+    @Column(nullable = false)
+    private long difference;
+
+    /**
+     * Starts reconciling an account from its stored balance as of the given instant.
+     */
+    public static AccountReconciliation baseline(UUID accountId, Instant reconciledTo, long balance) {
+        return new AccountReconciliation(accountId, balance, reconciledTo, 0);
+    }
+
+    /**
+     * Carries the derived balance forward by the entries created up to the instant and compares it with the
+     * stored balance as of that instant.
+     */
+    public void advance(Instant to, long delta, long storedBalance) {
+        this.balance += delta;
+        this.reconciledTo = to;
+        this.difference = storedBalance - this.balance;
+    }
+
+    public boolean isMismatched() {
+        return this.difference != 0;
+    }
+}
@@ -4,7 +4,6 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import lombok.*;
 
-import java.math.BigDecimal;
 import java.util.UUID;
 
 @Data
@@ -14,6 +13,9 @@ import java.util.UUID;
 @Entity
 @Table(name = "ledger_entry", uniqueConstraints = {
         @UniqueConstraint(columnNames = {"transfer_id", "type"})
+}, indexes = {
+        @Index(name = "idx_ledger_entry_account_created_id", columnList = "account_id, created_at, id"),
+        @Index(name = "idx_ledger_entry_created_id", columnList = "created_at, id")
 })
 public class LedgerEntry extends AbstractEntity {
 
@@ -23,20 +25,65 @@ public class LedgerEntry extends AbstractEntity {
     @Column(nullable = false)
     private UUID accountId;
 
-    @Column(nullable = false, updatable = false, precision = 18, scale = 2)
+    /**
+     * Amount in minor units, see {@link Money}.
+     */
+    @Column(nullable = false, updatable = false)
     @Min(1)
-    private BigDecimal amount;
+    private long amount;
 
     @Enumerated(value = EnumType.STRING)
     @Column(nullable = false, updatable = false)
     private EntryType type;
 
-    public static LedgerEntry debit(UUID transferId, UUID accountId, BigDecimal amount) {
-        return new LedgerEntry(transferId, accountId, amount, EntryType.DEBIT);
+    /**
+     * Whether the amount is already reflected in {@code accounts.balance}, only deferred credits start out unapplied.
+     */
+    @Column(name = "balance_applied", nullable = false)
+    private boolean balanceApplied;
+
+    /**
+     * Balance of the account in minor units right after this entry, captured by the transaction that changed it.
+     * {@code null} where the writer does not serialise on the account, i.e. credits to balance buckets and
+     * deferred credits, and on rows written before the column existed until the backfill fills them.
+     */
+    @Column(name = "balance_after")
+    private Long balanceAfter;
+
+    /**
+     * A debit without a recorded balance after it.
+     */
+    public static LedgerEntry debit(UUID transferId, UUID accountId, long amount) {
+        return debit(transferId, accountId, amount, null);
+    }
+
+    public static LedgerEntry debit(UUID transferId, UUID accountId, long amount, Long balanceAfter) {
+        return new LedgerEntry(transferId, accountId, amount, EntryType.DEBIT, true, balanceAfter);
+    }
+
+    /**
+     * A credit without a recorded balance after it.
+     */
+    public static LedgerEntry credit(UUID transferId, UUID accountId, long amount) {
+        return credit(transferId, accountId, amount, null);
+    }
+
+    public static LedgerEntry credit(UUID transferId, UUID accountId, long amount, Long balanceAfter) {
+        return new LedgerEntry(transferId, accountId, amount, EntryType.CREDIT, true, balanceAfter);
+    }
+
+    /**
+     * A credit whose amount is added to the account balance later by the deferred credit aggregator.
+     */
+    public static LedgerEntry deferredCredit(UUID transferId, UUID accountId, long amount) {
+        return new LedgerEntry(transferId, accountId, amount, EntryType.CREDIT, false, null);
     }
 
-    public static LedgerEntry credit(UUID transferId, UUID accountId, BigDecimal amount) {
-        return new LedgerEntry(transferId, accountId, amount, EntryType.CREDIT);
+    /**
+     * @return the amount signed by its effect on the account balance, negative for a debit
+     */
+    public long signedAmount() {
+        return isDebit() ? -amount : amount;
     }
 
     public boolean isDebit() {
@@ -0,0 +1,45 @@
+package co.za.payments.ledger.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Progress of an ingestion run through its file. {@code offset} is the byte offset after the last transfer
+ * committed, the run resumes there.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Entity
+@Table(name = "ledger_ingest_run")
+public class LedgerIngestRun extends AbstractEntity {
+
+    @Column(name = "run_id", nullable = false, updatable = false, unique = true)
+    private String runId;
+
+    @Column(name = "file_name", nullable = false, updatable = false)
+    private String fileName;
+
+    @Column(name = "file_offset", nullable = false)
+    private long offset;
+
+    @Column(name = "line_number", nullable = false)
+    private long line;
+
+    @Column(nullable = false)
+    private long transfers;
+
+    @Column(nullable = false)
+    private boolean completed;
+
+    public static LedgerIngestRun of(String runId, String fileName) {
+        return new LedgerIngestRun(runId, fileName, 0, 0, 0, false);
+    }
+
+    public void advance(long offset, long line, long transfers) {
+        this.offset = offset;
+        this.line = line;
+        this.transfers += transfers;
+    }
+}
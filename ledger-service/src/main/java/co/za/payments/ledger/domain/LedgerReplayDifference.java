@@ -0,0 +1,40 @@
+package co.za.payments.ledger.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.UUID;
+
+/**
+ * An account whose stored balance differed from the one replayed from its ledger entries. {@code replayedBalance}
+ * is {@code null} when none of the entries recorded a balance after it, so the opening balance is unknown.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Entity
+@Table(name = "ledger_replay_difference", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"run_id", "account_id"})
+})
+public class LedgerReplayDifference extends AbstractEntity {
+
+    @Column(name = "run_id", nullable = false, updatable = false)
+    private String runId;
+
+    @Column(name = "account_id", nullable = false, updatable = false)
+    private UUID accountId;
+
+    /**
+     * Balance in minor units before the replay, see {@link Money}.
+     */
+    @Column(name = "stored_balance", nullable = false, updatable = false)
+    private long storedBalance;
+
+    @Column(name = "replayed_balance", updatable = false)
+    private Long replayedBalance;
+
+    public static LedgerReplayDifference of(String runId, UUID accountId, long storedBalance, Long replayedBalance) {
+        return new LedgerReplayDifference(runId, accountId, storedBalance, replayedBalance);
+    }
+}
@@ -0,0 +1,59 @@
+package co.za.payments.ledger.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.UUID;
+
+/**
+ * Progress of a ledger replay through the accounts with ids from {@code firstAccountId} to {@code lastAccountId}.
+ * {@code doneAccountId} is the last account written back, the replay resumes after it.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Entity
+@Table(name = "ledger_replay_partition", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"run_id", "partition_index"})
+})
+public class LedgerReplayPartition extends AbstractEntity {
+
+    @Column(name = "run_id", nullable = false, updatable = false)
+    private String runId;
+
+    @Column(name = "partition_index", nullable = false, updatable = false)
+    private int partitionIndex;
+
+    @Column(name = "first_account_id", nullable = false, updatable = false)
+    private UUID firstAccountId;
+
+    @Column(name = "last_account_id", nullable = false, updatable = false)
+    private UUID lastAccountId;
+
+    @Column(name = "done_account_id")
+    private UUID doneAccountId;
+
+    @Column(nullable = false)
+    private long accounts;
+
+    @Column(nullable = false)
+    private long entries;
+
+    @Column(nullable = false)
+    private long differences;
+
+    @Column(nullable = false)
+    private boolean completed;
+
+    public static LedgerReplayPartition of(String runId, int partitionIndex, UUID firstAccountId, UUID lastAccountId) {
+        return new LedgerReplayPartition(runId, partitionIndex, firstAccountId, lastAccountId, null, 0, 0, 0, false);
+    }
+
+    public void advance(UUID doneAccountId, long accounts, long entries, long differences) {
+        this.doneAccountId = doneAccountId;
+        this.accounts += accounts;
+        this.entries += entries;
+        this.differences += differences;
+    }
+}
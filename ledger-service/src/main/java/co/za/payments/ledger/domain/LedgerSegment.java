@@ -0,0 +1,80 @@
+package co.za.payments.ledger.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * <p>A segment file holding the ledger entries created from {@code periodStart} up to {@code periodEnd}, one
+ * calendar month, and how far archiving them has got.</p>
+ * <p>A segment is {@link Status#WRITING} until its file is complete, {@link Status#WRITTEN} with the row count
+ * and SHA-256 of the file, {@link Status#VERIFIED} once the file has been read back and matches the rows in
+ * {@code ledger_entry}, and {@link Status#ARCHIVED} once those rows are deleted and statements read the file.</p>
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Entity
+@Table(name = "ledger_segment")
+public class LedgerSegment extends AbstractEntity {
+
+    public enum Status {
+        WRITING, WRITTEN, VERIFIED, ARCHIVED
+    }
+
+    @Column(name = "period_start", nullable = false, updatable = false, unique = true)
+    private Instant periodStart;
+
+    @Column(name = "period_end", nullable = false, updatable = false)
+    private Instant periodEnd;
+
+    @Column(name = "file_name", nullable = false, updatable = false)
+    private String fileName;
+
+    @Enumerated(value = EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    @Column(name = "row_count", nullable = false)
+    private long rowCount;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    /**
+     * Hex SHA-256 of the file.
+     */
+    @Column(length = 64)
+    private String checksum;
+
+    public static LedgerSegment of(Instant periodStart, Instant periodEnd, String fileName) {
+        return new LedgerSegment(periodStart, periodEnd, fileName, Status.WRITING, 0, 0, null);
+    }
+
+    public void written(long rowCount, long sizeBytes, String checksum) {
+        this.rowCount = rowCount;
+        this.sizeBytes = sizeBytes;
+        this.checksum = checksum;
+        this.status = Status.WRITTEN;
+    }
+
+    public void verified() {
+        this.status = Status.VERIFIED;
+    }
+
+    public void archived() {
+        this.status = Status.ARCHIVED;
+    }
+
+    /**
+     * Starts the file over, after it failed verification.
+     */
+    public void rewrite() {
+        this.rowCount = 0;
+        this.sizeBytes = 0;
+        this.checksum = null;
+        this.status = Status.WRITING;
+    }
+}
@@ -0,0 +1,46 @@
+package co.za.payments.ledger.domain;
+
+import co.za.payments.ledger.exception.InvalidAmountException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversions between decimal amounts and {@code long} minor units (cents). Balances and amounts are held as minor
+ * units everywhere below the API, decimals only appear in requests and responses.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+
+    private Money() { }
+
+    /**
+     * @throws ArithmeticException when the amount has more than {@link #SCALE} decimals or does not fit in a long
+     */
+    public static long toMinorUnits(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Converts an amount received through the API, whether it is positive is checked where it is applied.
+     *
+     * @throws InvalidAmountException when the amount is missing, has more than {@link #SCALE} decimals or does not
+     *                                fit in a long
+     */
+    public static long requireMinorUnits(BigDecimal amount, EntryType type) {
+        if (null == amount) {
+            throw new InvalidAmountException(type, amount);
+        }
+
+        try {
+            return toMinorUnits(amount);
+        } catch (ArithmeticException e) {
+            throw new InvalidAmountException(type, amount);
+        }
+    }
+
+    public static BigDecimal fromMinorUnits(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+}
@@ -0,0 +1,34 @@
+package co.za.payments.ledger.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * The {@code (createdAt, id)} position of the last ledger entry the reconciler has worked through, a single row.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Entity
+@Table(name = "reconciliation_mark")
+public class ReconciliationMark extends AbstractEntity {
+
+    @Column(name = "entry_created_at", nullable = false)
+    private Instant entryCreatedAt;
+
+    @Column(name = "entry_id", nullable = false)
+    private UUID entryId;
+
+    public static ReconciliationMark at(Instant entryCreatedAt, UUID entryId) {
+        return new ReconciliationMark(entryCreatedAt, entryId);
+    }
+
+    public void moveTo(Instant entryCreatedAt, UUID entryId) {
+        this.entryCreatedAt = entryCreatedAt;
+        this.entryId = entryId;
+    }
+}
@@ -0,0 +1,37 @@
+package co.za.payments.ledger.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.UUID;
+
+/**
+ * A transfer whose debits and credits do not add up to the same amount, e.g. one with a leg missing.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Entity
+@Table(name = "transfer_mismatch")
+public class TransferMismatch extends AbstractEntity {
+
+    @Column(name = "transfer_id", nullable = false, updatable = false, unique = true)
+    private UUID transferId;
+
+    /**
+     * Debited amount in minor units, see {@link Money}.
+     */
+    @Column(nullable = false, updatable = false)
+    private long debits;
+
+    /**
+     * Credited amount in minor units, see {@link Money}.
+     */
+    @Column(nullable = false, updatable = false)
+    private long credits;
+
+    public static TransferMismatch of(UUID transferId, long debits, long credits) {
+        return new TransferMismatch(transferId, debits, credits);
+    }
+}
@@ -0,0 +1,11 @@
+package co.za.payments.ledger.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+public record AccountBalanceResponse(@JsonProperty("account_id") UUID accountId,
+                                     BigDecimal balance,
+                                     @JsonProperty("as_of") Instant asOf) { }
@@ -0,0 +1,15 @@
+package co.za.payments.ledger.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * One page of an account statement, {@code nextCursor} is absent on the last page. The opening and closing
+ * balances are those before the first and after the last entry of the page, absent when they were not recorded.
+ */
+public record AccountEntriesResponse(List<AccountEntryResponse> entries,
+                                     @JsonProperty("opening_balance") BigDecimal openingBalance,
+                                     @JsonProperty("closing_balance") BigDecimal closingBalance,
+                                     @JsonProperty("next_cursor") String nextCursor) { }
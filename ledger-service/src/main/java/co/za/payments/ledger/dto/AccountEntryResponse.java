@@ -0,0 +1,14 @@
+package co.za.payments.ledger.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+public record AccountEntryResponse(UUID id,
+                                   @JsonProperty("transfer_id") UUID transferId,
+                                   String type,
+                                   BigDecimal amount,
+                                   @JsonProperty("balance_after") BigDecimal balanceAfter,
+                                   @JsonProperty("created_at") Instant createdAt) { }
@@ -0,0 +1,16 @@
+package co.za.payments.ledger.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * An account whose stored balance differed from the balance its ledger entries add up to, as of {@code asOf}.
+ */
+public record AccountMismatchResponse(@JsonProperty("account_id") UUID accountId,
+                                      @JsonProperty("stored_balance") BigDecimal storedBalance,
+                                      @JsonProperty("ledger_balance") BigDecimal ledgerBalance,
+                                      BigDecimal difference,
+                                      @JsonProperty("as_of") Instant asOf) { }
@@ -0,0 +1,20 @@
+package co.za.payments.ledger.dto;
+
+import co.za.payments.ledger.exception.InvalidBatchSizeException;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+import java.util.UUID;
+
+public record AccountQueryRequest(
+        @NotEmpty(message = "At-least one account id is required")
+        List<@NotNull(message = "Account id must not be null") UUID> ids
+) {
+
+    public void validate(int maxSize) {
+        if (ids.size() > maxSize) {
+            throw new InvalidBatchSizeException("Query of %d account ids exceeds max allowed size of %d".formatted(ids.size(), maxSize));
+        }
+    }
+}
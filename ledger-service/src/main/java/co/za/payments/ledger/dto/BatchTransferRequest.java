@@ -0,0 +1,23 @@
+package co.za.payments.ledger.dto;
+
+import co.za.payments.ledger.exception.InvalidBatchSizeException;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public record BatchTransferRequest(
+        @NotEmpty(message = "At-least one transfer is required")
+        List<@Valid TransferRequest> transfers
+) {
+
+    public void validate(int maxSize) {
+        if (null == transfers || transfers.isEmpty()) {
+            throw new InvalidBatchSizeException("At-least one transfer is required");
+        }
+
+        if (transfers.size() > maxSize) {
+            throw new InvalidBatchSizeException(transfers.size(), maxSize);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package co.za.payments.ledger.dto;
+
+import java.util.List;
+
+public record BatchTransferResponse(List<BatchTransferResult> results) { }
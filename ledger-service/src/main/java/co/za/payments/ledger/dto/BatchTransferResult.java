@@ -0,0 +1,26 @@
+package co.za.payments.ledger.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.UUID;
+
+public record BatchTransferResult(
+        @JsonProperty("transfer_id") UUID transferId,
+        BatchTransferStatus status,
+        String code,
+        String message,
+        LedgerTransferResponse transfer
+) {
+
+    public static BatchTransferResult created(LedgerTransferResponse transfer) {
+        return new BatchTransferResult(transfer.transferId(), BatchTransferStatus.CREATED, null, null, transfer);
+    }
+
+    public static BatchTransferResult duplicate(LedgerTransferResponse transfer) {
+        return new BatchTransferResult(transfer.transferId(), BatchTransferStatus.DUPLICATE, null, null, transfer);
+    }
+
+    public static BatchTransferResult rejected(UUID transferId, BatchTransferStatus status, String code, String message) {
+        return new BatchTransferResult(transferId, status, code, message, null);
+    }
+}
@@ -0,0 +1,5 @@
+package co.za.payments.ledger.dto;
+
+public enum BatchTransferStatus {
+    CREATED, DUPLICATE, INSUFFICIENT_FUNDS, ACCOUNT_NOT_FOUND, INVALID_AMOUNT, TRANSFER_ARCHIVED, ACCOUNT_NOT_BATCHABLE
+}
@@ -1,6 +1,7 @@
 package co.za.payments.ledger.dto;
 
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotNull;
 
 import java.math.BigDecimal;
@@ -8,5 +9,6 @@ import java.math.BigDecimal;
 public record CreateAccountRequest(
         @NotNull(message = "balance amount must not be null")
         @DecimalMin(value = "1.0", message = "Minimum balance of 1.0 is required")
+        @Digits(integer = 16, fraction = 2, message = "balance amount must have at most 2 decimals")
         BigDecimal balance
 ) { }
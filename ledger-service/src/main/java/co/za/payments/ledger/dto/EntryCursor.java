@@ -0,0 +1,44 @@
+package co.za.payments.ledger.dto;
+
+import co.za.payments.ledger.exception.InvalidPageRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in an account statement, the {@code (created_at, id)} of the last entry returned. Clients receive it
+ * as an opaque url safe token and pass it back to read the entries after it.
+ */
+public record EntryCursor(Instant createdAt, UUID id) {
+
+    /**
+     * Position before every entry, {@code id} is the smallest uuid so entries created at the epoch are not skipped.
+     */
+    public static final EntryCursor START = new EntryCursor(Instant.EPOCH, new UUID(0, 0));
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        var value = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the position of the token, {@link #START} when there is no token
+     */
+    public static EntryCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return START;
+        }
+
+        try {
+            var value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            var separator = value.indexOf(SEPARATOR);
+            return new EntryCursor(Instant.parse(value.substring(0, separator)), UUID.fromString(value.substring(separator + 1)));
+        } catch (RuntimeException exception) {
+            throw new InvalidPageRequestException("Cursor [%s] is invalid".formatted(token));
+        }
+    }
+}
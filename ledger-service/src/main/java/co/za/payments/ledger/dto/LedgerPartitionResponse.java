@@ -0,0 +1,9 @@
+package co.za.payments.ledger.dto;
+
+import java.time.YearMonth;
+
+/**
+ * A partition of {@code ledger_entry}, {@code month} is absent on the partition holding the rows from before the
+ * table was partitioned.
+ */
+public record LedgerPartitionResponse(String name, YearMonth month, String bounds) { }
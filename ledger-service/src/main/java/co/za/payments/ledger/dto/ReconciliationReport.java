@@ -0,0 +1,16 @@
+package co.za.payments.ledger.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Outcome of the continuous reconciliation, {@code reconciledTo} is the creation time of the last entry checked and
+ * absent before the first run. The lists hold the most recent mismatches, the counts all of them.
+ */
+public record ReconciliationReport(@JsonProperty("reconciled_to") Instant reconciledTo,
+                                   @JsonProperty("account_mismatch_count") long accountMismatchCount,
+                                   @JsonProperty("account_mismatches") List<AccountMismatchResponse> accountMismatches,
+                                   @JsonProperty("transfer_mismatch_count") long transferMismatchCount,
+                                   @JsonProperty("transfer_mismatches") List<TransferMismatchResponse> transferMismatches) { }
@@ -0,0 +1,12 @@
+package co.za.payments.ledger.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+public record TransferMismatchResponse(@JsonProperty("transfer_id") UUID transferId,
+                                       BigDecimal debits,
+                                       BigDecimal credits,
+                                       @JsonProperty("detected_at") Instant detectedAt) { }
@@ -2,6 +2,7 @@ package co.za.payments.ledger.dto;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotNull;
 
 import java.math.BigDecimal;
@@ -16,5 +17,6 @@ public record TransferRequest(
         @JsonProperty("to_account_id")UUID toAccountId,
         @NotNull(message = "transfer amount must not be null")
         @DecimalMin(value = "1.0", message = "Minimum transfer amount of 1.0 is required")
+        @Digits(integer = 16, fraction = 2, message = "transfer amount must have at most 2 decimals")
         BigDecimal amount
 ) { }
@@ -0,0 +1,12 @@
+package co.za.payments.ledger.exception;
+
+import java.util.UUID;
+
+import static co.za.payments.ledger.config.AppConstants.ACCOUNT_NOT_BATCHABLE;
+
+public class AccountNotBatchableException extends LedgerApplicationException {
+
+    public AccountNotBatchableException(UUID accountId) {
+        super(ACCOUNT_NOT_BATCHABLE, "Account %s is held by a write engine and cannot be written in a batch chunk".formatted(accountId));
+    }
+}
@@ -0,0 +1,14 @@
+package co.za.payments.ledger.exception;
+
+import static co.za.payments.ledger.config.AppConstants.INVALID_REQUEST;
+
+public class InvalidAccountImportException extends LedgerApplicationException {
+
+    public InvalidAccountImportException(String message) {
+        super(INVALID_REQUEST, message);
+    }
+
+    public InvalidAccountImportException(long line, String message) {
+        this("Line %d: %s".formatted(line, message));
+    }
+}
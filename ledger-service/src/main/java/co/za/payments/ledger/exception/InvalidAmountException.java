@@ -1,6 +1,7 @@
 package co.za.payments.ledger.exception;
 
 import co.za.payments.ledger.domain.EntryType;
+import co.za.payments.ledger.domain.Money;
 
 import java.math.BigDecimal;
 
@@ -11,4 +12,8 @@ public class InvalidAmountException extends LedgerApplicationException {
     public InvalidAmountException(EntryType type, BigDecimal amount) {
         super(INVALID_AMT_CODE, "%s amount of %.2f is incorrect, must be positive".formatted(type.getDescription(), amount));
     }
+
+    public InvalidAmountException(EntryType type, long minorUnits) {
+        this(type, Money.fromMinorUnits(minorUnits));
+    }
 }
@@ -0,0 +1,14 @@
+package co.za.payments.ledger.exception;
+
+import static co.za.payments.ledger.config.AppConstants.INVALID_BATCH_SIZE;
+
+public class InvalidBatchSizeException extends LedgerApplicationException {
+
+    public InvalidBatchSizeException(int size, int maxSize) {
+        super(INVALID_BATCH_SIZE, "Batch size of %d exceeds max allowed size of %d".formatted(size, maxSize));
+    }
+
+    public InvalidBatchSizeException(String message) {
+        super(INVALID_BATCH_SIZE, message);
+    }
+}
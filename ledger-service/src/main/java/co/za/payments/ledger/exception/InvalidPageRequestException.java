@@ -0,0 +1,10 @@
+package co.za.payments.ledger.exception;
+
+import static co.za.payments.ledger.config.AppConstants.INVALID_REQUEST;
+
+public class InvalidPageRequestException extends LedgerApplicationException {
+
+    public InvalidPageRequestException(String message) {
+        super(INVALID_REQUEST, message);
+    }
+}
@@ -3,12 +3,14 @@ package co.za.payments.ledger.exception;
 import co.za.payments.ledger.config.AppConstants;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.util.stream.Collectors;
 
@@ -26,6 +28,14 @@ public class LedgerExceptionHandler {
                 .body(new ErrorResponse(HttpStatus.NOT_FOUND.value(), exception.getCode(), exception.getMessage()));
     }
 
+    @ExceptionHandler(PartitionNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handlePartitionNotFound(PartitionNotFoundException exception) {
+        log.error("Partition not found error occurred", exception);
+
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ErrorResponse(HttpStatus.NOT_FOUND.value(), exception.getCode(), exception.getMessage()));
+    }
+
     @ExceptionHandler(InsufficientAccountBalanceException.class)
     public ResponseEntity<ErrorResponse> handleInsufficientBalance(InsufficientAccountBalanceException exception) {
         log.error("Insufficient balance error occurred", exception);
@@ -42,6 +52,55 @@ public class LedgerExceptionHandler {
                 .body(new ErrorResponse(BAD_REQUEST.value(), exception.getCode(), exception.getMessage()));
     }
 
+    @ExceptionHandler(InvalidBatchSizeException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidBatchSize(InvalidBatchSizeException exception) {
+        log.error("Invalid batch size error ", exception);
+
+        return ResponseEntity.status(BAD_REQUEST)
+                .body(new ErrorResponse(BAD_REQUEST.value(), exception.getCode(), exception.getMessage()));
+    }
+
+    @ExceptionHandler(InvalidPageRequestException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidPageRequest(InvalidPageRequestException exception) {
+        log.error("Invalid page request error ", exception);
+
+        return ResponseEntity.status(BAD_REQUEST)
+                .body(new ErrorResponse(BAD_REQUEST.value(), exception.getCode(), exception.getMessage()));
+    }
+
+    @ExceptionHandler(InvalidAccountImportException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidAccountImport(InvalidAccountImportException exception) {
+        log.error("Invalid account import error ", exception);
+
+        return ResponseEntity.status(BAD_REQUEST)
+                .body(new ErrorResponse(BAD_REQUEST.value(), exception.getCode(), exception.getMessage()));
+    }
+
+    @ExceptionHandler(TransferArchivedException.class)
+    public ResponseEntity<ErrorResponse> handleTransferArchived(TransferArchivedException exception) {
+        log.error("Archived transfer replayed error ", exception);
+
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new ErrorResponse(HttpStatus.CONFLICT.value(), exception.getCode(), exception.getMessage()));
+    }
+
+    @ExceptionHandler(AccountNotBatchableException.class)
+    public ResponseEntity<ErrorResponse> handleAccountNotBatchable(AccountNotBatchableException exception) {
+        log.error("Account not batchable error ", exception);
+
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new ErrorResponse(HttpStatus.CONFLICT.value(), exception.getCode(), exception.getMessage()));
+    }
+
+    @ExceptionHandler(PessimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleLockTimeout(PessimisticLockingFailureException exception) {
+        log.error("Account lock timeout error ", exception);
+
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new ErrorResponse(HttpStatus.CONFLICT.value(), AppConstants.ACCOUNT_LOCK_TIMEOUT,
+                        "Timed out waiting for an account lock, retry the transfer"));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Object> handleArgumentNotValid(MethodArgumentNotValidException ex) {
         var errors = ex.getBindingResult().getFieldErrors()
@@ -56,6 +115,15 @@ public class LedgerExceptionHandler {
                 .body(new ErrorResponse(BAD_REQUEST.value(), AppConstants.INVALID_REQUEST, "Validation failed", errors));
     }
 
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<ErrorResponse> handleArgumentTypeMismatch(MethodArgumentTypeMismatchException exception) {
+        log.error("Invalid request parameter error ", exception);
+
+        return ResponseEntity.status(BAD_REQUEST)
+                .body(new ErrorResponse(BAD_REQUEST.value(), AppConstants.INVALID_REQUEST,
+                        "Invalid value [%s] for parameter [%s]".formatted(exception.getValue(), exception.getName())));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGenericError(Exception exception) {
         log.error("System error occurred", exception);
@@ -0,0 +1,10 @@
+package co.za.payments.ledger.exception;
+
+import static co.za.payments.ledger.config.AppConstants.PARTITION_NOT_FOUND_CODE;
+
+public class PartitionNotFoundException extends LedgerApplicationException {
+
+    public PartitionNotFoundException(String name) {
+        super(PARTITION_NOT_FOUND_CODE, "Partition %s of ledger_entry does not exist".formatted(name));
+    }
+}
@@ -0,0 +1,12 @@
+package co.za.payments.ledger.exception;
+
+import java.util.UUID;
+
+import static co.za.payments.ledger.config.AppConstants.TRANSFER_ARCHIVED;
+
+public class TransferArchivedException extends LedgerApplicationException {
+
+    public TransferArchivedException(UUID transferId) {
+        super(TRANSFER_ARCHIVED, "Transfer %s was already written and its entries are archived".formatted(transferId));
+    }
+}
@@ -0,0 +1,8 @@
+package co.za.payments.ledger.repository;
+
+import java.util.UUID;
+
+/**
+ * An amount in minor units per account, the result of the grouped sums read for a chunk of accounts.
+ */
+public record AccountAmountView(UUID accountId, Long amount) { }
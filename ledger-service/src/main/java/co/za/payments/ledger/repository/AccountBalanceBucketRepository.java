@@ -0,0 +1,68 @@
+package co.za.payments.ledger.repository;
+
+import co.za.payments.ledger.domain.AccountBalanceBucket;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface AccountBalanceBucketRepository extends JpaRepository<AccountBalanceBucket, UUID> {
+
+    List<AccountBalanceBucket> findByAccountId(UUID accountId);
+
+    /**
+     * Loads and locks every bucket of the account in bucket order.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from AccountBalanceBucket b where b.accountId = :accountId order by b.bucketIndex")
+    List<AccountBalanceBucket> lockByAccountId(@Param("accountId") UUID accountId);
+
+    @Query("select coalesce(sum(b.balance), 0) from AccountBalanceBucket b where b.accountId = :accountId")
+    long sumBalance(@Param("accountId") UUID accountId);
+
+    @Query("""
+            select new co.za.payments.ledger.repository.AccountAmountView(b.accountId, sum(b.balance))
+              from AccountBalanceBucket b
+             where b.accountId in :accountIds
+             group by b.accountId
+            """)
+    List<AccountAmountView> sumBalances(@Param("accountIds") Collection<UUID> accountIds);
+
+    /**
+     * @return number of rows updated, {@code 0} when the bucket does not exist
+     */
+    @Modifying
+    @Query("""
+            update AccountBalanceBucket b
+               set b.balance = b.balance + :amount, b.updatedAt = :now
+             where b.accountId = :accountId and b.bucketIndex = :bucketIndex
+            """)
+    int credit(@Param("accountId") UUID accountId, @Param("bucketIndex") int bucketIndex,
+               @Param("amount") long amount, @Param("now") Instant now);
+
+    /**
+     * @return number of rows updated, {@code 0} when the bucket does not exist or has insufficient funds
+     */
+    @Modifying
+    @Query("""
+            update AccountBalanceBucket b
+               set b.balance = b.balance - :amount, b.updatedAt = :now
+             where b.accountId = :accountId and b.bucketIndex = :bucketIndex and b.balance >= :amount
+            """)
+    int debitIfSufficient(@Param("accountId") UUID accountId, @Param("bucketIndex") int bucketIndex,
+                          @Param("amount") long amount, @Param("now") Instant now);
+
+    @Modifying
+    @Query("update AccountBalanceBucket b set b.balance = 0, b.updatedAt = :now where b.accountId = :accountId")
+    int drain(@Param("accountId") UUID accountId, @Param("now") Instant now);
+
+}
@@ -0,0 +1,37 @@
+package co.za.payments.ledger.repository;
+
+import co.za.payments.ledger.domain.AccountBalanceCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface AccountBalanceCheckpointRepository extends JpaRepository<AccountBalanceCheckpoint, UUID> {
+
+    Optional<AccountBalanceCheckpoint> findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(UUID accountId, Instant asOf);
+
+    Optional<AccountBalanceCheckpoint> findFirstByAccountIdAndAsOfGreaterThanOrderByAsOfAsc(UUID accountId, Instant asOf);
+
+    /**
+     * @return the latest checkpoint before the given instant of each of the accounts that has one
+     */
+    @Query("""
+            select c from AccountBalanceCheckpoint c
+             where c.accountId in :accountIds
+               and c.asOf = (select max(p.asOf) from AccountBalanceCheckpoint p
+                              where p.accountId = c.accountId and p.asOf < :before)
+            """)
+    List<AccountBalanceCheckpoint> findLatestBefore(@Param("accountIds") Collection<UUID> accountIds,
+                                                    @Param("before") Instant before);
+
+    @Query("select c.accountId from AccountBalanceCheckpoint c where c.accountId in :accountIds and c.asOf = :asOf")
+    List<UUID> findAccountIdsCheckpointedAt(@Param("accountIds") Collection<UUID> accountIds, @Param("asOf") Instant asOf);
+
+}
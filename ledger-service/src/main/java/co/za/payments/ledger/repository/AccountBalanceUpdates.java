@@ -0,0 +1,27 @@
+package co.za.payments.ledger.repository;
+
+import java.time.Instant;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Guarded balance updates that return the balance they left behind in the same statement, so recording the
+ * balance of a ledger entry costs no extra round trip.
+ */
+public interface AccountBalanceUpdates {
+
+    /**
+     * Debits the account only when it holds enough funds.
+     *
+     * @return the balance after the debit, empty when the account does not exist or has insufficient funds
+     */
+    OptionalLong debitReturningBalance(UUID id, long amount, Instant now);
+
+    /**
+     * Credits the account unconditionally.
+     *
+     * @return the balance after the credit, empty when the account does not exist
+     */
+    OptionalLong creditReturningBalance(UUID id, long amount, Instant now);
+
+}
@@ -0,0 +1,63 @@
+package co.za.payments.ledger.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.time.Instant;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * PostgreSQL returns the updated balance with {@code UPDATE ... RETURNING}, H2 reads it from the
+ * {@code FINAL TABLE} of the update.
+ */
+class AccountBalanceUpdatesImpl implements AccountBalanceUpdates {
+
+    private static final String DEBIT = """
+            update accounts
+               set balance = balance - :amount, version = version + 1, updated_at = :now
+             where id = :id and balance >= :amount
+            """;
+
+    private static final String CREDIT = """
+            update accounts
+               set balance = balance + :amount, version = version + 1, updated_at = :now
+             where id = :id
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile Boolean postgres;
+
+    @Override
+    public OptionalLong debitReturningBalance(UUID id, long amount, Instant now) {
+        return updateReturningBalance(DEBIT, id, amount, now);
+    }
+
+    @Override
+    public OptionalLong creditReturningBalance(UUID id, long amount, Instant now) {
+        return updateReturningBalance(CREDIT, id, amount, now);
+    }
+
+    private OptionalLong updateReturningBalance(String update, UUID id, long amount, Instant now) {
+        var sql = isPostgres()
+                ? update + " returning balance"
+                : "select balance from final table (" + update + ")";
+
+        var balances = entityManager.createNativeQuery(sql, Long.class)
+                .setParameter("id", id)
+                .setParameter("amount", amount)
+                .setParameter("now", now)
+                .getResultList();
+
+        return balances.isEmpty() ? OptionalLong.empty() : OptionalLong.of(((Number) balances.getFirst()).longValue());
+    }
+
+    private boolean isPostgres() {
+        if (null == postgres) {
+            postgres = Dialects.isPostgres(entityManager);
+        }
+        return postgres;
+    }
+}
@@ -0,0 +1,9 @@
+package co.za.payments.ledger.repository;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Read-only projection of an account, built by the query without loading a managed {@code Account}.
+ */
+public record AccountBalanceView(UUID id, String accountNumber, long balance, Instant createdAt) { }
@@ -0,0 +1,23 @@
+package co.za.payments.ledger.repository;
+
+import co.za.payments.ledger.domain.Account;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Row-locking reads of {@link Account}, used by the pessimistic locking strategy.
+ */
+public interface AccountLockingRepository {
+
+    /**
+     * Loads and locks the accounts with one {@code SELECT ... ORDER BY id FOR UPDATE}, which locks the rows in
+     * ascending account id order, so that two transactions locking overlapping accounts always acquire them in the
+     * same order and cannot deadlock.
+     *
+     * @return the accounts that exist, in {@link co.za.payments.ledger.domain.AccountLockOrder}
+     */
+    List<Account> lockAllById(Collection<UUID> accountIds);
+
+}
@@ -0,0 +1,49 @@
+package co.za.payments.ledger.repository;
+
+import co.za.payments.ledger.config.LedgerLockingProperties;
+import co.za.payments.ledger.domain.Account;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+
+import java.util.*;
+
+@RequiredArgsConstructor
+class AccountLockingRepositoryImpl implements AccountLockingRepository {
+
+    private static final String LOCK_TIMEOUT_HINT = "jakarta.persistence.lock.timeout";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final LedgerLockingProperties lockingProperties;
+
+    private volatile Boolean postgres;
+
+    @Override
+    public List<Account> lockAllById(Collection<UUID> accountIds) {
+        if (accountIds.isEmpty()) {
+            return List.of();
+        }
+
+        var lockTimeout = Math.toIntExact(lockingProperties.getLockTimeout().toMillis());
+        if (isPostgres()) {
+            // PostgreSQL ignores the lock timeout hint, the setting ends with the transaction
+            entityManager.createNativeQuery("set local lock_timeout = '%dms'".formatted(lockTimeout)).executeUpdate();
+        }
+
+        return entityManager.createQuery("select a from Account a where a.id in :ids order by a.id", Account.class)
+                .setParameter("ids", Set.copyOf(accountIds))
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setHint(LOCK_TIMEOUT_HINT, lockTimeout)
+                .getResultList();
+    }
+
+    private boolean isPostgres() {
+        if (null == postgres) {
+            postgres = Dialects.isPostgres(entityManager);
+        }
+        return postgres;
+    }
+}
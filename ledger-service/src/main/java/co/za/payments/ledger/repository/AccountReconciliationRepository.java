@@ -0,0 +1,21 @@
+package co.za.payments.ledger.repository;
+
+import co.za.payments.ledger.domain.AccountReconciliation;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface AccountReconciliationRepository extends JpaRepository<AccountReconciliation, UUID> {
+
+    List<AccountReconciliation> findByAccountIdIn(Collection<UUID> accountIds);
+
+    List<AccountReconciliation> findByDifferenceNotOrderByUpdatedAtDesc(long difference, Limit limit);
+
+    long countByDifferenceNot(long difference);
+
+}
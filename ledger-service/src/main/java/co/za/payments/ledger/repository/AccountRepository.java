@@ -1,12 +1,94 @@
 package co.za.payments.ledger.repository;
 
 import co.za.payments.ledger.domain.Account;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
-public interface AccountRepository extends JpaRepository<Account, UUID> {
+public interface AccountRepository extends JpaRepository<Account, UUID>, AccountLockingRepository, AccountBalanceUpdates {
+
+    /**
+     * Debits the account only when it holds enough funds.
+     *
+     * @return number of rows updated, {@code 0} when the account does not exist or has insufficient funds
+     */
+    @Modifying
+    @Query("""
+            update Account a
+               set a.balance = a.balance - :amount, a.version = a.version + 1, a.updatedAt = :now
+             where a.id = :id and a.balance >= :amount
+            """)
+    int debitIfSufficient(@Param("id") UUID id, @Param("amount") long amount, @Param("now") Instant now);
+
+    /**
+     * Adds a signed delta to the balance without any guard, for balance changes already validated elsewhere.
+     *
+     * @return number of rows updated, {@code 0} when the account does not exist
+     */
+    @Modifying
+    @Query("""
+            update Account a
+               set a.balance = a.balance + :delta, a.version = a.version + 1, a.updatedAt = :now
+             where a.id = :id
+            """)
+    int applyDelta(@Param("id") UUID id, @Param("delta") long delta, @Param("now") Instant now);
+
+    /**
+     * Reads the balance of the account row.
+     */
+    @Query("select a.balance from Account a where a.id = :id")
+    long findBalance(@Param("id") UUID id);
+
+    /**
+     * Reads the balance plus the credits not yet applied to it in one statement, so both come from the same
+     * snapshot even while the deferred credit aggregator is applying them.
+     */
+    @Query("""
+            select a.balance + coalesce((select sum(e.amount) from LedgerEntry e
+                                          where e.accountId = a.id
+                                            and e.type = co.za.payments.ledger.domain.EntryType.CREDIT
+                                            and e.balanceApplied = false), 0)
+              from Account a
+             where a.id = :id
+            """)
+    Optional<Long> findAvailableBalance(@Param("id") UUID id);
+
+    /**
+     * @return ids of the accounts created up to and at the given instant after the given id, in id order
+     */
+    @Query("select a.id from Account a where a.id > :after and a.createdAt <= :createdBy order by a.id")
+    List<UUID> findIdsAfter(@Param("after") UUID after, @Param("createdBy") Instant createdBy, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query("select a.id from Account a order by a.id")
+    Stream<UUID> streamIdsInOrder();
+
+    @Query("select new co.za.payments.ledger.repository.AccountAmountView(a.id, a.balance) from Account a where a.id in :ids")
+    List<AccountAmountView> findBalances(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Streams the accounts with the given ids as projections in one statement, ids that do not exist are left out.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+            select new co.za.payments.ledger.repository.AccountBalanceView(a.id, a.accountNumber, a.balance, a.createdAt)
+              from Account a
+             where a.id in :ids
+            """)
+    Stream<AccountBalanceView> streamByIdIn(@Param("ids") Collection<UUID> ids);
 
 }
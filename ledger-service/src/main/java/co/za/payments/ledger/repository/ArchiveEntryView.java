@@ -0,0 +1,21 @@
+package co.za.payments.ledger.repository;
+
+import co.za.payments.ledger.domain.EntryType;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Every column of a ledger entry that is kept once it is archived to a segment file.
+ */
+public record ArchiveEntryView(UUID id, UUID transferId, UUID accountId, EntryType type, long amount,
+                               Long balanceAfter, boolean balanceApplied, Instant createdAt) {
+
+    public long signedAmount() {
+        return type == EntryType.DEBIT ? -amount : amount;
+    }
+
+    public LedgerEntryView toView() {
+        return new LedgerEntryView(id, transferId, type, amount, balanceAfter, createdAt);
+    }
+}
@@ -0,0 +1,10 @@
+package co.za.payments.ledger.repository;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Position of a ledger entry and what it belongs to, read by the reconciler without loading a managed
+ * {@code LedgerEntry}.
+ */
+public record LedgerEntryKeyView(UUID id, UUID accountId, UUID transferId, Instant createdAt) { }
@@ -1,12 +1,23 @@
 package co.za.payments.ledger.repository;
 
 import co.za.payments.ledger.domain.LedgerEntry;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, UUID> {
@@ -15,4 +26,260 @@ public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, UUID>
 
     List<LedgerEntry> findByTransferId(UUID transferId);
 
+    List<LedgerEntry> findByTransferIdIn(Collection<UUID> transferIds);
+
+    /**
+     * @return ids of the accounts with the most ledger entries since the given instant, most active first
+     */
+    @Query("""
+            select e.accountId from LedgerEntry e
+             where e.createdAt >= :since
+             group by e.accountId
+             order by count(e) desc
+            """)
+    List<UUID> findMostActiveAccountIds(@Param("since") Instant since, Pageable pageable);
+
+    /**
+     * Streams the id of every transfer written since the given instant, once each as a transfer has one debit.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+            select e.transferId from LedgerEntry e
+             where e.type = co.za.payments.ledger.domain.EntryType.DEBIT and e.createdAt >= :since
+            """)
+    Stream<UUID> streamTransferIdsCreatedSince(@Param("since") Instant since);
+
+    /**
+     * Reads the entries of the account after the {@code (createdAt, id)} cursor, oldest first. The row comparison
+     * seeks straight to the cursor on {@code idx_ledger_entry_account_created_id}, so later pages cost the same as
+     * the first. The plain bound on {@code createdAt} lets a partitioned table skip the partitions before the cursor,
+     * which the row comparison alone does not.
+     */
+    @Query("""
+            select new co.za.payments.ledger.repository.LedgerEntryView(e.id, e.transferId, e.type, e.amount, e.balanceAfter, e.createdAt)
+              from LedgerEntry e
+             where e.accountId = :accountId and e.createdAt >= :createdAt and (e.createdAt, e.id) > (:createdAt, :id)
+             order by e.createdAt, e.id
+            """)
+    List<LedgerEntryView> findEntriesAfter(@Param("accountId") UUID accountId, @Param("createdAt") Instant createdAt,
+                                              @Param("id") UUID id, Limit limit);
+
+    /**
+     * Streams the entries of the account after the {@code (createdAt, id)} cursor, oldest first, fetching rows in chunks from a read-only
+     * cursor so the whole statement is never held in memory.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select new co.za.payments.ledger.repository.LedgerEntryView(e.id, e.transferId, e.type, e.amount, e.balanceAfter, e.createdAt)
+              from LedgerEntry e
+             where e.accountId = :accountId and e.createdAt >= :createdAt and (e.createdAt, e.id) > (:createdAt, :id)
+             order by e.createdAt, e.id
+            """)
+    Stream<LedgerEntryView> streamEntriesAfter(@Param("accountId") UUID accountId, @Param("createdAt") Instant createdAt,
+                                              @Param("id") UUID id);
+
+    /**
+     * Streams the accounts with applied entries whose balance after was never recorded.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select distinct e.accountId from LedgerEntry e where e.balanceAfter is null and e.balanceApplied = true")
+    Stream<UUID> streamAccountIdsWithoutBalanceAfter();
+
+    Optional<LedgerEntry> findFirstByAccountIdAndBalanceAfterIsNullAndBalanceAppliedTrueOrderByCreatedAtDescIdDesc(UUID accountId);
+
+    /**
+     * @return net effect on the balance of the account's entries after the {@code (createdAt, id)} position
+     */
+    @Query("""
+            select coalesce(sum(case when e.type = co.za.payments.ledger.domain.EntryType.DEBIT then -e.amount else e.amount end), 0)
+              from LedgerEntry e
+             where e.accountId = :accountId and e.createdAt >= :createdAt and (e.createdAt, e.id) > (:createdAt, :id)
+            """)
+    long sumSignedAmountsAfter(@Param("accountId") UUID accountId, @Param("createdAt") Instant createdAt,
+                               @Param("id") UUID id);
+
+    /**
+     * @return net effect on the balance of the account's entries created after {@code from} up to and at {@code to}
+     */
+    @Query("""
+            select coalesce(sum(case when e.type = co.za.payments.ledger.domain.EntryType.DEBIT then -e.amount else e.amount end), 0)
+              from LedgerEntry e
+             where e.accountId = :accountId and e.createdAt > :from and e.createdAt <= :to
+            """)
+    long sumSignedAmountsBetween(@Param("accountId") UUID accountId, @Param("from") Instant from, @Param("to") Instant to);
+
+    /**
+     * @return net effect on the balance of the account's entries created after the given instant
+     */
+    @Query("""
+            select coalesce(sum(case when e.type = co.za.payments.ledger.domain.EntryType.DEBIT then -e.amount else e.amount end), 0)
+              from LedgerEntry e
+             where e.accountId = :accountId and e.createdAt > :after
+            """)
+    long sumSignedAmountsCreatedAfter(@Param("accountId") UUID accountId, @Param("after") Instant after);
+
+    /**
+     * Same as {@link #sumSignedAmountsBetween(UUID, Instant, Instant)} for many accounts at once, accounts without
+     * entries in the range are left out.
+     */
+    @Query("""
+            select new co.za.payments.ledger.repository.AccountAmountView(e.accountId, sum(case when e.type = co.za.payments.ledger.domain.EntryType.DEBIT then -e.amount else e.amount end))
+              from LedgerEntry e
+             where e.accountId in :accountIds and e.createdAt > :from and e.createdAt <= :to
+             group by e.accountId
+            """)
+    List<AccountAmountView> sumSignedAmountsBetween(@Param("accountIds") Collection<UUID> accountIds,
+                                                    @Param("from") Instant from, @Param("to") Instant to);
+
+    /**
+     * Same as {@link #sumSignedAmountsCreatedAfter(UUID, Instant)} for many accounts at once, accounts without
+     * entries after the instant are left out.
+     */
+    @Query("""
+            select new co.za.payments.ledger.repository.AccountAmountView(e.accountId, sum(case when e.type = co.za.payments.ledger.domain.EntryType.DEBIT then -e.amount else e.amount end))
+              from LedgerEntry e
+             where e.accountId in :accountIds and e.createdAt > :after
+             group by e.accountId
+            """)
+    List<AccountAmountView> sumSignedAmountsCreatedAfter(@Param("accountIds") Collection<UUID> accountIds,
+                                                         @Param("after") Instant after);
+
+    /**
+     * Same as {@link #sumUnappliedCredits(UUID)} for many accounts at once, accounts without any are left out.
+     */
+    @Query("""
+            select new co.za.payments.ledger.repository.AccountAmountView(e.accountId, sum(e.amount))
+              from LedgerEntry e
+             where e.accountId in :accountIds and e.type = co.za.payments.ledger.domain.EntryType.CREDIT
+               and e.balanceApplied = false
+             group by e.accountId
+            """)
+    List<AccountAmountView> sumUnappliedCredits(@Param("accountIds") Collection<UUID> accountIds);
+
+    /**
+     * Reads the entries of every account after the {@code (createdAt, id)} position up to and at the given instant,
+     * oldest first, seeking on {@code idx_ledger_entry_created_id}.
+     */
+    @Query("""
+            select new co.za.payments.ledger.repository.LedgerEntryKeyView(e.id, e.accountId, e.transferId, e.createdAt)
+              from LedgerEntry e
+             where e.createdAt >= :createdAt and (e.createdAt, e.id) > (:createdAt, :id) and e.createdAt <= :to
+             order by e.createdAt, e.id
+            """)
+    List<LedgerEntryKeyView> findEntryKeysAfter(@Param("createdAt") Instant createdAt, @Param("id") UUID id,
+                                                @Param("to") Instant to, Limit limit);
+
+    Optional<LedgerEntry> findFirstByCreatedAtLessThanEqualOrderByCreatedAtDescIdDesc(Instant createdAt);
+
+    /**
+     * @return the debited and credited amounts of each of the transfers whose two do not match, including a
+     * transfer with a leg missing
+     */
+    @Query("""
+            select new co.za.payments.ledger.repository.TransferTotalsView(e.transferId,
+                       coalesce(sum(case when e.type = co.za.payments.ledger.domain.EntryType.DEBIT then e.amount else 0 end), 0),
+                       coalesce(sum(case when e.type = co.za.payments.ledger.domain.EntryType.CREDIT then e.amount else 0 end), 0))
+              from LedgerEntry e
+             where e.transferId in :transferIds
+             group by e.transferId
+            having sum(case when e.type = co.za.payments.ledger.domain.EntryType.DEBIT then e.amount else -e.amount end) <> 0
+            """)
+    List<TransferTotalsView> findUnbalancedTransfers(@Param("transferIds") Collection<UUID> transferIds);
+
+    /**
+     * Streams the entries of the accounts with ids from {@code first} to {@code last}, account by account and each
+     * account's oldest first, from a read-only cursor fetching large chunks of rows.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select new co.za.payments.ledger.repository.ReplayEntryView(e.accountId, e.type, e.amount, e.balanceAfter, e.balanceApplied)
+              from LedgerEntry e
+             where e.accountId >= :first and e.accountId <= :last
+             order by e.accountId, e.createdAt, e.id
+            """)
+    Stream<ReplayEntryView> streamReplayEntries(@Param("first") UUID first, @Param("last") UUID last);
+
+    /**
+     * @return when the oldest entry was created, {@code null} when there are no entries
+     */
+    @Query("select min(e.createdAt) from LedgerEntry e")
+    Instant findOldestCreatedAt();
+
+    /**
+     * Streams every entry created from {@code from} up to {@code to}, account by account and each account's oldest
+     * first, from a read-only cursor fetching large chunks of rows.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select new co.za.payments.ledger.repository.ArchiveEntryView(e.id, e.transferId, e.accountId, e.type, e.amount,
+                       e.balanceAfter, e.balanceApplied, e.createdAt)
+              from LedgerEntry e
+             where e.createdAt >= :from and e.createdAt < :to
+             order by e.accountId, e.createdAt, e.id
+            """)
+    Stream<ArchiveEntryView> streamArchiveEntries(@Param("from") Instant from, @Param("to") Instant to);
+
+    long countByCreatedAtGreaterThanEqualAndCreatedAtLessThan(Instant from, Instant to);
+
+    /**
+     * Streams the net effect on the balance of the entries created from {@code from} up to {@code to}, per account.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query("""
+            select new co.za.payments.ledger.repository.AccountAmountView(e.accountId, sum(case when e.type = co.za.payments.ledger.domain.EntryType.DEBIT then -e.amount else e.amount end))
+              from LedgerEntry e
+             where e.createdAt >= :from and e.createdAt < :to
+             group by e.accountId
+            """)
+    Stream<AccountAmountView> streamSignedAmountsCreatedBetween(@Param("from") Instant from, @Param("to") Instant to);
+
+    @Query("select e.id from LedgerEntry e where e.createdAt >= :from and e.createdAt < :to")
+    List<UUID> findIdsCreatedBetween(@Param("from") Instant from, @Param("to") Instant to, Limit limit);
+
+    /**
+     * Deletes the entries, the bounds on {@code createdAt} keep a partitioned table to the partition holding them.
+     */
+    @Modifying
+    @Query("delete from LedgerEntry e where e.id in :ids and e.createdAt >= :from and e.createdAt < :to")
+    int deleteCreatedBetween(@Param("ids") Collection<UUID> ids, @Param("from") Instant from, @Param("to") Instant to);
+
+    /**
+     * Reads the entries of the account before the {@code (createdAt, id)} cursor, newest first.
+     */
+    @Query("""
+            select e from LedgerEntry e
+             where e.accountId = :accountId and e.createdAt <= :createdAt and (e.createdAt, e.id) < (:createdAt, :id)
+             order by e.createdAt desc, e.id desc
+            """)
+    List<LedgerEntry> findEntriesBefore(@Param("accountId") UUID accountId, @Param("createdAt") Instant createdAt,
+                                        @Param("id") UUID id, Limit limit);
+
+    /**
+     * @return sum of the credits to the account that are not yet applied to its balance
+     */
+    @Query("""
+            select coalesce(sum(e.amount), 0) from LedgerEntry e
+             where e.accountId = :accountId and e.type = co.za.payments.ledger.domain.EntryType.CREDIT
+               and e.balanceApplied = false
+            """)
+    long sumUnappliedCredits(@Param("accountId") UUID accountId);
+
+    List<LedgerEntry> findByBalanceAppliedFalseOrderByCreatedAtAsc(Pageable pageable);
+
+    /**
+     * @return number of entries marked, fewer than requested when some were already applied
+     */
+    @Modifying
+    @Query("update LedgerEntry e set e.balanceApplied = true, e.updatedAt = :now where e.id in :ids and e.balanceApplied = false")
+    int markBalanceApplied(@Param("ids") Collection<UUID> ids, @Param("now") Instant now);
+
 }
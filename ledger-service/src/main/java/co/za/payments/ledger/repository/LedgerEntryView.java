@@ -0,0 +1,22 @@
+package co.za.payments.ledger.repository;
+
+import co.za.payments.ledger.domain.EntryType;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Ledger entry columns read for an account statement, a projection so statements never load managed entities.
+ */
+public record LedgerEntryView(UUID id, UUID transferId, EntryType type, long amount, Long balanceAfter, Instant createdAt) {
+
+    /**
+     * @return the balance before this entry, {@code null} when its balance after was not recorded
+     */
+    public Long balanceBefore() {
+        if (balanceAfter == null) {
+            return null;
+        }
+        return type == EntryType.DEBIT ? balanceAfter + amount : balanceAfter - amount;
+    }
+}
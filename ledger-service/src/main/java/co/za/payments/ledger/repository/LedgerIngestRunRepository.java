@@ -0,0 +1,15 @@
+package co.za.payments.ledger.repository;
+
+import co.za.payments.ledger.domain.LedgerIngestRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface LedgerIngestRunRepository extends JpaRepository<LedgerIngestRun, UUID> {
+
+    Optional<LedgerIngestRun> findByRunId(String runId);
+
+}
@@ -0,0 +1,15 @@
+package co.za.payments.ledger.repository;
+
+import co.za.payments.ledger.domain.LedgerReplayPartition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface LedgerReplayPartitionRepository extends JpaRepository<LedgerReplayPartition, UUID> {
+
+    List<LedgerReplayPartition> findByRunIdOrderByPartitionIndex(String runId);
+
+}
@@ -0,0 +1,21 @@
+package co.za.payments.ledger.repository;
+
+import co.za.payments.ledger.domain.LedgerSegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface LedgerSegmentRepository extends JpaRepository<LedgerSegment, UUID> {
+
+    List<LedgerSegment> findByStatusOrderByPeriodStartAsc(LedgerSegment.Status status);
+
+    List<LedgerSegment> findByStatusNotOrderByPeriodStartAsc(LedgerSegment.Status status);
+
+    Optional<LedgerSegment> findByPeriodStart(Instant periodStart);
+
+}
@@ -0,0 +1,15 @@
+package co.za.payments.ledger.repository;
+
+import co.za.payments.ledger.domain.ReconciliationMark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface ReconciliationMarkRepository extends JpaRepository<ReconciliationMark, UUID> {
+
+    Optional<ReconciliationMark> findFirstByOrderByCreatedAtAsc();
+
+}
@@ -0,0 +1,18 @@
+package co.za.payments.ledger.repository;
+
+import co.za.payments.ledger.domain.EntryType;
+
+import java.util.UUID;
+
+/**
+ * What a ledger replay needs of an entry, read without loading a managed {@code LedgerEntry}.
+ */
+public record ReplayEntryView(UUID accountId, EntryType type, long amount, Long balanceAfter, boolean balanceApplied) {
+
+    /**
+     * @return the amount signed by its effect on the account balance, negative for a debit
+     */
+    public long signedAmount() {
+        return type == EntryType.DEBIT ? -amount : amount;
+    }
+}
@@ -0,0 +1,22 @@
+package co.za.payments.ledger.repository;
+
+import co.za.payments.ledger.domain.TransferMismatch;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface TransferMismatchRepository extends JpaRepository<TransferMismatch, UUID> {
+
+    @Query("select m.transferId from TransferMismatch m where m.transferId in :transferIds")
+    List<UUID> findTransferIdsIn(@Param("transferIds") Collection<UUID> transferIds);
+
+    List<TransferMismatch> findAllByOrderByCreatedAtDesc(Limit limit);
+
+}
@@ -0,0 +1,8 @@
+package co.za.payments.ledger.repository;
+
+import java.util.UUID;
+
+/**
+ * Debited and credited amounts of a transfer in minor units.
+ */
+public record TransferTotalsView(UUID transferId, Long debits, Long credits) { }
@@ -0,0 +1,51 @@
+package co.za.payments.ledger.service;
+
+import co.za.payments.ledger.domain.Money;
+import co.za.payments.ledger.dto.AccountResponse;
+import util.AccountNumberGenerator;
+
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+public interface AccountImportService {
+
+    /**
+     * Creates one account per line of the input, each with the opening balance of its line, in a single
+     * transaction. Nothing is created when any line is invalid.
+     */
+    ImportedAccounts importAccounts(InputStream input, Format format);
+
+    enum Format {
+        /**
+         * The balance in the first column, under an optional {@code balance} header.
+         */
+        CSV,
+        /**
+         * A {@code CreateAccountRequest} per line.
+         */
+        NDJSON
+    }
+
+    /**
+     * Accounts created by one import, kept as arrays rather than an {@link AccountResponse} each, as an import
+     * may create a million of them. Their account numbers are consecutive from {@code firstSequence}.
+     */
+    record ImportedAccounts(UUID[] ids, long[] balances, long firstSequence, Instant createdAt) {
+
+        public int size() {
+            return ids.length;
+        }
+
+        public String accountNumber(int index) {
+            return AccountNumberGenerator.format(firstSequence + index);
+        }
+
+        public void forEach(Consumer<AccountResponse> consumer) {
+            for (int i = 0; i < ids.length; i++) {
+                consumer.accept(new AccountResponse(ids[i], accountNumber(i), Money.fromMinorUnits(balances[i]), createdAt));
+            }
+        }
+    }
+}
@@ -3,11 +3,18 @@ package co.za.payments.ledger.service;
 import co.za.payments.ledger.dto.AccountResponse;
 import co.za.payments.ledger.dto.CreateAccountRequest;
 
+import java.util.Collection;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface AccountService {
 
     AccountResponse create(CreateAccountRequest request);
 
     AccountResponse getAccount(UUID id);
+
+    /**
+     * Passes every existing account of the given ids to the consumer as it is read, without collecting them first.
+     */
+    void queryAccounts(Collection<UUID> ids, Consumer<AccountResponse> consumer);
 }
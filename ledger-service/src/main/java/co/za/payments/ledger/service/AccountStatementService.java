@@ -0,0 +1,31 @@
+package co.za.payments.ledger.service;
+
+import co.za.payments.ledger.dto.AccountBalanceResponse;
+import co.za.payments.ledger.dto.AccountEntriesResponse;
+import co.za.payments.ledger.dto.AccountEntryResponse;
+import co.za.payments.ledger.dto.EntryCursor;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+public interface AccountStatementService {
+
+    /**
+     * @param size entries on the page, the configured default when {@code null}
+     * @return the entries of the account after the cursor, oldest first, with the cursor of the next page
+     */
+    AccountEntriesResponse getEntries(UUID accountId, EntryCursor after, Integer size);
+
+    /**
+     * Passes every entry of the account after the cursor to the consumer as it is read, oldest first, without
+     * collecting them. The account is not checked, callers that need a not found error check it first.
+     */
+    void streamEntries(UUID accountId, EntryCursor after, Consumer<AccountEntryResponse> consumer);
+
+    /**
+     * @return the balance of the account including every entry created up to and at the given instant, zero
+     * before the account was created
+     */
+    AccountBalanceResponse getBalance(UUID accountId, Instant asOf);
+}
@@ -0,0 +1,23 @@
+package co.za.payments.ledger.service;
+
+import java.util.UUID;
+
+/**
+ * Adjusts the persisted balance of an account with state the ledger holds outside the accounts table.
+ */
+public interface BalanceAdjuster {
+
+    /**
+     * @return the balance to report, in minor units
+     */
+    long adjust(UUID accountId, long persistedBalance);
+
+    /**
+     * @return whether part of the balance of the account is held outside its row, so a transfer on it has to go
+     * through the {@link LedgerService} rather than update the row directly
+     */
+    default boolean holdsBalanceOf(UUID accountId) {
+        return false;
+    }
+
+}
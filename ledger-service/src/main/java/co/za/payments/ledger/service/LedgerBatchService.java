@@ -0,0 +1,10 @@
+package co.za.payments.ledger.service;
+
+import co.za.payments.ledger.dto.BatchTransferRequest;
+import co.za.payments.ledger.dto.BatchTransferResponse;
+
+public interface LedgerBatchService {
+
+    BatchTransferResponse createEntries(BatchTransferRequest request);
+
+}
@@ -0,0 +1,11 @@
+package co.za.payments.ledger.service;
+
+import co.za.payments.ledger.dto.ReconciliationReport;
+
+public interface ReconciliationService {
+
+    /**
+     * @param limit mismatches of each kind listed, the configured maximum when {@code null}
+     */
+    ReconciliationReport getReport(Integer limit);
+}
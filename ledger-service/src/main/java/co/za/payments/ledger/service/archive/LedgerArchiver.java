@@ -0,0 +1,238 @@
+package co.za.payments.ledger.service.archive;
+
+import co.za.payments.ledger.config.LedgerArchiveProperties;
+import co.za.payments.ledger.domain.LedgerSegment;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import co.za.payments.ledger.repository.LedgerSegmentRepository;
+import co.za.payments.ledger.service.dedup.LedgerEntryKeys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Moves the ledger entries of months older than {@code retain-months} out of {@code ledger_entry} into one
+ * immutable segment file per month, see {@link SegmentFormat}, oldest month first.</p>
+ * <p>Each month goes through the steps recorded on its {@link LedgerSegment}, so an interrupted run is resumed by
+ * the next. The entries are streamed into a temporary file that is forced to disk and renamed into place, then
+ * the file is read back and its SHA-256, row count and per account sums are checked against the table before
+ * the {@link SegmentStore} serves it. Only then are the rows deleted, in batches of {@code delete-batch-size}. A
+ * file that fails the check is deleted and written again.</p>
+ * <p>The {@code (transfer_id, type)} unique constraint goes with the deleted rows, so {@link LedgerEntryKeys} is
+ * installed on startup to keep rejecting replays of archived transfers.</p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "ledger.archive", name = "enabled", havingValue = "true")
+@Slf4j
+public class LedgerArchiver {
+
+    private final LedgerEntryRepository ledgerRepository;
+    private final LedgerSegmentRepository segmentRepository;
+    private final SegmentStore segmentStore;
+    private final LedgerArchiveProperties properties;
+    private final LedgerEntryKeys entryKeys;
+    private final TransactionTemplate readTemplate;
+    private final TransactionTemplate writeTemplate;
+
+    private final Counter archivedEntries;
+    private final Counter archivedSegments;
+    private final Counter failedSegments;
+    private final Timer segmentTime;
+
+    public LedgerArchiver(LedgerEntryRepository ledgerRepository, LedgerSegmentRepository segmentRepository,
+                          SegmentStore segmentStore, LedgerArchiveProperties properties, LedgerEntryKeys entryKeys,
+                          PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.ledgerRepository = ledgerRepository;
+        this.segmentRepository = segmentRepository;
+        this.segmentStore = segmentStore;
+        this.properties = properties;
+        this.entryKeys = entryKeys;
+
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setReadOnly(true);
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+
+        this.archivedEntries = Counter.builder("ledger.archive.entries")
+                .description("Ledger entries moved from ledger_entry to segment files")
+                .register(meterRegistry);
+        this.archivedSegments = Counter.builder("ledger.archive.segments")
+                .description("Months archived to segment files")
+                .register(meterRegistry);
+        this.failedSegments = Counter.builder("ledger.archive.failed_segments")
+                .description("Segment files that did not match ledger_entry and are written again")
+                .register(meterRegistry);
+        this.segmentTime = Timer.builder("ledger.archive.segment")
+                .description("Time taken to write, verify and delete the entries of a month")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        entryKeys.install();
+    }
+
+    @Scheduled(fixedDelayString = "${ledger.archive.check-interval:1h}", initialDelayString = "${ledger.archive.check-interval:1h}")
+    public void run() {
+        archive(YearMonth.now(ZoneOffset.UTC).minusMonths(properties.getRetainMonths()));
+    }
+
+    /**
+     * Finishes any segment left unfinished, then archives every month with entries before the given one.
+     *
+     * @return number of months archived
+     */
+    public int archive(YearMonth before) {
+        var archived = 0;
+        for (var segment : segmentRepository.findByStatusNotOrderByPeriodStartAsc(LedgerSegment.Status.ARCHIVED)) {
+            process(segment);
+            archived++;
+        }
+
+        var cutoff = startOf(before);
+        Instant oldest;
+        while ((oldest = readTemplate.execute(status -> ledgerRepository.findOldestCreatedAt())) != null && oldest.isBefore(cutoff)) {
+            var month = YearMonth.from(oldest.atZone(ZoneOffset.UTC));
+            if (segmentRepository.findByPeriodStart(startOf(month)).isPresent()) {
+                throw new IllegalStateException("Entries created in %s were written after it was archived".formatted(month));
+            }
+
+            var segment = writeTemplate.execute(status -> segmentRepository.save(
+                    LedgerSegment.of(startOf(month), startOf(month.plusMonths(1)), fileNameOf(month))));
+            process(segment);
+            archived++;
+        }
+        return archived;
+    }
+
+    static String fileNameOf(YearMonth month) {
+        return "ledger-%d-%02d.seg".formatted(month.getYear(), month.getMonthValue());
+    }
+
+    private void process(LedgerSegment segment) {
+        var started = System.nanoTime();
+        try {
+            if (segment.getStatus() == LedgerSegment.Status.WRITING) {
+                segment = write(segment);
+            }
+            if (segment.getStatus() == LedgerSegment.Status.WRITTEN) {
+                segment = verify(segment);
+            }
+            if (segment.getStatus() == LedgerSegment.Status.VERIFIED) {
+                segment = delete(segment);
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Failed to archive the entries from %s".formatted(segment.getPeriodStart()), exception);
+        }
+
+        segmentTime.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        archivedSegments.increment();
+        log.info("Archived [{}] entries from [{}] to [{}] in [{}]", segment.getRowCount(), segment.getPeriodStart(),
+                segment.getPeriodEnd(), segment.getFileName());
+    }
+
+    private LedgerSegment write(LedgerSegment segment) throws IOException {
+        var file = segmentStore.directory().resolve(segment.getFileName());
+        var temp = file.resolveSibling(segment.getFileName() + ".tmp");
+        Files.createDirectories(file.getParent());
+        Files.deleteIfExists(temp);
+
+        String checksum;
+        long rows;
+        try (var writer = new SegmentWriter(temp, properties.getBlockSize(), properties.getCompressionLevel())) {
+            readTemplate.executeWithoutResult(status -> {
+                try (var entries = ledgerRepository.streamArchiveEntries(segment.getPeriodStart(), segment.getPeriodEnd())) {
+                    entries.forEach(entry -> {
+                        try {
+                            writer.append(entry);
+                        } catch (IOException exception) {
+                            throw new UncheckedIOException(exception);
+                        }
+                    });
+                }
+            });
+            checksum = writer.finish();
+            rows = writer.rows();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        segment.written(rows, Files.size(file), checksum);
+        return writeTemplate.execute(status -> segmentRepository.save(segment));
+    }
+
+    private LedgerSegment verify(LedgerSegment segment) throws IOException {
+        var file = segmentStore.directory().resolve(segment.getFileName());
+        var reader = SegmentReader.open(file);
+
+        var sums = new HashMap<UUID, Long>();
+        var rows = new long[1];
+        reader.forEach(entry -> {
+            sums.merge(entry.accountId(), entry.signedAmount(), Long::sum);
+            rows[0]++;
+            return true;
+        });
+
+        var expectedRows = readTemplate.execute(status -> ledgerRepository.countByCreatedAtGreaterThanEqualAndCreatedAtLessThan(
+                segment.getPeriodStart(), segment.getPeriodEnd()));
+        var mismatchedAccounts = readTemplate.execute(status -> {
+            try (var amounts = ledgerRepository.streamSignedAmountsCreatedBetween(segment.getPeriodStart(), segment.getPeriodEnd())) {
+                return amounts.mapToLong(amount -> Objects.equals(sums.remove(amount.accountId()), amount.amount()) ? 0 : 1).sum();
+            }
+        });
+
+        if (!reader.checksum().equals(segment.getChecksum()) || reader.rows() != segment.getRowCount()
+                || rows[0] != segment.getRowCount() || !Objects.equals(expectedRows, rows[0])
+                || mismatchedAccounts > 0 || !sums.isEmpty()) {
+            log.error("Segment [{}] of [{}] rows does not match the [{}] entries in ledger_entry, [{}] accounts differ, writing it again",
+                    segment.getFileName(), rows[0], expectedRows, mismatchedAccounts + sums.size());
+            failedSegments.increment();
+            Files.deleteIfExists(file);
+            segment.rewrite();
+            writeTemplate.executeWithoutResult(status -> segmentRepository.save(segment));
+            throw new IllegalStateException("Segment %s failed verification".formatted(segment.getFileName()));
+        }
+
+        segment.verified();
+        return writeTemplate.execute(status -> segmentRepository.save(segment));
+    }
+
+    private LedgerSegment delete(LedgerSegment segment) throws IOException {
+        // statements read the segment from here on, skipping the rows not deleted yet
+        segmentStore.register(segment);
+
+        int deleted;
+        do {
+            deleted = writeTemplate.execute(status -> {
+                var ids = ledgerRepository.findIdsCreatedBetween(segment.getPeriodStart(), segment.getPeriodEnd(),
+                        Limit.of(properties.getDeleteBatchSize()));
+                return ids.isEmpty() ? 0 : ledgerRepository.deleteCreatedBetween(ids, segment.getPeriodStart(), segment.getPeriodEnd());
+            });
+            archivedEntries.increment(deleted);
+        } while (deleted > 0);
+
+        segment.archived();
+        return writeTemplate.execute(status -> segmentRepository.save(segment));
+    }
+
+    private static Instant startOf(YearMonth month) {
+        return month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+}
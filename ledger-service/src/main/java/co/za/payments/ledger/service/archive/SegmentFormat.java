@@ -0,0 +1,74 @@
+package co.za.payments.ledger.service.archive;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * <p>Layout of a ledger segment file, written by {@link SegmentWriter} and read by {@link SegmentReader}.</p>
+ * <p>A segment holds the entries of one month ordered by account, {@code created_at} and id, in blocks of at
+ * most {@code block-size} entries of a single account. Within a block every column is stored contiguously, with
+ * {@code created_at} as deltas from the previous entry, and the block is deflate compressed. After the blocks
+ * comes the index, one fixed size record per block with its account, the {@code (created_at, id)} of its first
+ * and last entries, where it is and its CRC32, then a footer pointing at the index.</p>
+ * <pre>
+ * header  magic:int version:int
+ * block   deflate(rows:int createdAt:long[] idMsb:long[] idLsb:long[] transferMsb:long[] transferLsb:long[]
+ *                 amount:long[] balanceAfter:long[] flags:byte[])
+ * index   accountMsb:long accountLsb:long firstCreatedAt:long firstIdMsb:long firstIdLsb:long
+ *         lastCreatedAt:long lastIdMsb:long lastIdLsb:long offset:long length:int rows:int crc:int
+ * footer  indexOffset:long blocks:int rows:long indexCrc:int magic:int
+ * </pre>
+ * <p>Instants are stored as microseconds since the epoch, the precision of the column. Uuids are compared as
+ * unsigned, the order of the database.</p>
+ */
+final class SegmentFormat {
+
+    static final int MAGIC = 0x4C534547; // LSEG
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = Integer.BYTES * 2;
+    static final int INDEX_ENTRY_SIZE = Long.BYTES * 9 + Integer.BYTES * 3;
+    static final int FOOTER_SIZE = Long.BYTES * 2 + Integer.BYTES * 3;
+
+    static final byte CREDIT = 1;
+    static final byte BALANCE_APPLIED = 1 << 1;
+    static final byte HAS_BALANCE_AFTER = 1 << 2;
+
+    private SegmentFormat() {
+    }
+
+    /**
+     * @return size of a block of the given number of rows before compression
+     */
+    static int blockSize(int rows) {
+        return Integer.BYTES + rows * (Long.BYTES * 7 + 1);
+    }
+
+    static long toMicros(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000);
+    }
+
+    static Instant fromMicros(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L);
+    }
+
+    static int compare(long msb, long lsb, UUID uuid) {
+        var result = Long.compareUnsigned(msb, uuid.getMostSignificantBits());
+        return result != 0 ? result : Long.compareUnsigned(lsb, uuid.getLeastSignificantBits());
+    }
+
+    static int compare(UUID left, UUID right) {
+        return compare(left.getMostSignificantBits(), left.getLeastSignificantBits(), right);
+    }
+
+    /**
+     * Compares entry positions by account, {@code created_at} and id.
+     */
+    static int compare(UUID account, long createdAt, UUID id, UUID otherAccount, long otherCreatedAt, UUID otherId) {
+        var result = compare(account, otherAccount);
+        if (result != 0) {
+            return result;
+        }
+        result = Long.compare(createdAt, otherCreatedAt);
+        return result != 0 ? result : compare(id, otherId);
+    }
+}
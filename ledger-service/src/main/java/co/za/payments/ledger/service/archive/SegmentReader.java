@@ -0,0 +1,236 @@
+package co.za.payments.ledger.service.archive;
+
+import co.za.payments.ledger.domain.EntryType;
+import co.za.payments.ledger.repository.ArchiveEntryView;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static co.za.payments.ledger.service.archive.SegmentFormat.*;
+
+/**
+ * <p>Reads a segment file, see {@link SegmentFormat}, through a read-only memory mapping so pages are loaded by
+ * the operating system on first use and shared between readers.</p>
+ * <p>The index is searched in place for the first block of an account after a position, then only that account's
+ * blocks are decompressed, each checked against its CRC32 first. Reads never change the mapping's position, so a
+ * reader is safe to share between threads.</p>
+ */
+final class SegmentReader {
+
+    private static final int ACCOUNT_MSB = 0;
+    private static final int ACCOUNT_LSB = Long.BYTES;
+    private static final int LAST_CREATED_AT = Long.BYTES * 5;
+    private static final int LAST_ID_MSB = Long.BYTES * 6;
+    private static final int LAST_ID_LSB = Long.BYTES * 7;
+    private static final int OFFSET = Long.BYTES * 8;
+    private static final int LENGTH = Long.BYTES * 9;
+    private static final int ROWS = LENGTH + Integer.BYTES;
+    private static final int CRC = ROWS + Integer.BYTES;
+
+    private final Path file;
+    private final ByteBuffer buffer;
+    private final ByteBuffer index;
+    private final int blocks;
+    private final long rows;
+
+    private SegmentReader(Path file, ByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException("[%s] is not a version %d ledger segment".formatted(file, VERSION));
+        }
+        var footer = buffer.limit() - FOOTER_SIZE;
+        if (buffer.getInt(footer + FOOTER_SIZE - Integer.BYTES) != MAGIC) {
+            throw new IOException("Segment [%s] is truncated".formatted(file));
+        }
+
+        var indexOffset = buffer.getLong(footer);
+        this.blocks = buffer.getInt(footer + Long.BYTES);
+        this.rows = buffer.getLong(footer + Long.BYTES + Integer.BYTES);
+        if (indexOffset < HEADER_SIZE || indexOffset + (long) blocks * INDEX_ENTRY_SIZE != footer) {
+            throw new IOException("Segment [%s] has a corrupt footer".formatted(file));
+        }
+
+        this.index = buffer.slice((int) indexOffset, blocks * INDEX_ENTRY_SIZE);
+        var crc = new CRC32();
+        crc.update(index.duplicate());
+        if ((int) crc.getValue() != buffer.getInt(footer + Long.BYTES * 2 + Integer.BYTES)) {
+            throw new IOException("Segment [%s] fails the checksum of its index".formatted(file));
+        }
+    }
+
+    static SegmentReader open(Path file) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Segment [%s] of %d bytes is too large to map".formatted(file, size));
+            }
+            if (size < HEADER_SIZE + FOOTER_SIZE) {
+                throw new IOException("Segment [%s] is truncated".formatted(file));
+            }
+            // the mapping stays valid once the channel is closed
+            return new SegmentReader(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    Path file() {
+        return file;
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    int blocks() {
+        return blocks;
+    }
+
+    /**
+     * Passes the account's entries after the {@code (createdAt, id)} position to the consumer, oldest first, until
+     * it returns {@code false}.
+     *
+     * @return {@code false} when the consumer stopped before the account's last entry
+     */
+    boolean forEachAfter(UUID accountId, Instant createdAt, UUID id, Predicate<ArchiveEntryView> consumer) throws IOException {
+        var micros = toMicros(createdAt);
+        var inflater = new Inflater();
+        try {
+            for (var block = firstBlockAfter(accountId, micros, id); block < blocks && isOf(block, accountId); block++) {
+                for (var entry : decode(block, inflater)) {
+                    if (SegmentFormat.compare(entry.accountId(), toMicros(entry.createdAt()), entry.id(), accountId, micros, id) > 0
+                            && !consumer.test(entry)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Passes every entry to the consumer in file order, checking every block.
+     */
+    void forEach(Predicate<ArchiveEntryView> consumer) throws IOException {
+        var inflater = new Inflater();
+        try {
+            for (int block = 0; block < blocks; block++) {
+                for (var entry : decode(block, inflater)) {
+                    if (!consumer.test(entry)) {
+                        return;
+                    }
+                }
+            }
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * @return hex SHA-256 of the whole file, as returned by {@link SegmentWriter#finish()}
+     */
+    String checksum() {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            digest.update(buffer.slice(0, buffer.limit()));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    /**
+     * @return the first block whose last entry is after the position, {@link #blocks} when there is none
+     */
+    private int firstBlockAfter(UUID accountId, long createdAt, UUID id) {
+        var low = 0;
+        var high = blocks;
+        while (low < high) {
+            var middle = (low + high) >>> 1;
+            if (compareLast(middle, accountId, createdAt, id) > 0) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    private int compareLast(int block, UUID accountId, long createdAt, UUID id) {
+        var base = block * INDEX_ENTRY_SIZE;
+        var result = SegmentFormat.compare(index.getLong(base + ACCOUNT_MSB), index.getLong(base + ACCOUNT_LSB), accountId);
+        if (result != 0) {
+            return result;
+        }
+        result = Long.compare(index.getLong(base + LAST_CREATED_AT), createdAt);
+        return result != 0 ? result
+                : SegmentFormat.compare(index.getLong(base + LAST_ID_MSB), index.getLong(base + LAST_ID_LSB), id);
+    }
+
+    private boolean isOf(int block, UUID accountId) {
+        var base = block * INDEX_ENTRY_SIZE;
+        return SegmentFormat.compare(index.getLong(base + ACCOUNT_MSB), index.getLong(base + ACCOUNT_LSB), accountId) == 0;
+    }
+
+    private ArchiveEntryView[] decode(int block, Inflater inflater) throws IOException {
+        var base = block * INDEX_ENTRY_SIZE;
+        var accountId = new UUID(index.getLong(base + ACCOUNT_MSB), index.getLong(base + ACCOUNT_LSB));
+        var offset = index.getLong(base + OFFSET);
+        var length = index.getInt(base + LENGTH);
+        var count = index.getInt(base + ROWS);
+
+        var compressed = buffer.slice((int) offset, length);
+        var crc = new CRC32();
+        crc.update(compressed.duplicate());
+        if ((int) crc.getValue() != index.getInt(base + CRC)) {
+            throw new IOException("Block %d of segment [%s] fails its checksum".formatted(block, file));
+        }
+
+        var raw = ByteBuffer.allocate(blockSize(count));
+        inflater.reset();
+        inflater.setInput(compressed);
+        try {
+            inflater.inflate(raw);
+        } catch (DataFormatException exception) {
+            throw new IOException("Block %d of segment [%s] is corrupt".formatted(block, file), exception);
+        }
+        if (raw.hasRemaining() || !inflater.finished() || raw.getInt(0) != count) {
+            throw new IOException("Block %d of segment [%s] is corrupt".formatted(block, file));
+        }
+
+        var entries = new ArchiveEntryView[count];
+        var createdAt = 0L;
+        for (int i = 0; i < count; i++) {
+            createdAt += column(raw, count, 0, i);
+            var flags = raw.get(Integer.BYTES + count * Long.BYTES * 7 + i);
+            entries[i] = new ArchiveEntryView(
+                    new UUID(column(raw, count, 1, i), column(raw, count, 2, i)),
+                    new UUID(column(raw, count, 3, i), column(raw, count, 4, i)),
+                    accountId,
+                    (flags & CREDIT) != 0 ? EntryType.CREDIT : EntryType.DEBIT,
+                    column(raw, count, 5, i),
+                    (flags & HAS_BALANCE_AFTER) != 0 ? column(raw, count, 6, i) : null,
+                    (flags & BALANCE_APPLIED) != 0,
+                    fromMicros(createdAt));
+        }
+        return entries;
+    }
+
+    private static long column(ByteBuffer raw, int count, int column, int row) {
+        return raw.getLong(Integer.BYTES + (column * count + row) * Long.BYTES);
+    }
+}
@@ -0,0 +1,146 @@
+package co.za.payments.ledger.service.archive;
+
+import co.za.payments.ledger.config.LedgerArchiveProperties;
+import co.za.payments.ledger.domain.LedgerSegment;
+import co.za.payments.ledger.dto.EntryCursor;
+import co.za.payments.ledger.repository.ArchiveEntryView;
+import co.za.payments.ledger.repository.LedgerEntryView;
+import co.za.payments.ledger.repository.LedgerSegmentRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * <p>Serves the ledger entries archived to segment files. A segment is readable once it is verified, before its
+ * rows are deleted from {@code ledger_entry}, as every archived entry of an account comes before its first entry
+ * left in the table. Everything created before the {@link #horizon()} is in a segment.</p>
+ * <p>Statements read an account's archived entries first and carry on in the table from the last one returned,
+ * which skips any rows not yet deleted.</p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "ledger.archive", name = "enabled", havingValue = "true")
+@Slf4j
+public class SegmentStore {
+
+    private static final UUID LAST_ID = new UUID(-1L, -1L);
+
+    private final LedgerSegmentRepository segmentRepository;
+    private final Path directory;
+    private final ConcurrentSkipListMap<Instant, SegmentReader> readers = new ConcurrentSkipListMap<>();
+
+    private volatile Instant horizon;
+
+    public SegmentStore(LedgerSegmentRepository segmentRepository, LedgerArchiveProperties properties) {
+        this.segmentRepository = segmentRepository;
+        this.directory = Path.of(properties.getDirectory());
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        var segments = new ArrayList<>(segmentRepository.findByStatusOrderByPeriodStartAsc(LedgerSegment.Status.VERIFIED));
+        segments.addAll(segmentRepository.findByStatusOrderByPeriodStartAsc(LedgerSegment.Status.ARCHIVED));
+        for (var segment : segments) {
+            register(segment);
+        }
+        log.info("Opened [{}] ledger segments in [{}], archived up to [{}]", segments.size(), directory, horizon);
+    }
+
+    /**
+     * @return the end of the latest segment, {@code null} when nothing is archived
+     */
+    public Instant horizon() {
+        return horizon;
+    }
+
+    /**
+     * @return whether entries after the position may be archived
+     */
+    public boolean holds(Instant createdAt) {
+        var current = horizon;
+        return current != null && createdAt.isBefore(current);
+    }
+
+    /**
+     * @return at most {@code limit} of the account's archived entries after the position, oldest first
+     */
+    public List<LedgerEntryView> read(UUID accountId, EntryCursor after, int limit) {
+        var entries = new ArrayList<LedgerEntryView>();
+        forEachAfter(accountId, after, entry -> {
+            entries.add(entry.toView());
+            return entries.size() < limit;
+        });
+        return entries;
+    }
+
+    /**
+     * Passes the account's archived entries after the position to the consumer, oldest first.
+     *
+     * @return position of the last entry passed, {@code after} when there was none
+     */
+    public EntryCursor stream(UUID accountId, EntryCursor after, Consumer<LedgerEntryView> consumer) {
+        var last = new EntryCursor[]{after};
+        forEachAfter(accountId, after, entry -> {
+            consumer.accept(entry.toView());
+            last[0] = new EntryCursor(entry.createdAt(), entry.id());
+            return true;
+        });
+        return last[0];
+    }
+
+    /**
+     * @return net effect on the balance of the account's archived entries created after {@code after} up to and
+     * at {@code to}
+     */
+    public long sumSignedAmounts(UUID accountId, Instant after, Instant to) {
+        var sum = new long[1];
+        forEachAfter(accountId, new EntryCursor(after, LAST_ID), entry -> {
+            if (entry.createdAt().isAfter(to)) {
+                return false;
+            }
+            sum[0] += entry.signedAmount();
+            return true;
+        });
+        return sum[0];
+    }
+
+    Path directory() {
+        return directory;
+    }
+
+    void register(LedgerSegment segment) throws IOException {
+        if (readers.containsKey(segment.getPeriodStart())) {
+            return;
+        }
+        readers.put(segment.getPeriodStart(), SegmentReader.open(directory.resolve(segment.getFileName())));
+        var current = horizon;
+        if (current == null || segment.getPeriodEnd().isAfter(current)) {
+            horizon = segment.getPeriodEnd();
+        }
+    }
+
+    private void forEachAfter(UUID accountId, EntryCursor after, Predicate<ArchiveEntryView> consumer) {
+        var first = readers.floorKey(after.createdAt());
+        var segments = first == null ? readers.values() : readers.tailMap(first).values();
+        try {
+            for (var reader : segments) {
+                if (!reader.forEachAfter(accountId, after.createdAt(), after.id(), consumer)) {
+                    return;
+                }
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+}
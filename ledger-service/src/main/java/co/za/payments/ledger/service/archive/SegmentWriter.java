@@ -0,0 +1,205 @@
+package co.za.payments.ledger.service.archive;
+
+import co.za.payments.ledger.domain.EntryType;
+import co.za.payments.ledger.repository.ArchiveEntryView;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import static co.za.payments.ledger.service.archive.SegmentFormat.*;
+
+/**
+ * Writes a new segment file, see {@link SegmentFormat}. Entries must be appended in account, {@code created_at}
+ * and id order, only one block of them is held in memory.
+ */
+final class SegmentWriter implements Closeable {
+
+    private final FileChannel channel;
+    private final MessageDigest digest;
+    private final Deflater deflater;
+    private final int blockSize;
+    private final byte[] chunk = new byte[64 * 1024];
+
+    private final long[] createdAt;
+    private final long[] idMsb;
+    private final long[] idLsb;
+    private final long[] transferMsb;
+    private final long[] transferLsb;
+    private final long[] amount;
+    private final long[] balanceAfter;
+    private final byte[] flags;
+
+    private final ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+    private final DataOutputStream index = new DataOutputStream(indexBytes);
+
+    private UUID blockAccount;
+    private int rows;
+    private int blocks;
+    private long totalRows;
+    private long position;
+    private UUID lastAccount;
+    private long lastCreatedAt;
+    private UUID lastId;
+
+    SegmentWriter(Path file, int blockSize, int compressionLevel) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+        this.deflater = new Deflater(compressionLevel);
+        this.blockSize = blockSize;
+
+        this.createdAt = new long[blockSize];
+        this.idMsb = new long[blockSize];
+        this.idLsb = new long[blockSize];
+        this.transferMsb = new long[blockSize];
+        this.transferLsb = new long[blockSize];
+        this.amount = new long[blockSize];
+        this.balanceAfter = new long[blockSize];
+        this.flags = new byte[blockSize];
+
+        write(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip());
+    }
+
+    void append(ArchiveEntryView entry) throws IOException {
+        var micros = toMicros(entry.createdAt());
+        if (lastAccount != null && SegmentFormat.compare(entry.accountId(), micros, entry.id(),
+                lastAccount, lastCreatedAt, lastId) <= 0) {
+            throw new IllegalArgumentException("Entry [%s] of account [%s] is out of order".formatted(entry.id(), entry.accountId()));
+        }
+
+        if (rows == blockSize || (rows > 0 && !entry.accountId().equals(blockAccount))) {
+            writeBlock();
+        }
+        if (rows == 0) {
+            blockAccount = entry.accountId();
+        }
+
+        createdAt[rows] = micros;
+        idMsb[rows] = entry.id().getMostSignificantBits();
+        idLsb[rows] = entry.id().getLeastSignificantBits();
+        transferMsb[rows] = entry.transferId().getMostSignificantBits();
+        transferLsb[rows] = entry.transferId().getLeastSignificantBits();
+        amount[rows] = entry.amount();
+        balanceAfter[rows] = entry.balanceAfter() == null ? 0 : entry.balanceAfter();
+        flags[rows] = (byte) ((entry.type() == EntryType.CREDIT ? CREDIT : 0)
+                | (entry.balanceApplied() ? BALANCE_APPLIED : 0)
+                | (entry.balanceAfter() == null ? 0 : HAS_BALANCE_AFTER));
+
+        rows++;
+        totalRows++;
+        lastAccount = entry.accountId();
+        lastCreatedAt = micros;
+        lastId = entry.id();
+    }
+
+    long rows() {
+        return totalRows;
+    }
+
+    /**
+     * Writes the last block, the index and the footer and forces the file to disk.
+     *
+     * @return hex SHA-256 of the whole file
+     */
+    String finish() throws IOException {
+        if (rows > 0) {
+            writeBlock();
+        }
+
+        index.flush();
+        var indexArray = indexBytes.toByteArray();
+        var indexCrc = new CRC32();
+        indexCrc.update(indexArray);
+
+        var indexOffset = position;
+        write(ByteBuffer.wrap(indexArray));
+        write(ByteBuffer.allocate(FOOTER_SIZE)
+                .putLong(indexOffset)
+                .putInt(blocks)
+                .putLong(totalRows)
+                .putInt((int) indexCrc.getValue())
+                .putInt(MAGIC)
+                .flip());
+        channel.force(true);
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    @Override
+    public void close() throws IOException {
+        deflater.end();
+        channel.close();
+    }
+
+    private void writeBlock() throws IOException {
+        var raw = ByteBuffer.allocate(blockSize(rows)).putInt(rows);
+        var previous = 0L;
+        for (int i = 0; i < rows; i++) {
+            raw.putLong(createdAt[i] - previous);
+            previous = createdAt[i];
+        }
+        putColumn(raw, idMsb);
+        putColumn(raw, idLsb);
+        putColumn(raw, transferMsb);
+        putColumn(raw, transferLsb);
+        putColumn(raw, amount);
+        putColumn(raw, balanceAfter);
+        raw.put(flags, 0, rows).flip();
+
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        var compressed = new ByteArrayOutputStream(raw.remaining() / 2);
+        while (!deflater.finished()) {
+            compressed.write(chunk, 0, deflater.deflate(chunk));
+        }
+        var bytes = compressed.toByteArray();
+        var crc = new CRC32();
+        crc.update(bytes);
+
+        index.writeLong(blockAccount.getMostSignificantBits());
+        index.writeLong(blockAccount.getLeastSignificantBits());
+        index.writeLong(createdAt[0]);
+        index.writeLong(idMsb[0]);
+        index.writeLong(idLsb[0]);
+        index.writeLong(createdAt[rows - 1]);
+        index.writeLong(idMsb[rows - 1]);
+        index.writeLong(idLsb[rows - 1]);
+        index.writeLong(position);
+        index.writeInt(bytes.length);
+        index.writeInt(rows);
+        index.writeInt((int) crc.getValue());
+
+        write(ByteBuffer.wrap(bytes));
+        blocks++;
+        rows = 0;
+    }
+
+    private void putColumn(ByteBuffer raw, long[] column) {
+        for (int i = 0; i < rows; i++) {
+            raw.putLong(column[i]);
+        }
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        digest.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer);
+        }
+    }
+}
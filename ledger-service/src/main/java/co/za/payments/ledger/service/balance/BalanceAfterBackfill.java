@@ -0,0 +1,173 @@
+package co.za.payments.ledger.service.balance;
+
+import co.za.payments.ledger.config.LedgerBalanceBackfillProperties;
+import co.za.payments.ledger.domain.LedgerEntry;
+import co.za.payments.ledger.repository.AccountBalanceBucketRepository;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Fills {@code ledger_entry.balance_after} of the entries written before writers recorded it, and of the
+ * entries that writers leave without one, such as credits to balance buckets.</p>
+ * <p>The accounts to fill are split into {@code parallelism} partitions by account id and every worker fills the
+ * accounts of its partition one after another, one repeatable read transaction per account. Within that snapshot
+ * the balance after the newest unfilled entry is the current balance less the entries after it, and the history
+ * is then walked back page by page, newest first, taking off each entry's amount. A recorded balance after is
+ * trusted over the one derived, so entries before it are filled from it. Entries still waiting for the deferred
+ * credit aggregator are walked but not filled.</p>
+ */
+@Component
+@Slf4j
+public class BalanceAfterBackfill {
+
+    private final LedgerEntryRepository ledgerRepository;
+    private final AccountRepository accountRepository;
+    private final AccountBalanceBucketRepository bucketRepository;
+    private final LedgerBalanceBackfillProperties properties;
+    private final TransactionTemplate readTemplate;
+    private final TransactionTemplate snapshotTemplate;
+    private final Counter filledEntries;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public BalanceAfterBackfill(LedgerEntryRepository ledgerRepository, AccountRepository accountRepository,
+                                AccountBalanceBucketRepository bucketRepository, LedgerBalanceBackfillProperties properties,
+                                PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.ledgerRepository = ledgerRepository;
+        this.accountRepository = accountRepository;
+        this.bucketRepository = bucketRepository;
+        this.properties = properties;
+
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setReadOnly(true);
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+
+        this.filledEntries = Counter.builder("ledger.balance_backfill.entries")
+                .description("Ledger entries whose balance after was filled by the backfill")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (properties.isRunOnStartup()) {
+            var thread = new Thread(this::backfill, "ledger-balance-backfill");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Fills every account that has entries without a balance after and waits for all workers to finish.
+     */
+    public BackfillResult backfill() {
+        var started = System.nanoTime();
+
+        var partitions = new ArrayList<List<UUID>>(properties.getParallelism());
+        for (int i = 0; i < properties.getParallelism(); i++) {
+            partitions.add(new ArrayList<>());
+        }
+        readTemplate.executeWithoutResult(status -> {
+            try (var accountIds = ledgerRepository.streamAccountIdsWithoutBalanceAfter()) {
+                accountIds.forEach(accountId -> partitions.get(Math.floorMod(accountId.hashCode(), partitions.size())).add(accountId));
+            }
+        });
+
+        var accounts = new AtomicInteger();
+        var failedAccounts = new AtomicInteger();
+        var entries = new AtomicLong();
+
+        var threads = new AtomicInteger();
+        var executor = Executors.newFixedThreadPool(partitions.size(),
+                runnable -> new Thread(runnable, "ledger-balance-backfill-" + threads.getAndIncrement()));
+        try {
+            var workers = new ArrayList<Future<?>>(partitions.size());
+            for (var partition : partitions) {
+                workers.add(executor.submit(() -> partition.forEach(accountId -> {
+                    try {
+                        entries.addAndGet(snapshotTemplate.execute(status -> fill(accountId)));
+                        accounts.incrementAndGet();
+                    } catch (RuntimeException exception) {
+                        failedAccounts.incrementAndGet();
+                        log.error("Failed to backfill balances of account [{}]", accountId, exception);
+                    }
+                })));
+            }
+            for (var worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while backfilling balances", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Balance backfill worker failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        var result = new BackfillResult(accounts.get(), entries.get(), failedAccounts.get());
+        log.info("Backfilled balance after of [{}] entries on [{}] accounts in [{}] ms, [{}] accounts failed",
+                result.entries(), result.accounts(), (System.nanoTime() - started) / 1_000_000, result.failedAccounts());
+        return result;
+    }
+
+    private long fill(UUID accountId) {
+        var newest = ledgerRepository.findFirstByAccountIdAndBalanceAfterIsNullAndBalanceAppliedTrueOrderByCreatedAtDescIdDesc(accountId);
+        var available = accountRepository.findAvailableBalance(accountId);
+        if (newest.isEmpty() || available.isEmpty()) {
+            return 0;
+        }
+
+        var entry = newest.get();
+        var balance = available.get() + bucketRepository.sumBalance(accountId)
+                - ledgerRepository.sumSignedAmountsAfter(accountId, entry.getCreatedAt(), entry.getId());
+
+        var filled = 0L;
+        List<LedgerEntry> page = List.of(entry);
+        while (!page.isEmpty()) {
+            for (var pageEntry : page) {
+                if (pageEntry.getBalanceAfter() != null) {
+                    balance = pageEntry.getBalanceAfter();
+                } else if (pageEntry.isBalanceApplied()) {
+                    pageEntry.setBalanceAfter(balance);
+                    filled++;
+                }
+                balance -= pageEntry.signedAmount();
+            }
+
+            var last = page.getLast();
+            entityManager.flush();
+            entityManager.clear();
+
+            page = ledgerRepository.findEntriesBefore(accountId, last.getCreatedAt(), last.getId(), Limit.of(properties.getPageSize()));
+        }
+
+        filledEntries.increment(filled);
+        log.debug("Backfilled balance after of [{}] entries of account [{}]", filled, accountId);
+        return filled;
+    }
+
+    public record BackfillResult(int accounts, long entries, int failedAccounts) { }
+}
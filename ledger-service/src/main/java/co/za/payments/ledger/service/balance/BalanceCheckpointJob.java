@@ -0,0 +1,197 @@
+package co.za.payments.ledger.service.balance;
+
+import co.za.payments.ledger.config.LedgerBalanceCheckpointProperties;
+import co.za.payments.ledger.domain.AccountBalanceCheckpoint;
+import co.za.payments.ledger.repository.AccountAmountView;
+import co.za.payments.ledger.repository.AccountBalanceBucketRepository;
+import co.za.payments.ledger.repository.AccountBalanceCheckpointRepository;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * <p>Takes a {@link AccountBalanceCheckpoint} of every account at each {@code interval} boundary, once the
+ * {@code settle-delay} after it has passed.</p>
+ * <p>Accounts are read in id order in chunks of {@code chunk-size}, and the chunks are checkpointed by
+ * {@code parallelism} workers, one repeatable read transaction per chunk. Nothing is locked, so transfers carry on
+ * while a checkpoint is taken. An account with an earlier checkpoint is checkpointed from it plus the entries
+ * created since; one without is checkpointed from its current balance less the entries created after the
+ * checkpoint instant. Accounts that already have the checkpoint are skipped, so a failed or interrupted run is
+ * completed by the next.</p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "ledger.balance-checkpoints", name = "enabled", havingValue = "true")
+@Slf4j
+public class BalanceCheckpointJob {
+
+    private final AccountRepository accountRepository;
+    private final LedgerEntryRepository ledgerRepository;
+    private final AccountBalanceBucketRepository bucketRepository;
+    private final AccountBalanceCheckpointRepository checkpointRepository;
+    private final LedgerBalanceCheckpointProperties properties;
+    private final TransactionTemplate readTemplate;
+    private final TransactionTemplate snapshotTemplate;
+
+    private final Counter checkpoints;
+    private final Counter failedChunks;
+    private final Timer runTime;
+
+    public BalanceCheckpointJob(AccountRepository accountRepository, LedgerEntryRepository ledgerRepository,
+                                AccountBalanceBucketRepository bucketRepository,
+                                AccountBalanceCheckpointRepository checkpointRepository,
+                                LedgerBalanceCheckpointProperties properties,
+                                PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.ledgerRepository = ledgerRepository;
+        this.bucketRepository = bucketRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.properties = properties;
+
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setReadOnly(true);
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+
+        this.checkpoints = Counter.builder("ledger.balance_checkpoints.written")
+                .description("Account balance checkpoints written")
+                .register(meterRegistry);
+        this.failedChunks = Counter.builder("ledger.balance_checkpoints.failed_chunks")
+                .description("Chunks of accounts whose checkpoints failed and are retried by the next run")
+                .register(meterRegistry);
+        this.runTime = Timer.builder("ledger.balance_checkpoints.run")
+                .description("Time taken to checkpoint every account")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${ledger.balance-checkpoints.check-interval:5m}")
+    public void run() {
+        checkpoint(cutoff(Instant.now(), properties.getInterval(), properties.getSettleDelay()));
+    }
+
+    /**
+     * Checkpoints every account created up to the given instant that has no checkpoint at it yet. The instant is
+     * truncated to the microseconds the database keeps, so a repeated run finds the checkpoints it wrote.
+     *
+     * @return number of checkpoints written
+     */
+    public long checkpoint(Instant instant) {
+        var asOf = instant.truncatedTo(ChronoUnit.MICROS);
+        var started = System.nanoTime();
+        var threads = new AtomicInteger();
+        var executor = new ThreadPoolExecutor(properties.getParallelism(), properties.getParallelism(),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.getParallelism()),
+                runnable -> new Thread(runnable, "ledger-balance-checkpoint-" + threads.getAndIncrement()),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        var chunks = new ArrayList<Future<Integer>>();
+        try {
+            var after = new UUID(0, 0);
+            while (true) {
+                var from = after;
+                var accountIds = readTemplate.execute(status ->
+                        accountRepository.findIdsAfter(from, asOf, Limit.of(properties.getChunkSize())));
+                if (accountIds.isEmpty()) {
+                    break;
+                }
+
+                after = accountIds.getLast();
+                chunks.add(executor.submit(() -> checkpointChunk(accountIds, asOf)));
+            }
+
+            var written = 0L;
+            for (var chunk : chunks) {
+                written += chunk.get();
+            }
+
+            runTime.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            if (written > 0) {
+                log.info("Wrote [{}] balance checkpoints as of [{}] in [{}] chunks", written, asOf, chunks.size());
+            }
+            return written;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while checkpointing balances as of %s".formatted(asOf), e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Balance checkpoint worker failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int checkpointChunk(List<UUID> accountIds, Instant asOf) {
+        try {
+            var written = snapshotTemplate.execute(status -> writeCheckpoints(accountIds, asOf));
+            checkpoints.increment(written);
+            return written;
+        } catch (RuntimeException exception) {
+            failedChunks.increment();
+            log.error("Failed to checkpoint [{}] accounts from [{}] as of [{}]", accountIds.size(), accountIds.getFirst(), asOf, exception);
+            return 0;
+        }
+    }
+
+    private int writeCheckpoints(List<UUID> accountIds, Instant asOf) {
+        var pending = new HashSet<>(accountIds);
+        checkpointRepository.findAccountIdsCheckpointedAt(accountIds, asOf).forEach(pending::remove);
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        var balances = new HashMap<UUID, Long>();
+
+        var previous = checkpointRepository.findLatestBefore(pending, asOf).stream()
+                .collect(Collectors.groupingBy(AccountBalanceCheckpoint::getAsOf));
+        previous.forEach((previousAsOf, previousCheckpoints) -> {
+            var ids = previousCheckpoints.stream().map(AccountBalanceCheckpoint::getAccountId).toList();
+            var deltas = amounts(ledgerRepository.sumSignedAmountsBetween(ids, previousAsOf, asOf));
+            previousCheckpoints.forEach(checkpoint -> balances.put(checkpoint.getAccountId(),
+                    checkpoint.getBalance() + deltas.getOrDefault(checkpoint.getAccountId(), 0L)));
+        });
+
+        var live = pending.stream().filter(accountId -> !balances.containsKey(accountId)).toList();
+        if (!live.isEmpty()) {
+            var buckets = amounts(bucketRepository.sumBalances(live));
+            var unapplied = amounts(ledgerRepository.sumUnappliedCredits(live));
+            var since = amounts(ledgerRepository.sumSignedAmountsCreatedAfter(live, asOf));
+            accountRepository.findBalances(live).forEach(account -> balances.put(account.accountId(), account.amount()
+                    + buckets.getOrDefault(account.accountId(), 0L)
+                    + unapplied.getOrDefault(account.accountId(), 0L)
+                    - since.getOrDefault(account.accountId(), 0L)));
+        }
+
+        checkpointRepository.saveAll(balances.entrySet().stream()
+                .map(balance -> AccountBalanceCheckpoint.of(balance.getKey(), asOf, balance.getValue()))
+                .toList());
+        return balances.size();
+    }
+
+    private static Map<UUID, Long> amounts(List<AccountAmountView> amounts) {
+        return amounts.stream().collect(Collectors.toMap(AccountAmountView::accountId, AccountAmountView::amount));
+    }
+
+    /**
+     * @return the latest interval boundary, counted from the epoch, that is at least the settle delay in the past
+     */
+    static Instant cutoff(Instant now, Duration interval, Duration settleDelay) {
+        var settled = now.minus(settleDelay).toEpochMilli();
+        return Instant.ofEpochMilli(Math.floorDiv(settled, interval.toMillis()) * interval.toMillis());
+    }
+}
@@ -0,0 +1,336 @@
+package co.za.payments.ledger.service.balance;
+
+import co.za.payments.ledger.config.LedgerReplayProperties;
+import co.za.payments.ledger.config.LedgerReplayProperties.ReplayMode;
+import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.domain.LedgerReplayDifference;
+import co.za.payments.ledger.domain.LedgerReplayPartition;
+import co.za.payments.ledger.repository.AccountAmountView;
+import co.za.payments.ledger.repository.AccountBalanceBucketRepository;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import co.za.payments.ledger.repository.LedgerReplayDifferenceRepository;
+import co.za.payments.ledger.repository.LedgerReplayPartitionRepository;
+import co.za.payments.ledger.repository.ReplayEntryView;
+import co.za.payments.ledger.service.impl.AccountCache;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * <p>Rebuilds every {@code Account.balance} from {@code ledger_entry}, or only reports the accounts whose balance
+ * differs from the one replayed.</p>
+ * <p>The accounts are split into {@code partitions} ranges of ids with as many accounts each, planned once per
+ * {@code run-id} and kept in {@link LedgerReplayPartition}. Workers on a fork-join pool of {@code parallelism}
+ * threads take one partition at a time and stream its entries, account by account and oldest first, from a
+ * server-side cursor, adding them up in primitive accumulators. Every {@code batch-size} accounts the replayed
+ * balances are compared with the stored ones and written back as JDBC batches, in the same transaction that moves
+ * the partition's progress, so a replay started again with the same {@code run-id} resumes after the last batch
+ * written. Each worker holds two connections, the streaming read and the batch writes, so a {@code parallelism}
+ * of more than half the connection pool is refused on startup, as the workers could take every connection for
+ * their reads and wait forever for one to write.</p>
+ * <p>The opening balance of an account is not an entry, so it is taken from the oldest entry that recorded its
+ * balance after: less the entries up to and including it. An account none of whose entries recorded one is
+ * reported but left as it is. The replayed balance of the account row leaves out credits still waiting for the
+ * deferred credit aggregator and what sits in balance buckets. Transfers must be stopped while balances are
+ * written back, including the hot account engine, as a transfer between the read and the write of a batch would
+ * be lost.</p>
+ */
+@Component
+@Slf4j
+public class LedgerReplay {
+
+    private final LedgerEntryRepository ledgerRepository;
+    private final AccountRepository accountRepository;
+    private final AccountBalanceBucketRepository bucketRepository;
+    private final LedgerReplayPartitionRepository partitionRepository;
+    private final LedgerReplayDifferenceRepository differenceRepository;
+    private final AccountCache accountCache;
+    private final LedgerReplayProperties properties;
+    private final TransactionTemplate readTemplate;
+    private final TransactionTemplate writeTemplate;
+
+    private final AtomicLong replayedAccounts = new AtomicLong();
+    private final AtomicLong replayedEntries = new AtomicLong();
+    private final AtomicLong differences = new AtomicLong();
+
+    public LedgerReplay(LedgerEntryRepository ledgerRepository, AccountRepository accountRepository,
+                        AccountBalanceBucketRepository bucketRepository,
+                        LedgerReplayPartitionRepository partitionRepository,
+                        LedgerReplayDifferenceRepository differenceRepository, AccountCache accountCache,
+                        LedgerReplayProperties properties, PlatformTransactionManager transactionManager,
+                        DataSource dataSource, MeterRegistry meterRegistry) {
+        if (dataSource instanceof HikariDataSource pool && properties.getParallelism() * 2 > pool.getMaximumPoolSize()) {
+            throw new IllegalStateException("ledger.replay.parallelism of %d needs %d connections, more than the %d of the connection pool"
+                    .formatted(properties.getParallelism(), properties.getParallelism() * 2, pool.getMaximumPoolSize()));
+        }
+
+        this.ledgerRepository = ledgerRepository;
+        this.accountRepository = accountRepository;
+        this.bucketRepository = bucketRepository;
+        this.partitionRepository = partitionRepository;
+        this.differenceRepository = differenceRepository;
+        this.accountCache = accountCache;
+        this.properties = properties;
+
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setReadOnly(true);
+        // batches are written while the partition is still streamed in its own read transaction
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        Gauge.builder("ledger.replay.accounts", replayedAccounts, AtomicLong::get)
+                .description("Accounts replayed by the running ledger replay, including those of earlier attempts")
+                .register(meterRegistry);
+        Gauge.builder("ledger.replay.entries", replayedEntries, AtomicLong::get)
+                .description("Ledger entries replayed by the running ledger replay, including those of earlier attempts")
+                .register(meterRegistry);
+        Gauge.builder("ledger.replay.differences", differences, AtomicLong::get)
+                .description("Accounts found by the running ledger replay with a balance different from the replayed one")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Replays the partitions of the configured run that are not completed yet and waits for all of them.
+     */
+    public ReplayResult replay(ReplayMode mode) {
+        if (mode == ReplayMode.OFF) {
+            throw new IllegalArgumentException("A replay needs a mode of REPORT or APPLY");
+        }
+
+        var runId = properties.getRunId();
+        var started = System.nanoTime();
+        var partitions = writeTemplate.execute(status -> plan(runId));
+        var pending = partitions.stream().filter(partition -> !partition.isCompleted()).toList();
+
+        replayedAccounts.set(partitions.stream().mapToLong(LedgerReplayPartition::getAccounts).sum());
+        replayedEntries.set(partitions.stream().mapToLong(LedgerReplayPartition::getEntries).sum());
+        differences.set(partitions.stream().mapToLong(LedgerReplayPartition::getDifferences).sum());
+        log.info("Replaying ledger run [{}] in mode [{}], [{}] of [{}] partitions left", runId, mode, pending.size(),
+                partitions.size());
+
+        var reporter = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "ledger-replay-progress"));
+        var interval = properties.getProgressInterval().toMillis();
+        reporter.scheduleAtFixedRate(() -> log.info("Ledger replay [{}] at [{}] accounts, [{}] entries, [{}] differences",
+                runId, replayedAccounts.get(), replayedEntries.get(), differences.get()), interval, interval, TimeUnit.MILLISECONDS);
+
+        var pool = new ForkJoinPool(properties.getParallelism());
+        try {
+            var tasks = pending.stream()
+                    .<Callable<LedgerReplayPartition>>map(partition -> () -> replayPartition(partition, mode))
+                    .toList();
+            for (var task : pool.invokeAll(tasks)) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while replaying ledger run %s".formatted(runId), e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Ledger replay worker failed, run %s again to resume".formatted(runId), e.getCause());
+        } finally {
+            pool.shutdownNow();
+            reporter.shutdownNow();
+        }
+
+        var result = new ReplayResult(replayedAccounts.get(), replayedEntries.get(), differences.get());
+        log.info("Replayed ledger run [{}] in [{}] ms: [{}] accounts, [{}] entries, [{}] differences", runId,
+                (System.nanoTime() - started) / 1_000_000, result.accounts(), result.entries(), result.differences());
+        return result;
+    }
+
+    /**
+     * @return the partitions of the run, planned from the accounts that exist now when the run is new
+     */
+    private List<LedgerReplayPartition> plan(String runId) {
+        var existing = partitionRepository.findByRunIdOrderByPartitionIndex(runId);
+        if (!existing.isEmpty()) {
+            return existing;
+        }
+
+        var accounts = accountRepository.count();
+        var size = Math.max(1, (accounts + properties.getPartitions() - 1) / properties.getPartitions());
+
+        var partitions = new ArrayList<LedgerReplayPartition>(properties.getPartitions());
+        try (var accountIds = accountRepository.streamIdsInOrder()) {
+            var position = 0L;
+            UUID first = null;
+            UUID last = null;
+            for (var iterator = accountIds.iterator(); iterator.hasNext(); position++) {
+                last = iterator.next();
+                if (position % size == 0) {
+                    first = last;
+                }
+                if (position % size == size - 1) {
+                    partitions.add(LedgerReplayPartition.of(runId, partitions.size(), first, last));
+                    first = null;
+                }
+            }
+            if (first != null) {
+                partitions.add(LedgerReplayPartition.of(runId, partitions.size(), first, last));
+            }
+        }
+        return partitionRepository.saveAll(partitions);
+    }
+
+    private LedgerReplayPartition replayPartition(LedgerReplayPartition partition, ReplayMode mode) {
+        var done = partition.getDoneAccountId();
+        var from = done == null ? partition.getFirstAccountId() : done;
+
+        var progress = readTemplate.execute(status -> {
+            var current = partition;
+            var batch = new ReplayBatch(properties.getBatchSize());
+            var account = new AccountReplay();
+
+            try (var entries = ledgerRepository.streamReplayEntries(from, partition.getLastAccountId())) {
+                for (var iterator = entries.iterator(); iterator.hasNext(); ) {
+                    var entry = iterator.next();
+                    if (entry.accountId().equals(done)) {
+                        continue;
+                    }
+                    if (!entry.accountId().equals(account.accountId)) {
+                        if (account.accountId != null && batch.add(account)) {
+                            current = write(current, batch, mode);
+                        }
+                        account.reset(entry.accountId());
+                    }
+                    account.add(entry);
+                }
+            }
+
+            if (account.accountId != null) {
+                batch.add(account);
+            }
+            return batch.size > 0 ? write(current, batch, mode) : current;
+        });
+
+        progress.setCompleted(true);
+        return writeTemplate.execute(status -> partitionRepository.save(progress));
+    }
+
+    private LedgerReplayPartition write(LedgerReplayPartition partition, ReplayBatch batch, ReplayMode mode) {
+        var before = partition.getDifferences();
+        var written = writeTemplate.execute(status -> {
+            var accountIds = Arrays.asList(batch.accountIds).subList(0, batch.size);
+            var buckets = bucketRepository.sumBalances(accountIds).stream()
+                    .collect(Collectors.toMap(AccountAmountView::accountId, AccountAmountView::amount));
+            var accounts = accountRepository.findAllById(accountIds).stream()
+                    .collect(Collectors.toMap(Account::getId, Function.identity()));
+
+            var found = new ArrayList<LedgerReplayDifference>();
+            for (int i = 0; i < batch.size; i++) {
+                var account = accounts.get(batch.accountIds[i]);
+                if (account == null) {
+                    continue;
+                }
+
+                Long replayed = batch.anchored[i] ? batch.balances[i] - buckets.getOrDefault(account.getId(), 0L) : null;
+                if (replayed == null || replayed != account.getBalance()) {
+                    found.add(LedgerReplayDifference.of(properties.getRunId(), account.getId(), account.getBalance(), replayed));
+                    if (replayed != null && mode == ReplayMode.APPLY) {
+                        account.setBalance(replayed);
+                    }
+                }
+            }
+
+            if (mode == ReplayMode.APPLY) {
+                accountCache.evictOnCommit(accountIds);
+            }
+            differenceRepository.saveAll(found);
+            partition.advance(batch.accountIds[batch.size - 1], batch.size, batch.entries, found.size());
+            return partitionRepository.save(partition);
+        });
+
+        replayedAccounts.addAndGet(batch.size);
+        replayedEntries.addAndGet(batch.entries);
+        differences.addAndGet(written.getDifferences() - before);
+        batch.clear();
+        return written;
+    }
+
+    /**
+     * Running sums of the account being streamed, reused from one account to the next.
+     */
+    private static final class AccountReplay {
+
+        private UUID accountId;
+        private long entries;
+        private long total;
+        private long unapplied;
+        private boolean anchored;
+        private long opening;
+
+        void reset(UUID accountId) {
+            this.accountId = accountId;
+            this.entries = 0;
+            this.total = 0;
+            this.unapplied = 0;
+            this.anchored = false;
+            this.opening = 0;
+        }
+
+        void add(ReplayEntryView entry) {
+            entries++;
+            total += entry.signedAmount();
+            if (!entry.balanceApplied()) {
+                unapplied += entry.amount();
+            }
+            if (!anchored && entry.balanceAfter() != null) {
+                opening = entry.balanceAfter() - total;
+                anchored = true;
+            }
+        }
+    }
+
+    /**
+     * Replayed balances of the accounts of a batch in parallel arrays, the balance is that of the account row
+     * before its balance buckets are taken off.
+     */
+    private static final class ReplayBatch {
+
+        private final UUID[] accountIds;
+        private final long[] balances;
+        private final boolean[] anchored;
+        private int size;
+        private long entries;
+
+        ReplayBatch(int capacity) {
+            this.accountIds = new UUID[capacity];
+            this.balances = new long[capacity];
+            this.anchored = new boolean[capacity];
+        }
+
+        /**
+         * @return whether the batch is full
+         */
+        boolean add(AccountReplay account) {
+            accountIds[size] = account.accountId;
+            balances[size] = account.opening + account.total - account.unapplied;
+            anchored[size] = account.anchored;
+            entries += account.entries;
+            return ++size == accountIds.length;
+        }
+
+        void clear() {
+            size = 0;
+            entries = 0;
+        }
+    }
+
+    public record ReplayResult(long accounts, long entries, long differences) { }
+}
@@ -0,0 +1,42 @@
+package co.za.payments.ledger.service.balance;
+
+import co.za.payments.ledger.config.LedgerReplayProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the {@link LedgerReplay} on startup when {@code ledger.replay.mode} is set, e.g. as a one-off command with
+ * {@code --ledger.replay.mode=report --ledger.replay.exit-on-completion=true}.
+ */
+@Component
+@ConditionalOnExpression("'${ledger.replay.mode:off}'.toLowerCase() != 'off'")
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerReplayRunner implements ApplicationRunner {
+
+    private final LedgerReplay ledgerReplay;
+    private final LedgerReplayProperties properties;
+    private final ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        var exitCode = 0;
+        try {
+            ledgerReplay.replay(properties.getMode());
+        } catch (RuntimeException exception) {
+            log.error("Ledger replay [{}] failed", properties.getRunId(), exception);
+            exitCode = 1;
+        }
+
+        if (properties.isExitOnCompletion()) {
+            var code = exitCode;
+            System.exit(SpringApplication.exit(context, () -> code));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package co.za.payments.ledger.service.dedup;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>Fixed size Bloom filter of {@link UUID}s that is safe for concurrent use.</p>
+ * <p>The bit array is sized for the expected insertions and false positive probability, the probes are derived
+ * from two 64 bit hashes of the id by double hashing. Setting a bit is a lock free OR on one word, so a reader
+ * may miss an id while it is being added, never after {@link #put(UUID)} returned.</p>
+ */
+class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+    private final AtomicLong insertions = new AtomicLong();
+
+    BloomFilter(int expectedInsertions, double falsePositiveProbability) {
+        var optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        this.words = new AtomicLongArray(Math.toIntExact((Math.max(optimalBits, Long.SIZE) + Long.SIZE - 1) / Long.SIZE));
+        this.bits = (long) words.length() * Long.SIZE;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / expectedInsertions * Math.log(2)));
+    }
+
+    void put(UUID id) {
+        var first = mix(id.getMostSignificantBits() ^ Long.rotateLeft(id.getLeastSignificantBits(), 32));
+        var second = mix(id.getLeastSignificantBits() + 0x9E3779B97F4A7C15L) | 1;
+
+        for (int i = 0; i < hashes; i++) {
+            var bit = Math.floorMod(first + i * second, bits);
+            var mask = 1L << bit;
+            words.getAndUpdate((int) (bit >>> 6), word -> word | mask);
+        }
+        insertions.incrementAndGet();
+    }
+
+    boolean mightContain(UUID id) {
+        var first = mix(id.getMostSignificantBits() ^ Long.rotateLeft(id.getLeastSignificantBits(), 32));
+        var second = mix(id.getLeastSignificantBits() + 0x9E3779B97F4A7C15L) | 1;
+
+        for (int i = 0; i < hashes; i++) {
+            var bit = Math.floorMod(first + i * second, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return number of {@link #put(UUID)} calls, an id added twice is counted twice
+     */
+    long insertions() {
+        return insertions.get();
+    }
+
+    long sizeInBytes() {
+        return (long) words.length() * Long.BYTES;
+    }
+
+    /**
+     * Finalisation step of MurmurHash3, spreads every input bit over the whole word.
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
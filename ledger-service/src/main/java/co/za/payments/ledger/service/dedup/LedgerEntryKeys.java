@@ -0,0 +1,174 @@
+package co.za.payments.ledger.service.dedup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * <p>Keeps every {@code (transfer_id, type)} ever written to {@code ledger_entry} in {@code ledger_entry_key}, which
+ * outlives the rows themselves.</p>
+ * <p>The unique constraint of {@code ledger_entry} only holds while the rows are in the table. Once the entries of a
+ * transfer are archived, or their partition detached, a replayed transfer id would be written again. A
+ * {@code before insert} trigger on {@code ledger_entry} claims the key of each row instead, so a replay fails with
+ * a unique violation on every write path, whatever happened to the original rows since.</p>
+ * <p>{@link #install()} is idempotent, it creates the table, the trigger on PostgreSQL and H2, and claims the keys
+ * of the rows already in {@code ledger_entry}.</p>
+ */
+@Component
+@Slf4j
+public class LedgerEntryKeys {
+
+    static final String TRIGGER = "ledger_entry_claim_key";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private volatile boolean installed;
+
+    public LedgerEntryKeys(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Installs the trigger on {@code ledger_entry} unless it is there already. Joins the current transaction if
+     * there is one, so it can run as part of replacing the table.
+     */
+    public void install() {
+        var postgres = isPostgres();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("""
+                    create table if not exists ledger_entry_key (
+                        transfer_id uuid not null,
+                        type varchar(50) not null,
+                        constraint uq_ledger_entry_key primary key (transfer_id, type)
+                    )
+                    """);
+            if (hasTrigger(postgres)) {
+                return;
+            }
+
+            // creating the trigger blocks inserts on PostgreSQL until commit, so none are missed by the claim below
+            if (postgres) {
+                createPostgresTrigger();
+            } else {
+                createH2Trigger();
+            }
+            var claimed = jdbcTemplate.update("""
+                    insert into ledger_entry_key (transfer_id, type)
+                    select e.transfer_id, e.type
+                      from ledger_entry e
+                     where not exists (select 1 from ledger_entry_key k where k.transfer_id = e.transfer_id and k.type = e.type)
+                    """);
+            log.info("Installed trigger [{}] on ledger_entry, claimed [{}] existing keys", TRIGGER, claimed);
+        });
+        installed = true;
+    }
+
+    /**
+     * @return whether the transfer was written to the ledger, including transfers whose entries are no longer in
+     * {@code ledger_entry}
+     */
+    public boolean isClaimed(UUID transferId) {
+        if (!installed) {
+            return false;
+        }
+        var count = jdbcTemplate.queryForObject("select count(*) from ledger_entry_key where transfer_id = ?",
+                Long.class, transferId);
+        return count != null && count > 0;
+    }
+
+    /**
+     * @return the transfer ids among the given ones that were written to the ledger, including transfers whose
+     * entries are no longer in {@code ledger_entry}
+     */
+    public Set<UUID> claimedAmong(Collection<UUID> transferIds) {
+        if (!installed || transferIds.isEmpty()) {
+            return Set.of();
+        }
+        var parameters = new MapSqlParameterSource("transferIds", transferIds);
+        return new HashSet<>(namedJdbcTemplate.queryForList(
+                "select distinct transfer_id from ledger_entry_key where transfer_id in (:transferIds)", parameters, UUID.class));
+    }
+
+    private boolean isPostgres() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                connection.getMetaData().getDatabaseProductName().equals("PostgreSQL")));
+    }
+
+    private boolean hasTrigger(boolean postgres) {
+        var count = postgres
+                ? jdbcTemplate.queryForObject("select count(*) from pg_trigger where tgname = ? and tgrelid = 'ledger_entry'::regclass",
+                        Long.class, TRIGGER)
+                : jdbcTemplate.queryForObject("select count(*) from information_schema.triggers where trigger_name = ?",
+                        Long.class, TRIGGER.toUpperCase());
+        return count != null && count > 0;
+    }
+
+    private void createPostgresTrigger() {
+        jdbcTemplate.execute("""
+                create or replace function ledger_entry_claim_key() returns trigger as $$
+                begin
+                    insert into ledger_entry_key (transfer_id, type) values (new.transfer_id, new.type);
+                    return new;
+                end
+                $$ language plpgsql
+                """);
+        jdbcTemplate.execute("""
+                create trigger ledger_entry_claim_key before insert on ledger_entry
+                    for each row execute function ledger_entry_claim_key()
+                """);
+    }
+
+    /**
+     * H2 triggers are Java, compiled by H2 from the source below. The positions of the key columns are looked up
+     * once, as the column order of {@code ledger_entry} is up to Hibernate.
+     */
+    private void createH2Trigger() {
+        jdbcTemplate.execute("""
+                create trigger ledger_entry_claim_key before insert on ledger_entry for each row as $$
+                org.h2.api.Trigger create() {
+                    return new org.h2.api.Trigger() {
+                        private int transferId;
+                        private int type;
+
+                        public void init(java.sql.Connection connection, String schema, String trigger, String table,
+                                         boolean before, int kind) throws java.sql.SQLException {
+                            try (var columns = connection.getMetaData().getColumns(null, schema, table, null)) {
+                                while (columns.next()) {
+                                    var name = columns.getString("COLUMN_NAME");
+                                    if (name.equalsIgnoreCase("transfer_id")) {
+                                        transferId = columns.getInt("ORDINAL_POSITION") - 1;
+                                    } else if (name.equalsIgnoreCase("type")) {
+                                        type = columns.getInt("ORDINAL_POSITION") - 1;
+                                    }
+                                }
+                            }
+                        }
+
+                        public void fire(java.sql.Connection connection, Object[] oldRow, Object[] newRow)
+                                throws java.sql.SQLException {
+                            try (var statement = connection.prepareStatement(
+                                    "insert into ledger_entry_key (transfer_id, type) values (?, ?)")) {
+                                statement.setObject(1, newRow[transferId]);
+                                statement.setObject(2, newRow[type]);
+                                statement.executeUpdate();
+                            }
+                        }
+                    };
+                }
+                $$
+                """);
+    }
+}
@@ -0,0 +1,34 @@
+package co.za.payments.ledger.service.dedup;
+
+import co.za.payments.ledger.dto.LedgerTransferResponse;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.service.LedgerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link LedgerService} that answers a replayed transfer from the {@link TransferResponseCache} without touching
+ * the database. A response is cached once the delegate returned it, which is after its transaction committed,
+ * so a transfer that rolled back is never answered from the cache.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class ReplayCachingLedgerService implements LedgerService {
+
+    private final TransferResponseCache cache;
+    private final LedgerService delegate;
+
+    @Override
+    public LedgerTransferResponse createEntry(TransferRequest request) {
+        var cached = cache.get(request.transferId());
+
+        if (cached.isPresent()) {
+            log.info("Ledger entry exists for transferId: [{}]. Returning cached transfer", request.transferId());
+            return cached.get();
+        }
+
+        var response = delegate.createEntry(request);
+        cache.put(response);
+        return response;
+    }
+}
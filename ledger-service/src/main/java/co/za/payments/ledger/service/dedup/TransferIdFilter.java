@@ -0,0 +1,200 @@
+package co.za.payments.ledger.service.dedup;
+
+import co.za.payments.ledger.config.LedgerTransferFilterProperties;
+import co.za.payments.ledger.domain.LedgerEntry;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * <p>Negative cache of the transfer ids written to the ledger, used to skip the duplicate lookup of new transfers.</p>
+ * <p>Ids are held in generations of {@link BloomFilter}s. A new generation is started every {@code window}, or
+ * earlier once the current one holds {@code expected-insertions} ids, and the oldest is dropped beyond
+ * {@code generations}, which bounds the memory used. An id that no generation contains was not written
+ * recently and is not looked up. Any other id is looked up in the database, an empty result there is a false
+ * positive.</p>
+ * <p>Ids are added before their entries are inserted. A rolled back transfer then only costs a false positive,
+ * while a replay that raced the original or outlived the window is caught by the {@code (transfer_id, type)}
+ * unique constraint, and the retry of the write finds the id in the filter. Until the ids of the window are
+ * loaded at startup every id is looked up. When disabled every id is looked up.</p>
+ */
+@Component
+@Slf4j
+public class TransferIdFilter {
+
+    private final LedgerEntryRepository ledgerRepository;
+    private final LedgerTransferFilterProperties properties;
+
+    private volatile List<BloomFilter> generations;
+    private volatile boolean loaded;
+
+    private final Counter lookupsSaved;
+    private final Counter falsePositives;
+
+    public TransferIdFilter(LedgerEntryRepository ledgerRepository, LedgerTransferFilterProperties properties,
+                            MeterRegistry meterRegistry) {
+        this.ledgerRepository = ledgerRepository;
+        this.properties = properties;
+        this.generations = List.of(newGeneration());
+
+        this.lookupsSaved = Counter.builder("ledger.transfer_filter.lookups.saved")
+                .description("Duplicate lookups skipped because the transfer id was definitely new")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("ledger.transfer_filter.false_positives")
+                .description("Duplicate lookups made for a transfer id the filter reported but the ledger did not hold")
+                .register(meterRegistry);
+        Gauge.builder("ledger.transfer_filter.false_positive.rate", this, TransferIdFilter::falsePositiveRate)
+                .description("Share of the new transfer ids that were still looked up")
+                .register(meterRegistry);
+        Gauge.builder("ledger.transfer_filter.size", this, filter -> filter.generations.stream().mapToLong(BloomFilter::sizeInBytes).sum())
+                .description("Memory held by the generations of the filter")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads the transfer ids of the retained window into the current generation.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        var since = Instant.now().minus(properties.getWindow().multipliedBy(properties.getGenerations()));
+        var count = new AtomicLong();
+
+        try (Stream<UUID> transferIds = ledgerRepository.streamTransferIdsCreatedSince(since)) {
+            transferIds.forEach(transferId -> {
+                add(transferId);
+                count.incrementAndGet();
+            });
+        }
+
+        loaded = true;
+        log.info("Loaded [{}] transfer ids written since [{}] into the transfer id filter", count.get(), since);
+    }
+
+    @Scheduled(fixedDelayString = "${ledger.transfer-filter.window:1h}", initialDelayString = "${ledger.transfer-filter.window:1h}")
+    public void rotate() {
+        if (properties.isEnabled()) {
+            rotate(generations.getFirst());
+        }
+    }
+
+    public boolean mightContain(UUID transferId) {
+        if (!properties.isEnabled() || !loaded) {
+            return true;
+        }
+
+        for (var generation : generations) {
+            if (generation.mightContain(transferId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void add(UUID transferId) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        var current = generations.getFirst();
+        current.put(transferId);
+
+        if (current.insertions() >= properties.getExpectedInsertions()) {
+            rotate(current);
+        }
+    }
+
+    public void addAll(Collection<UUID> transferIds) {
+        transferIds.forEach(this::add);
+    }
+
+    /**
+     * @return the entries of the transfer, empty without a database lookup when the id is definitely new
+     */
+    public List<LedgerEntry> existingEntries(UUID transferId) {
+        if (!mightContain(transferId)) {
+            saved(1);
+            return List.of();
+        }
+
+        var entries = ledgerRepository.findByTransferId(transferId);
+        if (entries.isEmpty() && properties.isEnabled() && loaded) {
+            falsePositive(1);
+        }
+        return entries;
+    }
+
+    /**
+     * @return the entries of the transfers, only the ids the filter might contain are looked up
+     */
+    public List<LedgerEntry> existingEntries(Collection<UUID> transferIds) {
+        var candidates = transferIds.stream().filter(this::mightContain).toList();
+        saved(transferIds.size() - candidates.size());
+
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+
+        var entries = ledgerRepository.findByTransferIdIn(candidates);
+        if (properties.isEnabled() && loaded) {
+            falsePositive(candidates.size() - entries.stream().map(LedgerEntry::getTransferId).distinct().count());
+        }
+        return entries;
+    }
+
+    double falsePositiveRate() {
+        var newIds = falsePositives.count() + lookupsSaved.count();
+        return newIds == 0 ? 0 : falsePositives.count() / newIds;
+    }
+
+    private synchronized void rotate(BloomFilter current) {
+        if (generations.getFirst() != current) {
+            return;
+        }
+
+        var rotated = new ArrayList<BloomFilter>(properties.getGenerations());
+        rotated.add(newGeneration());
+        rotated.addAll(generations.subList(0, Math.min(generations.size(), properties.getGenerations() - 1)));
+        generations = List.copyOf(rotated);
+
+        log.info("Started a new transfer id filter generation after [{}] ids, keeping [{}]", current.insertions(), rotated.size());
+    }
+
+    private BloomFilter newGeneration() {
+        return properties.isEnabled()
+                ? new BloomFilter(properties.getExpectedInsertions(), properties.getFalsePositiveProbability())
+                : new BloomFilter(1, 0.5);
+    }
+
+    private void saved(long count) {
+        if (count > 0) {
+            lookupsSaved.increment(count);
+        }
+    }
+
+    private void falsePositive(long count) {
+        if (count > 0) {
+            falsePositives.increment(count);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package co.za.payments.ledger.service.dedup;
+
+import co.za.payments.ledger.config.LedgerReplayCacheProperties;
+import co.za.payments.ledger.dto.LedgerTransferResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * <p>Bounded cache of the responses of recently written transfers, keyed by transfer id.</p>
+ * <p>Caffeine evicts by frequency and recency (W-TinyLFU) once {@code maximum-size} is reached, and every
+ * response expires {@code ttl} after it was written. Hits, misses and evictions are published as the
+ * {@code cache.*} meters of the {@code ledger.replay} cache, plus {@code ledger.replay_cache.hit.rate}.</p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "ledger.replay-cache", name = "enabled", havingValue = "true")
+public class TransferResponseCache {
+
+    private final Cache<UUID, LedgerTransferResponse> cache;
+
+    public TransferResponseCache(LedgerReplayCacheProperties properties, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "ledger.replay");
+        Gauge.builder("ledger.replay_cache.hit.rate", cache, c -> c.stats().hitRate())
+                .description("Share of ledger transfer requests answered from the replay cache")
+                .register(meterRegistry);
+    }
+
+    public Optional<LedgerTransferResponse> get(UUID transferId) {
+        return Optional.ofNullable(cache.getIfPresent(transferId));
+    }
+
+    public void put(LedgerTransferResponse response) {
+        cache.put(response.transferId(), response);
+    }
+}
@@ -0,0 +1,108 @@
+package co.za.payments.ledger.service.deferred;
+
+import co.za.payments.ledger.config.LedgerDeferredCreditProperties;
+import co.za.payments.ledger.domain.AccountLockOrder;
+import co.za.payments.ledger.domain.LedgerEntry;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import co.za.payments.ledger.service.BalanceAdjuster;
+import co.za.payments.ledger.service.impl.AccountCache;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * <p>Applies deferred credits to account balances in the background.</p>
+ * <p>Every run takes up to {@code max-batch-size} unapplied credit entries, marks them applied and adds their sum
+ * to each account with one UPDATE per account, in ascending account id order, all in one transaction. Until then
+ * reads report the balance plus the unapplied credits. As that replaces the persisted balance this adjuster runs
+ * before any other.</p>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(prefix = "ledger.deferred-credits", name = "enabled", havingValue = "true")
+@Slf4j
+public class DeferredCreditAggregator implements BalanceAdjuster {
+
+    private final LedgerEntryRepository ledgerRepository;
+    private final AccountRepository accountRepository;
+    private final LedgerDeferredCreditProperties properties;
+    private final AccountCache accountCache;
+
+    private final DistributionSummary batchSize;
+    private final Timer applyTime;
+
+    public DeferredCreditAggregator(LedgerEntryRepository ledgerRepository, AccountRepository accountRepository,
+                                    LedgerDeferredCreditProperties properties, AccountCache accountCache,
+                                    MeterRegistry meterRegistry) {
+        this.ledgerRepository = ledgerRepository;
+        this.accountRepository = accountRepository;
+        this.properties = properties;
+        this.accountCache = accountCache;
+
+        this.batchSize = DistributionSummary.builder("ledger.deferred_credits.batch.size")
+                .description("Number of deferred credits applied per aggregator run")
+                .register(meterRegistry);
+        this.applyTime = Timer.builder("ledger.deferred_credits.apply")
+                .description("Time taken to apply a batch of deferred credits")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${ledger.deferred-credits.apply-interval:5ms}")
+    @Transactional
+    public void apply() {
+        var entries = ledgerRepository.findByBalanceAppliedFalseOrderByCreatedAtAsc(PageRequest.of(0, properties.getMaxBatchSize()));
+
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        var started = System.nanoTime();
+        var now = Instant.now();
+
+        var ids = entries.stream().map(LedgerEntry::getId).toList();
+        if (ledgerRepository.markBalanceApplied(ids, now) != ids.size()) {
+            throw new IllegalStateException("Deferred credits were applied concurrently, rolling back this run");
+        }
+
+        var totals = entries.stream().collect(Collectors.groupingBy(LedgerEntry::getAccountId, () -> new TreeMap<>(AccountLockOrder.COMPARATOR),
+                Collectors.summingLong(LedgerEntry::getAmount)));
+        accountCache.evictOnCommit(totals.keySet());
+        totals.forEach((accountId, total) -> accountRepository.applyDelta(accountId, total, now));
+
+        batchSize.record(entries.size());
+        applyTime.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        log.debug("Applied [{}] deferred credits to [{}] accounts", entries.size(), totals.size());
+    }
+
+    /**
+     * Re-reads the balance of a deferred credit account together with its unapplied credits, as adding them to a
+     * balance read earlier could miss or double count a batch applied in between.
+     */
+    @Override
+    public long adjust(UUID accountId, long persistedBalance) {
+        if (!properties.getAccountIds().contains(accountId)) {
+            return persistedBalance;
+        }
+        return accountRepository.findAvailableBalance(accountId).orElse(persistedBalance);
+    }
+
+    @Override
+    public boolean holdsBalanceOf(UUID accountId) {
+        return properties.getAccountIds().contains(accountId);
+    }
+}
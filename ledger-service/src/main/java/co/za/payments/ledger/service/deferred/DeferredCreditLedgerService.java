@@ -0,0 +1,26 @@
+package co.za.payments.ledger.service.deferred;
+
+import co.za.payments.ledger.dto.LedgerTransferResponse;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.service.LedgerService;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@link LedgerService} that sends transfers touching a deferred credit account to the {@link DeferredCreditWriter}
+ * and everything else to the delegate.
+ */
+@RequiredArgsConstructor
+public class DeferredCreditLedgerService implements LedgerService {
+
+    private final DeferredCreditWriter writer;
+    private final LedgerService delegate;
+
+    @Override
+    public LedgerTransferResponse createEntry(TransferRequest request) {
+        if (writer.isDeferred(request.fromAccountId()) || writer.isDeferred(request.toAccountId())) {
+            return writer.write(request);
+        }
+
+        return delegate.createEntry(request);
+    }
+}
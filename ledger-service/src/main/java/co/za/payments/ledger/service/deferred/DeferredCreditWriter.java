@@ -0,0 +1,151 @@
+package co.za.payments.ledger.service.deferred;
+
+import co.za.payments.ledger.config.LedgerDeferredCreditProperties;
+import co.za.payments.ledger.domain.AccountLockOrder;
+import co.za.payments.ledger.domain.EntryType;
+import co.za.payments.ledger.domain.LedgerEntry;
+import co.za.payments.ledger.domain.Money;
+import co.za.payments.ledger.dto.LedgerTransferResponse;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.exception.AccountNotFoundException;
+import co.za.payments.ledger.exception.InsufficientAccountBalanceException;
+import co.za.payments.ledger.exception.InvalidAmountException;
+import co.za.payments.ledger.exception.TransferArchivedException;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import co.za.payments.ledger.service.dedup.LedgerEntryKeys;
+import co.za.payments.ledger.service.dedup.TransferIdFilter;
+import co.za.payments.ledger.service.impl.AccountCache;
+import co.za.payments.ledger.service.impl.LedgerEntryMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.retry.annotation.Retryable;
+import org.springframework.retry.support.RetrySynchronizationManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * <p>Applies transfers where at least one side is a deferred credit account.</p>
+ * <ul>
+ *     <li>credit to a deferred credit account: only the unapplied {@code CREDIT} entry is inserted, the account row
+ *     is not touched, so concurrent credits do not contend</li>
+ *     <li>debit from a deferred credit account: the account row is locked, and the debit is accepted when the balance
+ *     plus the unapplied credits covers it</li>
+ * </ul>
+ * <p>The other side of the transfer is applied with guarded UPDATE statements like the conditional write mode, and
+ * the two accounts are handled in ascending account id order.</p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "ledger.deferred-credits", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class DeferredCreditWriter {
+
+    private final LedgerEntryRepository ledgerRepository;
+    private final AccountRepository accountRepository;
+    private final LedgerDeferredCreditProperties properties;
+    private final TransferIdFilter transferIdFilter;
+    private final AccountCache accountCache;
+    private final LedgerEntryKeys entryKeys;
+
+    public boolean isDeferred(UUID accountId) {
+        return properties.getAccountIds().contains(accountId);
+    }
+
+    /**
+     * A replay that got past the duplicate check, because it raced the original or the transfer id filter no longer
+     * held its id, fails on the {@code (transfer_id, type)} unique constraint. The retry then finds the entries, or
+     * rejects the replay when the entries of the original transfer were archived.
+     */
+    @Retryable(retryFor = DataIntegrityViolationException.class, maxAttempts = 2)
+    @Transactional
+    public LedgerTransferResponse write(TransferRequest request) {
+        var existingTransfers = transferIdFilter.existingEntries(request.transferId());
+
+        if (!existingTransfers.isEmpty()) {
+            log.info("Ledger entry exists for transferId: [{}]. Returning existing transfer", request.transferId());
+            return LedgerEntryMapper.toResponse(existingTransfers);
+        }
+
+        if (isRetry() && entryKeys.isClaimed(request.transferId())) {
+            throw new TransferArchivedException(request.transferId());
+        }
+
+        var amount = Money.requireMinorUnits(request.amount(), EntryType.DEBIT);
+        if (amount <= 0) {
+            throw new InvalidAmountException(EntryType.DEBIT, amount);
+        }
+
+        var now = Instant.now();
+        accountCache.evictOnCommit(List.of(request.fromAccountId(), request.toAccountId()));
+
+        LedgerEntry debitEntry;
+        LedgerEntry creditEntry;
+        if (AccountLockOrder.lockedFirst(request.fromAccountId(), request.toAccountId())) {
+            debitEntry = debit(request, amount, now);
+            creditEntry = credit(request, amount, now);
+        } else {
+            creditEntry = credit(request, amount, now);
+            debitEntry = debit(request, amount, now);
+        }
+
+        transferIdFilter.add(request.transferId());
+        var ledgerEntries = ledgerRepository.saveAll(List.of(debitEntry, creditEntry));
+
+        return LedgerEntryMapper.toResponse(ledgerEntries);
+    }
+
+    private LedgerEntry debit(TransferRequest request, long amount, Instant now) {
+        var accountId = request.fromAccountId();
+
+        if (!isDeferred(accountId)) {
+            var balance = accountRepository.debitReturningBalance(accountId, amount, now);
+            if (balance.isEmpty()) {
+                if (!accountRepository.existsById(accountId)) {
+                    throw new AccountNotFoundException(accountId);
+                }
+                throw new InsufficientAccountBalanceException(accountId);
+            }
+            return LedgerEntry.debit(request.transferId(), accountId, amount, balance.getAsLong());
+        }
+
+        // the row lock orders this debit after any aggregator run on the account, so the sum below is exact
+        var account = accountRepository.lockAllById(List.of(accountId)).stream()
+                .findFirst()
+                .orElseThrow(() -> new AccountNotFoundException(accountId));
+
+        var available = account.getBalance() + ledgerRepository.sumUnappliedCredits(accountId);
+        if (available < amount) {
+            throw new InsufficientAccountBalanceException(accountId);
+        }
+
+        accountRepository.applyDelta(accountId, -amount, now);
+        return LedgerEntry.debit(request.transferId(), accountId, amount, available - amount);
+    }
+
+    private LedgerEntry credit(TransferRequest request, long amount, Instant now) {
+        var accountId = request.toAccountId();
+
+        if (isDeferred(accountId)) {
+            if (!accountRepository.existsById(accountId)) {
+                throw new AccountNotFoundException(accountId);
+            }
+            return LedgerEntry.deferredCredit(request.transferId(), accountId, amount);
+        }
+
+        var balance = accountRepository.creditReturningBalance(accountId, amount, now)
+                .orElseThrow(() -> new AccountNotFoundException(accountId));
+        return LedgerEntry.credit(request.transferId(), accountId, amount, balance);
+    }
+
+    private static boolean isRetry() {
+        var context = RetrySynchronizationManager.getContext();
+        return null != context && context.getRetryCount() > 0;
+    }
+}
@@ -0,0 +1,382 @@
+package co.za.payments.ledger.service.hot;
+
+import co.za.payments.ledger.config.LedgerHotAccountProperties;
+import co.za.payments.ledger.domain.EntryType;
+import co.za.payments.ledger.domain.Money;
+import co.za.payments.ledger.dto.LedgerEntryDto;
+import co.za.payments.ledger.dto.LedgerTransferResponse;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.exception.InsufficientAccountBalanceException;
+import co.za.payments.ledger.exception.InvalidAmountException;
+import co.za.payments.ledger.exception.LedgerApplicationException;
+import co.za.payments.ledger.service.BalanceAdjuster;
+import co.za.payments.ledger.service.impl.TransferOutcome;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * <p>In-memory, authoritative balance engine for designated hot accounts.</p>
+ * <p>Balances of hot accounts are held in a {@link HotBalanceMap} in minor units. Every transfer debiting a hot
+ * account is put on a queue and decided by a single sequencer thread, which applies it in memory and appends it
+ * to the {@link TransferJournal}; a drained group of transfers is made durable with one fsync before any of
+ * them is acknowledged. A flusher persists acknowledged transfers to {@code accounts}/{@code ledger_entry}
+ * asynchronously and advances the journal checkpoint. On startup balances are loaded from the database and the
+ * journal tail that never reached it is replayed.</p>
+ * <p>A journal failure stops the engine: the transfers already queued are failed and new ones refused, while
+ * credits committed by the database keep being added to the balances, so they stay right until a restart.</p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "ledger.hot-accounts", name = "enabled", havingValue = "true")
+@Slf4j
+public class HotAccountEngine implements BalanceAdjuster {
+
+    private final HotAccountStore store;
+    private final LedgerHotAccountProperties properties;
+    private final BlockingQueue<Command> commands;
+    private final BlockingQueue<JournalRecord> unflushed = new LinkedBlockingQueue<>();
+    private final Map<UUID, PendingTransfer> pendingTransfers = new ConcurrentHashMap<>();
+    private final List<JournalRecord> flushing = new ArrayList<>();
+
+    private final Counter accepted;
+    private final Counter rejected;
+    private final Timer journalSync;
+    private final MeterRegistry meterRegistry;
+
+    private HotBalanceMap balances;
+    private TransferJournal journal;
+    private ExecutorService sequencer;
+    private ScheduledExecutorService flusher;
+    private volatile boolean running;
+
+    public HotAccountEngine(HotAccountStore store, LedgerHotAccountProperties properties, MeterRegistry meterRegistry) {
+        this.store = store;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.commands = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+
+        this.accepted = Counter.builder("ledger.hot_accounts.transfers").tag("result", "accepted").register(meterRegistry);
+        this.rejected = Counter.builder("ledger.hot_accounts.transfers").tag("result", "rejected").register(meterRegistry);
+        this.journalSync = Timer.builder("ledger.hot_accounts.journal.sync")
+                .description("Time taken to make a group of journaled transfers durable")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        var startingBalances = store.loadBalances(properties.getAccountIds());
+        properties.getAccountIds().stream()
+                .filter(accountId -> !startingBalances.containsKey(accountId))
+                .forEach(accountId -> log.warn("Hot account [{}] does not exist and is ignored", accountId));
+
+        balances = new HotBalanceMap(startingBalances.size());
+        startingBalances.forEach(balances::put);
+
+        journal = new TransferJournal(properties.getJournalDir(), properties.getMaxBatchSize());
+        replay(journal.recover());
+
+        Gauge.builder("ledger.hot_accounts.flush.lag", unflushed, Queue::size)
+                .description("Journaled transfers not yet persisted to the database")
+                .register(meterRegistry);
+
+        running = true;
+        sequencer = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "ledger-hot-sequencer"));
+        sequencer.submit(this::sequence);
+
+        var flushMillis = Math.max(1, properties.getFlushInterval().toMillis());
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "ledger-hot-flusher"));
+        flusher.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+
+        log.info("Hot account engine started with [{}] accounts, journal at [{}]", balances.size(), properties.getJournalDir());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        running = false;
+
+        sequencer.shutdown();
+        sequencer.awaitTermination(5, TimeUnit.SECONDS);
+
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+
+        abandonQueued();
+
+        journal.close();
+    }
+
+    public boolean isHot(UUID accountId) {
+        return balances.slotOf(accountId) >= 0;
+    }
+
+    /**
+     * @return the in-memory balance of a hot account in minor units, or {@code null} when the account is not hot
+     */
+    public Long balanceOf(UUID accountId) {
+        var slot = balances.slotOf(accountId);
+        return slot < 0 ? null : balances.balance(slot);
+    }
+
+    @Override
+    public long adjust(UUID accountId, long persistedBalance) {
+        return Optional.ofNullable(balanceOf(accountId)).orElse(persistedBalance);
+    }
+
+    @Override
+    public boolean holdsBalanceOf(UUID accountId) {
+        return isHot(accountId);
+    }
+
+    /**
+     * @return the response of a transfer accepted by the engine that may not have reached the database yet
+     */
+    public Optional<LedgerTransferResponse> pendingTransfer(UUID transferId) {
+        return Optional.ofNullable(pendingTransfers.get(transferId)).map(PendingTransfer::response);
+    }
+
+    /**
+     * Queues a transfer debiting a hot account; the future completes once the transfer is durable in the journal,
+     * or exceptionally when the engine stops first. Waits up to {@code submit-timeout} for room in the queue.
+     */
+    public CompletableFuture<TransferOutcome> submit(TransferRequest request) {
+        if (!running) {
+            throw new IllegalStateException("Hot account engine is not running");
+        }
+
+        var command = new Command(request, new CompletableFuture<>());
+        try {
+            if (!commands.offer(command, properties.getSubmitTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Hot account queue is full, transfer %s was not queued".formatted(request.transferId()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing transfer %s".formatted(request.transferId()), e);
+        }
+
+        // the engine may have stopped and drained the queue while this command was being queued
+        if (!running && commands.remove(command)) {
+            command.future().completeExceptionally(notApplied(request));
+        }
+        return command.future();
+    }
+
+    /**
+     * Adds a credit to a hot account that was already committed to the database by another path. The balance
+     * is updated directly rather than through the sequencer, so the credit is not lost when the engine has
+     * stopped or its queue is full.
+     */
+    public void creditCommitted(TransferRequest request) {
+        var slot = balances.slotOf(request.toAccountId());
+        balances.add(slot, Money.toMinorUnits(request.amount()));
+    }
+
+    private void replay(List<JournalRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+
+        var persisted = store.existingTransferIds(records.stream().map(JournalRecord::transferId).toList());
+
+        for (var record : records) {
+            if (persisted.contains(record.transferId())) {
+                continue;
+            }
+
+            applyToBalances(record.fromAccountId(), record.toAccountId(), record.amountMinorUnits());
+            pendingTransfers.put(record.transferId(), new PendingTransfer(toResponse(record)));
+            unflushed.add(record);
+        }
+
+        log.info("Replayed [{}] journaled transfers not yet persisted", unflushed.size());
+    }
+
+    private void sequence() {
+        var batch = new ArrayList<Command>(properties.getMaxBatchSize());
+
+        while (running) {
+            try {
+                var first = commands.poll(100, TimeUnit.MILLISECONDS);
+
+                if (null == first) {
+                    journal.compactIfFlushed(properties.getCompactThresholdBytes());
+                    continue;
+                }
+
+                batch.add(first);
+                commands.drainTo(batch, properties.getMaxBatchSize() - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.error("Hot account journal failed, stopping engine", e);
+                running = false;
+                abandonQueued();
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<Command> batch) throws IOException {
+        var applied = new ArrayList<JournalRecord>(batch.size());
+        var outcomes = new ArrayList<TransferOutcome>(batch.size());
+
+        try {
+            for (var command : batch) {
+                outcomes.add(apply(command.request(), applied));
+            }
+
+            var started = System.nanoTime();
+            journal.sync();
+            journalSync.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        } catch (IOException | RuntimeException e) {
+            try {
+                journal.discardBuffered();
+            } catch (IOException discardFailure) {
+                e.addSuppressed(discardFailure);
+            }
+            for (int i = applied.size() - 1; i >= 0; i--) {
+                var record = applied.get(i);
+                applyToBalances(record.toAccountId(), record.fromAccountId(), record.amountMinorUnits());
+                pendingTransfers.remove(record.transferId());
+            }
+            batch.forEach(command -> command.future().completeExceptionally(e));
+            throw e;
+        }
+
+        unflushed.addAll(applied);
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).future().complete(outcomes.get(i));
+        }
+    }
+
+    private TransferOutcome apply(TransferRequest request, List<JournalRecord> applied) throws IOException {
+        var pending = pendingTransfers.get(request.transferId());
+        if (null != pending) {
+            return TransferOutcome.duplicate(pending.response());
+        }
+
+        try {
+            var amount = toMinorUnits(request.amount());
+            var fromSlot = balances.slotOf(request.fromAccountId());
+
+            if (balances.balance(fromSlot) < amount) {
+                throw new InsufficientAccountBalanceException(request.fromAccountId());
+            }
+
+            applyToBalances(request.fromAccountId(), request.toAccountId(), amount);
+
+            var record = new JournalRecord(journal.nextSequence(), request.transferId(), request.fromAccountId(),
+                    request.toAccountId(), amount, Instant.now().toEpochMilli());
+            journal.append(record);
+            applied.add(record);
+
+            var response = toResponse(record);
+            pendingTransfers.put(request.transferId(), new PendingTransfer(response));
+            accepted.increment();
+            return TransferOutcome.created(response);
+        } catch (LedgerApplicationException e) {
+            rejected.increment();
+            return TransferOutcome.rejected(request.transferId(), e);
+        }
+    }
+
+    private void abandonQueued() {
+        var abandoned = new ArrayList<Command>();
+        commands.drainTo(abandoned);
+        abandoned.forEach(command -> command.future().completeExceptionally(notApplied(command.request())));
+    }
+
+    private static IllegalStateException notApplied(TransferRequest request) {
+        return new IllegalStateException("Hot account engine stopped before transfer %s was applied".formatted(request.transferId()));
+    }
+
+    private void applyToBalances(UUID fromAccountId, UUID toAccountId, long amount) {
+        var fromSlot = balances.slotOf(fromAccountId);
+        if (fromSlot >= 0) {
+            balances.add(fromSlot, -amount);
+        }
+
+        var toSlot = balances.slotOf(toAccountId);
+        if (toSlot >= 0) {
+            balances.add(toSlot, amount);
+        }
+    }
+
+    private void flush() {
+        // a failed flush keeps its records and retries them first, so the checkpoint only ever moves forward
+        if (flushing.isEmpty()) {
+            unflushed.drainTo(flushing, properties.getFlushBatchSize());
+        }
+
+        if (!flushing.isEmpty()) {
+            try {
+                store.persist(flushing);
+                journal.markFlushed(flushing.getLast().sequence());
+            } catch (Exception e) {
+                log.error("Failed to persist [{}] hot account transfers, will retry", flushing.size(), e);
+                return;
+            }
+
+            var flushedAt = System.nanoTime();
+            flushing.forEach(record -> pendingTransfers.computeIfPresent(record.transferId(),
+                    (id, pending) -> pending.flushed(flushedAt)));
+            flushing.clear();
+        }
+
+        var expiry = System.nanoTime() - properties.getDuplicateRetention().toNanos();
+        pendingTransfers.values().removeIf(pending -> pending.flushedAt() != 0 && pending.flushedAt() < expiry);
+    }
+
+    private static long toMinorUnits(BigDecimal amount) {
+        var minorUnits = Money.requireMinorUnits(amount, EntryType.DEBIT);
+        if (minorUnits <= 0) {
+            throw new InvalidAmountException(EntryType.DEBIT, minorUnits);
+        }
+        return minorUnits;
+    }
+
+    private static LedgerTransferResponse toResponse(JournalRecord record) {
+        var amount = Money.fromMinorUnits(record.amountMinorUnits());
+
+        return LedgerTransferResponse.builder()
+                .transferId(record.transferId())
+                .debitEntry(new LedgerEntryDto(record.fromAccountId(), amount, EntryType.DEBIT.name()))
+                .creditEntry(new LedgerEntryDto(record.toAccountId(), amount, EntryType.CREDIT.name()))
+                .createdAt(Instant.ofEpochMilli(record.acceptedAtMillis()))
+                .build();
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        var thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private record Command(TransferRequest request, CompletableFuture<TransferOutcome> future) { }
+
+    private record PendingTransfer(LedgerTransferResponse response, long flushedAt) {
+
+        PendingTransfer(LedgerTransferResponse response) {
+            this(response, 0L);
+        }
+
+        PendingTransfer flushed(long at) {
+            return new PendingTransfer(response, at);
+        }
+    }
+}
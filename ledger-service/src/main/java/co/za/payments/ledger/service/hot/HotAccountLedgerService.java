@@ -0,0 +1,100 @@
+package co.za.payments.ledger.service.hot;
+
+import co.za.payments.ledger.config.LedgerHotAccountProperties;
+import co.za.payments.ledger.dto.BatchTransferStatus;
+import co.za.payments.ledger.dto.LedgerTransferResponse;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.exception.AccountNotFoundException;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.service.LedgerService;
+import co.za.payments.ledger.service.impl.TransferOutcome;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <p>{@link LedgerService} that sends transfers touching a hot account to the {@link HotAccountEngine} and
+ * everything else to the delegate.</p>
+ * <ul>
+ *     <li>hot debit: decided in memory by the engine and acknowledged once journaled, waiting at most
+ *     {@code submit-timeout}</li>
+ *     <li>cold debit, hot credit: committed to the database directly, then the credit is reported to the engine</li>
+ * </ul>
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class HotAccountLedgerService implements LedgerService {
+
+    private final HotAccountEngine engine;
+    private final HotAccountStore store;
+    private final AccountRepository accountRepository;
+    private final LedgerHotAccountProperties properties;
+    private final LedgerService delegate;
+
+    @Override
+    public LedgerTransferResponse createEntry(TransferRequest request) {
+        if (engine.isHot(request.fromAccountId())) {
+            return hotDebit(request);
+        }
+
+        if (engine.isHot(request.toAccountId())) {
+            return hotCredit(request);
+        }
+
+        return delegate.createEntry(request);
+    }
+
+    private LedgerTransferResponse hotDebit(TransferRequest request) {
+        log.info("Queueing hot account transfer, transferId: [{}]", request.transferId());
+
+        var existing = engine.pendingTransfer(request.transferId()).or(() -> store.findTransfer(request.transferId()));
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        if (!engine.isHot(request.toAccountId()) && !accountRepository.existsById(request.toAccountId())) {
+            throw new AccountNotFoundException(request.toAccountId());
+        }
+
+        TransferOutcome outcome;
+        try {
+            outcome = engine.submit(request).get(properties.getSubmitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out waiting for hot account transfer %s, replay it for the outcome"
+                    .formatted(request.transferId()), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for hot account transfer %s".formatted(request.transferId()), e);
+        }
+
+        if (outcome.isRejected()) {
+            throw outcome.error();
+        }
+
+        return outcome.response();
+    }
+
+    private LedgerTransferResponse hotCredit(TransferRequest request) {
+        log.info("Crediting hot account, transferId: [{}]", request.transferId());
+
+        var pending = engine.pendingTransfer(request.transferId());
+        if (pending.isPresent()) {
+            return pending.get();
+        }
+
+        var outcome = store.applyInbound(request);
+        if (outcome.status() == BatchTransferStatus.CREATED) {
+            engine.creditCommitted(request);
+        }
+
+        return outcome.response();
+    }
+}
@@ -0,0 +1,161 @@
+package co.za.payments.ledger.service.hot;
+
+import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.domain.AccountLockOrder;
+import co.za.payments.ledger.domain.EntryType;
+import co.za.payments.ledger.domain.LedgerEntry;
+import co.za.payments.ledger.domain.Money;
+import co.za.payments.ledger.dto.LedgerTransferResponse;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.exception.AccountNotFoundException;
+import co.za.payments.ledger.exception.InsufficientAccountBalanceException;
+import co.za.payments.ledger.exception.InvalidAmountException;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import co.za.payments.ledger.service.impl.AccountCache;
+import co.za.payments.ledger.service.impl.LedgerEntryMapper;
+import co.za.payments.ledger.service.impl.TransferOutcome;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Database side of the hot account engine: loads the starting balances and persists what the engine accepted.
+ */
+@Component
+@ConditionalOnProperty(prefix = "ledger.hot-accounts", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class HotAccountStore {
+
+    private final AccountRepository accountRepository;
+    private final LedgerEntryRepository ledgerRepository;
+    private final AccountCache accountCache;
+
+    @Transactional(readOnly = true)
+    public Map<UUID, Long> loadBalances(Collection<UUID> accountIds) {
+        return accountRepository.findAllById(accountIds).stream()
+                .collect(Collectors.toMap(Account::getId, Account::getBalance));
+    }
+
+    @Transactional(readOnly = true)
+    public Set<UUID> existingTransferIds(Collection<UUID> transferIds) {
+        return ledgerRepository.findByTransferIdIn(transferIds).stream()
+                .map(LedgerEntry::getTransferId)
+                .collect(Collectors.toSet());
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<LedgerTransferResponse> findTransfer(UUID transferId) {
+        var entries = ledgerRepository.findByTransferId(transferId);
+        return entries.isEmpty() ? Optional.empty() : Optional.of(LedgerEntryMapper.toResponse(entries));
+    }
+
+    /**
+     * Persists journaled transfers: inserts their ledger entries and applies the net balance change of every
+     * account with one UPDATE each. Transfers whose entries already exist (a replay after a crash) are skipped.
+     * The accounts are locked first, so the balance after each entry is the locked balance plus the entries
+     * before it in journal order.
+     */
+    @Transactional
+    public void persist(List<JournalRecord> records) {
+        var persisted = existingTransferIds(records.stream().map(JournalRecord::transferId).toList());
+
+        var accountIds = new HashSet<UUID>();
+        records.stream()
+                .filter(record -> !persisted.contains(record.transferId()))
+                .forEach(record -> {
+                    accountIds.add(record.fromAccountId());
+                    accountIds.add(record.toAccountId());
+                });
+
+        var balances = accountRepository.lockAllById(accountIds).stream()
+                .collect(Collectors.toMap(Account::getId, Account::getBalance));
+
+        var deltas = new HashMap<UUID, Long>();
+        var entries = new ArrayList<LedgerEntry>(records.size() * 2);
+
+        for (var record : records) {
+            if (persisted.contains(record.transferId())) {
+                continue;
+            }
+
+            var amount = record.amountMinorUnits();
+            deltas.merge(record.fromAccountId(), -record.amountMinorUnits(), Long::sum);
+            deltas.merge(record.toAccountId(), record.amountMinorUnits(), Long::sum);
+            entries.add(LedgerEntry.debit(record.transferId(), record.fromAccountId(), amount,
+                    balances.computeIfPresent(record.fromAccountId(), (accountId, balance) -> balance - amount)));
+            entries.add(LedgerEntry.credit(record.transferId(), record.toAccountId(), amount,
+                    balances.computeIfPresent(record.toAccountId(), (accountId, balance) -> balance + amount)));
+        }
+
+        var now = Instant.now();
+        accountCache.evictOnCommit(deltas.keySet());
+        deltas.forEach((accountId, delta) -> {
+            if (delta != 0) {
+                accountRepository.applyDelta(accountId, delta, now);
+            }
+        });
+        ledgerRepository.saveAll(entries);
+
+        log.info("Persisted [{}] hot account transfers, skipped [{}] already persisted", entries.size() / 2, persisted.size());
+    }
+
+    /**
+     * Applies a transfer from a database-held account into a hot account. The debit is decided by the database,
+     * the credit is written to the hot account's row here and reported to the engine by the caller after commit.
+     */
+    @Transactional
+    public TransferOutcome applyInbound(TransferRequest request) {
+        var existing = ledgerRepository.findByTransferId(request.transferId());
+        if (!existing.isEmpty()) {
+            return TransferOutcome.duplicate(LedgerEntryMapper.toResponse(existing));
+        }
+
+        var amount = Money.requireMinorUnits(request.amount(), EntryType.DEBIT);
+        if (amount <= 0) {
+            throw new InvalidAmountException(EntryType.DEBIT, amount);
+        }
+
+        var now = Instant.now();
+        accountCache.evictOnCommit(List.of(request.fromAccountId(), request.toAccountId()));
+        // same row order as persist, which locks the hot account together with the other side of its transfers
+        long debitBalance;
+        long creditBalance;
+        if (AccountLockOrder.lockedFirst(request.fromAccountId(), request.toAccountId())) {
+            debitBalance = debit(request.fromAccountId(), amount, now);
+            creditBalance = credit(request.toAccountId(), amount, now);
+        } else {
+            creditBalance = credit(request.toAccountId(), amount, now);
+            debitBalance = debit(request.fromAccountId(), amount, now);
+        }
+
+        var entries = ledgerRepository.saveAll(List.of(
+                LedgerEntry.debit(request.transferId(), request.fromAccountId(), amount, debitBalance),
+                LedgerEntry.credit(request.transferId(), request.toAccountId(), amount, creditBalance)));
+
+        return TransferOutcome.created(LedgerEntryMapper.toResponse(entries));
+    }
+
+    private long debit(UUID accountId, long amount, Instant now) {
+        var balance = accountRepository.debitReturningBalance(accountId, amount, now);
+        if (balance.isEmpty()) {
+            if (!accountRepository.existsById(accountId)) {
+                throw new AccountNotFoundException(accountId);
+            }
+            throw new InsufficientAccountBalanceException(accountId);
+        }
+        return balance.getAsLong();
+    }
+
+    private long credit(UUID accountId, long amount, Instant now) {
+        return accountRepository.creditReturningBalance(accountId, amount, now)
+                .orElseThrow(() -> new AccountNotFoundException(accountId));
+    }
+}
@@ -0,0 +1,97 @@
+package co.za.payments.ledger.service.hot;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>Open-addressing (linear probing) map from account id to a balance in minor units.</p>
+ * <p>Keys are stored as two primitive {@code long} halves and are fixed once the map is built; balances live in
+ * an {@link AtomicLongArray} so that they are read and added to by any thread without locking or boxing. Only
+ * the sequencer thread subtracts, so a balance it checked can only grow before its debit is applied.</p>
+ */
+final class HotBalanceMap {
+
+    private final long[] mostSignificant;
+    private final long[] leastSignificant;
+    private final boolean[] occupied;
+    private final AtomicLongArray balances;
+    private final int mask;
+    private int size;
+
+    HotBalanceMap(int expectedSize) {
+        var capacity = Integer.highestOneBit(Math.max(2, expectedSize) * 2 - 1) << 1;
+
+        this.mostSignificant = new long[capacity];
+        this.leastSignificant = new long[capacity];
+        this.occupied = new boolean[capacity];
+        this.balances = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Adds an account, must only be called while the map is being built.
+     *
+     * @return the slot of the account
+     */
+    int put(UUID accountId, long balance) {
+        var msb = accountId.getMostSignificantBits();
+        var lsb = accountId.getLeastSignificantBits();
+
+        var slot = hash(msb, lsb) & mask;
+        while (occupied[slot]) {
+            if (mostSignificant[slot] == msb && leastSignificant[slot] == lsb) {
+                balances.set(slot, balance);
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size + 1 > (mask + 1) / 2) {
+            throw new IllegalStateException("Hot balance map capacity of %d exceeded".formatted((mask + 1) / 2));
+        }
+
+        mostSignificant[slot] = msb;
+        leastSignificant[slot] = lsb;
+        occupied[slot] = true;
+        balances.set(slot, balance);
+        size++;
+        return slot;
+    }
+
+    /**
+     * @return the slot of the account, or {@code -1} when it is not a hot account
+     */
+    int slotOf(UUID accountId) {
+        var msb = accountId.getMostSignificantBits();
+        var lsb = accountId.getLeastSignificantBits();
+
+        var slot = hash(msb, lsb) & mask;
+        while (occupied[slot]) {
+            if (mostSignificant[slot] == msb && leastSignificant[slot] == lsb) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    long balance(int slot) {
+        return balances.get(slot);
+    }
+
+    void add(int slot, long delta) {
+        balances.getAndAdd(slot, delta);
+    }
+
+    int size() {
+        return size;
+    }
+
+    private static int hash(long msb, long lsb) {
+        var h = msb ^ lsb;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
@@ -0,0 +1,54 @@
+package co.za.payments.ledger.service.hot;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+/**
+ * A transfer accepted by the hot account engine, as written to the journal.
+ */
+record JournalRecord(long sequence, UUID transferId, UUID fromAccountId, UUID toAccountId,
+                     long amountMinorUnits, long acceptedAtMillis) {
+
+    static final int SIZE = Long.BYTES * 9 + Integer.BYTES;
+
+    void writeTo(ByteBuffer buffer) {
+        var start = buffer.position();
+
+        buffer.putLong(sequence);
+        putUuid(buffer, transferId);
+        putUuid(buffer, fromAccountId);
+        putUuid(buffer, toAccountId);
+        buffer.putLong(amountMinorUnits);
+        buffer.putLong(acceptedAtMillis);
+        buffer.putInt(checksum(buffer, start));
+    }
+
+    /**
+     * @return the record, or {@code null} when the bytes are a torn or corrupt write
+     */
+    static JournalRecord readFrom(ByteBuffer buffer) {
+        var start = buffer.position();
+
+        var record = new JournalRecord(buffer.getLong(), getUuid(buffer), getUuid(buffer), getUuid(buffer),
+                buffer.getLong(), buffer.getLong());
+
+        var expected = checksum(buffer, start);
+        return buffer.getInt() == expected ? record : null;
+    }
+
+    private static int checksum(ByteBuffer buffer, int start) {
+        var crc = new CRC32C();
+        crc.update(buffer.duplicate().position(start).limit(start + SIZE - Integer.BYTES));
+        return (int) crc.getValue();
+    }
+
+    private static void putUuid(ByteBuffer buffer, UUID uuid) {
+        buffer.putLong(uuid.getMostSignificantBits());
+        buffer.putLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID getUuid(ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
@@ -0,0 +1,172 @@
+package co.za.payments.ledger.service.hot;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Append-only journal of transfers accepted by the hot account engine.</p>
+ * <p>Records are buffered by {@link #append(JournalRecord)} and made durable in groups by {@link #sync()}, which
+ * writes the buffer and forces it to disk with a single fsync. A separate checkpoint file holds the highest
+ * sequence already persisted to the database, so that on startup only the tail after it has to be replayed.
+ * Appending, syncing and compaction are only done by the sequencer thread, the checkpoint is advanced by the
+ * flusher.</p>
+ */
+@Slf4j
+class TransferJournal implements Closeable {
+
+    static final String JOURNAL_FILE = "transfers.journal";
+    static final String CHECKPOINT_FILE = "transfers.checkpoint";
+
+    private final FileChannel channel;
+    private final Path checkpointFile;
+    private final ByteBuffer buffer;
+
+    private long lastSequence;
+    private long syncedPosition;
+    private volatile long flushedSequence;
+
+    TransferJournal(Path directory, int maxBatchSize) throws IOException {
+        Files.createDirectories(directory);
+
+        this.channel = FileChannel.open(directory.resolve(JOURNAL_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.checkpointFile = directory.resolve(CHECKPOINT_FILE);
+        this.buffer = ByteBuffer.allocateDirect(JournalRecord.SIZE * maxBatchSize);
+        this.flushedSequence = readCheckpoint();
+        this.lastSequence = flushedSequence;
+    }
+
+    /**
+     * Reads every intact record after the checkpoint, truncating a torn write at the end of the journal.
+     */
+    List<JournalRecord> recover() throws IOException {
+        var records = new ArrayList<JournalRecord>();
+        var readBuffer = ByteBuffer.allocate(JournalRecord.SIZE);
+        var position = 0L;
+
+        while (position + JournalRecord.SIZE <= channel.size()) {
+            readBuffer.clear();
+            while (readBuffer.hasRemaining() && channel.read(readBuffer, position + readBuffer.position()) > 0) {
+                // keep reading until the record is complete
+            }
+            readBuffer.flip();
+
+            var record = JournalRecord.readFrom(readBuffer);
+            if (null == record) {
+                log.warn("Corrupt journal record at offset [{}], discarding the rest of the journal", position);
+                break;
+            }
+
+            lastSequence = Math.max(lastSequence, record.sequence());
+            if (record.sequence() > flushedSequence) {
+                records.add(record);
+            }
+            position += JournalRecord.SIZE;
+        }
+
+        if (position < channel.size()) {
+            channel.truncate(position);
+        }
+        channel.position(position);
+        syncedPosition = position;
+
+        return records;
+    }
+
+    long nextSequence() {
+        return ++lastSequence;
+    }
+
+    void append(JournalRecord record) throws IOException {
+        if (buffer.remaining() < JournalRecord.SIZE) {
+            write();
+        }
+        record.writeTo(buffer);
+    }
+
+    /**
+     * Writes buffered records and forces them to disk.
+     */
+    void sync() throws IOException {
+        write();
+        channel.force(false);
+        syncedPosition = channel.position();
+    }
+
+    /**
+     * Drops records appended since the last {@link #sync()}, used when a batch could not be made durable, so that
+     * a rejected batch is never replayed.
+     */
+    void discardBuffered() throws IOException {
+        buffer.clear();
+        channel.truncate(syncedPosition);
+        channel.position(syncedPosition);
+    }
+
+    long lastSequence() {
+        return lastSequence;
+    }
+
+    long flushedSequence() {
+        return flushedSequence;
+    }
+
+    void markFlushed(long sequence) throws IOException {
+        if (sequence <= flushedSequence) {
+            return;
+        }
+
+        var temp = checkpointFile.resolveSibling(CHECKPOINT_FILE + ".tmp");
+        Files.writeString(temp, Long.toString(sequence), StandardCharsets.US_ASCII,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.SYNC);
+        Files.move(temp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        flushedSequence = sequence;
+    }
+
+    /**
+     * Truncates the journal once every record in it has been persisted and it has grown past the threshold.
+     */
+    boolean compactIfFlushed(long thresholdBytes) throws IOException {
+        if (flushedSequence < lastSequence || channel.size() < thresholdBytes) {
+            return false;
+        }
+
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+        syncedPosition = 0;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void write() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private long readCheckpoint() throws IOException {
+        if (!Files.exists(checkpointFile)) {
+            return 0L;
+        }
+        return Long.parseLong(Files.readString(checkpointFile, StandardCharsets.US_ASCII).trim());
+    }
+}
@@ -0,0 +1,194 @@
+package co.za.payments.ledger.service.impl;
+
+import co.za.payments.ledger.config.LedgerAccountCacheProperties;
+import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * <p>Local cache of the persisted state of accounts read by {@code GET /accounts/{id}}.</p>
+ * <p>Every write path calls {@link #evictOnCommit(Collection)} inside its transaction for the accounts whose row it
+ * changes. From then until the transaction completed, reads of those accounts bypass the cache, and on completion
+ * the cached accounts are evicted. Accounts are hashed to stripes that count the writes in flight and the
+ * evictions; a miss only caches what it loaded when no eviction hit its stripe since it started and no write is
+ * in flight, checked atomically with the put. A committed balance is therefore never followed by a read of an
+ * older version. Balance adjusters are still applied on every read.</p>
+ * <p>When disabled every read goes to the database.</p>
+ */
+@Component
+@Slf4j
+public class AccountCache {
+
+    private static final int STRIPES = 1024;
+
+    private final AccountRepository accountRepository;
+    private final LedgerEntryRepository ledgerRepository;
+    private final LedgerAccountCacheProperties properties;
+
+    private final Cache<UUID, Snapshot> cache;
+    private final AtomicIntegerArray writesInFlight = new AtomicIntegerArray(STRIPES);
+    private final AtomicLongArray evictions = new AtomicLongArray(STRIPES);
+
+    private final Counter bypasses;
+
+    public AccountCache(AccountRepository accountRepository, LedgerEntryRepository ledgerRepository,
+                        LedgerAccountCacheProperties properties, MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.ledgerRepository = ledgerRepository;
+        this.properties = properties;
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "ledger.accounts");
+        this.bypasses = Counter.builder("ledger.account_cache.bypasses")
+                .description("Account reads sent to the database because a write on the account was in flight")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Persisted state of an account, without the balance adjustments.
+     */
+    public record Snapshot(UUID id, String accountNumber, long balance, int version, Instant createdAt) {
+
+        static Snapshot of(Account account) {
+            return new Snapshot(account.getId(), account.getAccountNumber(), account.getBalance(),
+                    account.getVersion(), account.getCreatedAt());
+        }
+    }
+
+    /**
+     * Loads the most active accounts of the warm up window.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!properties.isEnabled() || properties.getWarmUpSize() == 0) {
+            return;
+        }
+
+        var since = Instant.now().minus(properties.getWarmUpWindow());
+        var accountIds = ledgerRepository.findMostActiveAccountIds(since, PageRequest.of(0, properties.getWarmUpSize()));
+
+        var started = new long[STRIPES];
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            started[stripe] = evictions.get(stripe);
+        }
+
+        for (var account : accountRepository.findAllById(accountIds)) {
+            var stripe = stripe(account.getId());
+            put(Snapshot.of(account), stripe, started[stripe]);
+        }
+
+        log.info("Warmed up the account cache with [{}] accounts active since [{}]", cache.estimatedSize(), since);
+    }
+
+    /**
+     * @return the cached account, else the one loaded by the loader
+     */
+    public Optional<Snapshot> get(UUID accountId, Supplier<Optional<Account>> loader) {
+        if (!properties.isEnabled()) {
+            return loader.get().map(Snapshot::of);
+        }
+
+        var cached = cache.getIfPresent(accountId);
+        if (null != cached) {
+            return Optional.of(cached);
+        }
+
+        var stripe = stripe(accountId);
+        var started = evictions.get(stripe);
+
+        if (writesInFlight.get(stripe) > 0) {
+            bypasses.increment();
+            return loader.get().map(Snapshot::of);
+        }
+
+        var loaded = loader.get().map(Snapshot::of);
+        loaded.ifPresent(snapshot -> put(snapshot, stripe, started));
+        return loaded;
+    }
+
+    /**
+     * Evicts the accounts once the current transaction completed, and sends their reads to the database until then.
+     * Outside a transaction they are evicted right away.
+     */
+    public void evictOnCommit(Collection<UUID> accountIds) {
+        if (!properties.isEnabled() || accountIds.isEmpty()) {
+            return;
+        }
+
+        var stripes = accountIds.stream().mapToInt(this::stripe).toArray();
+        for (var stripe : stripes) {
+            writesInFlight.incrementAndGet(stripe);
+        }
+        evict(accountIds, stripes);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            complete(accountIds, stripes);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                complete(accountIds, stripes);
+            }
+        });
+    }
+
+    private void complete(Collection<UUID> accountIds, int[] stripes) {
+        evict(accountIds, stripes);
+        for (var stripe : stripes) {
+            writesInFlight.decrementAndGet(stripe);
+        }
+    }
+
+    private void evict(Collection<UUID> accountIds, int[] stripes) {
+        for (var stripe : stripes) {
+            evictions.incrementAndGet(stripe);
+        }
+        accountIds.forEach(cache::invalidate);
+    }
+
+    /**
+     * Caches the snapshot unless its stripe saw an eviction since it was loaded or has a write in flight. Runs as a
+     * compute on the key, so an eviction is either seen here or removes the snapshot afterwards. A newer version
+     * already cached is kept.
+     */
+    private void put(Snapshot snapshot, int stripe, long started) {
+        cache.asMap().compute(snapshot.id(), (id, cached) -> {
+            if (evictions.get(stripe) != started || writesInFlight.get(stripe) > 0) {
+                return cached;
+            }
+            return null == cached || cached.version() <= snapshot.version() ? snapshot : cached;
+        });
+    }
+
+    private int stripe(UUID accountId) {
+        var hash = accountId.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), STRIPES);
+    }
+}
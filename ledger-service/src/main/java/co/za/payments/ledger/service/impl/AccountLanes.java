@@ -0,0 +1,125 @@
+package co.za.payments.ledger.service.impl;
+
+import co.za.payments.ledger.config.LedgerLaneProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * <p>Per-account execution lanes in front of the ledger database.</p>
+ * <p>Account ids are hashed to a fixed set of lanes, and a transfer runs on the caller's thread while holding
+ * the lanes of both its accounts. Transfers sharing an account therefore run one after another in the JVM
+ * instead of racing on the account's {@code version} in the database, while transfers sharing no lane still
+ * run in parallel. The two lanes of a transfer are always taken in ascending lane order, so two transfers can
+ * never wait on each other.</p>
+ * <p>Each lane records the accounts of the transfer holding it, so a wait can be told apart: a wait behind a
+ * transfer on the same account is an optimistic retry the lane avoided, a wait behind an account that merely
+ * hashes to the same lane is a cost of the lane count.</p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "ledger.lanes", name = "enabled", havingValue = "true")
+public class AccountLanes {
+
+    private final ReentrantLock[] lanes;
+    private final AtomicReferenceArray<Holder> holders;
+    private final Counter waits;
+    private final Counter retriesAvoided;
+
+    public AccountLanes(LedgerLaneProperties properties, MeterRegistry meterRegistry) {
+        this.lanes = new ReentrantLock[properties.getCount()];
+        Arrays.setAll(lanes, i -> new ReentrantLock(true));
+        this.holders = new AtomicReferenceArray<>(lanes.length);
+
+        this.waits = Counter.builder("ledger.lanes.waits")
+                .description("Transfers that waited for a lane held by another transfer, on a shared account or an account hashed to the same lane")
+                .register(meterRegistry);
+        this.retriesAvoided = Counter.builder("ledger.lanes.retries.avoided")
+                .description("Transfers that waited for a lane held by a transfer on one of their accounts, instead of racing it on the version")
+                .register(meterRegistry);
+        Gauge.builder("ledger.lanes.queue.depth", this, AccountLanes::queueDepth)
+                .description("Transfers waiting for a lane")
+                .register(meterRegistry);
+        Gauge.builder("ledger.lanes.queue.depth.max", this, AccountLanes::maxQueueDepth)
+                .description("Transfers waiting for the busiest lane")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the action while holding the lanes of both accounts.
+     */
+    public <T> T execute(UUID fromAccountId, UUID toAccountId, Supplier<T> action) {
+        var first = laneOf(fromAccountId);
+        var second = laneOf(toAccountId);
+
+        if (first > second) {
+            var lane = first;
+            first = second;
+            second = lane;
+        }
+
+        var holder = new Holder(fromAccountId, toAccountId);
+        acquire(first, holder);
+        try {
+            if (second != first) {
+                acquire(second, holder);
+            }
+            try {
+                return action.get();
+            } finally {
+                if (second != first) {
+                    release(second);
+                }
+            }
+        } finally {
+            release(first);
+        }
+    }
+
+    int laneOf(UUID accountId) {
+        var hash = accountId.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), lanes.length);
+    }
+
+    private void acquire(int lane, Holder holder) {
+        if (!lanes[lane].tryLock()) {
+            waits.increment();
+
+            // read without the lock, a holder that is just taking or releasing the lane may be missed
+            var current = holders.get(lane);
+            if (null != current && current.sharesAccountWith(holder)) {
+                retriesAvoided.increment();
+            }
+            lanes[lane].lock();
+        }
+        holders.set(lane, holder);
+    }
+
+    private void release(int lane) {
+        holders.set(lane, null);
+        lanes[lane].unlock();
+    }
+
+    private double queueDepth() {
+        return Arrays.stream(lanes).mapToInt(ReentrantLock::getQueueLength).sum();
+    }
+
+    private double maxQueueDepth() {
+        return Arrays.stream(lanes).mapToInt(ReentrantLock::getQueueLength).max().orElse(0);
+    }
+
+    private record Holder(UUID fromAccountId, UUID toAccountId) {
+
+        boolean sharesAccountWith(Holder other) {
+            return fromAccountId.equals(other.fromAccountId) || fromAccountId.equals(other.toAccountId)
+                    || toAccountId.equals(other.fromAccountId) || toAccountId.equals(other.toAccountId);
+        }
+    }
+}
@@ -1,17 +1,27 @@
 package co.za.payments.ledger.service.impl;
 
 import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.domain.EntryType;
+import co.za.payments.ledger.domain.Money;
 import co.za.payments.ledger.dto.AccountResponse;
 import co.za.payments.ledger.dto.CreateAccountRequest;
 import co.za.payments.ledger.exception.AccountNotFoundException;
 import co.za.payments.ledger.repository.AccountRepository;
 import co.za.payments.ledger.service.AccountService;
+import co.za.payments.ledger.service.BalanceAdjuster;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Service
 @Transactional
@@ -20,29 +30,58 @@ import java.util.UUID;
 public class AccountServiceImpl implements AccountService {
 
     private final AccountRepository repository;
+    private final ObjectProvider<BalanceAdjuster> balanceAdjusters;
+    private final AccountCache accountCache;
 
     @Override
     public AccountResponse create(CreateAccountRequest request) {
         log.info("Creating account, request: [{}]", request);
 
-        var account = Account.instanceOf(request.balance());
+        var account = Account.instanceOf(Money.requireMinorUnits(request.balance(), EntryType.CREDIT));
         account = repository.save(account);
 
-        log.info("Account, created, accountId: [{}], initialBalance: [{}]", account.getId(), account.getBalance());
-        return mapResponse(account);
+        log.info("Account, created, accountId: [{}], initialBalance: [{}]", account.getId(), Money.fromMinorUnits(account.getBalance()));
+        return mapResponse(AccountCache.Snapshot.of(account));
     }
 
+    /**
+     * Runs without a transaction of its own, so an account served from the {@link AccountCache} costs no
+     * connection. The repository and the balance adjusters open their own when they read.
+     */
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public AccountResponse getAccount(UUID id) {
         log.info("Retrieving account with accountId: [{}]", id);
 
-        return repository.findById(id)
+        return accountCache.get(id, () -> repository.findById(id))
                 .map(this::mapResponse)
                 .orElseThrow(() -> new AccountNotFoundException(id));
     }
 
-    private AccountResponse mapResponse(Account account) {
-        return new AccountResponse(account.getId(), account.getAccountNumber(),
-                account.getBalance(), account.getCreatedAt());
+    @Override
+    @Transactional(readOnly = true)
+    public void queryAccounts(Collection<UUID> ids, Consumer<AccountResponse> consumer) {
+        log.info("Querying [{}] accounts", ids.size());
+
+        var adjusters = balanceAdjusters.orderedStream().toList();
+
+        try (var accounts = repository.streamByIdIn(new LinkedHashSet<>(ids))) {
+            accounts.forEach(account -> consumer.accept(
+                    mapResponse(account.id(), account.accountNumber(), account.balance(), account.createdAt(), adjusters)));
+        }
+    }
+
+    private AccountResponse mapResponse(AccountCache.Snapshot account) {
+        return mapResponse(account.id(), account.accountNumber(), account.balance(), account.createdAt(),
+                balanceAdjusters.orderedStream().toList());
+    }
+
+    private static AccountResponse mapResponse(UUID id, String accountNumber, long balance, Instant createdAt,
+                                               List<BalanceAdjuster> adjusters) {
+        for (var adjuster : adjusters) {
+            balance = adjuster.adjust(id, balance);
+        }
+
+        return new AccountResponse(id, accountNumber, Money.fromMinorUnits(balance), createdAt);
     }
 }
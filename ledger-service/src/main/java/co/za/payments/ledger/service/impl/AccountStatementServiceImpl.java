@@ -0,0 +1,174 @@
+package co.za.payments.ledger.service.impl;
+
+import co.za.payments.ledger.config.LedgerStatementProperties;
+import co.za.payments.ledger.domain.Money;
+import co.za.payments.ledger.dto.AccountBalanceResponse;
+import co.za.payments.ledger.dto.AccountEntriesResponse;
+import co.za.payments.ledger.dto.AccountEntryResponse;
+import co.za.payments.ledger.dto.EntryCursor;
+import co.za.payments.ledger.exception.AccountNotFoundException;
+import co.za.payments.ledger.exception.InvalidPageRequestException;
+import co.za.payments.ledger.repository.AccountBalanceBucketRepository;
+import co.za.payments.ledger.repository.AccountBalanceCheckpointRepository;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import co.za.payments.ledger.repository.LedgerEntryView;
+import co.za.payments.ledger.service.AccountStatementService;
+import co.za.payments.ledger.service.archive.SegmentStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+@Slf4j
+public class AccountStatementServiceImpl implements AccountStatementService {
+
+    private final AccountRepository accountRepository;
+    private final LedgerEntryRepository ledgerRepository;
+    private final AccountBalanceBucketRepository bucketRepository;
+    private final AccountBalanceCheckpointRepository checkpointRepository;
+    private final LedgerStatementProperties properties;
+    private final ObjectProvider<SegmentStore> segmentStore;
+
+    @Override
+    public AccountEntriesResponse getEntries(UUID accountId, EntryCursor after, Integer size) {
+        var pageSize = size == null ? properties.getDefaultPageSize() : size;
+        if (pageSize < 1 || pageSize > properties.getMaxPageSize()) {
+            throw new InvalidPageRequestException("Page size of %d must be between 1 and %d".formatted(pageSize, properties.getMaxPageSize()));
+        }
+
+        log.info("Retrieving [{}] entries of accountId: [{}] after [{}]", pageSize, accountId, after);
+
+        // one extra row tells whether there is a next page without a count query or an empty last page
+        var rows = readEntries(accountId, after, pageSize + 1);
+        if (rows.isEmpty() && !accountRepository.existsById(accountId)) {
+            throw new AccountNotFoundException(accountId);
+        }
+
+        var page = rows.size() > pageSize ? rows.subList(0, pageSize) : rows;
+        var nextCursor = rows.size() > pageSize ? cursorOf(page.getLast()).encode() : null;
+
+        var openingBalance = page.isEmpty() ? null : page.getFirst().balanceBefore();
+        var closingBalance = page.isEmpty() ? null : page.getLast().balanceAfter();
+
+        return new AccountEntriesResponse(page.stream().map(AccountStatementServiceImpl::mapResponse).toList(),
+                toMoney(openingBalance), toMoney(closingBalance), nextCursor);
+    }
+
+    @Override
+    public void streamEntries(UUID accountId, EntryCursor after, Consumer<AccountEntryResponse> consumer) {
+        log.info("Streaming entries of accountId: [{}] after [{}]", accountId, after);
+
+        var archive = archiveHolding(after.createdAt());
+        var from = archive == null ? after : archive.stream(accountId, after, entry -> consumer.accept(mapResponse(entry)));
+
+        try (var entries = ledgerRepository.streamEntriesAfter(accountId, from.createdAt(), from.id())) {
+            entries.forEach(entry -> consumer.accept(mapResponse(entry)));
+        }
+    }
+
+    /**
+     * Starts from the latest checkpoint at or before the instant and adds the entries created since, else from the
+     * earliest checkpoint after it less the entries in between. Only an account without any checkpoint is read
+     * from its current balance, so the entries summed are bounded by the checkpoint interval. Repeatable read
+     * keeps the current balance and the entries of that last case consistent.
+     */
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public AccountBalanceResponse getBalance(UUID accountId, Instant asOf) {
+        log.info("Retrieving balance of accountId: [{}] as of [{}]", accountId, asOf);
+
+        var account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new AccountNotFoundException(accountId));
+
+        if (asOf.isBefore(account.getCreatedAt())) {
+            return new AccountBalanceResponse(accountId, Money.fromMinorUnits(0), asOf);
+        }
+
+        var balance = checkpointRepository.findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(accountId, asOf)
+                .map(checkpoint -> checkpoint.getBalance()
+                        + sumSignedAmountsBetween(accountId, checkpoint.getAsOf(), asOf))
+                .or(() -> checkpointRepository.findFirstByAccountIdAndAsOfGreaterThanOrderByAsOfAsc(accountId, asOf)
+                        .map(checkpoint -> checkpoint.getBalance()
+                                - sumSignedAmountsBetween(accountId, asOf, checkpoint.getAsOf())))
+                .orElseGet(() -> accountRepository.findAvailableBalance(accountId).orElseThrow()
+                        + bucketRepository.sumBalance(accountId)
+                        - sumSignedAmountsBetween(accountId, asOf, Instant.MAX));
+
+        return new AccountBalanceResponse(accountId, Money.fromMinorUnits(balance), asOf);
+    }
+
+    /**
+     * Reads archived entries first when the cursor is before the archive horizon, then carries on in the table from
+     * the last one read.
+     */
+    private List<LedgerEntryView> readEntries(UUID accountId, EntryCursor after, int limit) {
+        var archive = archiveHolding(after.createdAt());
+        if (archive == null) {
+            return ledgerRepository.findEntriesAfter(accountId, after.createdAt(), after.id(), Limit.of(limit));
+        }
+
+        var rows = new ArrayList<>(archive.read(accountId, after, limit));
+        if (rows.size() < limit) {
+            var from = rows.isEmpty() ? after : cursorOf(rows.getLast());
+            rows.addAll(ledgerRepository.findEntriesAfter(accountId, from.createdAt(), from.id(), Limit.of(limit - rows.size())));
+        }
+        return rows;
+    }
+
+    /**
+     * Sums archived entries up to the archive horizon and the table from there, so rows still being deleted after
+     * archiving are not counted twice. {@code to} is {@link Instant#MAX} for every entry after {@code from}.
+     */
+    private long sumSignedAmountsBetween(UUID accountId, Instant from, Instant to) {
+        var archive = archiveHolding(from);
+        if (archive == null) {
+            return to == Instant.MAX ? ledgerRepository.sumSignedAmountsCreatedAfter(accountId, from)
+                    : ledgerRepository.sumSignedAmountsBetween(accountId, from, to);
+        }
+
+        // the table from the horizon on, entries are stored to the microsecond
+        var tableFrom = archive.horizon().minus(1, ChronoUnit.MICROS);
+        var archived = archive.sumSignedAmounts(accountId, from, to);
+        if (!to.isAfter(tableFrom)) {
+            return archived;
+        }
+        return archived + (to == Instant.MAX ? ledgerRepository.sumSignedAmountsCreatedAfter(accountId, tableFrom)
+                : ledgerRepository.sumSignedAmountsBetween(accountId, tableFrom, to));
+    }
+
+    /**
+     * @return the archive when entries after the instant may be archived, else {@code null}
+     */
+    private SegmentStore archiveHolding(Instant createdAt) {
+        var archive = segmentStore.getIfAvailable();
+        return archive != null && archive.holds(createdAt) ? archive : null;
+    }
+
+    private static EntryCursor cursorOf(LedgerEntryView entry) {
+        return new EntryCursor(entry.createdAt(), entry.id());
+    }
+
+    private static AccountEntryResponse mapResponse(LedgerEntryView entry) {
+        return new AccountEntryResponse(entry.id(), entry.transferId(), entry.type().name(),
+                Money.fromMinorUnits(entry.amount()), toMoney(entry.balanceAfter()), entry.createdAt());
+    }
+
+    private static BigDecimal toMoney(Long minorUnits) {
+        return minorUnits == null ? null : Money.fromMinorUnits(minorUnits);
+    }
+}
@@ -0,0 +1,170 @@
+package co.za.payments.ledger.service.impl;
+
+import co.za.payments.ledger.config.LedgerBatchProperties;
+import co.za.payments.ledger.dto.TransferRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * <p>Writes a ledger batch as waves of transfers that share no account.</p>
+ * <p>Two transfers conflict when they touch the same account or carry the same transfer id. Colouring that
+ * conflict graph in submission order, every transfer lands in the wave after the last wave used by any of its
+ * accounts, which keeps the transfers of each account in submission order. Only the edges between consecutive
+ * transfers of an account matter for that, so the graph is never materialised and planning is linear in the
+ * batch size.</p>
+ * <p>Each wave is cut into chunks that are written in parallel on a {@link ForkJoinPool}, one transaction per
+ * chunk, and the next wave starts once all of them committed. Chunks of a wave never share an account, so they
+ * cannot conflict with each other on optimistic locks. When the plan would take more rounds of transactions
+ * than writing the chunks one after another, typically because one account is in most of the transfers, the
+ * batch is written sequentially instead.</p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "ledger.batch", name = "scheduler", havingValue = "conflict-graph")
+@Slf4j
+public class ConflictGraphScheduler {
+
+    private final LedgerBatchProperties properties;
+    private final ForkJoinPool pool;
+
+    private final DistributionSummary waveCount;
+    private final Counter sequentialFallbacks;
+
+    public ConflictGraphScheduler(LedgerBatchProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.pool = new ForkJoinPool(properties.getParallelism(), pool -> {
+            var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("ledger-batch-scheduler-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+
+        this.waveCount = DistributionSummary.builder("ledger.batch.waves")
+                .description("Number of waves of non conflicting transfers per ledger batch")
+                .register(meterRegistry);
+        this.sequentialFallbacks = Counter.builder("ledger.batch.waves.fallback")
+                .description("Ledger batches written sequentially because their waves were too small to pay off")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        pool.shutdown();
+
+        if (!pool.awaitTermination(5, TimeUnit.SECONDS)) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Writes the transfers with the given writer and returns their outcomes in submission order.
+     *
+     * @param writer applies a chunk of transfers in one transaction, see {@link LedgerBatchWriter#write(List)}
+     */
+    public List<TransferOutcome> execute(List<TransferRequest> requests,
+                                         Function<List<TransferRequest>, List<TransferOutcome>> writer) {
+        var waves = waves(requests);
+        waveCount.record(waves.size());
+
+        var chunkSize = properties.getChunkSize();
+        var sequentialRounds = chunks(requests.size(), chunkSize);
+
+        var rounds = 0;
+        for (var wave : waves) {
+            rounds += chunks(chunks(wave.size(), chunkSize), properties.getParallelism());
+        }
+
+        if (rounds >= sequentialRounds) {
+            log.info("Writing batch of [{}] transfers sequentially, [{}] waves would take [{}] rounds instead of [{}]",
+                    requests.size(), waves.size(), rounds, sequentialRounds);
+            sequentialFallbacks.increment();
+            return sequential(requests, writer);
+        }
+
+        log.info("Writing batch of [{}] transfers in [{}] waves", requests.size(), waves.size());
+
+        var outcomes = new TransferOutcome[requests.size()];
+        for (var wave : waves) {
+            var tasks = new ArrayList<ForkJoinTask<?>>();
+
+            for (int from = 0; from < wave.size(); from += chunkSize) {
+                var indexes = wave.subList(from, Math.min(from + chunkSize, wave.size()));
+                tasks.add(pool.submit(() -> write(requests, indexes, writer, outcomes)));
+            }
+
+            tasks.forEach(ForkJoinTask::join);
+        }
+
+        return Arrays.asList(outcomes);
+    }
+
+    /**
+     * Assigns every transfer to the first wave after all earlier transfers sharing an account or transfer id.
+     *
+     * @return the indexes of the transfers in each wave, in submission order
+     */
+    static List<List<Integer>> waves(List<TransferRequest> requests) {
+        var lastAccountWave = new HashMap<UUID, Integer>();
+        var lastTransferWave = new HashMap<UUID, Integer>();
+        var waves = new ArrayList<List<Integer>>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            var request = requests.get(i);
+
+            var wave = 1 + Math.max(
+                    lastTransferWave.getOrDefault(request.transferId(), -1),
+                    Math.max(lastAccountWave.getOrDefault(request.fromAccountId(), -1),
+                            lastAccountWave.getOrDefault(request.toAccountId(), -1)));
+
+            lastTransferWave.put(request.transferId(), wave);
+            lastAccountWave.put(request.fromAccountId(), wave);
+            lastAccountWave.put(request.toAccountId(), wave);
+
+            if (wave == waves.size()) {
+                waves.add(new ArrayList<>());
+            }
+            waves.get(wave).add(i);
+        }
+
+        return waves;
+    }
+
+    private List<TransferOutcome> sequential(List<TransferRequest> requests,
+                                             Function<List<TransferRequest>, List<TransferOutcome>> writer) {
+        var outcomes = new ArrayList<TransferOutcome>(requests.size());
+
+        for (int from = 0; from < requests.size(); from += properties.getChunkSize()) {
+            var to = Math.min(from + properties.getChunkSize(), requests.size());
+            outcomes.addAll(writer.apply(requests.subList(from, to)));
+        }
+
+        return outcomes;
+    }
+
+    private static void write(List<TransferRequest> requests, List<Integer> indexes,
+                              Function<List<TransferRequest>, List<TransferOutcome>> writer, TransferOutcome[] outcomes) {
+        var chunk = indexes.stream().map(requests::get).toList();
+        var chunkOutcomes = writer.apply(chunk);
+
+        for (int i = 0; i < indexes.size(); i++) {
+            outcomes[indexes.get(i)] = chunkOutcomes.get(i);
+        }
+    }
+
+    private static int chunks(int size, int chunkSize) {
+        return (size + chunkSize - 1) / chunkSize;
+    }
+}
@@ -0,0 +1,197 @@
+package co.za.payments.ledger.service.impl;
+
+import co.za.payments.ledger.config.LedgerGroupCommitProperties;
+import co.za.payments.ledger.dto.TransferRequest;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Group-commit stage in front of the ledger database.</p>
+ * <p>Callers put transfers on a bounded queue and get a future back. A small, fixed set of writer threads
+ * drain the queue in micro-batches of up to {@code max-batch-size} transfers, waiting at most {@code max-wait}
+ * for a batch to fill, and apply each micro-batch in one transaction through {@link LedgerBatchWriter}.
+ * The accounts of a micro-batch are locked in ascending id order, so concurrent writers sharing accounts queue
+ * instead of failing on optimistic conflicts. Every future completes once that shared commit returns, so many
+ * concurrent callers share one connection and one commit instead of holding a pooled connection each.</p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "ledger.group-commit", name = "enabled", havingValue = "true")
+@Slf4j
+public class GroupCommitEngine {
+
+    private final LedgerBatchWriter batchWriter;
+    private final LedgerGroupCommitProperties properties;
+    private final BlockingQueue<PendingTransfer> queue;
+
+    private final DistributionSummary batchSize;
+    private final Timer queueWait;
+    private final Timer commitTime;
+
+    private ExecutorService writers;
+    private volatile boolean running;
+
+    public GroupCommitEngine(LedgerBatchWriter batchWriter, LedgerGroupCommitProperties properties, MeterRegistry meterRegistry) {
+        this.batchWriter = batchWriter;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+
+        this.batchSize = DistributionSummary.builder("ledger.group_commit.batch.size")
+                .description("Number of transfers applied per group commit")
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("ledger.group_commit.wait")
+                .description("Time a transfer waits in the queue before its micro-batch starts")
+                .register(meterRegistry);
+        this.commitTime = Timer.builder("ledger.group_commit.commit")
+                .description("Time taken to apply and commit a micro-batch")
+                .register(meterRegistry);
+        Gauge.builder("ledger.group_commit.queue.depth", queue, BlockingQueue::size)
+                .description("Transfers waiting to be group committed")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+
+        var threadCount = new AtomicInteger();
+        writers = Executors.newFixedThreadPool(properties.getWriterThreads(), runnable -> {
+            var thread = new Thread(runnable, "ledger-group-commit-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (int i = 0; i < properties.getWriterThreads(); i++) {
+            writers.submit(this::drain);
+        }
+
+        log.info("Group commit started with [{}] writers, max batch size [{}], max wait [{}]",
+                properties.getWriterThreads(), properties.getMaxBatchSize(), properties.getMaxWait());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writers.shutdown();
+
+        if (!writers.awaitTermination(5, TimeUnit.SECONDS)) {
+            writers.shutdownNow();
+        }
+
+        var abandoned = new ArrayList<PendingTransfer>();
+        queue.drainTo(abandoned);
+        abandoned.forEach(pending -> pending.future().completeExceptionally(notApplied(pending.request())));
+    }
+
+    /**
+     * Queues a transfer for the next micro-batch; the future completes once that batch commits, or exceptionally
+     * when the engine stops first. Waits up to {@code submit-timeout} for room in the queue.
+     */
+    public CompletableFuture<TransferOutcome> submit(TransferRequest request) {
+        if (!running) {
+            throw new IllegalStateException("Group commit is not running");
+        }
+
+        var pending = new PendingTransfer(request, new CompletableFuture<>(), System.nanoTime());
+
+        try {
+            if (!queue.offer(pending, properties.getSubmitTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Group commit queue is full, transfer %s was not queued".formatted(request.transferId()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing transfer %s".formatted(request.transferId()), e);
+        }
+
+        // the engine may have stopped and drained the queue while this transfer was being queued
+        if (!running && queue.remove(pending)) {
+            pending.future().completeExceptionally(notApplied(request));
+        }
+        return pending.future();
+    }
+
+    private void drain() {
+        var batch = new ArrayList<PendingTransfer>(properties.getMaxBatchSize());
+
+        while (running) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(pending -> pending.future().completeExceptionally(e));
+                return;
+            }
+
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void collect(List<PendingTransfer> batch) throws InterruptedException {
+        var first = queue.poll(100, TimeUnit.MILLISECONDS);
+
+        if (null == first) {
+            return;
+        }
+
+        batch.add(first);
+        queue.drainTo(batch, properties.getMaxBatchSize() - batch.size());
+
+        var deadline = System.nanoTime() + properties.getMaxWait().toNanos();
+
+        while (batch.size() < properties.getMaxBatchSize()) {
+            var remaining = deadline - System.nanoTime();
+
+            if (remaining <= 0) {
+                break;
+            }
+
+            var next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+
+            if (null == next) {
+                break;
+            }
+
+            batch.add(next);
+            queue.drainTo(batch, properties.getMaxBatchSize() - batch.size());
+        }
+    }
+
+    private void commit(List<PendingTransfer> batch) {
+        var startedAt = System.nanoTime();
+        batch.forEach(pending -> queueWait.record(startedAt - pending.enqueuedAt(), TimeUnit.NANOSECONDS));
+        batchSize.record(batch.size());
+
+        try {
+            var outcomes = batchWriter.writeLocked(batch.stream().map(PendingTransfer::request).toList());
+
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future().complete(outcomes.get(i));
+            }
+        } catch (RuntimeException e) {
+            log.error("Group commit of [{}] transfers failed", batch.size(), e);
+            batch.forEach(pending -> pending.future().completeExceptionally(e));
+        } finally {
+            commitTime.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static IllegalStateException notApplied(TransferRequest request) {
+        return new IllegalStateException("Group commit stopped before transfer %s was applied".formatted(request.transferId()));
+    }
+
+    private record PendingTransfer(TransferRequest request, CompletableFuture<TransferOutcome> future, long enqueuedAt) { }
+}
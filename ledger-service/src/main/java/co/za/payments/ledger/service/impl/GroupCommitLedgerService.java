@@ -0,0 +1,51 @@
+package co.za.payments.ledger.service.impl;
+
+import co.za.payments.ledger.config.LedgerGroupCommitProperties;
+import co.za.payments.ledger.dto.LedgerTransferResponse;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.service.LedgerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link LedgerService} that routes every transfer through the {@link GroupCommitEngine} and waits for the
+ * shared commit, surfacing rejections as the same exceptions as {@link LedgerEntryServiceImpl}.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class GroupCommitLedgerService implements LedgerService {
+
+    private final GroupCommitEngine engine;
+    private final LedgerGroupCommitProperties properties;
+
+    @Override
+    public LedgerTransferResponse createEntry(TransferRequest request) {
+        log.info("Queueing ledger entry for group commit, transferId: [{}]", request.transferId());
+
+        TransferOutcome outcome;
+        try {
+            outcome = engine.submit(request).get(properties.getSubmitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out waiting for the group commit of transfer %s, replay it for the outcome"
+                    .formatted(request.transferId()), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the group commit of transfer %s".formatted(request.transferId()), e);
+        }
+
+        if (outcome.isRejected()) {
+            throw outcome.error();
+        }
+
+        return outcome.response();
+    }
+}
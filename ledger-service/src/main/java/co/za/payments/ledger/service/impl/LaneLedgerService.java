@@ -0,0 +1,22 @@
+package co.za.payments.ledger.service.impl;
+
+import co.za.payments.ledger.dto.LedgerTransferResponse;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.service.LedgerService;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@link LedgerService} that runs every transfer inside the {@link AccountLanes} of its two accounts, so the
+ * delegate's transaction commits before a transfer on the same accounts can start.
+ */
+@RequiredArgsConstructor
+public class LaneLedgerService implements LedgerService {
+
+    private final AccountLanes lanes;
+    private final LedgerService delegate;
+
+    @Override
+    public LedgerTransferResponse createEntry(TransferRequest request) {
+        return lanes.execute(request.fromAccountId(), request.toAccountId(), () -> delegate.createEntry(request));
+    }
+}
@@ -0,0 +1,101 @@
+package co.za.payments.ledger.service.impl;
+
+import co.za.payments.ledger.config.LedgerBatchProperties;
+import co.za.payments.ledger.dto.BatchTransferRequest;
+import co.za.payments.ledger.dto.BatchTransferResponse;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.exception.LedgerApplicationException;
+import co.za.payments.ledger.service.LedgerBatchService;
+import co.za.payments.ledger.service.LedgerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Writes a batch in chunks through {@link LedgerBatchWriter}. A transfer on an account whose balance is partly held
+ * outside its row (hot, sharded or deferred credit accounts) goes through the {@link LedgerService} instead, which
+ * routes it to the engine holding that balance. The runs of transfers in between are still chunked, so the
+ * transfers of an account keep their submission order.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerBatchServiceImpl implements LedgerBatchService {
+
+    private final LedgerBatchWriter batchWriter;
+    private final LedgerService ledgerService;
+    private final LedgerBatchProperties properties;
+    private final ObjectProvider<ConflictGraphScheduler> conflictGraphScheduler;
+
+    @Override
+    public BatchTransferResponse createEntries(BatchTransferRequest request) {
+        request.validate(properties.getMaxSize());
+
+        var transfers = request.transfers();
+
+        log.info("Processing ledger batch of [{}] transfers in chunks of [{}]", transfers.size(), properties.getChunkSize());
+
+        var heldAccounts = batchWriter.heldAccounts(transfers);
+        var outcomes = heldAccounts.isEmpty() ? writeBatched(transfers) : writeAroundHeld(transfers, heldAccounts);
+
+        return new BatchTransferResponse(outcomes.stream().map(TransferOutcome::toResult).toList());
+    }
+
+    private List<TransferOutcome> writeAroundHeld(List<TransferRequest> transfers, Set<UUID> heldAccounts) {
+        var outcomes = new ArrayList<TransferOutcome>(transfers.size());
+        var from = 0;
+
+        for (int i = 0; i < transfers.size(); i++) {
+            var transfer = transfers.get(i);
+            if (heldAccounts.contains(transfer.fromAccountId()) || heldAccounts.contains(transfer.toAccountId())) {
+                outcomes.addAll(writeBatched(transfers.subList(from, i)));
+                outcomes.add(writeThroughLedgerService(transfer));
+                from = i + 1;
+            }
+        }
+        outcomes.addAll(writeBatched(transfers.subList(from, transfers.size())));
+
+        return outcomes;
+    }
+
+    private TransferOutcome writeThroughLedgerService(TransferRequest transfer) {
+        // the hot account engine stamps transfers in milliseconds
+        var startedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        try {
+            var response = ledgerService.createEntry(transfer);
+            // a replay is answered with the original transfer, which was created before this call
+            return response.createdAt().isBefore(startedAt) ? TransferOutcome.duplicate(response) : TransferOutcome.created(response);
+        } catch (LedgerApplicationException exception) {
+            log.warn("Transfer [{}] rejected in batch, reason: [{}]", transfer.transferId(), exception.getMessage());
+            return TransferOutcome.rejected(transfer.transferId(), exception);
+        }
+    }
+
+    private List<TransferOutcome> writeBatched(List<TransferRequest> transfers) {
+        if (transfers.isEmpty()) {
+            return List.of();
+        }
+
+        var scheduler = conflictGraphScheduler.getIfAvailable();
+        return null != scheduler ? scheduler.execute(transfers, batchWriter::write) : writeSequentially(transfers);
+    }
+
+    private List<TransferOutcome> writeSequentially(List<TransferRequest> transfers) {
+        var outcomes = new ArrayList<TransferOutcome>(transfers.size());
+
+        for (int from = 0; from < transfers.size(); from += properties.getChunkSize()) {
+            var to = Math.min(from + properties.getChunkSize(), transfers.size());
+            outcomes.addAll(batchWriter.write(transfers.subList(from, to)));
+        }
+
+        return outcomes;
+    }
+}
@@ -0,0 +1,199 @@
+package co.za.payments.ledger.service.impl;
+
+import co.za.payments.ledger.config.LedgerLockingProperties;
+import co.za.payments.ledger.config.LedgerLockingProperties.LockingStrategy;
+import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.domain.EntryType;
+import co.za.payments.ledger.domain.LedgerEntry;
+import co.za.payments.ledger.domain.Money;
+import co.za.payments.ledger.dto.LedgerTransferResponse;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.exception.AccountNotBatchableException;
+import co.za.payments.ledger.exception.AccountNotFoundException;
+import co.za.payments.ledger.exception.LedgerApplicationException;
+import co.za.payments.ledger.exception.TransferArchivedException;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import co.za.payments.ledger.service.BalanceAdjuster;
+import co.za.payments.ledger.service.dedup.LedgerEntryKeys;
+import co.za.payments.ledger.service.dedup.TransferIdFilter;
+import jakarta.persistence.OptimisticLockException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
+import org.springframework.retry.support.RetrySynchronizationManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * <p>Applies a chunk of transfers in a single transaction.</p>
+ * <p>Existing entries and all referenced accounts are loaded with one query each, every transfer is then
+ * validated and applied in memory in submission order, so a rejected transfer never aborts the others.
+ * On flush Hibernate sends the new {@link LedgerEntry} rows and the (once per account) balance updates as
+ * JDBC batches.</p>
+ * <p>A replay whose original entries are archived is not caught by the duplicate lookup and fails the commit on
+ * the {@code (transfer_id, type)} key. On the retry the ids without entries are checked against the keys and such
+ * replays are rejected on their own.</p>
+ * <p>Accounts whose balance is partly held outside their row, by the hot account engine, balance buckets or
+ * deferred credits, are never loaded here. Transfers on them are rejected per item and have to go through the
+ * {@link co.za.payments.ledger.service.LedgerService}, see {@link #heldAccounts(Collection)}.</p>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerBatchWriter {
+
+    private final LedgerEntryRepository ledgerRepository;
+    private final AccountRepository accountRepository;
+    private final LedgerLockingProperties lockingProperties;
+    private final TransferIdFilter transferIdFilter;
+    private final AccountCache accountCache;
+    private final LedgerEntryKeys entryKeys;
+    private final ObjectProvider<BalanceAdjuster> balanceAdjusters;
+
+    @Retryable(
+            retryFor = {OptimisticLockException.class, OptimisticLockingFailureException.class, DataIntegrityViolationException.class},
+            backoff = @Backoff(delay = 50, multiplier = 2, random = true),
+            maxAttempts = 4)
+    @Transactional
+    public List<TransferOutcome> write(List<TransferRequest> requests) {
+        return apply(requests, lockingProperties.getStrategy());
+    }
+
+    /**
+     * Same as {@link #write(List)} but always locks the accounts, used by group commit where concurrent writers
+     * regularly share accounts and an optimistic conflict would fail a whole micro-batch.
+     */
+    @Retryable(
+            retryFor = {OptimisticLockException.class, OptimisticLockingFailureException.class, DataIntegrityViolationException.class},
+            backoff = @Backoff(delay = 50, multiplier = 2, random = true),
+            maxAttempts = 4)
+    @Transactional
+    public List<TransferOutcome> writeLocked(List<TransferRequest> requests) {
+        return apply(requests, LockingStrategy.PESSIMISTIC);
+    }
+
+    /**
+     * @return the accounts of the transfers whose balance is partly held outside their row, empty when no write
+     * engine holding balances is enabled
+     */
+    public Set<UUID> heldAccounts(Collection<TransferRequest> requests) {
+        var adjusters = balanceAdjusters.orderedStream().toList();
+        if (adjusters.isEmpty()) {
+            return Set.of();
+        }
+
+        return requests.stream()
+                .flatMap(request -> Stream.of(request.fromAccountId(), request.toAccountId()))
+                .distinct()
+                .filter(accountId -> adjusters.stream().anyMatch(adjuster -> adjuster.holdsBalanceOf(accountId)))
+                .collect(Collectors.toSet());
+    }
+
+    private List<TransferOutcome> apply(List<TransferRequest> requests, LockingStrategy lockingStrategy) {
+        var transferIds = requests.stream().map(TransferRequest::transferId).collect(Collectors.toSet());
+
+        var existingTransfers = transferIdFilter.existingEntries(transferIds).stream()
+                .collect(Collectors.groupingBy(LedgerEntry::getTransferId));
+
+        var archivedTransfers = isRetry()
+                ? entryKeys.claimedAmong(transferIds.stream().filter(id -> !existingTransfers.containsKey(id)).toList())
+                : Set.<UUID>of();
+
+        var heldAccounts = heldAccounts(requests);
+        var accountIds = requests.stream()
+                .flatMap(request -> Stream.of(request.fromAccountId(), request.toAccountId()))
+                .filter(accountId -> !heldAccounts.contains(accountId))
+                .collect(Collectors.toSet());
+        accountCache.evictOnCommit(accountIds);
+
+        var loadedAccounts = switch (lockingStrategy) {
+            case OPTIMISTIC -> accountRepository.findAllById(accountIds);
+            case PESSIMISTIC -> accountRepository.lockAllById(accountIds);
+        };
+
+        var accounts = loadedAccounts.stream()
+                .collect(Collectors.toMap(Account::getId, Function.identity()));
+
+        var createdTransfers = new HashMap<UUID, LedgerTransferResponse>();
+        var ledgerEntries = new ArrayList<LedgerEntry>(requests.size() * 2);
+        var outcomes = new ArrayList<TransferOutcome>(requests.size());
+
+        for (var request : requests) {
+            var existing = existingTransfers.get(request.transferId());
+
+            if (null != existing) {
+                outcomes.add(TransferOutcome.duplicate(LedgerEntryMapper.toResponse(existing)));
+                continue;
+            }
+
+            if (archivedTransfers.contains(request.transferId())) {
+                outcomes.add(TransferOutcome.rejected(request.transferId(), new TransferArchivedException(request.transferId())));
+                continue;
+            }
+
+            if (createdTransfers.containsKey(request.transferId())) {
+                outcomes.add(TransferOutcome.duplicate(createdTransfers.get(request.transferId())));
+                continue;
+            }
+
+            try {
+                rejectHeld(request, heldAccounts);
+                var entries = transfer(request, accounts);
+                var response = LedgerEntryMapper.toResponse(entries);
+
+                ledgerEntries.addAll(entries);
+                createdTransfers.put(request.transferId(), response);
+                outcomes.add(TransferOutcome.created(response));
+            } catch (LedgerApplicationException exception) {
+                log.warn("Transfer [{}] rejected in batch, reason: [{}]", request.transferId(), exception.getMessage());
+                outcomes.add(TransferOutcome.rejected(request.transferId(), exception));
+            }
+        }
+
+        transferIdFilter.addAll(createdTransfers.keySet());
+        ledgerRepository.saveAll(ledgerEntries);
+
+        log.info("Applied batch of [{}] transfers, created: [{}]", requests.size(), createdTransfers.size());
+        return outcomes;
+    }
+
+    private static void rejectHeld(TransferRequest request, Set<UUID> heldAccounts) {
+        if (heldAccounts.contains(request.fromAccountId())) {
+            throw new AccountNotBatchableException(request.fromAccountId());
+        }
+        if (heldAccounts.contains(request.toAccountId())) {
+            throw new AccountNotBatchableException(request.toAccountId());
+        }
+    }
+
+    private List<LedgerEntry> transfer(TransferRequest request, Map<UUID, Account> accounts) {
+        var fromAccount = Optional.ofNullable(accounts.get(request.fromAccountId()))
+                .orElseThrow(() -> new AccountNotFoundException(request.fromAccountId()));
+        var toAccount = Optional.ofNullable(accounts.get(request.toAccountId()))
+                .orElseThrow(() -> new AccountNotFoundException(request.toAccountId()));
+
+        var amount = Money.requireMinorUnits(request.amount(), EntryType.DEBIT);
+
+        fromAccount.debit(amount);
+        toAccount.credit(amount);
+
+        return List.of(
+                LedgerEntry.debit(request.transferId(), fromAccount.getId(), amount, fromAccount.getBalance()),
+                LedgerEntry.credit(request.transferId(), toAccount.getId(), amount, toAccount.getBalance()));
+    }
+
+    private static boolean isRetry() {
+        var context = RetrySynchronizationManager.getContext();
+        return null != context && context.getRetryCount() > 0;
+    }
+}
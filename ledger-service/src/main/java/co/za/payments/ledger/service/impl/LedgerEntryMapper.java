@@ -0,0 +1,25 @@
+package co.za.payments.ledger.service.impl;
+
+import co.za.payments.ledger.domain.LedgerEntry;
+import co.za.payments.ledger.domain.Money;
+import co.za.payments.ledger.dto.LedgerEntryDto;
+import co.za.payments.ledger.dto.LedgerTransferResponse;
+
+import java.util.List;
+
+public final class LedgerEntryMapper {
+
+    private LedgerEntryMapper() { }
+
+    public static LedgerTransferResponse toResponse(List<LedgerEntry> entries) {
+        var debit = entries.stream().filter(LedgerEntry::isDebit).findFirst().orElseThrow();
+        var credit = entries.stream().filter(LedgerEntry::isCredit).findFirst().orElseThrow();
+
+        return LedgerTransferResponse.builder()
+                .transferId(debit.getTransferId())
+                .creditEntry(new LedgerEntryDto(credit.getAccountId(), Money.fromMinorUnits(credit.getAmount()), credit.getType().name()))
+                .debitEntry(new LedgerEntryDto(debit.getAccountId(), Money.fromMinorUnits(debit.getAmount()), debit.getType().name()))
+                .createdAt(debit.getCreatedAt())
+                .build();
+    }
+}
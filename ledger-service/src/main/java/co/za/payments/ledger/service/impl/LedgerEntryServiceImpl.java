@@ -1,26 +1,39 @@
 package co.za.payments.ledger.service.impl;
 
+import co.za.payments.ledger.config.LedgerLockingProperties;
+import co.za.payments.ledger.config.LedgerWriteProperties;
 import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.domain.AccountLockOrder;
+import co.za.payments.ledger.domain.EntryType;
 import co.za.payments.ledger.domain.LedgerEntry;
-import co.za.payments.ledger.dto.LedgerEntryDto;
+import co.za.payments.ledger.domain.Money;
 import co.za.payments.ledger.dto.LedgerTransferResponse;
 import co.za.payments.ledger.dto.TransferRequest;
 import co.za.payments.ledger.exception.AccountNotFoundException;
+import co.za.payments.ledger.exception.InsufficientAccountBalanceException;
+import co.za.payments.ledger.exception.InvalidAmountException;
+import co.za.payments.ledger.exception.TransferArchivedException;
 import co.za.payments.ledger.repository.AccountRepository;
 import co.za.payments.ledger.repository.LedgerEntryRepository;
 import co.za.payments.ledger.service.LedgerService;
+import co.za.payments.ledger.service.dedup.LedgerEntryKeys;
+import co.za.payments.ledger.service.dedup.TransferIdFilter;
 import jakarta.persistence.OptimisticLockException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -29,32 +42,64 @@ public class LedgerEntryServiceImpl implements LedgerService {
 
     private final LedgerEntryRepository ledgerRepository;
     private final AccountRepository accountRepository;
-
+    private final LedgerWriteProperties writeProperties;
+    private final LedgerLockingProperties lockingProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final TransferIdFilter transferIdFilter;
+    private final AccountCache accountCache;
+    private final LedgerEntryKeys entryKeys;
+
+    /**
+     * Writes the transfer without checking for its entries first, a replayed transfer id is caught by the
+     * {@code (transfer_id, type)} unique constraint instead. The violation rolls back the balance changes of the
+     * replay, and only then are the entries of the original transfer loaded and returned. A replay can also fail
+     * earlier on the funds the original transfer already moved, so a rejected debit is checked the same way. The
+     * entries of an archived transfer are no longer in the table and the replay is rejected instead.
+     */
     @Retryable(
             retryFor = {OptimisticLockException.class, OptimisticLockingFailureException.class},
             backoff = @Backoff(delay = 50, multiplier = 2, random = true),
             maxAttempts = 4)
     @Override
-    @Transactional
     public LedgerTransferResponse createEntry(TransferRequest request) {
-        var existingTransfers = ledgerRepository.findByTransferId(request.transferId());
+        try {
+            return transactionTemplate.execute(status -> write(request));
+        } catch (DataIntegrityViolationException | InsufficientAccountBalanceException exception) {
+            var existingTransfers = ledgerRepository.findByTransferId(request.transferId());
+
+            if (existingTransfers.isEmpty()) {
+                if (entryKeys.isClaimed(request.transferId())) {
+                    throw new TransferArchivedException(request.transferId());
+                }
+                throw exception;
+            }
 
-        if (!existingTransfers.isEmpty()) {
             log.info("Ledger entry exists for transferId: [{}]. Returning existing transfer", request.transferId());
-
-            return mapResponse(existingTransfers);
+            return LedgerEntryMapper.toResponse(existingTransfers);
         }
+    }
 
+    private LedgerTransferResponse write(TransferRequest request) {
         log.info("Creating ledger entry, request {}", request);
 
-        var fromAccount = retrieveAccount(request.fromAccountId());
-        var toAccount = retrieveAccount(request.toAccountId());
+        var amount = Money.requireMinorUnits(request.amount(), EntryType.DEBIT);
+        accountCache.evictOnCommit(List.of(request.fromAccountId(), request.toAccountId()));
 
-        var ledgerEntries = transfer(request.transferId(), request.amount(), fromAccount, toAccount);
+        var ledgerEntries = switch (writeProperties.getMode()) {
+            case JPA -> switch (lockingProperties.getStrategy()) {
+                case OPTIMISTIC -> transfer(request.transferId(), amount,
+                        retrieveAccount(request.fromAccountId()), retrieveAccount(request.toAccountId()));
+                case PESSIMISTIC -> lockedTransfer(request.transferId(), amount,
+                        request.fromAccountId(), request.toAccountId());
+            };
+            case CONDITIONAL -> conditionalTransfer(request.transferId(), amount,
+                    request.fromAccountId(), request.toAccountId());
+        };
 
-        ledgerEntries = ledgerRepository.saveAll(ledgerEntries);
+        transferIdFilter.add(request.transferId());
+        ledgerEntries = ledgerRepository.saveAllAndFlush(ledgerEntries);
 
-        var response = mapResponse(ledgerEntries);
+        var response = LedgerEntryMapper.toResponse(ledgerEntries);
 
         log.info("Ledger entry created for transferId: [{}], amount: [{}]", response.transferId(), response.debitEntry().amount());
         return response;
@@ -67,26 +112,84 @@ public class LedgerEntryServiceImpl implements LedgerService {
                 .orElseThrow(() -> new AccountNotFoundException(accountId));
     }
 
-    private LedgerTransferResponse mapResponse(List<LedgerEntry> entries) {
-        var debit = entries.stream().filter(LedgerEntry::isDebit).findFirst().orElseThrow();
-        var credit = entries.stream().filter(LedgerEntry::isCredit).findFirst().orElseThrow();
+    /**
+     * Locks both accounts with {@code SELECT ... FOR UPDATE} in ascending account id order before applying the
+     * transfer, so a concurrent transfer on either account waits for this transaction instead of conflicting
+     * on the version column.
+     */
+    private List<LedgerEntry> lockedTransfer(UUID transferId, long amount, UUID fromAccountId, UUID toAccountId) {
+        log.info("Locking accounts [{}] and [{}]", fromAccountId, toAccountId);
+
+        var accounts = accountRepository.lockAllById(List.of(fromAccountId, toAccountId)).stream()
+                .collect(Collectors.toMap(Account::getId, Function.identity()));
+
+        var fromAccount = Optional.ofNullable(accounts.get(fromAccountId))
+                .orElseThrow(() -> new AccountNotFoundException(fromAccountId));
+        var toAccount = Optional.ofNullable(accounts.get(toAccountId))
+                .orElseThrow(() -> new AccountNotFoundException(toAccountId));
 
-        return LedgerTransferResponse.builder()
-                .transferId(debit.getTransferId())
-                .creditEntry(new LedgerEntryDto(credit.getAccountId(), credit.getAmount(), credit.getType().name()))
-                .debitEntry(new LedgerEntryDto(debit.getAccountId(), debit.getAmount(), debit.getType().name()))
-                .createdAt(debit.getCreatedAt())
-                .build();
+        return transfer(transferId, amount, fromAccount, toAccount);
     }
 
-    private List<LedgerEntry> transfer(UUID transferId, BigDecimal amount, Account fromAccount, Account toAccount) {
+    private List<LedgerEntry> transfer(UUID transferId, long amount, Account fromAccount, Account toAccount) {
         fromAccount.debit(amount);
         toAccount.credit(amount);
 
-        var debitEntry = LedgerEntry.debit(transferId, fromAccount.getId(), amount);
-        var creditEntry = LedgerEntry.credit(transferId, toAccount.getId(), amount);
+        var debitEntry = LedgerEntry.debit(transferId, fromAccount.getId(), amount, fromAccount.getBalance());
+        var creditEntry = LedgerEntry.credit(transferId, toAccount.getId(), amount, toAccount.getBalance());
+
+        return List.of(debitEntry, creditEntry);
+
+    }
+
+    /**
+     * Applies the transfer with two guarded UPDATE statements instead of a read-modify-write of
+     * both {@link Account} entities, so concurrent transfers on the same account never conflict on
+     * the version column. Rows are updated in ascending account id order so that opposing transfers
+     * cannot deadlock; a rejected debit or credit throws, which rolls back the whole transfer.
+     */
+    private List<LedgerEntry> conditionalTransfer(UUID transferId, long amount, UUID fromAccountId, UUID toAccountId) {
+        if (amount <= 0) {
+            throw new InvalidAmountException(EntryType.DEBIT, amount);
+        }
+
+        var now = Instant.now();
+        long debitBalance;
+        long creditBalance;
+
+        if (AccountLockOrder.lockedFirst(fromAccountId, toAccountId)) {
+            debitBalance = conditionalDebit(fromAccountId, amount, now);
+            creditBalance = conditionalCredit(toAccountId, amount, now);
+        } else {
+            creditBalance = conditionalCredit(toAccountId, amount, now);
+            debitBalance = conditionalDebit(fromAccountId, amount, now);
+        }
+
+        var debitEntry = LedgerEntry.debit(transferId, fromAccountId, amount, debitBalance);
+        var creditEntry = LedgerEntry.credit(transferId, toAccountId, amount, creditBalance);
 
         return List.of(debitEntry, creditEntry);
+    }
 
+    /**
+     * @return the balance left by the debit, returned by the update itself
+     */
+    private long conditionalDebit(UUID accountId, long amount, Instant now) {
+        var balance = accountRepository.debitReturningBalance(accountId, amount, now);
+        if (balance.isEmpty()) {
+            if (!accountRepository.existsById(accountId)) {
+                throw new AccountNotFoundException(accountId);
+            }
+            throw new InsufficientAccountBalanceException(accountId);
+        }
+        return balance.getAsLong();
+    }
+
+    /**
+     * @return the balance left by the credit, returned by the update itself
+     */
+    private long conditionalCredit(UUID accountId, long amount, Instant now) {
+        return accountRepository.creditReturningBalance(accountId, amount, now)
+                .orElseThrow(() -> new AccountNotFoundException(accountId));
     }
 }
@@ -0,0 +1,65 @@
+package co.za.payments.ledger.service.impl;
+
+import co.za.payments.ledger.config.LedgerReconciliationProperties;
+import co.za.payments.ledger.domain.AccountReconciliation;
+import co.za.payments.ledger.domain.Money;
+import co.za.payments.ledger.domain.ReconciliationMark;
+import co.za.payments.ledger.domain.TransferMismatch;
+import co.za.payments.ledger.dto.AccountMismatchResponse;
+import co.za.payments.ledger.dto.ReconciliationReport;
+import co.za.payments.ledger.dto.TransferMismatchResponse;
+import co.za.payments.ledger.exception.InvalidPageRequestException;
+import co.za.payments.ledger.repository.AccountReconciliationRepository;
+import co.za.payments.ledger.repository.ReconciliationMarkRepository;
+import co.za.payments.ledger.repository.TransferMismatchRepository;
+import co.za.payments.ledger.service.ReconciliationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReconciliationServiceImpl implements ReconciliationService {
+
+    private final AccountReconciliationRepository reconciliationRepository;
+    private final TransferMismatchRepository transferMismatchRepository;
+    private final ReconciliationMarkRepository markRepository;
+    private final LedgerReconciliationProperties properties;
+
+    @Override
+    @Transactional(readOnly = true)
+    public ReconciliationReport getReport(Integer limit) {
+        var size = limit == null ? properties.getMaxReportSize() : limit;
+        if (size < 1 || size > properties.getMaxReportSize()) {
+            throw new InvalidPageRequestException("Limit of %d must be between 1 and %d".formatted(size, properties.getMaxReportSize()));
+        }
+
+        log.info("Retrieving up to [{}] reconciliation mismatches of each kind", size);
+
+        var accountMismatches = reconciliationRepository.findByDifferenceNotOrderByUpdatedAtDesc(0, Limit.of(size));
+        var transferMismatches = transferMismatchRepository.findAllByOrderByCreatedAtDesc(Limit.of(size));
+
+        return new ReconciliationReport(
+                markRepository.findFirstByOrderByCreatedAtAsc().map(ReconciliationMark::getEntryCreatedAt).orElse(null),
+                reconciliationRepository.countByDifferenceNot(0),
+                accountMismatches.stream().map(ReconciliationServiceImpl::mapResponse).toList(),
+                transferMismatchRepository.count(),
+                transferMismatches.stream().map(ReconciliationServiceImpl::mapResponse).toList());
+    }
+
+    private static AccountMismatchResponse mapResponse(AccountReconciliation reconciliation) {
+        return new AccountMismatchResponse(reconciliation.getAccountId(),
+                Money.fromMinorUnits(reconciliation.getBalance() + reconciliation.getDifference()),
+                Money.fromMinorUnits(reconciliation.getBalance()),
+                Money.fromMinorUnits(reconciliation.getDifference()),
+                reconciliation.getReconciledTo());
+    }
+
+    private static TransferMismatchResponse mapResponse(TransferMismatch mismatch) {
+        return new TransferMismatchResponse(mismatch.getTransferId(), Money.fromMinorUnits(mismatch.getDebits()),
+                Money.fromMinorUnits(mismatch.getCredits()), mismatch.getCreatedAt());
+    }
+}
@@ -0,0 +1,59 @@
+package co.za.payments.ledger.service.impl;
+
+import co.za.payments.ledger.dto.BatchTransferResult;
+import co.za.payments.ledger.dto.BatchTransferStatus;
+import co.za.payments.ledger.dto.LedgerTransferResponse;
+import co.za.payments.ledger.exception.AccountNotBatchableException;
+import co.za.payments.ledger.exception.AccountNotFoundException;
+import co.za.payments.ledger.exception.InsufficientAccountBalanceException;
+import co.za.payments.ledger.exception.LedgerApplicationException;
+import co.za.payments.ledger.exception.TransferArchivedException;
+
+import java.util.UUID;
+
+/**
+ * Result of applying a single transfer as part of a batch, either the ledger response or the rejection.
+ */
+public record TransferOutcome(UUID transferId, BatchTransferStatus status,
+                              LedgerTransferResponse response, LedgerApplicationException error) {
+
+    public static TransferOutcome created(LedgerTransferResponse response) {
+        return new TransferOutcome(response.transferId(), BatchTransferStatus.CREATED, response, null);
+    }
+
+    public static TransferOutcome duplicate(LedgerTransferResponse response) {
+        return new TransferOutcome(response.transferId(), BatchTransferStatus.DUPLICATE, response, null);
+    }
+
+    public static TransferOutcome rejected(UUID transferId, LedgerApplicationException error) {
+        return new TransferOutcome(transferId, statusOf(error), null, error);
+    }
+
+    public boolean isRejected() {
+        return null != error;
+    }
+
+    public BatchTransferResult toResult() {
+        return switch (status) {
+            case CREATED -> BatchTransferResult.created(response);
+            case DUPLICATE -> BatchTransferResult.duplicate(response);
+            default -> BatchTransferResult.rejected(transferId, status, error.getCode(), error.getMessage());
+        };
+    }
+
+    private static BatchTransferStatus statusOf(LedgerApplicationException exception) {
+        if (exception instanceof AccountNotFoundException) {
+            return BatchTransferStatus.ACCOUNT_NOT_FOUND;
+        }
+        if (exception instanceof InsufficientAccountBalanceException) {
+            return BatchTransferStatus.INSUFFICIENT_FUNDS;
+        }
+        if (exception instanceof AccountNotBatchableException) {
+            return BatchTransferStatus.ACCOUNT_NOT_BATCHABLE;
+        }
+        if (exception instanceof TransferArchivedException) {
+            return BatchTransferStatus.TRANSFER_ARCHIVED;
+        }
+        return BatchTransferStatus.INVALID_AMOUNT;
+    }
+}
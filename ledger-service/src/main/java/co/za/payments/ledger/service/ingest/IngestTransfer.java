@@ -0,0 +1,10 @@
+package co.za.payments.ledger.service.ingest;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A transfer read from an ingestion file whose debit and credit balance, amount in minor units.
+ */
+public record IngestTransfer(UUID transferId, UUID debitAccountId, UUID creditAccountId, long amount,
+                             Instant debitedAt, Instant creditedAt) { }
@@ -0,0 +1,279 @@
+package co.za.payments.ledger.service.ingest;
+
+import co.za.payments.ledger.config.LedgerIngestProperties;
+import co.za.payments.ledger.domain.EntryType;
+import co.za.payments.ledger.domain.LedgerIngestRun;
+import co.za.payments.ledger.domain.UuidV7;
+import co.za.payments.ledger.repository.LedgerIngestRunRepository;
+import co.za.payments.ledger.service.impl.AccountCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Loads historical transfers from a file straight into {@code ledger_entry}, for migrations and backfills too
+ * large to send through the API.</p>
+ * <p>The file is read by a {@link TransferFileReader}, which checks that each transfer balances as it streams.
+ * Every {@code chunk-size} transfers are written in one transaction: their entries with a binary {@code COPY} on
+ * PostgreSQL, or JDBC batches elsewhere, then the net change of every account of the chunk with one set-based
+ * update, then the file offset after the chunk in {@link LedgerIngestRun}. An ingestion started again with the
+ * same {@code run-id} resumes at that offset, and only a chunk's transfers and account changes are held at a
+ * time.</p>
+ * <p>The accounts must exist, a chunk with an unknown account fails the ingestion. Ingested entries have no
+ * balance after them and their amounts are applied to the account balances without checking for overdrafts, as the
+ * history is taken to be settled. Transfers through the API should be stopped while ingesting, as the balance
+ * updates do not take account locks and the transfer id filter does not learn the ingested ids.</p>
+ */
+@Component
+@Slf4j
+public class LedgerIngestion {
+
+    private static final String COPY = """
+            copy ledger_entry (id, transfer_id, account_id, amount, type, balance_applied, created_at, updated_at)
+            from stdin with (format binary)
+            """;
+    private static final String INSERT = """
+            insert into ledger_entry (id, transfer_id, account_id, amount, type, balance_applied, created_at, updated_at)
+            values (?, ?, ?, ?, ?, true, ?, ?)
+            """;
+    private static final String APPLY_DELTAS = """
+            update accounts a set balance = a.balance + d.delta, version = a.version + 1
+              from unnest(?::uuid[], ?::bigint[]) as d(account_id, delta)
+             where a.id = d.account_id
+            """;
+    private static final String APPLY_DELTA = "update accounts set balance = balance + ?, version = version + 1 where id = ?";
+
+    private static final byte[] COPY_SIGNATURE = "PGCOPY\n\377\r\n\0".getBytes(StandardCharsets.ISO_8859_1);
+    private static final short COPY_FIELDS = 8;
+    private static final int COPY_MAX_ROW = 128;
+    private static final long POSTGRES_EPOCH_SECONDS = 946_684_800L;
+    private static final byte[] DEBIT = EntryType.DEBIT.name().getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CREDIT = EntryType.CREDIT.name().getBytes(StandardCharsets.US_ASCII);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LedgerIngestRunRepository runRepository;
+    private final AccountCache accountCache;
+    private final LedgerIngestProperties properties;
+    private final TransactionTemplate writeTemplate;
+
+    private final Counter ingestedTransfers;
+    private final Timer chunkTime;
+
+    public LedgerIngestion(JdbcTemplate jdbcTemplate, LedgerIngestRunRepository runRepository, AccountCache accountCache,
+                           LedgerIngestProperties properties, PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.runRepository = runRepository;
+        this.accountCache = accountCache;
+        this.properties = properties;
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+
+        this.ingestedTransfers = Counter.builder("ledger.ingest.transfers")
+                .description("Transfers loaded into the ledger by ingestion")
+                .register(meterRegistry);
+        this.chunkTime = Timer.builder("ledger.ingest.chunk")
+                .description("Time taken to write one chunk of ingested transfers")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ingests the file from the offset its run has reached.
+     *
+     * @return the run, completed
+     * @throws IllegalArgumentException on the first invalid line, the chunks before it stay ingested
+     */
+    public LedgerIngestRun ingest(Path file) {
+        var runId = properties.getRunId();
+        var fileName = file.getFileName().toString();
+        var run = writeTemplate.execute(status -> runRepository.findByRunId(runId)
+                .orElseGet(() -> runRepository.save(LedgerIngestRun.of(runId, fileName))));
+        if (!run.getFileName().equals(fileName)) {
+            throw new IllegalStateException("Ingestion run %s is of file %s, not %s".formatted(runId, run.getFileName(), fileName));
+        }
+        if (run.isCompleted()) {
+            log.info("Ingestion run [{}] of [{}] already completed with [{}] transfers", runId, fileName, run.getTransfers());
+            return run;
+        }
+
+        log.info("Ingesting [{}] as run [{}] from line [{}], byte offset [{}]", fileName, runId, run.getLine(), run.getOffset());
+        var started = System.nanoTime();
+        var chunk = new ArrayList<IngestTransfer>(properties.getChunkSize());
+
+        try (var reader = TransferFileReader.open(file, run.getOffset(), run.getLine())) {
+            IngestTransfer transfer;
+            while ((transfer = reader.next()) != null) {
+                chunk.add(transfer);
+                if (chunk.size() == properties.getChunkSize()) {
+                    run = write(run, chunk, reader.offset(), reader.line());
+                }
+            }
+            if (!chunk.isEmpty()) {
+                run = write(run, chunk, reader.offset(), reader.line());
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+
+        var finished = run;
+        finished.setCompleted(true);
+        var completed = writeTemplate.execute(status -> runRepository.save(finished));
+        log.info("Ingested [{}] as run [{}] in [{}] ms, [{}] transfers", fileName, runId,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), completed.getTransfers());
+        return completed;
+    }
+
+    private LedgerIngestRun write(LedgerIngestRun run, ArrayList<IngestTransfer> chunk, long offset, long line) {
+        var deltas = new HashMap<UUID, Long>();
+        for (var transfer : chunk) {
+            deltas.merge(transfer.debitAccountId(), -transfer.amount(), Long::sum);
+            deltas.merge(transfer.creditAccountId(), transfer.amount(), Long::sum);
+        }
+
+        var started = System.nanoTime();
+        var written = writeTemplate.execute(status -> {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                if (connection.isWrapperFor(PGConnection.class)) {
+                    copy(connection.unwrap(PGConnection.class), chunk);
+                    applyDeltas(connection, deltas, line);
+                } else {
+                    insert(chunk);
+                    applyDeltasInBatches(deltas, line);
+                }
+                return null;
+            });
+            accountCache.evictOnCommit(deltas.keySet());
+            run.advance(offset, line, chunk.size());
+            return runRepository.save(run);
+        });
+        chunkTime.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        ingestedTransfers.increment(chunk.size());
+
+        log.info("Ingestion run [{}] at line [{}], [{}] transfers", written.getRunId(), line, written.getTransfers());
+        chunk.clear();
+        return written;
+    }
+
+    /**
+     * Streams the entries of the chunk in PostgreSQL's binary copy format, a buffer at a time.
+     */
+    private static void copy(PGConnection connection, ArrayList<IngestTransfer> chunk) throws SQLException {
+        var copyIn = connection.getCopyAPI().copyIn(COPY);
+        try {
+            var buffer = ByteBuffer.allocate(1 << 16);
+            buffer.put(COPY_SIGNATURE).putInt(0).putInt(0);
+            var now = micros(Instant.now());
+
+            for (var transfer : chunk) {
+                putEntry(buffer, transfer.transferId(), transfer.debitAccountId(), transfer.amount(), DEBIT, transfer.debitedAt(), now);
+                flushIfFull(copyIn, buffer);
+                putEntry(buffer, transfer.transferId(), transfer.creditAccountId(), transfer.amount(), CREDIT, transfer.creditedAt(), now);
+                flushIfFull(copyIn, buffer);
+            }
+            buffer.putShort((short) -1);
+            copyIn.writeToCopy(buffer.array(), 0, buffer.position());
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private static void putEntry(ByteBuffer buffer, UUID transferId, UUID accountId, long amount, byte[] type,
+                                 Instant createdAt, long updatedAt) {
+        buffer.putShort(COPY_FIELDS);
+        putUuid(buffer, UuidV7.next());
+        putUuid(buffer, transferId);
+        putUuid(buffer, accountId);
+        buffer.putInt(Long.BYTES).putLong(amount);
+        buffer.putInt(type.length).put(type);
+        buffer.putInt(1).put((byte) 1);
+        buffer.putInt(Long.BYTES).putLong(micros(createdAt));
+        buffer.putInt(Long.BYTES).putLong(updatedAt);
+    }
+
+    private static void putUuid(ByteBuffer buffer, UUID uuid) {
+        buffer.putInt(16).putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+    }
+
+    private static void flushIfFull(CopyIn copyIn, ByteBuffer buffer) throws SQLException {
+        if (buffer.remaining() < COPY_MAX_ROW) {
+            copyIn.writeToCopy(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+    }
+
+    /**
+     * @return microseconds since 2000-01-01T00:00:00Z, how PostgreSQL encodes timestamps in binary
+     */
+    private static long micros(Instant instant) {
+        return (instant.getEpochSecond() - POSTGRES_EPOCH_SECONDS) * 1_000_000L + instant.getNano() / 1_000;
+    }
+
+    private static void applyDeltas(Connection connection, Map<UUID, Long> deltas, long line) throws SQLException {
+        var accountIds = deltas.keySet().toArray(UUID[]::new);
+        var amounts = new Long[accountIds.length];
+        for (int i = 0; i < accountIds.length; i++) {
+            amounts[i] = deltas.get(accountIds[i]);
+        }
+
+        try (var statement = connection.prepareStatement(APPLY_DELTAS)) {
+            statement.setArray(1, connection.createArrayOf("uuid", accountIds));
+            statement.setArray(2, connection.createArrayOf("int8", amounts));
+            requireAccounts(statement.executeUpdate(), deltas.size(), line);
+        }
+    }
+
+    private void insert(ArrayList<IngestTransfer> chunk) {
+        var now = Timestamp.from(Instant.now());
+        var rows = new ArrayList<Object[]>(chunk.size() * 2);
+        for (var transfer : chunk) {
+            rows.add(new Object[]{UuidV7.next(), transfer.transferId(), transfer.debitAccountId(), transfer.amount(),
+                    EntryType.DEBIT.name(), Timestamp.from(transfer.debitedAt()), now});
+            rows.add(new Object[]{UuidV7.next(), transfer.transferId(), transfer.creditAccountId(), transfer.amount(),
+                    EntryType.CREDIT.name(), Timestamp.from(transfer.creditedAt()), now});
+        }
+        jdbcTemplate.batchUpdate(INSERT, rows);
+    }
+
+    private void applyDeltasInBatches(Map<UUID, Long> deltas, long line) {
+        var rows = deltas.entrySet().stream()
+                .map(delta -> new Object[]{delta.getValue(), delta.getKey()})
+                .toList();
+        var updated = 0;
+        for (var count : jdbcTemplate.batchUpdate(APPLY_DELTA, rows)) {
+            updated += count;
+        }
+        requireAccounts(updated, deltas.size(), line);
+    }
+
+    private static void requireAccounts(int updated, int accounts, long line) {
+        if (updated != accounts) {
+            throw new IllegalArgumentException("Transfers up to line %d reference %d accounts that do not exist"
+                    .formatted(line, accounts - updated));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package co.za.payments.ledger.service.ingest;
+
+import co.za.payments.ledger.config.LedgerIngestProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+/**
+ * Runs the {@link LedgerIngestion} on startup when {@code ledger.ingest.file} is set, e.g. as a one-off command with
+ * {@code --ledger.ingest.file=entries.csv --ledger.ingest.exit-on-completion=true}.
+ */
+@Component
+@ConditionalOnExpression("'${ledger.ingest.file:}' != ''")
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerIngestionRunner implements ApplicationRunner {
+
+    private final LedgerIngestion ingestion;
+    private final LedgerIngestProperties properties;
+    private final ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        var exitCode = 0;
+        try {
+            ingestion.ingest(Path.of(properties.getFile()));
+        } catch (RuntimeException exception) {
+            log.error("Ingestion run [{}] of [{}] failed", properties.getRunId(), properties.getFile(), exception);
+            exitCode = 1;
+        }
+
+        if (properties.isExitOnCompletion()) {
+            var code = exitCode;
+            System.exit(SpringApplication.exit(context, () -> code));
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package co.za.payments.ledger.service.ingest;
+
+import co.za.payments.ledger.domain.EntryType;
+import co.za.payments.ledger.domain.Money;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * <p>Reads the transfers of an ingestion file with one ledger entry per line,
+ * {@code transfer_id,account_id,type,amount,created_at}, the amount in major units and {@code created_at} an
+ * ISO-8601 instant, under an optional header starting with {@code transfer_id}.</p>
+ * <p>The entries of a transfer must be on consecutive lines, so a transfer is checked as soon as the line after it
+ * is read: one debit and one credit, as {@code (transfer_id, type)} is unique, of the same amount. Only that
+ * transfer and the next line are held, whatever the size of the file. {@link #offset()} is the byte offset right
+ * after the last transfer returned, a reader opened there continues with the next one.</p>
+ *
+ * @throws IllegalArgumentException from {@link #next()} with the number of the offending line
+ */
+final class TransferFileReader implements Closeable {
+
+    private static final String HEADER = "transfer_id";
+    private static final int COLUMNS = 5;
+
+    private final InputStream input;
+    private byte[] buffer = new byte[256];
+    private long position;
+    private long lineNumber;
+
+    private Entry pending;
+    private long offset;
+    private long line;
+
+    TransferFileReader(InputStream input, long offset, long line) {
+        this.input = input;
+        this.position = offset;
+        this.lineNumber = line;
+        this.offset = offset;
+        this.line = line;
+    }
+
+    /**
+     * Opens the file at the given byte offset, the start of the line after {@code line}.
+     */
+    static TransferFileReader open(Path file, long offset, long line) throws IOException {
+        var channel = FileChannel.open(file);
+        channel.position(offset);
+        return new TransferFileReader(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16), offset, line);
+    }
+
+    /**
+     * @return the next transfer, or {@code null} at the end of the file
+     */
+    IngestTransfer next() throws IOException {
+        var first = pending != null ? pending : readEntry();
+        pending = null;
+        if (first == null) {
+            return null;
+        }
+
+        Entry debit = null;
+        Entry credit = null;
+        Entry last = null;
+        var entry = first;
+        while (entry != null && entry.transferId().equals(first.transferId())) {
+            if (entry.type() == EntryType.DEBIT) {
+                if (debit != null) {
+                    throw invalid(entry.line(), "transfer %s has more than one DEBIT".formatted(entry.transferId()));
+                }
+                debit = entry;
+            } else {
+                if (credit != null) {
+                    throw invalid(entry.line(), "transfer %s has more than one CREDIT".formatted(entry.transferId()));
+                }
+                credit = entry;
+            }
+            last = entry;
+            entry = readEntry();
+        }
+        pending = entry;
+
+        if (debit == null || credit == null) {
+            throw invalid(last.line(), "transfer %s has no %s".formatted(first.transferId(),
+                    debit == null ? EntryType.DEBIT : EntryType.CREDIT));
+        }
+        if (debit.amount() != credit.amount()) {
+            throw invalid(last.line(), "transfer %s debits %s but credits %s".formatted(first.transferId(),
+                    Money.fromMinorUnits(debit.amount()), Money.fromMinorUnits(credit.amount())));
+        }
+
+        offset = last.end();
+        line = last.line();
+        return new IngestTransfer(first.transferId(), debit.accountId(), credit.accountId(), debit.amount(),
+                debit.createdAt(), credit.createdAt());
+    }
+
+    /**
+     * @return byte offset right after the last line of the last transfer returned
+     */
+    long offset() {
+        return offset;
+    }
+
+    /**
+     * @return number of the last line of the last transfer returned
+     */
+    long line() {
+        return line;
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    private Entry readEntry() throws IOException {
+        String text;
+        while ((text = readLine()) != null) {
+            if (text.isBlank() || (lineNumber == 1 && text.regionMatches(true, 0, HEADER, 0, HEADER.length()))) {
+                continue;
+            }
+            return parse(text);
+        }
+        return null;
+    }
+
+    private Entry parse(String text) {
+        var columns = text.split(",", -1);
+        if (columns.length != COLUMNS) {
+            throw invalid(lineNumber, "expected %d columns but found %d".formatted(COLUMNS, columns.length));
+        }
+
+        var transferId = uuid(columns[0], "transfer_id");
+        var accountId = uuid(columns[1], "account_id");
+
+        EntryType type;
+        try {
+            type = EntryType.valueOf(columns[2].strip());
+        } catch (IllegalArgumentException exception) {
+            throw invalid(lineNumber, "type [%s] must be DEBIT or CREDIT".formatted(columns[2]));
+        }
+
+        long amount;
+        try {
+            amount = Money.toMinorUnits(new BigDecimal(columns[3].strip()));
+        } catch (NumberFormatException | ArithmeticException exception) {
+            amount = 0;
+        }
+        if (amount <= 0) {
+            throw invalid(lineNumber, "amount [%s] must be positive with at most %d decimals".formatted(columns[3], Money.SCALE));
+        }
+
+        Instant createdAt;
+        try {
+            createdAt = Instant.parse(columns[4].strip());
+        } catch (DateTimeParseException exception) {
+            throw invalid(lineNumber, "created_at [%s] is not an ISO-8601 instant".formatted(columns[4]));
+        }
+
+        return new Entry(transferId, accountId, type, amount, createdAt, lineNumber, position);
+    }
+
+    private UUID uuid(String value, String column) {
+        try {
+            return UUID.fromString(value.strip());
+        } catch (IllegalArgumentException exception) {
+            throw invalid(lineNumber, "%s [%s] is not a UUID".formatted(column, value));
+        }
+    }
+
+    /**
+     * @return the next line without its line break, or {@code null} at the end of the file
+     */
+    private String readLine() throws IOException {
+        var length = 0;
+        int next;
+        while ((next = input.read()) != -1) {
+            position++;
+            if (next == '\n') {
+                break;
+            }
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, length * 2);
+            }
+            buffer[length++] = (byte) next;
+        }
+        if (next == -1 && length == 0) {
+            return null;
+        }
+
+        lineNumber++;
+        if (length > 0 && buffer[length - 1] == '\r') {
+            length--;
+        }
+        return new String(buffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static IllegalArgumentException invalid(long line, String message) {
+        return new IllegalArgumentException("Line %d: %s".formatted(line, message));
+    }
+
+    private record Entry(UUID transferId, UUID accountId, EntryType type, long amount, Instant createdAt,
+                         long line, long end) { }
+}
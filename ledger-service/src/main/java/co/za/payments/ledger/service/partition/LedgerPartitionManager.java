@@ -0,0 +1,202 @@
+package co.za.payments.ledger.service.partition;
+
+import co.za.payments.ledger.config.LedgerPartitionProperties;
+import co.za.payments.ledger.dto.LedgerPartitionResponse;
+import co.za.payments.ledger.exception.PartitionNotFoundException;
+import co.za.payments.ledger.service.dedup.LedgerEntryKeys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * <p>Keeps {@code ledger_entry} range partitioned by month of {@code created_at} on PostgreSQL.</p>
+ * <p>On startup a plain {@code ledger_entry}, as created by Hibernate, is turned into a partitioned table with its
+ * rows kept in place as the {@code ledger_entry_legacy} partition, which also takes the rest of the current month.
+ * Attaching it checks and indexes the existing rows once, so the first start takes a while on a large table. The
+ * primary key of a partitioned table has to include {@code created_at}, so transfer ids are kept unique across
+ * partitions by {@link LedgerEntryKeys}, which fails a replayed insert with a unique violation as before.</p>
+ * <p>Every {@code check-interval} the partitions of the current month and the {@code months-ahead} after it are
+ * created if missing, and those older than {@code retain-months} are detached. A detached partition is a plain
+ * table that can be archived or dropped without touching the live one.</p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "ledger.partitions", name = "enabled", havingValue = "true")
+@Slf4j
+public class LedgerPartitionManager {
+
+    static final String LEGACY_PARTITION = "ledger_entry_legacy";
+    private static final Pattern MONTHLY_PARTITION = Pattern.compile("ledger_entry_p(\\d{4})_(\\d{2})");
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('(\\d{4})-(\\d{2})");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LedgerPartitionProperties properties;
+    private final LedgerEntryKeys entryKeys;
+
+    public LedgerPartitionManager(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                  LedgerPartitionProperties properties, LedgerEntryKeys entryKeys) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.entryKeys = entryKeys;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        var current = YearMonth.now(ZoneOffset.UTC);
+        if (!isPartitioned()) {
+            partitionTable(current);
+        }
+        entryKeys.install();
+        maintain(current);
+    }
+
+    @Scheduled(fixedDelayString = "${ledger.partitions.check-interval:1h}", initialDelayString = "${ledger.partitions.check-interval:1h}")
+    public void run() {
+        maintain(YearMonth.now(ZoneOffset.UTC));
+    }
+
+    /**
+     * Creates the partitions missing from the given month to {@code months-ahead} after it and detaches those
+     * older than {@code retain-months}.
+     */
+    public void maintain(YearMonth current) {
+        var partitions = partitions();
+        var existing = partitions.stream().map(LedgerPartitionResponse::name).toList();
+        var legacyEnd = partitions.stream()
+                .filter(partition -> partition.name().equals(LEGACY_PARTITION))
+                .map(partition -> upperBoundOf(partition.bounds()))
+                .findFirst()
+                .orElse(current);
+
+        for (int i = 0; i <= properties.getMonthsAhead(); i++) {
+            var month = current.plusMonths(i);
+            if (!month.isBefore(legacyEnd) && !existing.contains(nameOf(month))) {
+                createPartition(month);
+            }
+        }
+
+        if (properties.getRetainMonths() > 0) {
+            var oldest = current.minusMonths(properties.getRetainMonths());
+            partitions().stream()
+                    .filter(partition -> partition.month() != null && partition.month().isBefore(oldest))
+                    .forEach(partition -> detach(partition.name()));
+        }
+    }
+
+    /**
+     * @return the partitions attached to {@code ledger_entry}, oldest first
+     */
+    public List<LedgerPartitionResponse> partitions() {
+        var partitions = new ArrayList<>(jdbcTemplate.query("""
+                        select c.relname, pg_get_expr(c.relpartbound, c.oid)
+                          from pg_inherits i
+                          join pg_class c on c.oid = i.inhrelid
+                          join pg_class p on p.oid = i.inhparent
+                         where p.relname = 'ledger_entry' and pg_table_is_visible(p.oid)
+                         order by c.relname
+                        """,
+                (row, index) -> new LedgerPartitionResponse(row.getString(1), monthOf(row.getString(1)), row.getString(2))));
+        // the legacy partition holds everything before the first month
+        partitions.sort(Comparator.comparing(LedgerPartitionResponse::month, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return partitions;
+    }
+
+    /**
+     * Detaches the partition from {@code ledger_entry}, leaving its rows in a table of the same name. Detaching
+     * briefly takes an exclusive lock on {@code ledger_entry}.
+     */
+    public void detach(String name) {
+        if (partitions().stream().noneMatch(partition -> partition.name().equals(name))) {
+            throw new PartitionNotFoundException(name);
+        }
+
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.execute("alter table ledger_entry detach partition %s".formatted(name)));
+        log.info("Detached partition [{}] from ledger_entry", name);
+    }
+
+    boolean isPartitioned() {
+        var count = jdbcTemplate.queryForObject("""
+                select count(*)
+                  from pg_partitioned_table t
+                  join pg_class c on c.oid = t.partrelid
+                 where c.relname = 'ledger_entry' and pg_table_is_visible(c.oid)
+                """, Long.class);
+        return count != null && count > 0;
+    }
+
+    private void partitionTable(YearMonth current) {
+        log.info("Partitioning ledger_entry by month, existing rows go to [{}]", LEGACY_PARTITION);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("lock table ledger_entry in access exclusive mode");
+            jdbcTemplate.execute("alter table ledger_entry rename to " + LEGACY_PARTITION);
+            jdbcTemplate.execute("alter index if exists ledger_entry_pkey rename to ledger_entry_legacy_pkey");
+            jdbcTemplate.execute("alter index if exists idx_ledger_entry_account_created_id rename to idx_ledger_entry_legacy_account_created_id");
+            jdbcTemplate.execute("alter index if exists idx_ledger_entry_created_id rename to idx_ledger_entry_legacy_created_id");
+            // the partition takes the trigger of the partitioned table when attached
+            jdbcTemplate.execute("drop trigger if exists ledger_entry_claim_key on " + LEGACY_PARTITION);
+
+            jdbcTemplate.execute("""
+                    create table ledger_entry (like ledger_entry_legacy including defaults including constraints)
+                        partition by range (created_at)
+                    """);
+            jdbcTemplate.execute("alter table ledger_entry add constraint ledger_entry_pkey primary key (id, created_at)");
+            jdbcTemplate.execute("create index idx_ledger_entry_account_created_id on ledger_entry (account_id, created_at, id)");
+            jdbcTemplate.execute("create index idx_ledger_entry_created_id on ledger_entry (created_at, id)");
+            jdbcTemplate.execute("create index idx_ledger_entry_transfer_id on ledger_entry (transfer_id)");
+
+            jdbcTemplate.execute("alter table ledger_entry attach partition %s for values from (minvalue) to ('%s')"
+                    .formatted(LEGACY_PARTITION, startOf(current.plusMonths(1))));
+            entryKeys.install();
+        });
+    }
+
+    private void createPartition(YearMonth month) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.execute(
+                "create table if not exists %s partition of ledger_entry for values from ('%s') to ('%s')"
+                        .formatted(nameOf(month), startOf(month), startOf(month.plusMonths(1)))));
+        log.info("Created partition [{}] of ledger_entry", nameOf(month));
+    }
+
+    static String nameOf(YearMonth month) {
+        return "ledger_entry_p%d_%02d".formatted(month.getYear(), month.getMonthValue());
+    }
+
+    /**
+     * @return the month of a monthly partition, {@code null} for any other
+     */
+    static YearMonth monthOf(String name) {
+        var matcher = MONTHLY_PARTITION.matcher(name);
+        return matcher.matches() ? YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))) : null;
+    }
+
+    /**
+     * @return the month the legacy partition ends before, from its {@code FOR VALUES FROM (MINVALUE) TO (...)}
+     */
+    static YearMonth upperBoundOf(String bounds) {
+        var matcher = UPPER_BOUND.matcher(bounds);
+        if (!matcher.find()) {
+            throw new IllegalStateException("Unexpected bounds of %s: %s".formatted(LEGACY_PARTITION, bounds));
+        }
+        return YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+    }
+
+    private static String startOf(YearMonth month) {
+        return "%s 00:00:00+00".formatted(month.atDay(1));
+    }
+}
@@ -0,0 +1,331 @@
+package co.za.payments.ledger.service.reconcile;
+
+import co.za.payments.ledger.config.LedgerReconciliationProperties;
+import co.za.payments.ledger.domain.AccountReconciliation;
+import co.za.payments.ledger.domain.ReconciliationMark;
+import co.za.payments.ledger.domain.TransferMismatch;
+import co.za.payments.ledger.repository.AccountAmountView;
+import co.za.payments.ledger.repository.AccountBalanceBucketRepository;
+import co.za.payments.ledger.repository.AccountReconciliationRepository;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryKeyView;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import co.za.payments.ledger.repository.ReconciliationMarkRepository;
+import co.za.payments.ledger.repository.TransferMismatchRepository;
+import co.za.payments.ledger.repository.TransferTotalsView;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * <p>Checks the ledger entries created since its last run, never the whole table. It reads them in
+ * {@code (createdAt, id)} order from the position kept in {@link ReconciliationMark}, up to a cutoff
+ * {@code settle-delay} in the past, in chunks of {@code chunk-size} with a {@code chunk-pause} after each.</p>
+ * <p>For every chunk the transfers are checked for debits equal to credits, and the accounts are split into
+ * {@code parallelism} partitions by id that are reconciled in parallel, one repeatable read transaction each.
+ * An account's {@link AccountReconciliation} carries a balance derived from its entries forward to the cutoff,
+ * which is compared with the stored balance less the entries after the cutoff. An account seen for the first time
+ * is taken as it stands. Nothing is locked, so transfers carry on while the reconciler runs.</p>
+ * <p>The mark only moves past a chunk once it is reconciled, and an account already reconciled to the cutoff is
+ * skipped, so a failed or interrupted run is taken up by the next. Memory is bounded by the chunk size.</p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "ledger.reconciliation", name = "enabled", havingValue = "true")
+@Slf4j
+public class LedgerReconciler {
+
+    private final LedgerEntryRepository ledgerRepository;
+    private final AccountRepository accountRepository;
+    private final AccountBalanceBucketRepository bucketRepository;
+    private final AccountReconciliationRepository reconciliationRepository;
+    private final TransferMismatchRepository transferMismatchRepository;
+    private final ReconciliationMarkRepository markRepository;
+    private final LedgerReconciliationProperties properties;
+    private final TransactionTemplate readTemplate;
+    private final TransactionTemplate writeTemplate;
+    private final TransactionTemplate snapshotTemplate;
+
+    private final AtomicReference<Instant> reconciledTo = new AtomicReference<>();
+    private final Counter entries;
+    private final Counter accountMismatches;
+    private final Counter transferMismatches;
+    private final Counter failedChunks;
+    private final Timer runTime;
+
+    public LedgerReconciler(LedgerEntryRepository ledgerRepository, AccountRepository accountRepository,
+                            AccountBalanceBucketRepository bucketRepository,
+                            AccountReconciliationRepository reconciliationRepository,
+                            TransferMismatchRepository transferMismatchRepository,
+                            ReconciliationMarkRepository markRepository, LedgerReconciliationProperties properties,
+                            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.ledgerRepository = ledgerRepository;
+        this.accountRepository = accountRepository;
+        this.bucketRepository = bucketRepository;
+        this.reconciliationRepository = reconciliationRepository;
+        this.transferMismatchRepository = transferMismatchRepository;
+        this.markRepository = markRepository;
+        this.properties = properties;
+
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setReadOnly(true);
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+
+        this.entries = Counter.builder("ledger.reconciliation.entries")
+                .description("Ledger entries reconciled")
+                .register(meterRegistry);
+        this.accountMismatches = Counter.builder("ledger.reconciliation.account_mismatches")
+                .description("Account checks whose stored balance differed from the balance derived from the entries")
+                .register(meterRegistry);
+        this.transferMismatches = Counter.builder("ledger.reconciliation.transfer_mismatches")
+                .description("Transfers found with debits not equal to credits")
+                .register(meterRegistry);
+        this.failedChunks = Counter.builder("ledger.reconciliation.failed_chunks")
+                .description("Chunks of entries that failed to reconcile and are retried by the next run")
+                .register(meterRegistry);
+        this.runTime = Timer.builder("ledger.reconciliation.run")
+                .description("Time taken to reconcile the entries created since the last run")
+                .register(meterRegistry);
+        Gauge.builder("ledger.reconciliation.lag", reconciledTo,
+                        mark -> mark.get() == null ? 0 : Duration.between(mark.get(), Instant.now()).toMillis() / 1_000d)
+                .description("Seconds between now and the creation of the last entry reconciled")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${ledger.reconciliation.check-interval:1m}")
+    public void run() {
+        reconcile(Instant.now().minus(properties.getSettleDelay()));
+    }
+
+    /**
+     * Reconciles the entries created after the mark up to and at the given instant. The first run only places the
+     * mark at the last entry created by then, accounts are taken as they stand when their next entry is reconciled.
+     */
+    public ReconciliationResult reconcile(Instant instant) {
+        var cutoff = instant.truncatedTo(ChronoUnit.MICROS);
+        var started = System.nanoTime();
+
+        var mark = markRepository.findFirstByOrderByCreatedAtAsc().orElseGet(() -> start(cutoff));
+        var result = new ReconciliationResult(0, 0, 0);
+
+        var threads = new AtomicInteger();
+        var executor = Executors.newFixedThreadPool(properties.getParallelism(),
+                runnable -> new Thread(runnable, "ledger-reconciler-" + threads.getAndIncrement()));
+        try {
+            while (true) {
+                var position = mark;
+                var chunk = readTemplate.execute(status -> ledgerRepository.findEntryKeysAfter(position.getEntryCreatedAt(),
+                        position.getEntryId(), cutoff, Limit.of(properties.getChunkSize())));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+
+                var chunkResult = reconcileChunk(chunk, cutoff, executor);
+                if (chunkResult.isEmpty()) {
+                    failedChunks.increment();
+                    break;
+                }
+
+                var last = chunk.getLast();
+                position.moveTo(last.createdAt(), last.id());
+                mark = writeTemplate.execute(status -> markRepository.save(position));
+                reconciledTo.set(last.createdAt());
+
+                entries.increment(chunk.size());
+                result = result.plus(chunkResult.get());
+
+                if (!properties.getChunkPause().isZero()) {
+                    Thread.sleep(properties.getChunkPause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reconciling entries up to %s".formatted(cutoff), e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        runTime.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        if (result.entries() > 0) {
+            log.info("Reconciled [{}] entries up to [{}], [{}] account and [{}] transfer mismatches", result.entries(),
+                    cutoff, result.accountMismatches(), result.transferMismatches());
+        }
+        return result;
+    }
+
+    private ReconciliationMark start(Instant cutoff) {
+        var mark = ledgerRepository.findFirstByCreatedAtLessThanEqualOrderByCreatedAtDescIdDesc(cutoff)
+                .map(entry -> ReconciliationMark.at(entry.getCreatedAt(), entry.getId()))
+                .orElseGet(() -> ReconciliationMark.at(Instant.EPOCH, new UUID(0, 0)));
+
+        log.info("Starting reconciliation after entries created up to [{}]", mark.getEntryCreatedAt());
+        return writeTemplate.execute(status -> markRepository.save(mark));
+    }
+
+    /**
+     * @return the chunk's outcome, empty when any part of it failed
+     */
+    private Optional<ReconciliationResult> reconcileChunk(List<LedgerEntryKeyView> chunk, Instant cutoff,
+                                                          ExecutorService executor)
+            throws InterruptedException {
+        var partitions = new ArrayList<Set<UUID>>(properties.getParallelism());
+        for (int i = 0; i < properties.getParallelism(); i++) {
+            partitions.add(new HashSet<>());
+        }
+        chunk.forEach(entry -> partitions.get(Math.floorMod(entry.accountId().hashCode(), partitions.size())).add(entry.accountId()));
+
+        var workers = new ArrayList<Future<Integer>>(partitions.size());
+        for (var partition : partitions) {
+            if (!partition.isEmpty()) {
+                workers.add(executor.submit(() -> snapshotTemplate.execute(status -> reconcileAccounts(partition, cutoff))));
+            }
+        }
+
+        var transferIds = chunk.stream().map(LedgerEntryKeyView::transferId).collect(Collectors.toSet());
+        try {
+            var unbalanced = writeTemplate.execute(status -> checkTransfers(transferIds));
+
+            var mismatched = 0;
+            for (var worker : workers) {
+                mismatched += worker.get();
+            }
+            return Optional.of(new ReconciliationResult(chunk.size(), mismatched, unbalanced));
+        } catch (ExecutionException | RuntimeException exception) {
+            var cause = exception instanceof ExecutionException ? exception.getCause() : exception;
+            log.error("Failed to reconcile [{}] entries from [{}]", chunk.size(), chunk.getFirst().id(), cause);
+            for (var worker : workers) {
+                worker.cancel(true);
+            }
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return number of accounts whose stored balance differs from the one derived from their entries
+     */
+    private int reconcileAccounts(Set<UUID> accountIds, Instant cutoff) {
+        var known = reconciliationRepository.findByAccountIdIn(accountIds).stream()
+                .collect(Collectors.toMap(AccountReconciliation::getAccountId, Function.identity()));
+        var pending = accountIds.stream()
+                .filter(accountId -> !known.containsKey(accountId) || known.get(accountId).getReconciledTo().isBefore(cutoff))
+                .toList();
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        var stored = storedBalances(pending, cutoff);
+        var deltas = new HashMap<UUID, Long>();
+        pending.stream()
+                .map(known::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.groupingBy(AccountReconciliation::getReconciledTo,
+                        Collectors.mapping(AccountReconciliation::getAccountId, Collectors.toList())))
+                .forEach((from, ids) -> deltas.putAll(amounts(ledgerRepository.sumSignedAmountsBetween(ids, from, cutoff))));
+
+        var mismatched = 0;
+        var reconciliations = new ArrayList<AccountReconciliation>(pending.size());
+        for (var accountId : pending) {
+            var balance = stored.get(accountId);
+            if (balance == null) {
+                // removed since its entries were read
+                continue;
+            }
+
+            var reconciliation = known.get(accountId);
+            if (reconciliation == null) {
+                reconciliations.add(AccountReconciliation.baseline(accountId, cutoff, balance));
+                continue;
+            }
+
+            reconciliation.advance(cutoff, deltas.getOrDefault(accountId, 0L), balance);
+            reconciliations.add(reconciliation);
+            if (reconciliation.isMismatched()) {
+                mismatched++;
+                log.warn("Balance of account [{}] as of [{}] is [{}] but its entries add up to [{}]", accountId, cutoff,
+                        balance, reconciliation.getBalance());
+            }
+        }
+
+        reconciliationRepository.saveAll(reconciliations);
+        accountMismatches.increment(mismatched);
+        return mismatched;
+    }
+
+    /**
+     * @return the stored balance of each account as of the cutoff: its balance, balance buckets and unapplied
+     * credits, less the entries created after the cutoff
+     */
+    private Map<UUID, Long> storedBalances(List<UUID> accountIds, Instant cutoff) {
+        var buckets = amounts(bucketRepository.sumBalances(accountIds));
+        var unapplied = amounts(ledgerRepository.sumUnappliedCredits(accountIds));
+        var since = amounts(ledgerRepository.sumSignedAmountsCreatedAfter(accountIds, cutoff));
+
+        return accountRepository.findBalances(accountIds).stream()
+                .collect(Collectors.toMap(AccountAmountView::accountId, account -> account.amount()
+                        + buckets.getOrDefault(account.accountId(), 0L)
+                        + unapplied.getOrDefault(account.accountId(), 0L)
+                        - since.getOrDefault(account.accountId(), 0L)));
+    }
+
+    /**
+     * Records the transfers whose debits and credits differ, a transfer recorded before is not counted again.
+     *
+     * @return number of transfers newly found unbalanced
+     */
+    private int checkTransfers(Set<UUID> transferIds) {
+        var unbalanced = ledgerRepository.findUnbalancedTransfers(transferIds);
+        if (unbalanced.isEmpty()) {
+            return 0;
+        }
+
+        var recorded = new HashSet<>(transferMismatchRepository.findTransferIdsIn(
+                unbalanced.stream().map(TransferTotalsView::transferId).toList()));
+        var mismatches = unbalanced.stream()
+                .filter(transfer -> !recorded.contains(transfer.transferId()))
+                .peek(transfer -> log.warn("Transfer [{}] debits [{}] but credits [{}]", transfer.transferId(),
+                        transfer.debits(), transfer.credits()))
+                .map(transfer -> TransferMismatch.of(transfer.transferId(), transfer.debits(), transfer.credits()))
+                .toList();
+
+        transferMismatchRepository.saveAll(mismatches);
+        transferMismatches.increment(mismatches.size());
+        return mismatches.size();
+    }
+
+    private static Map<UUID, Long> amounts(List<AccountAmountView> amounts) {
+        return amounts.stream().collect(Collectors.toMap(AccountAmountView::accountId, AccountAmountView::amount));
+    }
+
+    public record ReconciliationResult(long entries, long accountMismatches, long transferMismatches) {
+
+        ReconciliationResult plus(ReconciliationResult other) {
+            return new ReconciliationResult(entries + other.entries, accountMismatches + other.accountMismatches,
+                    transferMismatches + other.transferMismatches);
+        }
+    }
+}
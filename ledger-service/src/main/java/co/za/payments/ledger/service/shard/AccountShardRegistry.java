@@ -0,0 +1,97 @@
+package co.za.payments.ledger.service.shard;
+
+import co.za.payments.ledger.config.LedgerShardingProperties;
+import co.za.payments.ledger.domain.AccountBalanceBucket;
+import co.za.payments.ledger.exception.AccountNotFoundException;
+import co.za.payments.ledger.repository.AccountBalanceBucketRepository;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.service.BalanceAdjuster;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * <p>Keeps track of which accounts are split into balance buckets and how many.</p>
+ * <p>Bucket rows are the source of truth, they are loaded on startup and the accounts configured under
+ * {@code ledger.sharding.accounts} are then sharded. The number of buckets of an account can only grow, as
+ * existing buckets may hold funds.</p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "ledger.sharding", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class AccountShardRegistry implements BalanceAdjuster {
+
+    private final AccountRepository accountRepository;
+    private final AccountBalanceBucketRepository bucketRepository;
+    private final LedgerShardingProperties properties;
+
+    private final Map<UUID, Integer> bucketCounts = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void load() {
+        bucketCounts.putAll(bucketRepository.findAll().stream()
+                .collect(Collectors.groupingBy(AccountBalanceBucket::getAccountId, Collectors.summingInt(bucket -> 1))));
+
+        properties.getAccounts().forEach((accountId, buckets) -> {
+            if (accountRepository.existsById(accountId)) {
+                shard(accountId, buckets);
+            } else {
+                log.warn("Sharded account [{}] does not exist and is ignored", accountId);
+            }
+        });
+    }
+
+    /**
+     * Splits the account into at least {@code buckets} balance buckets. Existing funds stay on the account row
+     * and are drawn on first by debits.
+     */
+    public void shard(UUID accountId, int buckets) {
+        if (!accountRepository.existsById(accountId)) {
+            throw new AccountNotFoundException(accountId);
+        }
+
+        var existing = bucketCounts.getOrDefault(accountId, 0);
+        if (buckets <= existing) {
+            return;
+        }
+
+        var newBuckets = new ArrayList<AccountBalanceBucket>(buckets - existing);
+        for (int index = existing; index < buckets; index++) {
+            newBuckets.add(AccountBalanceBucket.empty(accountId, index));
+        }
+        bucketRepository.saveAll(newBuckets);
+        bucketCounts.put(accountId, buckets);
+
+        log.info("Account [{}] is sharded into [{}] balance buckets", accountId, buckets);
+    }
+
+    public boolean isSharded(UUID accountId) {
+        return bucketCounts.containsKey(accountId);
+    }
+
+    /**
+     * @return the number of buckets of the account, {@code 0} when it is not sharded
+     */
+    public int bucketCount(UUID accountId) {
+        return bucketCounts.getOrDefault(accountId, 0);
+    }
+
+    @Override
+    public long adjust(UUID accountId, long persistedBalance) {
+        return isSharded(accountId) ? persistedBalance + bucketRepository.sumBalance(accountId) : persistedBalance;
+    }
+
+    @Override
+    public boolean holdsBalanceOf(UUID accountId) {
+        return isSharded(accountId);
+    }
+}
@@ -0,0 +1,27 @@
+package co.za.payments.ledger.service.shard;
+
+import co.za.payments.ledger.dto.LedgerTransferResponse;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.service.LedgerService;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@link LedgerService} that sends transfers touching a sharded account to the {@link ShardedTransferWriter}
+ * and everything else to the delegate.
+ */
+@RequiredArgsConstructor
+public class ShardedAccountLedgerService implements LedgerService {
+
+    private final AccountShardRegistry registry;
+    private final ShardedTransferWriter writer;
+    private final LedgerService delegate;
+
+    @Override
+    public LedgerTransferResponse createEntry(TransferRequest request) {
+        if (registry.isSharded(request.fromAccountId()) || registry.isSharded(request.toAccountId())) {
+            return writer.write(request);
+        }
+
+        return delegate.createEntry(request);
+    }
+}
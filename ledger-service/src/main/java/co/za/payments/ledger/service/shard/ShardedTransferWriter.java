@@ -0,0 +1,207 @@
+package co.za.payments.ledger.service.shard;
+
+import co.za.payments.ledger.domain.AccountBalanceBucket;
+import co.za.payments.ledger.domain.AccountLockOrder;
+import co.za.payments.ledger.domain.EntryType;
+import co.za.payments.ledger.domain.LedgerEntry;
+import co.za.payments.ledger.domain.Money;
+import co.za.payments.ledger.dto.LedgerTransferResponse;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.exception.AccountNotFoundException;
+import co.za.payments.ledger.exception.InsufficientAccountBalanceException;
+import co.za.payments.ledger.exception.InvalidAmountException;
+import co.za.payments.ledger.exception.TransferArchivedException;
+import co.za.payments.ledger.repository.AccountBalanceBucketRepository;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import co.za.payments.ledger.service.dedup.LedgerEntryKeys;
+import co.za.payments.ledger.service.dedup.TransferIdFilter;
+import co.za.payments.ledger.service.impl.AccountCache;
+import co.za.payments.ledger.service.impl.LedgerEntryMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.retry.annotation.Retryable;
+import org.springframework.retry.support.RetrySynchronizationManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * <p>Applies transfers where at least one side is a sharded account, with guarded UPDATE statements only.</p>
+ * <ul>
+ *     <li>credit to a sharded account: added to the bucket picked by the hash of the transfer id</li>
+ *     <li>debit from a sharded account: taken from the account row, else from the first bucket with enough funds
+ *     starting at the hashed bucket, else the account is consolidated by moving every bucket into the account row
+ *     and the debit is retried there</li>
+ * </ul>
+ * <p>Like the conditional write mode, the two accounts are updated in ascending account id order. Within a sharded
+ * account the account row is always locked before its buckets, so consolidation cannot deadlock with debits.</p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "ledger.sharding", name = "enabled", havingValue = "true")
+@Slf4j
+public class ShardedTransferWriter {
+
+    private final LedgerEntryRepository ledgerRepository;
+    private final AccountRepository accountRepository;
+    private final AccountBalanceBucketRepository bucketRepository;
+    private final AccountShardRegistry registry;
+    private final TransferIdFilter transferIdFilter;
+    private final AccountCache accountCache;
+    private final LedgerEntryKeys entryKeys;
+    private final Counter consolidations;
+
+    public ShardedTransferWriter(LedgerEntryRepository ledgerRepository, AccountRepository accountRepository,
+                                 AccountBalanceBucketRepository bucketRepository, AccountShardRegistry registry,
+                                 TransferIdFilter transferIdFilter, AccountCache accountCache, LedgerEntryKeys entryKeys,
+                                 MeterRegistry meterRegistry) {
+        this.ledgerRepository = ledgerRepository;
+        this.accountRepository = accountRepository;
+        this.bucketRepository = bucketRepository;
+        this.registry = registry;
+        this.transferIdFilter = transferIdFilter;
+        this.accountCache = accountCache;
+        this.entryKeys = entryKeys;
+        this.consolidations = Counter.builder("ledger.sharding.consolidations")
+                .description("Debits that had to consolidate the buckets of a sharded account")
+                .register(meterRegistry);
+    }
+
+    /**
+     * A replay that got past the duplicate check, because it raced the original or the transfer id filter no longer
+     * held its id, fails on the {@code (transfer_id, type)} unique constraint. The retry then finds the entries, or
+     * rejects the replay when the entries of the original transfer were archived.
+     */
+    @Retryable(retryFor = DataIntegrityViolationException.class, maxAttempts = 2)
+    @Transactional
+    public LedgerTransferResponse write(TransferRequest request) {
+        var existingTransfers = transferIdFilter.existingEntries(request.transferId());
+
+        if (!existingTransfers.isEmpty()) {
+            log.info("Ledger entry exists for transferId: [{}]. Returning existing transfer", request.transferId());
+            return LedgerEntryMapper.toResponse(existingTransfers);
+        }
+
+        if (isRetry() && entryKeys.isClaimed(request.transferId())) {
+            throw new TransferArchivedException(request.transferId());
+        }
+
+        var amount = Money.requireMinorUnits(request.amount(), EntryType.DEBIT);
+        if (amount <= 0) {
+            throw new InvalidAmountException(EntryType.DEBIT, amount);
+        }
+
+        var now = Instant.now();
+        accountCache.evictOnCommit(List.of(request.fromAccountId(), request.toAccountId()));
+
+        Long debitBalance;
+        Long creditBalance;
+        if (AccountLockOrder.lockedFirst(request.fromAccountId(), request.toAccountId())) {
+            debitBalance = debit(request, amount, now);
+            creditBalance = credit(request, amount, now);
+        } else {
+            creditBalance = credit(request, amount, now);
+            debitBalance = debit(request, amount, now);
+        }
+
+        transferIdFilter.add(request.transferId());
+        var ledgerEntries = ledgerRepository.saveAll(List.of(
+                LedgerEntry.debit(request.transferId(), request.fromAccountId(), amount, debitBalance),
+                LedgerEntry.credit(request.transferId(), request.toAccountId(), amount, creditBalance)));
+
+        return LedgerEntryMapper.toResponse(ledgerEntries);
+    }
+
+    /**
+     * @return the balance left by the debit, {@code null} for a sharded account whose buckets change unlocked
+     */
+    private Long debit(TransferRequest request, long amount, Instant now) {
+        var accountId = request.fromAccountId();
+        var buckets = registry.bucketCount(accountId);
+
+        if (buckets == 0) {
+            var balance = accountRepository.debitReturningBalance(accountId, amount, now);
+            if (balance.isPresent()) {
+                return balance.getAsLong();
+            }
+        } else if (accountRepository.debitIfSufficient(accountId, amount, now) == 1) {
+            return null;
+        }
+
+        if (!accountRepository.existsById(accountId)) {
+            throw new AccountNotFoundException(accountId);
+        }
+
+        if (buckets == 0) {
+            throw new InsufficientAccountBalanceException(accountId);
+        }
+
+        var first = bucketOf(request.transferId(), buckets);
+        for (int i = 0; i < buckets; i++) {
+            if (bucketRepository.debitIfSufficient(accountId, (first + i) % buckets, amount, now) == 1) {
+                return null;
+            }
+        }
+
+        consolidate(accountId, now);
+
+        if (accountRepository.debitIfSufficient(accountId, amount, now) == 0) {
+            throw new InsufficientAccountBalanceException(accountId);
+        }
+        return null;
+    }
+
+    /**
+     * @return the balance left by the credit, {@code null} for a sharded account whose buckets change unlocked
+     */
+    private Long credit(TransferRequest request, long amount, Instant now) {
+        var accountId = request.toAccountId();
+        var buckets = registry.bucketCount(accountId);
+
+        if (buckets == 0) {
+            return accountRepository.creditReturningBalance(accountId, amount, now)
+                    .orElseThrow(() -> new AccountNotFoundException(accountId));
+        }
+
+        if (bucketRepository.credit(accountId, bucketOf(request.transferId(), buckets), amount, now) == 0) {
+            throw new AccountNotFoundException(accountId);
+        }
+        return null;
+    }
+
+    /**
+     * Moves the balance of every bucket into the account row, locking the account row first and then the
+     * buckets in bucket order.
+     */
+    private void consolidate(UUID accountId, Instant now) {
+        consolidations.increment();
+
+        accountRepository.lockAllById(List.of(accountId));
+        var total = bucketRepository.lockByAccountId(accountId).stream()
+                .mapToLong(AccountBalanceBucket::getBalance)
+                .sum();
+
+        if (total > 0) {
+            bucketRepository.drain(accountId, now);
+            accountRepository.applyDelta(accountId, total, now);
+        }
+
+        log.info("Consolidated [{}] from the buckets of account [{}]", total, accountId);
+    }
+
+    static int bucketOf(UUID transferId, int buckets) {
+        var hash = transferId.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), buckets);
+    }
+
+    private static boolean isRetry() {
+        var context = RetrySynchronizationManager.getContext();
+        return null != context && context.getRetryCount() > 0;
+    }
+}
@@ -1,16 +1,62 @@
 package util;
 
-import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * <p>Account numbers made of {@code ACC}, a three digit node id and a sixteen digit sequence.</p>
+ * <p>The sequence starts from the current time in microseconds and only ever increases. It is advanced by a
+ * compare and set on one {@link AtomicLong}, so any number of threads take numbers without a lock and without
+ * two getting the same one. A bulk import reserves a block of consecutive numbers with a single update. Numbers
+ * are unique across instances as long as each has its own node id, and across restarts of one instance as long as
+ * it takes fewer than a million numbers a second on average.</p>
+ * <p>Numbers generated before, {@code ACC} with milliseconds and a random suffix, are two digits shorter, so never
+ * equal to these.</p>
+ */
 public class AccountNumberGenerator {
 
-    private static final SecureRandom random = new SecureRandom();
+    private static final String PREFIX = "ACC";
+    private static final int MAX_NODE_ID = 999;
+
+    private static final AtomicLong LAST = new AtomicLong();
+    private static volatile int nodeId;
 
     private AccountNumberGenerator() { }
 
+    /**
+     * Sets the node id of the numbers generated from now on.
+     */
+    public static void useNodeId(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id %d must be between 0 and %d".formatted(nodeId, MAX_NODE_ID));
+        }
+        AccountNumberGenerator.nodeId = nodeId;
+    }
+
     public static String generate() {
-        long timestamp = System.currentTimeMillis();
-        int randomPart = random.nextInt(999);
-        return "ACC%013d%04d".formatted(timestamp, randomPart);
+        return format(reserve(1));
+    }
+
+    /**
+     * Reserves {@code count} consecutive sequence values, each formatted with {@link #format(long)}.
+     *
+     * @return the first of them
+     */
+    public static long reserve(int count) {
+        var now = Instant.now();
+        var micros = now.getEpochSecond() * 1_000_000L + now.getNano() / 1_000;
+        return LAST.updateAndGet(last -> Math.max(micros, last + 1) + count - 1) - count + 1;
+    }
+
+    public static String format(long sequence) {
+        var number = new StringBuilder(PREFIX.length() + 19).append(PREFIX);
+        pad(number, nodeId, 3);
+        pad(number, sequence, 16);
+        return number.toString();
+    }
+
+    private static void pad(StringBuilder number, long value, int digits) {
+        var text = Long.toString(value);
+        number.append("0".repeat(digits - text.length())).append(text);
     }
 }
@@ -0,0 +1,26 @@
+CREATE TABLE ledger_replay_partition (
+  id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+  run_id VARCHAR(100) NOT NULL,
+  partition_index INT NOT NULL,
+  first_account_id UUID NOT NULL,
+  last_account_id UUID NOT NULL,
+  done_account_id UUID,
+  accounts BIGINT NOT NULL DEFAULT 0,
+  entries BIGINT NOT NULL DEFAULT 0,
+  differences BIGINT NOT NULL DEFAULT 0,
+  completed BOOLEAN NOT NULL DEFAULT FALSE,
+  created_at TIMESTAMP NOT NULL DEFAULT now(),
+  updated_at TIMESTAMP NOT NULL DEFAULT now(),
+  CONSTRAINT uq_ledger_replay_partition UNIQUE (run_id, partition_index)
+);
+
+CREATE TABLE ledger_replay_difference (
+  id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+  run_id VARCHAR(100) NOT NULL,
+  account_id UUID NOT NULL,
+  stored_balance BIGINT NOT NULL,
+  replayed_balance BIGINT,
+  created_at TIMESTAMP NOT NULL DEFAULT now(),
+  updated_at TIMESTAMP NOT NULL DEFAULT now(),
+  CONSTRAINT uq_ledger_replay_difference UNIQUE (run_id, account_id)
+);
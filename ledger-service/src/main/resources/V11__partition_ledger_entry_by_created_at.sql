@@ -0,0 +1,40 @@
+-- ledger-service applies the same on startup when ledger.partitions.enabled is set, see LedgerPartitionManager
+LOCK TABLE ledger_entry IN ACCESS EXCLUSIVE MODE;
+
+ALTER TABLE ledger_entry RENAME TO ledger_entry_legacy;
+ALTER INDEX IF EXISTS ledger_entry_pkey RENAME TO ledger_entry_legacy_pkey;
+ALTER INDEX IF EXISTS idx_ledger_entry_account_created_id RENAME TO idx_ledger_entry_legacy_account_created_id;
+ALTER INDEX IF EXISTS idx_ledger_entry_created_id RENAME TO idx_ledger_entry_legacy_created_id;
+
+CREATE TABLE ledger_entry (LIKE ledger_entry_legacy INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+  PARTITION BY RANGE (created_at);
+ALTER TABLE ledger_entry ADD CONSTRAINT ledger_entry_pkey PRIMARY KEY (id, created_at);
+CREATE INDEX idx_ledger_entry_account_created_id ON ledger_entry (account_id, created_at, id);
+CREATE INDEX idx_ledger_entry_created_id ON ledger_entry (created_at, id);
+CREATE INDEX idx_ledger_entry_transfer_id ON ledger_entry (transfer_id);
+
+-- a unique constraint of a partitioned table must include created_at, transfer ids stay unique through this table
+CREATE TABLE ledger_entry_key (
+  transfer_id UUID NOT NULL,
+  type VARCHAR(50) NOT NULL,
+  CONSTRAINT uq_ledger_entry_key PRIMARY KEY (transfer_id, type)
+);
+INSERT INTO ledger_entry_key SELECT transfer_id, type FROM ledger_entry_legacy ON CONFLICT DO NOTHING;
+
+CREATE OR REPLACE FUNCTION ledger_entry_claim_key() RETURNS trigger AS $$
+BEGIN
+  INSERT INTO ledger_entry_key (transfer_id, type) VALUES (NEW.transfer_id, NEW.type);
+  RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER ledger_entry_claim_key BEFORE INSERT ON ledger_entry
+  FOR EACH ROW EXECUTE FUNCTION ledger_entry_claim_key();
+
+-- existing rows stay where they are, up to the end of the current month
+DO $$
+BEGIN
+  EXECUTE format('ALTER TABLE ledger_entry ATTACH PARTITION ledger_entry_legacy FOR VALUES FROM (MINVALUE) TO (%L)',
+                 date_trunc('month', now() AT TIME ZONE 'UTC') + interval '1 month');
+END
+$$;
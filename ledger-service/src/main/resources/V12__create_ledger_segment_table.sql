@@ -0,0 +1,13 @@
+CREATE TABLE ledger_segment (
+  id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+  period_start TIMESTAMP NOT NULL,
+  period_end TIMESTAMP NOT NULL,
+  file_name VARCHAR(255) NOT NULL,
+  status VARCHAR(20) NOT NULL,
+  row_count BIGINT NOT NULL DEFAULT 0,
+  size_bytes BIGINT NOT NULL DEFAULT 0,
+  checksum VARCHAR(64),
+  created_at TIMESTAMP NOT NULL DEFAULT now(),
+  updated_at TIMESTAMP NOT NULL DEFAULT now(),
+  CONSTRAINT uq_ledger_segment_period_start UNIQUE (period_start)
+);
@@ -0,0 +1,12 @@
+CREATE TABLE ledger_ingest_run (
+  id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+  run_id VARCHAR(100) NOT NULL,
+  file_name VARCHAR(255) NOT NULL,
+  file_offset BIGINT NOT NULL DEFAULT 0,
+  line_number BIGINT NOT NULL DEFAULT 0,
+  transfers BIGINT NOT NULL DEFAULT 0,
+  completed BOOLEAN NOT NULL DEFAULT FALSE,
+  created_at TIMESTAMP NOT NULL DEFAULT now(),
+  updated_at TIMESTAMP NOT NULL DEFAULT now(),
+  CONSTRAINT uq_ledger_ingest_run UNIQUE (run_id)
+);
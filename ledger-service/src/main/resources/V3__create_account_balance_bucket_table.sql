@@ -0,0 +1,10 @@
+CREATE TABLE account_balance_bucket (
+  id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+  account_id UUID NOT NULL,
+  bucket_index INTEGER NOT NULL,
+  balance NUMERIC(18,2) NOT NULL DEFAULT 0,
+  created_at TIMESTAMP NOT NULL DEFAULT now(),
+  updated_at TIMESTAMP NOT NULL DEFAULT now(),
+  CONSTRAINT uq_account_bucket UNIQUE (account_id, bucket_index),
+  CONSTRAINT fk_bucket_account_id FOREIGN KEY (account_id) REFERENCES account(id)
+);
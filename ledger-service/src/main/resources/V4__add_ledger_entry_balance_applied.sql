@@ -0,0 +1,3 @@
+ALTER TABLE ledger_entry ADD COLUMN balance_applied BOOLEAN NOT NULL DEFAULT TRUE;
+
+CREATE INDEX idx_ledger_entry_unapplied_credit ON ledger_entry (account_id) WHERE balance_applied = FALSE;
@@ -0,0 +1,11 @@
+ALTER TABLE account ALTER COLUMN balance DROP DEFAULT;
+ALTER TABLE account ALTER COLUMN balance TYPE BIGINT USING (balance * 100)::BIGINT;
+ALTER TABLE account ALTER COLUMN balance SET DEFAULT 0;
+
+ALTER TABLE ledger_entry ALTER COLUMN amount DROP DEFAULT;
+ALTER TABLE ledger_entry ALTER COLUMN amount TYPE BIGINT USING (amount * 100)::BIGINT;
+ALTER TABLE ledger_entry ALTER COLUMN amount SET DEFAULT 0;
+
+ALTER TABLE account_balance_bucket ALTER COLUMN balance DROP DEFAULT;
+ALTER TABLE account_balance_bucket ALTER COLUMN balance TYPE BIGINT USING (balance * 100)::BIGINT;
+ALTER TABLE account_balance_bucket ALTER COLUMN balance SET DEFAULT 0;
@@ -0,0 +1 @@
+ALTER TABLE ledger_entry ADD COLUMN balance_after BIGINT;
@@ -0,0 +1,10 @@
+CREATE TABLE account_balance_checkpoint (
+  id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+  account_id UUID NOT NULL,
+  as_of TIMESTAMP NOT NULL,
+  balance BIGINT NOT NULL,
+  created_at TIMESTAMP NOT NULL DEFAULT now(),
+  updated_at TIMESTAMP NOT NULL DEFAULT now(),
+  CONSTRAINT uq_account_balance_checkpoint UNIQUE (account_id, as_of),
+  CONSTRAINT fk_checkpoint_account_id FOREIGN KEY (account_id) REFERENCES account(id)
+);
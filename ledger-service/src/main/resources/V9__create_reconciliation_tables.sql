@@ -0,0 +1,33 @@
+CREATE INDEX idx_ledger_entry_created_id ON ledger_entry (created_at, id);
+
+CREATE TABLE account_reconciliation (
+  id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+  account_id UUID NOT NULL,
+  balance BIGINT NOT NULL,
+  reconciled_to TIMESTAMP NOT NULL,
+  difference BIGINT NOT NULL DEFAULT 0,
+  created_at TIMESTAMP NOT NULL DEFAULT now(),
+  updated_at TIMESTAMP NOT NULL DEFAULT now(),
+  CONSTRAINT uq_account_reconciliation_account_id UNIQUE (account_id),
+  CONSTRAINT fk_reconciliation_account_id FOREIGN KEY (account_id) REFERENCES account(id)
+);
+
+CREATE INDEX idx_account_reconciliation_mismatch ON account_reconciliation (account_id) WHERE difference <> 0;
+
+CREATE TABLE transfer_mismatch (
+  id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+  transfer_id UUID NOT NULL,
+  debits BIGINT NOT NULL,
+  credits BIGINT NOT NULL,
+  created_at TIMESTAMP NOT NULL DEFAULT now(),
+  updated_at TIMESTAMP NOT NULL DEFAULT now(),
+  CONSTRAINT uq_transfer_mismatch_transfer_id UNIQUE (transfer_id)
+);
+
+CREATE TABLE reconciliation_mark (
+  id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+  entry_created_at TIMESTAMP NOT NULL,
+  entry_id UUID NOT NULL,
+  created_at TIMESTAMP NOT NULL DEFAULT now(),
+  updated_at TIMESTAMP NOT NULL DEFAULT now()
+);
@@ -1,22 +1,43 @@
 package co.za.payments.ledger.api.controller;
 
+import co.za.payments.ledger.config.LedgerAccountQueryProperties;
 import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.domain.LedgerEntry;
+import co.za.payments.ledger.dto.AccountEntriesResponse;
+import co.za.payments.ledger.dto.AccountEntryResponse;
+import co.za.payments.ledger.dto.AccountQueryRequest;
+import co.za.payments.ledger.dto.AccountResponse;
 import co.za.payments.ledger.dto.CreateAccountRequest;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.IntStream;
 
 import static co.za.payments.ledger.config.AppConstants.ACCOUNT_NOT_FOUND_CODE;
+import static co.za.payments.ledger.config.AppConstants.INVALID_BATCH_SIZE;
+import static co.za.payments.ledger.config.AppConstants.INVALID_REQUEST;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 class AccountControllerIT extends AbstractMvcIT {
 
+    @Autowired
+    private LedgerAccountQueryProperties queryProperties;
+
     @Test
     void shouldReturn201Response_whenValidAccountRequestIsPosted() throws Exception {
         var request = new CreateAccountRequest(BigDecimal.valueOf(541));
@@ -30,7 +51,7 @@ class AccountControllerIT extends AbstractMvcIT {
                 .andExpect(jsonPath("$.id").isNotEmpty())
                 .andExpect(jsonPath("$.created_at").isNotEmpty())
                 .andExpect(jsonPath("$.account_number", startsWith("ACC")))
-                .andExpect(jsonPath("$.balance", equalTo(541)));
+                .andExpect(jsonPath("$.balance", equalTo(541.00)));
     }
 
     @Test
@@ -48,9 +69,79 @@ class AccountControllerIT extends AbstractMvcIT {
                 .andExpect(jsonPath("$.errors", aMapWithSize(1)));
     }
 
+    @Test
+    void shouldReturn201Response_withAnAccountPerLine_whenACsvOfBalancesIsImported() throws Exception {
+        var result = mockMvc.perform(post("/accounts/bulk")
+                        .contentType("text/csv")
+                        .content("balance,reference\n100.00,first\n\n250.50,second\n7,third\n"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then
+        var body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        var accounts = body.lines().map(line -> read(line, AccountResponse.class)).toList();
+        assertThat(accounts).extracting(AccountResponse::balance)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("100.00"), new BigDecimal("250.50"), new BigDecimal("7.00"));
+        assertThat(accounts).extracting(AccountResponse::accountNumber).doesNotHaveDuplicates().allMatch(number -> number.startsWith("ACC"));
+        for (var account : accounts) {
+            assertThat(accountRepository.findById(account.id())).hasValueSatisfying(saved -> {
+                assertThat(saved.getAccountNumber()).isEqualTo(account.accountNumber());
+                assertThat(saved.getBalance()).isEqualTo(account.balance().movePointRight(2).longValueExact());
+            });
+        }
+    }
+
+    @Test
+    void shouldReturn201Response_withAnAccountPerLine_whenNdjsonIsImported() throws Exception {
+        var content = IntStream.rangeClosed(1, 5)
+                .mapToObj(i -> "{\"balance\": %d.25}".formatted(i))
+                .reduce("", (lines, line) -> lines + line + "\n");
+
+        var result = mockMvc.perform(post("/accounts/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(content))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then
+        var body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(body.lines()).hasSize(5);
+        assertThat(accountRepository.count()).isEqualTo(5);
+        mockMvc.perform(get("/accounts/{id}", read(body.lines().toList().getLast(), AccountResponse.class).id()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance", equalTo(5.25)));
+    }
+
+    @Test
+    void shouldReturn400Response_andCreateNothing_whenAnImportedLineIsInvalid() throws Exception {
+        mockMvc.perform(post("/accounts/bulk")
+                        .contentType("text/csv")
+                        .content("100.00\n0.50\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code", equalTo(INVALID_REQUEST)))
+                .andExpect(jsonPath("$.message", startsWith("Line 2: ")));
+
+        mockMvc.perform(post("/accounts/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"balance\": 10}\nnot json\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", startsWith("Line 2: ")));
+
+        // then
+        assertThat(accountRepository.count()).isZero();
+    }
+
     @Test
     void shouldReturn200Response_whenGivenAccountIdIsValid() throws Exception {
-        var account = accountRepository.save(Account.instanceOf(BigDecimal.valueOf(981)));
+        var account = accountRepository.save(Account.instanceOf(981_00));
 
         var resultActions = mockMvc.perform(get("/accounts/{id}", account.getId())
                 .contentType(MediaType.APPLICATION_JSON));
@@ -72,4 +163,140 @@ class AccountControllerIT extends AbstractMvcIT {
                 .andExpect(jsonPath("$.code", equalTo(ACCOUNT_NOT_FOUND_CODE)))
                 .andExpect(jsonPath("$.message", startsWith("Account with ID")));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldReturn200Response_withTheExistingAccounts_whenAccountsAreQueried() throws Exception {
+        var first = accountRepository.save(Account.instanceOf(100_00));
+        var second = accountRepository.save(Account.instanceOf(250_50));
+        var request = new AccountQueryRequest(List.of(first.getId(), second.getId(), UUID.randomUUID(), first.getId()));
+
+        var result = mockMvc.perform(post("/accounts/query")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[?(@.id == '%s')].balance".formatted(first.getId()), contains(100.00)))
+                .andExpect(jsonPath("$[?(@.id == '%s')].balance".formatted(second.getId()), contains(250.50)))
+                .andExpect(jsonPath("$[0].account_number", startsWith("ACC")));
+    }
+
+    @Test
+    void shouldReturn400Response_whenMoreAccountsAreQueriedThanAllowed() throws Exception {
+        var ids = IntStream.range(0, queryProperties.getMaxIds() + 1).mapToObj(i -> UUID.randomUUID()).toList();
+
+        var resultActions = mockMvc.perform(post("/accounts/query")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(new AccountQueryRequest(ids))));
+
+        // then
+        resultActions.andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code", equalTo(INVALID_BATCH_SIZE)));
+    }
+
+    @Test
+    void shouldReturn400Response_whenNoAccountIdsAreQueried() throws Exception {
+        var resultActions = mockMvc.perform(post("/accounts/query")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(new AccountQueryRequest(List.of()))));
+
+        // then
+        resultActions.andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors", aMapWithSize(1)));
+    }
+
+    @Test
+    void shouldReturnEveryEntryOnce_whenTheStatementIsPagedByCursor() throws Exception {
+        var account = accountRepository.save(Account.instanceOf(0));
+        var other = accountRepository.save(Account.instanceOf(0));
+        var entries = saveEntries(account, 7);
+        ledgerRepository.save(LedgerEntry.credit(UUID.randomUUID(), other.getId(), 1_00));
+
+        var read = new ArrayList<AccountEntryResponse>();
+        String cursor = null;
+        var pages = 0;
+        do {
+            var request = get("/accounts/{id}/entries", account.getId()).param("size", "3").accept(MediaType.APPLICATION_JSON);
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            var body = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            var page = mapper.readValue(body, AccountEntriesResponse.class);
+            read.addAll(page.entries());
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        // then
+        assertThat(pages).isEqualTo(3);
+        assertThat(read).extracting(AccountEntryResponse::transferId)
+                .containsExactlyInAnyOrderElementsOf(entries.stream().map(LedgerEntry::getTransferId).toList());
+        assertThat(read).extracting(AccountEntryResponse::createdAt).isSorted();
+    }
+
+    @Test
+    void shouldStreamEveryEntryAsOneJsonLine_whenNdjsonIsAccepted() throws Exception {
+        var account = accountRepository.save(Account.instanceOf(0));
+        var entries = saveEntries(account, 5);
+
+        var result = mockMvc.perform(get("/accounts/{id}/entries", account.getId())
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then
+        var body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        var lines = body.lines().toList();
+        assertThat(lines).hasSize(entries.size());
+        assertThat(lines).extracting(line -> mapper.readValue(line, AccountEntryResponse.class).transferId())
+                .containsExactlyInAnyOrderElementsOf(entries.stream().map(LedgerEntry::getTransferId).toList());
+    }
+
+    @Test
+    void shouldReturn404Response_whenTheEntriesOfAnUnknownAccountAreRequested() throws Exception {
+        mockMvc.perform(get("/accounts/{id}/entries", UUID.randomUUID()).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.code", equalTo(ACCOUNT_NOT_FOUND_CODE)));
+
+        mockMvc.perform(get("/accounts/{id}/entries", UUID.randomUUID()).accept(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldReturn400Response_whenTheCursorIsInvalid() throws Exception {
+        var account = accountRepository.save(Account.instanceOf(0));
+
+        mockMvc.perform(get("/accounts/{id}/entries", account.getId())
+                        .param("cursor", "not-a-cursor")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code", equalTo(INVALID_REQUEST)));
+    }
+
+    private <T> T read(String line, Class<T> type) {
+        try {
+            return mapper.readValue(line, type);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private List<LedgerEntry> saveEntries(Account account, int count) {
+        var entries = IntStream.range(0, count)
+                .mapToObj(i -> i % 2 == 0
+                        ? LedgerEntry.credit(UUID.randomUUID(), account.getId(), 10_00)
+                        : LedgerEntry.debit(UUID.randomUUID(), account.getId(), 5_00))
+                .toList();
+        return ledgerRepository.saveAll(entries);
+    }
+}
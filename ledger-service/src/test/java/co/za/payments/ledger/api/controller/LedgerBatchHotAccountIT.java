@@ -0,0 +1,112 @@
+package co.za.payments.ledger.api.controller;
+
+import co.za.payments.ledger.config.LedgerHotAccountProperties;
+import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.dto.BatchTransferRequest;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.service.LedgerService;
+import co.za.payments.ledger.service.hot.HotAccountEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static co.za.payments.ledger.config.AppConstants.INSUFFICIENT_BAL;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Batches that mix hot and cold accounts. The hot account engine only writes its balances back on flush, so the
+ * row of a hot account is stale while the engine runs and a batch chunk must never decide a debit from it.
+ */
+@TestPropertySource(properties = {
+        "ledger.hot-accounts.enabled=true",
+        "ledger.hot-accounts.journal-dir=${java.io.tmpdir}/ledger-batch-hot-accounts-it",
+        "ledger.hot-accounts.flush-interval=1h",
+        "logging.level.org.hibernate.SQL=off"
+})
+class LedgerBatchHotAccountIT extends AbstractMvcIT {
+
+    @TempDir
+    private Path journalDir;
+
+    @Autowired
+    private HotAccountEngine engine;
+
+    @Autowired
+    private LedgerHotAccountProperties properties;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    private Path defaultJournalDir;
+
+    @AfterEach
+    void restartWithoutHotAccounts() throws Exception {
+        if (null != defaultJournalDir) {
+            restartEngine(Set.of(), defaultJournalDir);
+        }
+    }
+
+    @Test
+    void shouldCheckHotAccountDebitsAgainstTheEngine_whenBatchMixesHotAndColdAccounts() throws Exception {
+        // given
+        var hotAccountId = accountRepository.save(Account.instanceOf(100_00)).getId();
+        var coldAccountId = accountRepository.save(Account.instanceOf(0)).getId();
+        var otherAccountId = accountRepository.save(Account.instanceOf(100_00)).getId();
+        restartEngine(Set.of(hotAccountId), journalDir);
+
+        // and the hot account spent half its balance, which its row does not show until the engine flushes
+        ledgerService.createEntry(new TransferRequest(UUID.randomUUID(), hotAccountId, coldAccountId, BigDecimal.valueOf(50)));
+        assertThat(accountRepository.findById(hotAccountId).orElseThrow().getBalance()).isEqualTo(100_00);
+
+        var request = new BatchTransferRequest(List.of(
+                new TransferRequest(UUID.randomUUID(), hotAccountId, coldAccountId, BigDecimal.valueOf(60)),
+                new TransferRequest(UUID.randomUUID(), otherAccountId, hotAccountId, BigDecimal.valueOf(30)),
+                new TransferRequest(UUID.randomUUID(), hotAccountId, coldAccountId, BigDecimal.valueOf(70)),
+                new TransferRequest(UUID.randomUUID(), otherAccountId, coldAccountId, BigDecimal.valueOf(10))));
+
+        // when
+        var resultActions = mockMvc.perform(post("/ledger/transfers/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(request)));
+
+        // then
+        resultActions.andExpect(status().isOk())
+                .andExpect(jsonPath("$.results", hasSize(4)))
+                .andExpect(jsonPath("$.results[0].status", equalTo("INSUFFICIENT_FUNDS")))
+                .andExpect(jsonPath("$.results[0].code", equalTo(INSUFFICIENT_BAL)))
+                .andExpect(jsonPath("$.results[1].status", equalTo("CREATED")))
+                .andExpect(jsonPath("$.results[2].status", equalTo("CREATED")))
+                .andExpect(jsonPath("$.results[3].status", equalTo("CREATED")));
+        assertThat(engine.balanceOf(hotAccountId)).isEqualTo(10_00L);
+
+        // and the balances agree once the engine has flushed
+        engine.stop();
+        assertThat(accountRepository.findById(hotAccountId).orElseThrow().getBalance()).isEqualTo(10_00);
+        assertThat(accountRepository.findById(coldAccountId).orElseThrow().getBalance()).isEqualTo(130_00);
+        assertThat(accountRepository.findById(otherAccountId).orElseThrow().getBalance()).isEqualTo(60_00);
+    }
+
+    private void restartEngine(Set<UUID> hotAccountIds, Path journal) throws Exception {
+        if (null == defaultJournalDir) {
+            defaultJournalDir = properties.getJournalDir();
+        }
+        engine.stop();
+        properties.setAccountIds(hotAccountIds);
+        properties.setJournalDir(journal);
+        engine.start();
+    }
+}
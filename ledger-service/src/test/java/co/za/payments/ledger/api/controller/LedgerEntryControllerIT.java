@@ -2,6 +2,7 @@ package co.za.payments.ledger.api.controller;
 
 import co.za.payments.ledger.domain.Account;
 import co.za.payments.ledger.domain.LedgerEntry;
+import co.za.payments.ledger.dto.BatchTransferRequest;
 import co.za.payments.ledger.dto.TransferRequest;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.MediaType;
@@ -23,8 +24,8 @@ class LedgerEntryControllerIT extends AbstractMvcIT {
     void shouldReturnHttp201Response_whenLedgerEntriesCreated() throws Exception {
         var transferId = UUID.randomUUID();
         var amount = BigDecimal.valueOf(300);
-        var fromAccountId = accountRepository.save(Account.instanceOf(BigDecimal.valueOf(5_000))).getId();
-        var toAccountId = accountRepository.save(Account.instanceOf(BigDecimal.valueOf(250))).getId();
+        var fromAccountId = accountRepository.save(Account.instanceOf(5_000_00)).getId();
+        var toAccountId = accountRepository.save(Account.instanceOf(250_00)).getId();
 
         var request = new TransferRequest(transferId, fromAccountId, toAccountId, amount);
 
@@ -37,18 +38,18 @@ class LedgerEntryControllerIT extends AbstractMvcIT {
                 .andExpect(jsonPath("$.transfer_id", equalTo(String.valueOf(transferId))))
                 .andExpect(jsonPath("$.created_at").isNotEmpty())
                 .andExpect(jsonPath("$.debit_entry.account_id", equalTo(String.valueOf(fromAccountId))))
-                .andExpect(jsonPath("$.debit_entry.amount", equalTo(300)))
+                .andExpect(jsonPath("$.debit_entry.amount", equalTo(300.00)))
                 .andExpect(jsonPath("$.debit_entry.type", equalTo("DEBIT")))
                 .andExpect(jsonPath("$.credit_entry.account_id", equalTo(String.valueOf(toAccountId))))
-                .andExpect(jsonPath("$.credit_entry.amount", equalTo(300)))
+                .andExpect(jsonPath("$.credit_entry.amount", equalTo(300.00)))
                 .andExpect(jsonPath("$.credit_entry.type", equalTo("CREDIT")));
 
     }
 
     @Test
     void shouldReturnHttp422Response_whenAccountHasInsufficientFunds() throws Exception {
-        var fromAccountId = accountRepository.save(Account.instanceOf(BigDecimal.valueOf(20))).getId();
-        var toAccountId = accountRepository.save(Account.instanceOf(BigDecimal.valueOf(30))).getId();
+        var fromAccountId = accountRepository.save(Account.instanceOf(20_00)).getId();
+        var toAccountId = accountRepository.save(Account.instanceOf(30_00)).getId();
 
         var transferId = UUID.randomUUID();
         var transferAmount = BigDecimal.valueOf(300);
@@ -67,8 +68,8 @@ class LedgerEntryControllerIT extends AbstractMvcIT {
 
     @Test
     void shouldReturnHttp400Response_whenTransferAmountIsLessThanMinimum() throws Exception {
-        var fromAccountId = accountRepository.save(Account.instanceOf(BigDecimal.valueOf(20))).getId();
-        var toAccountId = accountRepository.save(Account.instanceOf(BigDecimal.valueOf(30))).getId();
+        var fromAccountId = accountRepository.save(Account.instanceOf(20_00)).getId();
+        var toAccountId = accountRepository.save(Account.instanceOf(30_00)).getId();
 
         var transferId = UUID.randomUUID();
         var transferAmount = BigDecimal.valueOf(0);
@@ -89,7 +90,7 @@ class LedgerEntryControllerIT extends AbstractMvcIT {
 
     @Test
     void shouldReturnHttp404Response_whenDebitAccountDoesNotExist() throws Exception {
-        var toAccountId = accountRepository.save(Account.instanceOf(BigDecimal.valueOf(30))).getId();
+        var toAccountId = accountRepository.save(Account.instanceOf(30_00)).getId();
 
         var transferId = UUID.randomUUID();
         var transferAmount = BigDecimal.valueOf(50);
@@ -108,7 +109,7 @@ class LedgerEntryControllerIT extends AbstractMvcIT {
 
     @Test
     void shouldReturnHttp404Response_whenCreditAccountDoesNotExist() throws Exception {
-        var fromAccount = accountRepository.save(Account.instanceOf(BigDecimal.valueOf(30))).getId();
+        var fromAccount = accountRepository.save(Account.instanceOf(30_00)).getId();
 
         var transferId = UUID.randomUUID();
         var transferAmount = BigDecimal.valueOf(50);
@@ -132,16 +133,16 @@ class LedgerEntryControllerIT extends AbstractMvcIT {
     @Test
     void shouldReturnHttp201_withExistingTransferResponse_whenExistingTransferIdIsUsed() throws Exception {
         // given existing from and to accounts
-        var fromAccount = accountRepository.save(Account.instanceOf(BigDecimal.valueOf(100)));
-        var toAccount = accountRepository.save(Account.instanceOf(BigDecimal.valueOf(20)));
+        var fromAccount = accountRepository.save(Account.instanceOf(100_00));
+        var toAccount = accountRepository.save(Account.instanceOf(20_00));
 
         // and
         var transferId = UUID.randomUUID();
 
         // and existing ledger entries for same transferId with amount 20_000
         ledgerRepository.saveAll(List.of(
-                LedgerEntry.debit(transferId, fromAccount.getId(), BigDecimal.valueOf(20_000)),
-                LedgerEntry.credit(transferId, toAccount.getId(), BigDecimal.valueOf(20_000)))
+                LedgerEntry.debit(transferId, fromAccount.getId(), 20_000_00),
+                LedgerEntry.credit(transferId, toAccount.getId(), 20_000_00))
         );
 
         // when initiating transfer using same transferId with amount 88
@@ -167,15 +168,65 @@ class LedgerEntryControllerIT extends AbstractMvcIT {
         assertThat(ledgerRepository
                 .findAll()
                 .stream()
-                .filter(entry -> entry.getAmount().compareTo(BigDecimal.valueOf(88)) == 0)
+                .filter(entry -> entry.getAmount() == 88_00)
         ).isEmpty();
 
         // and for verification - the 20_000 entry exists
         assertThat(ledgerRepository
                 .findAll()
                 .stream()
-                .filter(entry -> entry.getAmount().compareTo(BigDecimal.valueOf(20_000)) == 0)
+                .filter(entry -> entry.getAmount() == 20_000_00)
         ).isNotEmpty();
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldReturnHttp200_withPerItemResults_whenBatchOfTransfersIsPosted() throws Exception {
+        var fromAccountId = accountRepository.save(Account.instanceOf(500_00)).getId();
+        var toAccountId = accountRepository.save(Account.instanceOf(100_00)).getId();
+        var existingTransferId = UUID.randomUUID();
+
+        ledgerRepository.saveAll(List.of(
+                LedgerEntry.debit(existingTransferId, fromAccountId, 40_00),
+                LedgerEntry.credit(existingTransferId, toAccountId, 40_00))
+        );
+
+        var request = new BatchTransferRequest(List.of(
+                new TransferRequest(UUID.randomUUID(), fromAccountId, toAccountId, BigDecimal.valueOf(300)),
+                new TransferRequest(UUID.randomUUID(), fromAccountId, toAccountId, BigDecimal.valueOf(300)),
+                new TransferRequest(UUID.randomUUID(), fromAccountId, UUID.randomUUID(), BigDecimal.valueOf(10)),
+                new TransferRequest(existingTransferId, fromAccountId, toAccountId, BigDecimal.valueOf(40))));
+
+        var resultActions = mockMvc.perform(post("/ledger/transfers/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(request)));
+
+        // then
+        resultActions.andExpect(status().isOk())
+                .andExpect(jsonPath("$.results", hasSize(4)))
+                .andExpect(jsonPath("$.results[0].status", equalTo("CREATED")))
+                .andExpect(jsonPath("$.results[0].transfer.debit_entry.amount", equalTo(300.00)))
+                .andExpect(jsonPath("$.results[1].status", equalTo("INSUFFICIENT_FUNDS")))
+                .andExpect(jsonPath("$.results[1].code", equalTo(INSUFFICIENT_BAL)))
+                .andExpect(jsonPath("$.results[2].status", equalTo("ACCOUNT_NOT_FOUND")))
+                .andExpect(jsonPath("$.results[2].code", equalTo(ACCOUNT_NOT_FOUND_CODE)))
+                .andExpect(jsonPath("$.results[3].status", equalTo("DUPLICATE")))
+                .andExpect(jsonPath("$.results[3].transfer.debit_entry.amount", equalTo(40.00)));
+
+        // and only the accepted transfer moved money
+        assertThat(accountRepository.findById(fromAccountId).orElseThrow().getBalance()).isEqualTo(200_00);
+        assertThat(accountRepository.findById(toAccountId).orElseThrow().getBalance()).isEqualTo(400_00);
+    }
+
+    @Test
+    void shouldReturnHttp400Response_whenBatchIsEmpty() throws Exception {
+        var resultActions = mockMvc.perform(post("/ledger/transfers/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(new BatchTransferRequest(List.of()))));
+
+        // then
+        resultActions.andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code", equalTo(INVALID_REQUEST)))
+                .andExpect(jsonPath("$.errors.transfers", equalTo("At-least one transfer is required")));
+    }
+
+}
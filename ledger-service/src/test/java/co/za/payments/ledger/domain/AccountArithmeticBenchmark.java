@@ -0,0 +1,68 @@
+package co.za.payments.ledger.domain;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Compares {@link Account#debit(long)} / {@link Account#credit(long)} on minor units with the same checks
+ * and arithmetic on {@link BigDecimal}, as the account did before balances were stored as minor units.</p>
+ * <p>Run {@link #main(String[])} from the test classpath after {@code mvn test-compile}. End to end write
+ * throughput is logged by {@code LedgerContentionIT}.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountArithmeticBenchmark {
+
+    private static final long AMOUNT = 12_34;
+    private static final BigDecimal DECIMAL_AMOUNT = Money.fromMinorUnits(AMOUNT);
+
+    private Account fromAccount;
+    private Account toAccount;
+    private BigDecimal fromBalance;
+    private BigDecimal toBalance;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        fromAccount = Account.instanceOf(Long.MAX_VALUE / 2);
+        toAccount = Account.instanceOf(0);
+        fromBalance = Money.fromMinorUnits(Long.MAX_VALUE / 2);
+        toBalance = BigDecimal.ZERO.setScale(Money.SCALE);
+    }
+
+    @Benchmark
+    public long minorUnits() {
+        fromAccount.debit(AMOUNT);
+        toAccount.credit(AMOUNT);
+        return toAccount.getBalance();
+    }
+
+    @Benchmark
+    public BigDecimal decimal() {
+        if (DECIMAL_AMOUNT.compareTo(BigDecimal.ZERO) <= 0 || fromBalance.compareTo(DECIMAL_AMOUNT) < 0) {
+            throw new IllegalStateException();
+        }
+        fromBalance = fromBalance.subtract(DECIMAL_AMOUNT);
+
+        if (DECIMAL_AMOUNT.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalStateException();
+        }
+        toBalance = toBalance.add(DECIMAL_AMOUNT);
+        return toBalance;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AccountArithmeticBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
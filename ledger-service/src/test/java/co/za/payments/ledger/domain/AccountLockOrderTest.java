@@ -0,0 +1,31 @@
+package co.za.payments.ledger.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccountLockOrderTest {
+
+    @Test
+    void comparator_sortsUuidsAsUnsignedBytes_likeTheDatabase() {
+        // given
+        var low = UUID.fromString("00000000-0000-4000-8000-000000000001");
+        var nextToLow = UUID.fromString("00000000-0000-4000-8000-000000000002");
+        var high = UUID.fromString("80000000-0000-4000-8000-000000000000");
+        var highest = UUID.fromString("ffffffff-ffff-4fff-bfff-ffffffffffff");
+        var ids = new ArrayList<>(List.of(highest, high, nextToLow, low));
+
+        // when
+        ids.sort(AccountLockOrder.COMPARATOR);
+
+        // then
+        assertThat(ids).containsExactly(low, nextToLow, high, highest);
+        assertThat(high.compareTo(low)).isNegative();
+        assertThat(AccountLockOrder.lockedFirst(low, high)).isTrue();
+        assertThat(AccountLockOrder.lockedFirst(high, low)).isFalse();
+    }
+}
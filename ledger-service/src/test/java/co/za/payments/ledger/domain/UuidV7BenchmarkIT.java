@@ -0,0 +1,92 @@
+package co.za.payments.ledger.domain;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * <p>Benchmark of inserts into a table shaped like {@code ledger_entry} keyed by random version 4 uuids against
+ * {@link UuidV7} ids on PostgreSQL, logging the insert rate and the size of each primary key index.</p>
+ * <p>Inserts {@code uuid.benchmark.rows} rows per table, 2,000,000 by default, run with
+ * {@code -Duuid.benchmark.rows=50000000} for the figures at scale. The assertion is on what makes v7 faster, a
+ * smaller index of densely packed pages, rather than timings that depend on the machine.</p>
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@Slf4j
+class UuidV7BenchmarkIT {
+
+    private static final int ROWS = Integer.getInteger("uuid.benchmark.rows", 2_000_000);
+    private static final int BATCH_SIZE = 1_000;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15")
+            .withUrlParam("reWriteBatchedInserts", "true");
+
+    @Test
+    void v7_keepsThePrimaryKeyIndexSmaller_thanV4() throws SQLException {
+        // when
+        var v4 = insert("uuid_v4_entry", UUID::randomUUID);
+        var v7 = insert("uuid_v7_entry", UuidV7::next);
+
+        // then
+        log.info("[{}] rows with v4 ids: [{}] rows/s, index [{}] MB", ROWS, v4.rowsPerSecond(), v4.indexBytes() >> 20);
+        log.info("[{}] rows with v7 ids: [{}] rows/s, index [{}] MB", ROWS, v7.rowsPerSecond(), v7.indexBytes() >> 20);
+        assertThat(v7.indexBytes()).isLessThan(v4.indexBytes());
+    }
+
+    private Result insert(String table, Supplier<UUID> ids) throws SQLException {
+        try (var connection = DriverManager.getConnection(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())) {
+            try (var statement = connection.createStatement()) {
+                statement.execute("""
+                        create table %s (
+                          id uuid primary key,
+                          account_id uuid not null,
+                          amount bigint not null,
+                          created_at timestamp not null
+                        )
+                        """.formatted(table));
+            }
+
+            connection.setAutoCommit(false);
+            var random = ThreadLocalRandom.current();
+            var started = System.nanoTime();
+            try (var insert = connection.prepareStatement("insert into %s (id, account_id, amount, created_at) values (?, ?, ?, ?)".formatted(table))) {
+                for (int i = 1; i <= ROWS; i++) {
+                    insert.setObject(1, ids.get());
+                    insert.setObject(2, new UUID(0, random.nextInt(10_000)));
+                    insert.setLong(3, random.nextLong(1, 1_000_000));
+                    insert.setTimestamp(4, Timestamp.from(Instant.now()));
+                    insert.addBatch();
+                    if (i % BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                        connection.commit();
+                    }
+                }
+                insert.executeBatch();
+                connection.commit();
+            }
+            var seconds = (System.nanoTime() - started) / 1_000_000_000d;
+
+            try (var statement = connection.createStatement();
+                 var size = statement.executeQuery("select pg_relation_size('%s_pkey')".formatted(table))) {
+                size.next();
+                return new Result((long) (ROWS / seconds), size.getLong(1));
+            }
+        }
+    }
+
+    private record Result(long rowsPerSecond, long indexBytes) {
+    }
+}
@@ -0,0 +1,89 @@
+package co.za.payments.ledger.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class UuidV7Test {
+
+    @Test
+    void next_isAVersion7Uuid_ofTheCurrentMillisecond() {
+        // given
+        var before = Instant.now().toEpochMilli();
+
+        // when
+        var uuid = UuidV7.next();
+
+        // then
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+        assertThat(UuidV7.timestampOf(uuid).toEpochMilli()).isBetween(before, Instant.now().toEpochMilli());
+    }
+
+    @Test
+    void next_isStrictlyIncreasing_fromManyThreads() throws InterruptedException, ExecutionException {
+        // given
+        var threads = 8;
+        var perThread = 50_000;
+        var executor = Executors.newFixedThreadPool(threads);
+        var tasks = new ArrayList<Callable<List<UUID>>>();
+        for (int i = 0; i < threads; i++) {
+            tasks.add(() -> {
+                var ids = new ArrayList<UUID>(perThread);
+                for (int j = 0; j < perThread; j++) {
+                    ids.add(UuidV7.next());
+                }
+                return ids;
+            });
+        }
+
+        // when
+        var results = executor.invokeAll(tasks);
+        executor.shutdown();
+
+        // then
+        var prefixes = new HashSet<Long>();
+        for (var result : results) {
+            var ids = result.get();
+            for (int i = 1; i < ids.size(); i++) {
+                assertThat(Long.compareUnsigned(ids.get(i - 1).getMostSignificantBits(), ids.get(i).getMostSignificantBits()))
+                        .isNegative();
+            }
+            ids.forEach(id -> prefixes.add(id.getMostSignificantBits()));
+        }
+        assertThat(prefixes).hasSize(threads * perThread);
+    }
+
+    @Test
+    void next_keepsIncreasing_whenTheCounterRunsOutOrTheClockGoesBack() {
+        // given
+        var millis = System.currentTimeMillis();
+        var previous = UuidV7.next(millis);
+
+        for (int i = 0; i < 10_000; i++) {
+            // when
+            var next = UuidV7.next(i % 2 == 0 ? millis : millis - 60_000);
+
+            // then
+            assertThat(Long.compareUnsigned(previous.getMostSignificantBits(), next.getMostSignificantBits())).isNegative();
+            previous = next;
+        }
+        assertThat(UuidV7.timestampOf(previous).toEpochMilli()).isGreaterThan(millis);
+    }
+
+    @Test
+    void timestampOf_rejectsOtherVersions() {
+        assertThatExceptionOfType(IllegalArgumentException.class)
+                .isThrownBy(() -> UuidV7.timestampOf(UUID.randomUUID()));
+    }
+}
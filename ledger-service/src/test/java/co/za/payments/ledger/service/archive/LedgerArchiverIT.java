@@ -0,0 +1,294 @@
+package co.za.payments.ledger.service.archive;
+
+import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.domain.EntryType;
+import co.za.payments.ledger.domain.LedgerSegment;
+import co.za.payments.ledger.dto.BatchTransferStatus;
+import co.za.payments.ledger.dto.AccountEntryResponse;
+import co.za.payments.ledger.dto.EntryCursor;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.exception.TransferArchivedException;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.ArchiveEntryView;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import co.za.payments.ledger.repository.LedgerSegmentRepository;
+import co.za.payments.ledger.service.AccountStatementService;
+import co.za.payments.ledger.service.LedgerService;
+import co.za.payments.ledger.service.deferred.DeferredCreditWriter;
+import co.za.payments.ledger.service.impl.LedgerBatchWriter;
+import co.za.payments.ledger.service.impl.TransferOutcome;
+import co.za.payments.ledger.service.shard.ShardedTransferWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "ledger.archive.enabled=true",
+        "ledger.archive.block-size=2",
+        "ledger.archive.delete-batch-size=3",
+        "ledger.sharding.enabled=true",
+        "ledger.deferred-credits.enabled=true",
+        "logging.level.org.hibernate.SQL=off"
+})
+class LedgerArchiverIT {
+
+    private static Path directory;
+
+    @Autowired
+    private LedgerArchiver archiver;
+
+    @Autowired
+    private AccountStatementService statementService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private LedgerBatchWriter batchWriter;
+
+    @Autowired
+    private ShardedTransferWriter shardedTransferWriter;
+
+    @Autowired
+    private DeferredCreditWriter deferredCreditWriter;
+
+    @Autowired
+    private LedgerSegmentRepository segmentRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void archiveDirectory(DynamicPropertyRegistry registry) throws IOException {
+        directory = Files.createTempDirectory("ledger-archive");
+        registry.add("ledger.archive.directory", directory::toString);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        segmentRepository.deleteAll();
+        ledgerRepository.deleteAll();
+        accountRepository.deleteAll();
+        jdbcTemplate.update("delete from ledger_entry_key");
+    }
+
+    @Test
+    void archive_movesOldMonthsToSegments_andStatementsReadThemAsBefore() {
+        // given
+        var first = account();
+        var second = account();
+        var january = Instant.parse("2024-01-10T10:00:00Z");
+        var february = Instant.parse("2024-02-20T08:30:00Z");
+
+        transfer(first, second, 100, january);
+        transfer(second, first, 40, january.plusSeconds(60));
+        transfer(first, second, 250, february);
+        transfer(first, second, 10, february);
+        transfer(second, first, 75, null);
+        transfer(first, second, 5, null);
+
+        var entries = statement(first);
+        var streamed = stream(first);
+        var endOfJanuary = balanceAt(second, Instant.parse("2024-01-31T23:59:59Z"));
+        var midFebruary = balanceAt(first, Instant.parse("2024-02-25T00:00:00Z"));
+        var current = balanceAt(first, Instant.now());
+
+        // when
+        var archived = archiver.archive(YearMonth.now(ZoneOffset.UTC));
+
+        // then
+        assertThat(archived).isEqualTo(2);
+        assertThat(ledgerRepository.count()).isEqualTo(4);
+        assertThat(segmentRepository.findAll())
+                .extracting(LedgerSegment::getStatus, LedgerSegment::getRowCount)
+                .containsOnly(tuple(LedgerSegment.Status.ARCHIVED, 4L));
+        assertThat(directory.resolve(LedgerArchiver.fileNameOf(YearMonth.of(2024, 1)))).exists();
+
+        // and statements read the archived entries
+        assertThat(statement(first)).isEqualTo(entries);
+        assertThat(stream(first)).isEqualTo(streamed);
+        assertThat(balanceAt(second, Instant.parse("2024-01-31T23:59:59Z"))).isEqualTo(endOfJanuary);
+        assertThat(balanceAt(first, Instant.parse("2024-02-25T00:00:00Z"))).isEqualTo(midFebruary);
+        assertThat(balanceAt(first, Instant.now())).isEqualTo(current);
+
+        // and there is nothing left to archive
+        assertThat(archiver.archive(YearMonth.now(ZoneOffset.UTC))).isZero();
+    }
+
+    @Test
+    void archive_rewritesASegmentThatDoesNotMatchTheTable() throws IOException {
+        // given
+        var first = account();
+        var second = account();
+        var june = Instant.parse("2023-06-15T12:00:00Z");
+        transfer(first, second, 100, june);
+        transfer(second, first, 30, june.plusSeconds(1));
+
+        var month = YearMonth.of(2023, 6);
+        var segment = LedgerSegment.of(Instant.parse("2023-06-01T00:00:00Z"), Instant.parse("2023-07-01T00:00:00Z"),
+                LedgerArchiver.fileNameOf(month));
+        var file = directory.resolve(segment.getFileName());
+        Files.deleteIfExists(file);
+        try (var writer = new SegmentWriter(file, 2, 6)) {
+            writer.append(new ArchiveEntryView(UUID.randomUUID(), UUID.randomUUID(), first.getId(), EntryType.CREDIT,
+                    999, null, true, june));
+            segment.written(writer.rows(), 0, writer.finish());
+        }
+        segmentRepository.save(segment);
+
+        // when
+        assertThatExceptionOfType(IllegalStateException.class)
+                .isThrownBy(() -> archiver.archive(month.plusMonths(1)))
+                .withMessageContaining("failed verification");
+
+        // then
+        assertThat(segmentRepository.findByPeriodStart(segment.getPeriodStart()))
+                .get()
+                .extracting(LedgerSegment::getStatus)
+                .isEqualTo(LedgerSegment.Status.WRITING);
+        assertThat(file).doesNotExist();
+
+        // and the next run writes it again
+        assertThat(archiver.archive(month.plusMonths(1))).isEqualTo(1);
+        assertThat(segmentRepository.findByPeriodStart(segment.getPeriodStart()))
+                .get()
+                .extracting(LedgerSegment::getStatus, LedgerSegment::getRowCount)
+                .containsExactly(LedgerSegment.Status.ARCHIVED, 4L);
+        assertThat(ledgerRepository.count()).isZero();
+        assertThat(statement(first)).extracting(AccountEntryResponse::amount)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("100"), new BigDecimal("30"));
+    }
+
+    @Test
+    void createEntry_rejectsTheReplayOfAnArchivedTransfer() {
+        // given
+        var first = account();
+        var second = account();
+        var transferId = transfer(first, second, 100, Instant.parse("2023-03-05T09:00:00Z"));
+        archiver.archive(YearMonth.now(ZoneOffset.UTC));
+        var replay = new TransferRequest(transferId, first.getId(), second.getId(), BigDecimal.valueOf(100));
+
+        // when
+        assertThatExceptionOfType(TransferArchivedException.class)
+                .isThrownBy(() -> ledgerService.createEntry(replay));
+
+        // then
+        assertThat(ledgerRepository.count()).isZero();
+        assertThat(accountRepository.findById(first.getId()).orElseThrow().getBalance()).isEqualTo(1_000_00 - 100_00);
+        assertThat(accountRepository.findById(second.getId()).orElseThrow().getBalance()).isEqualTo(1_000_00 + 100_00);
+    }
+
+    @Test
+    void batchWrite_rejectsTheReplayOfAnArchivedTransfer_andAppliesTheRest() {
+        // given
+        var first = account();
+        var second = account();
+        var transferId = transfer(first, second, 100, Instant.parse("2023-03-05T09:00:00Z"));
+        archiver.archive(YearMonth.now(ZoneOffset.UTC));
+        var replay = new TransferRequest(transferId, first.getId(), second.getId(), BigDecimal.valueOf(100));
+        var next = new TransferRequest(UUID.randomUUID(), first.getId(), second.getId(), BigDecimal.valueOf(50));
+
+        // when
+        var outcomes = batchWriter.write(List.of(replay, next));
+
+        // then
+        assertThat(outcomes).extracting(TransferOutcome::transferId, TransferOutcome::status)
+                .containsExactly(tuple(transferId, BatchTransferStatus.TRANSFER_ARCHIVED),
+                        tuple(next.transferId(), BatchTransferStatus.CREATED));
+        assertThat(accountRepository.findById(first.getId()).orElseThrow().getBalance()).isEqualTo(1_000_00 - 150_00);
+        assertThat(accountRepository.findById(second.getId()).orElseThrow().getBalance()).isEqualTo(1_000_00 + 150_00);
+    }
+
+    @Test
+    void shardedAndDeferredWrites_rejectTheReplayOfAnArchivedTransfer() {
+        // given
+        var first = account();
+        var second = account();
+        var transferId = transfer(first, second, 100, Instant.parse("2023-03-05T09:00:00Z"));
+        archiver.archive(YearMonth.now(ZoneOffset.UTC));
+        var replay = new TransferRequest(transferId, first.getId(), second.getId(), BigDecimal.valueOf(100));
+
+        // when
+        assertThatExceptionOfType(TransferArchivedException.class)
+                .isThrownBy(() -> shardedTransferWriter.write(replay));
+        assertThatExceptionOfType(TransferArchivedException.class)
+                .isThrownBy(() -> deferredCreditWriter.write(replay));
+
+        // then
+        assertThat(ledgerRepository.count()).isZero();
+        assertThat(accountRepository.findById(first.getId()).orElseThrow().getBalance()).isEqualTo(1_000_00 - 100_00);
+        assertThat(accountRepository.findById(second.getId()).orElseThrow().getBalance()).isEqualTo(1_000_00 + 100_00);
+    }
+
+    private Account account() {
+        var account = accountRepository.save(Account.instanceOf(1_000_00));
+        jdbcTemplate.update("update accounts set created_at = ? where id = ?",
+                Instant.parse("2023-01-01T00:00:00Z").atOffset(ZoneOffset.UTC), account.getId());
+        return account;
+    }
+
+    /**
+     * Transfers between the accounts, created at the given instant or now when it is {@code null}.
+     */
+    private UUID transfer(Account from, Account to, int amount, Instant createdAt) {
+        var transferId = UUID.randomUUID();
+        ledgerService.createEntry(new TransferRequest(transferId, from.getId(), to.getId(), BigDecimal.valueOf(amount)));
+        if (createdAt != null) {
+            jdbcTemplate.update("update ledger_entry set created_at = ? where transfer_id = ?",
+                    createdAt.atOffset(ZoneOffset.UTC), transferId);
+        }
+        return transferId;
+    }
+
+    /**
+     * @return the account's statement read a page of two entries at a time
+     */
+    private List<AccountEntryResponse> statement(Account account) {
+        var entries = new ArrayList<AccountEntryResponse>();
+        var cursor = EntryCursor.START;
+        while (true) {
+            var page = statementService.getEntries(account.getId(), cursor, 2);
+            entries.addAll(page.entries());
+            if (page.nextCursor() == null) {
+                return entries;
+            }
+            cursor = EntryCursor.decode(page.nextCursor());
+        }
+    }
+
+    private List<AccountEntryResponse> stream(Account account) {
+        var entries = new ArrayList<AccountEntryResponse>();
+        statementService.streamEntries(account.getId(), EntryCursor.START, entries::add);
+        return entries;
+    }
+
+    private long balanceAt(Account account, Instant asOf) {
+        return statementService.getBalance(account.getId(), asOf).balance().movePointRight(2).longValueExact();
+    }
+}
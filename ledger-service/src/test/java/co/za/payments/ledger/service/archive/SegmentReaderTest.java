@@ -0,0 +1,183 @@
+package co.za.payments.ledger.service.archive;
+
+import co.za.payments.ledger.domain.EntryType;
+import co.za.payments.ledger.repository.ArchiveEntryView;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class SegmentReaderTest {
+
+    private static final Instant START = Instant.parse("2024-03-01T00:00:00Z");
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void forEachAfter_returnsTheAccountsEntriesAfterThePosition_acrossBlocks() throws IOException {
+        // given
+        var first = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        var second = UUID.fromString("f0000000-0000-0000-0000-000000000002");
+        var entries = new ArrayList<ArchiveEntryView>();
+        entries.addAll(entries(first, 5));
+        entries.addAll(entries(second, 7));
+        var reader = write(entries, 3);
+
+        // when
+        var all = read(reader, second, START.minusSeconds(1), new UUID(0, 0), Integer.MAX_VALUE);
+        var afterFourth = read(reader, second, entries.get(8).createdAt(), entries.get(8).id(), Integer.MAX_VALUE);
+        var firstTwo = read(reader, second, START.minusSeconds(1), new UUID(0, 0), 2);
+
+        // then
+        assertThat(reader.rows()).isEqualTo(12);
+        assertThat(reader.blocks()).isEqualTo(5);
+        assertThat(all).containsExactlyElementsOf(entries.subList(5, 12));
+        assertThat(afterFourth).containsExactlyElementsOf(entries.subList(9, 12));
+        assertThat(firstTwo).containsExactlyElementsOf(entries.subList(5, 7));
+        assertThat(read(reader, UUID.randomUUID(), START, new UUID(0, 0), Integer.MAX_VALUE)).isEmpty();
+    }
+
+    @Test
+    void forEach_returnsEveryColumnAsWritten() throws IOException {
+        // given
+        var accountId = UUID.randomUUID();
+        var entries = List.of(
+                new ArchiveEntryView(UUID.randomUUID(), UUID.randomUUID(), accountId, EntryType.CREDIT, 500, null, false,
+                        START.plus(1, ChronoUnit.MICROS)),
+                new ArchiveEntryView(UUID.randomUUID(), UUID.randomUUID(), accountId, EntryType.DEBIT, 200, -200L, true,
+                        START.plusSeconds(3600)));
+        var reader = write(entries, 1024);
+
+        // when
+        var read = new ArrayList<ArchiveEntryView>();
+        reader.forEach(read::add);
+
+        // then
+        assertThat(read).containsExactlyElementsOf(entries);
+    }
+
+    @Test
+    void checksum_matchesTheChecksumOfTheWriter() throws IOException {
+        // given
+        var file = directory.resolve("segment.seg");
+        String written;
+        try (var writer = new SegmentWriter(file, 2, 6)) {
+            for (var entry : entries(UUID.randomUUID(), 5)) {
+                writer.append(entry);
+            }
+            written = writer.finish();
+        }
+
+        // when
+        var reader = SegmentReader.open(file);
+
+        // then
+        assertThat(reader.checksum()).isEqualTo(written);
+    }
+
+    @Test
+    void forEachAfter_failsOnACorruptBlock() throws IOException {
+        // given
+        var accountId = UUID.randomUUID();
+        var file = directory.resolve("segment.seg");
+        try (var writer = new SegmentWriter(file, 1024, 6)) {
+            for (var entry : entries(accountId, 10)) {
+                writer.append(entry);
+            }
+            writer.finish();
+        }
+        try (var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f, 0x7f}), SegmentFormat.HEADER_SIZE + 4);
+        }
+
+        // when
+        var reader = SegmentReader.open(file);
+
+        // then
+        assertThatExceptionOfType(IOException.class)
+                .isThrownBy(() -> reader.forEachAfter(accountId, START, new UUID(0, 0), entry -> true))
+                .withMessageContaining("fails its checksum");
+    }
+
+    @Test
+    void open_failsOnATruncatedFile() throws IOException {
+        // given
+        var file = directory.resolve("segment.seg");
+        try (var writer = new SegmentWriter(file, 1024, 6)) {
+            for (var entry : entries(UUID.randomUUID(), 10)) {
+                writer.append(entry);
+            }
+            writer.finish();
+        }
+        try (var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+
+        // then
+        assertThatExceptionOfType(IOException.class)
+                .isThrownBy(() -> SegmentReader.open(file))
+                .withMessageContaining("truncated");
+    }
+
+    @Test
+    void append_rejectsEntriesOutOfOrder() throws IOException {
+        // given
+        var entries = entries(UUID.randomUUID(), 2);
+
+        try (var writer = new SegmentWriter(directory.resolve("segment.seg"), 1024, 6)) {
+            writer.append(entries.get(1));
+
+            // then
+            assertThatExceptionOfType(IllegalArgumentException.class)
+                    .isThrownBy(() -> writer.append(entries.get(0)))
+                    .withMessageContaining("out of order");
+        }
+    }
+
+    private SegmentReader write(List<ArchiveEntryView> entries, int blockSize) throws IOException {
+        var file = directory.resolve("segment.seg");
+        try (var writer = new SegmentWriter(file, blockSize, 6)) {
+            for (var entry : entries) {
+                writer.append(entry);
+            }
+            writer.finish();
+        }
+        return SegmentReader.open(file);
+    }
+
+    private static List<ArchiveEntryView> read(SegmentReader reader, UUID accountId, Instant createdAt, UUID id, int limit)
+            throws IOException {
+        var entries = new ArrayList<ArchiveEntryView>();
+        reader.forEachAfter(accountId, createdAt, id, entry -> {
+            entries.add(entry);
+            return entries.size() < limit;
+        });
+        return entries;
+    }
+
+    /**
+     * Entries of the account a minute apart, oldest first.
+     */
+    private static List<ArchiveEntryView> entries(UUID accountId, int count) {
+        var entries = new ArrayList<ArchiveEntryView>();
+        for (int i = 0; i < count; i++) {
+            var type = i % 2 == 0 ? EntryType.CREDIT : EntryType.DEBIT;
+            entries.add(new ArchiveEntryView(UUID.randomUUID(), UUID.randomUUID(), accountId, type, 100L * (i + 1),
+                    (long) i * 100, true, START.plusSeconds(60L * i)));
+        }
+        return entries;
+    }
+}
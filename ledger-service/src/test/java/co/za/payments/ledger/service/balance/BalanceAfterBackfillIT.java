@@ -0,0 +1,135 @@
+package co.za.payments.ledger.service.balance;
+
+import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.domain.LedgerEntry;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import co.za.payments.ledger.service.LedgerService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "ledger.write.mode=conditional",
+        "ledger.balance-backfill.parallelism=3",
+        "ledger.balance-backfill.page-size=7",
+        "logging.level.org.hibernate.SQL=off"
+})
+class BalanceAfterBackfillIT {
+
+    private static final int ACCOUNTS = 6;
+    private static final int TRANSFERS = 120;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private BalanceAfterBackfill backfill;
+
+    @Autowired
+    private LedgerEntryRepository ledgerRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    private List<Account> accounts;
+
+    @BeforeEach
+    void setUp() {
+        accounts = IntStream.range(0, ACCOUNTS)
+                .mapToObj(i -> accountRepository.save(Account.instanceOf(1_000_00)))
+                .toList();
+
+        var random = new Random(7);
+        for (int i = 0; i < TRANSFERS; i++) {
+            var from = random.nextInt(ACCOUNTS);
+            var to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+            ledgerService.createEntry(new TransferRequest(UUID.randomUUID(), accounts.get(from).getId(),
+                    accounts.get(to).getId(), BigDecimal.valueOf(1 + random.nextInt(50))));
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        ledgerRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    void writes_recordTheRunningBalanceOfEveryAccount() {
+        for (var account : accounts) {
+            var balance = 1_000_00L;
+            for (var entry : history(account.getId())) {
+                balance += entry.signedAmount();
+                assertThat(entry.getBalanceAfter()).isEqualTo(balance);
+            }
+            assertThat(accountRepository.findBalance(account.getId())).isEqualTo(balance);
+        }
+    }
+
+    @Test
+    void backfill_restoresTheRecordedBalances_whenTheColumnIsEmpty() {
+        // given
+        var recorded = recordedBalances();
+        clearBalanceAfter(ledgerRepository.findAll());
+
+        // when
+        var result = backfill.backfill();
+
+        // then
+        assertThat(result.accounts()).isEqualTo(ACCOUNTS);
+        assertThat(result.entries()).isEqualTo(TRANSFERS * 2);
+        assertThat(result.failedAccounts()).isZero();
+        assertThat(recordedBalances()).isEqualTo(recorded);
+    }
+
+    @Test
+    void backfill_fillsOlderEntriesFromTheOldestRecordedBalance() {
+        // given
+        var recorded = recordedBalances();
+        var older = ledgerRepository.findAll().stream()
+                .sorted(Comparator.comparing(LedgerEntry::getCreatedAt))
+                .limit(TRANSFERS)
+                .toList();
+        clearBalanceAfter(older);
+
+        // when
+        var result = backfill.backfill();
+
+        // then
+        assertThat(result.entries()).isEqualTo(TRANSFERS);
+        assertThat(recordedBalances()).isEqualTo(recorded);
+        assertThat(backfill.backfill().entries()).isZero();
+    }
+
+    private List<LedgerEntry> history(UUID accountId) {
+        return ledgerRepository.findAll().stream()
+                .filter(entry -> entry.getAccountId().equals(accountId))
+                .sorted(Comparator.comparing(LedgerEntry::getCreatedAt))
+                .toList();
+    }
+
+    private Map<UUID, Long> recordedBalances() {
+        return ledgerRepository.findAll().stream()
+                .collect(Collectors.toMap(LedgerEntry::getId, LedgerEntry::getBalanceAfter));
+    }
+
+    private void clearBalanceAfter(List<LedgerEntry> entries) {
+        entries.forEach(entry -> entry.setBalanceAfter(null));
+        ledgerRepository.saveAll(entries);
+    }
+}
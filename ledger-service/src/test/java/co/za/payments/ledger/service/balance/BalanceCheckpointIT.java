@@ -0,0 +1,147 @@
+package co.za.payments.ledger.service.balance;
+
+import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.domain.AccountBalanceCheckpoint;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.repository.AccountBalanceCheckpointRepository;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import co.za.payments.ledger.service.AccountStatementService;
+import co.za.payments.ledger.service.LedgerService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "ledger.balance-checkpoints.enabled=true",
+        "ledger.balance-checkpoints.check-interval=1h",
+        "ledger.balance-checkpoints.chunk-size=2",
+        "ledger.balance-checkpoints.parallelism=2",
+        "logging.level.org.hibernate.SQL=off"
+})
+class BalanceCheckpointIT {
+
+    @Autowired
+    private BalanceCheckpointJob checkpointJob;
+
+    @Autowired
+    private AccountStatementService statementService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private AccountBalanceCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @AfterEach
+    void cleanUp() {
+        checkpointRepository.deleteAll();
+        ledgerRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    void getBalance_answersFromTheNearestCheckpoint_atAnyPointInTime() throws InterruptedException {
+        // given
+        var first = accountRepository.save(Account.instanceOf(1_000_00));
+        var second = accountRepository.save(Account.instanceOf(1_000_00));
+        var idle = accountRepository.save(Account.instanceOf(50_00));
+        var accounts = List.of(first, second, idle);
+        var opened = tick();
+
+        transfer(first, second, 100);
+        transfer(second, first, 30);
+        var firstCheckpoint = tick();
+        var atFirstCheckpoint = balances(accounts);
+
+        transfer(first, second, 200);
+        var betweenCheckpoints = tick();
+        var atBetweenCheckpoints = balances(accounts);
+
+        transfer(second, first, 50);
+        var secondCheckpoint = tick();
+        var atSecondCheckpoint = balances(accounts);
+
+        // when
+        var written = checkpointJob.checkpoint(firstCheckpoint);
+        var rewritten = checkpointJob.checkpoint(firstCheckpoint);
+        transfer(first, second, 75);
+
+        // then
+        assertThat(written).isEqualTo(3);
+        assertThat(rewritten).isZero();
+        for (var account : accounts) {
+            assertThat(balanceAt(account, firstCheckpoint)).isEqualTo(atFirstCheckpoint.get(account.getId()));
+            assertThat(balanceAt(account, betweenCheckpoints)).isEqualTo(atBetweenCheckpoints.get(account.getId()));
+            assertThat(balanceAt(account, opened)).isEqualTo(account.getBalance());
+            assertThat(balanceAt(account, Instant.now())).isEqualTo(accountRepository.findBalance(account.getId()));
+        }
+
+        // and the next checkpoint is taken from the first one
+        assertThat(checkpointJob.checkpoint(secondCheckpoint)).isEqualTo(3);
+        assertThat(checkpointsAt(secondCheckpoint)).isEqualTo(atSecondCheckpoint);
+    }
+
+    @Test
+    void getBalance_readsTheCurrentBalance_ofAnAccountWithoutCheckpoints() throws InterruptedException {
+        // given
+        var first = accountRepository.save(Account.instanceOf(1_000_00));
+        var second = accountRepository.save(Account.instanceOf(1_000_00));
+        var beforeCreation = first.getCreatedAt().minus(Duration.ofSeconds(1));
+
+        transfer(first, second, 100);
+        var asOf = tick();
+        transfer(first, second, 250);
+
+        // then
+        assertThat(balanceAt(first, asOf)).isEqualTo(900_00);
+        assertThat(balanceAt(second, asOf)).isEqualTo(1_100_00);
+        assertThat(balanceAt(first, beforeCreation)).isZero();
+    }
+
+    private void transfer(Account from, Account to, int amount) {
+        ledgerService.createEntry(new TransferRequest(UUID.randomUUID(), from.getId(), to.getId(), BigDecimal.valueOf(amount)));
+    }
+
+    private long balanceAt(Account account, Instant asOf) {
+        return statementService.getBalance(account.getId(), asOf).balance().movePointRight(2).longValueExact();
+    }
+
+    private Map<UUID, Long> balances(List<Account> accounts) {
+        return accounts.stream().collect(Collectors.toMap(Account::getId, account -> accountRepository.findBalance(account.getId())));
+    }
+
+    private Map<UUID, Long> checkpointsAt(Instant asOf) {
+        return checkpointRepository.findAll().stream()
+                .filter(checkpoint -> checkpoint.getAsOf().equals(asOf))
+                .collect(Collectors.toMap(AccountBalanceCheckpoint::getAccountId, AccountBalanceCheckpoint::getBalance));
+    }
+
+    /**
+     * @return an instant strictly between the entries written before and after it
+     */
+    private static Instant tick() throws InterruptedException {
+        Thread.sleep(5);
+        var now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        Thread.sleep(5);
+        return now;
+    }
+}
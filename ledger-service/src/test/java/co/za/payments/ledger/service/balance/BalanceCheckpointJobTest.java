@@ -0,0 +1,26 @@
+package co.za.payments.ledger.service.balance;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BalanceCheckpointJobTest {
+
+    @Test
+    void cutoff_isTheLatestBoundaryPastTheSettleDelay() {
+        // given
+        var interval = Duration.ofDays(1);
+        var settleDelay = Duration.ofMinutes(5);
+
+        // then
+        assertThat(BalanceCheckpointJob.cutoff(Instant.parse("2025-03-02T00:04:59Z"), interval, settleDelay))
+                .isEqualTo(Instant.parse("2025-03-01T00:00:00Z"));
+        assertThat(BalanceCheckpointJob.cutoff(Instant.parse("2025-03-02T00:05:00Z"), interval, settleDelay))
+                .isEqualTo(Instant.parse("2025-03-02T00:00:00Z"));
+        assertThat(BalanceCheckpointJob.cutoff(Instant.parse("2025-03-02T13:47:12Z"), Duration.ofHours(1), settleDelay))
+                .isEqualTo(Instant.parse("2025-03-02T13:00:00Z"));
+    }
+}
@@ -0,0 +1,110 @@
+package co.za.payments.ledger.service.balance;
+
+import co.za.payments.ledger.config.LedgerReplayProperties;
+import co.za.payments.ledger.config.LedgerReplayProperties.ReplayMode;
+import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.domain.LedgerReplayDifference;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import co.za.payments.ledger.repository.LedgerReplayDifferenceRepository;
+import co.za.payments.ledger.repository.LedgerReplayPartitionRepository;
+import co.za.payments.ledger.service.LedgerService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "ledger.replay.parallelism=2",
+        "ledger.replay.partitions=3",
+        "ledger.replay.batch-size=2",
+        "logging.level.org.hibernate.SQL=off"
+})
+class LedgerReplayIT {
+
+    @Autowired
+    private LedgerReplay ledgerReplay;
+
+    @Autowired
+    private LedgerReplayProperties properties;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private LedgerReplayPartitionRepository partitionRepository;
+
+    @Autowired
+    private LedgerReplayDifferenceRepository differenceRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @AfterEach
+    void cleanUp() {
+        properties.setRunId("default");
+        differenceRepository.deleteAll();
+        partitionRepository.deleteAll();
+        ledgerRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    void replay_reportsAndThenRepairsBalancesThatDifferFromTheLedger() {
+        // given
+        var first = accountRepository.save(Account.instanceOf(1_000_00));
+        var second = accountRepository.save(Account.instanceOf(500_00));
+        var third = accountRepository.save(Account.instanceOf(250_00));
+        var idle = accountRepository.save(Account.instanceOf(75_00));
+        transfer(first, second, 100);
+        transfer(second, third, 40);
+        transfer(third, first, 15);
+        transfer(first, third, 5);
+
+        var expected = accountRepository.findBalance(second.getId());
+        var tampered = accountRepository.findById(second.getId()).orElseThrow();
+        tampered.setBalance(expected + 12_34);
+        accountRepository.save(tampered);
+
+        // when
+        properties.setRunId("report");
+        var report = ledgerReplay.replay(ReplayMode.REPORT);
+        var resumed = ledgerReplay.replay(ReplayMode.REPORT);
+
+        // then
+        assertThat(report.accounts()).isEqualTo(3);
+        assertThat(report.entries()).isEqualTo(8);
+        assertThat(report.differences()).isEqualTo(1);
+        assertThat(resumed).isEqualTo(report);
+        assertThat(differenceRepository.findByRunId("report")).singleElement().satisfies(difference -> {
+            assertThat(difference.getAccountId()).isEqualTo(second.getId());
+            assertThat(difference.getStoredBalance()).isEqualTo(expected + 12_34);
+            assertThat(difference.getReplayedBalance()).isEqualTo(expected);
+        });
+        assertThat(accountRepository.findBalance(second.getId())).isEqualTo(expected + 12_34);
+
+        // and when applied
+        properties.setRunId("apply");
+        var applied = ledgerReplay.replay(ReplayMode.APPLY);
+
+        // then
+        assertThat(applied.differences()).isEqualTo(1);
+        assertThat(accountRepository.findBalance(second.getId())).isEqualTo(expected);
+        assertThat(accountRepository.findBalance(idle.getId())).isEqualTo(75_00);
+        assertThat(differenceRepository.findByRunId("apply")).extracting(LedgerReplayDifference::getAccountId)
+                .containsExactly(second.getId());
+    }
+
+    private void transfer(Account from, Account to, int amount) {
+        ledgerService.createEntry(new TransferRequest(UUID.randomUUID(), from.getId(), to.getId(), BigDecimal.valueOf(amount)));
+    }
+}
@@ -0,0 +1,85 @@
+package co.za.payments.ledger.service.dedup;
+
+import co.za.payments.ledger.config.LedgerReplayCacheProperties;
+import co.za.payments.ledger.dto.LedgerEntryDto;
+import co.za.payments.ledger.dto.LedgerTransferResponse;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.exception.InsufficientAccountBalanceException;
+import co.za.payments.ledger.service.LedgerService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReplayCachingLedgerServiceTest {
+
+    @Mock
+    private LedgerService delegate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ReplayCachingLedgerService ledgerService;
+
+    private TransferRequest request;
+
+    @BeforeEach
+    void setUp() {
+        ledgerService = new ReplayCachingLedgerService(
+                new TransferResponseCache(new LedgerReplayCacheProperties(), meterRegistry), delegate);
+
+        request = new TransferRequest(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), BigDecimal.TEN);
+    }
+
+    @Test
+    void createEntry_answersReplaysFromTheCache() {
+        // given
+        var response = response(request);
+        when(delegate.createEntry(request)).thenReturn(response);
+
+        // when
+        var first = ledgerService.createEntry(request);
+        var replay = ledgerService.createEntry(request);
+
+        // then
+        assertThat(first).isSameAs(response);
+        assertThat(replay).isSameAs(response);
+        verify(delegate, times(1)).createEntry(request);
+        assertThat(meterRegistry.get("ledger.replay_cache.hit.rate").gauge().value()).isEqualTo(0.5);
+    }
+
+    @Test
+    void createEntry_doesNotCacheRejectedTransfers() {
+        // given
+        when(delegate.createEntry(request))
+                .thenThrow(new InsufficientAccountBalanceException(request.fromAccountId()))
+                .thenReturn(response(request));
+
+        // when
+        assertThatExceptionOfType(InsufficientAccountBalanceException.class)
+                .isThrownBy(() -> ledgerService.createEntry(request));
+        var retry = ledgerService.createEntry(request);
+
+        // then
+        assertThat(retry.transferId()).isEqualTo(request.transferId());
+        verify(delegate, times(2)).createEntry(request);
+    }
+
+    private static LedgerTransferResponse response(TransferRequest request) {
+        return LedgerTransferResponse.builder()
+                .transferId(request.transferId())
+                .debitEntry(new LedgerEntryDto(request.fromAccountId(), request.amount(), "DEBIT"))
+                .creditEntry(new LedgerEntryDto(request.toAccountId(), request.amount(), "CREDIT"))
+                .createdAt(Instant.now())
+                .build();
+    }
+}
@@ -0,0 +1,104 @@
+package co.za.payments.ledger.service.dedup;
+
+import co.za.payments.ledger.config.LedgerDeferredCreditProperties;
+import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.dto.BatchTransferRequest;
+import co.za.payments.ledger.dto.BatchTransferResult;
+import co.za.payments.ledger.dto.BatchTransferStatus;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import co.za.payments.ledger.service.LedgerBatchService;
+import co.za.payments.ledger.service.LedgerService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "ledger.transfer-filter.enabled=true",
+        "ledger.transfer-filter.generations=1",
+        "ledger.deferred-credits.enabled=true",
+        "logging.level.org.hibernate.SQL=off"
+})
+class TransferIdFilterIT {
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private LedgerBatchService ledgerBatchService;
+
+    @Autowired
+    private TransferIdFilter transferIdFilter;
+
+    @Autowired
+    private LedgerDeferredCreditProperties deferredCreditProperties;
+
+    @Autowired
+    private LedgerEntryRepository ledgerRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void cleanUp() {
+        deferredCreditProperties.getAccountIds().clear();
+        ledgerRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    void createEntries_reportsReplayedTransfersAsDuplicates_andSkipsTheLookupOfNewOnes() {
+        // given
+        var from = accountRepository.save(Account.instanceOf(100_00));
+        var to = accountRepository.save(Account.instanceOf(0));
+        var transfers = List.of(
+                new TransferRequest(UUID.randomUUID(), from.getId(), to.getId(), BigDecimal.TEN),
+                new TransferRequest(UUID.randomUUID(), from.getId(), to.getId(), BigDecimal.ONE));
+        var saved = meterRegistry.counter("ledger.transfer_filter.lookups.saved").count();
+
+        // when
+        ledgerBatchService.createEntries(new BatchTransferRequest(transfers));
+        var replay = ledgerBatchService.createEntries(new BatchTransferRequest(transfers));
+
+        // then
+        assertThat(replay.results()).extracting(BatchTransferResult::status)
+                .containsOnly(BatchTransferStatus.DUPLICATE);
+        assertThat(meterRegistry.counter("ledger.transfer_filter.lookups.saved").count()).isEqualTo(saved + 2);
+        assertThat(accountRepository.findById(from.getId()).orElseThrow().getBalance()).isEqualTo(89_00);
+    }
+
+    @Test
+    void createEntry_returnsTheOriginalTransfer_whenTheFilterNoLongerHoldsItsId() {
+        // given
+        var payer = accountRepository.save(Account.instanceOf(100_00));
+        var merchant = accountRepository.save(Account.instanceOf(0));
+        deferredCreditProperties.getAccountIds().add(merchant.getId());
+
+        var request = new TransferRequest(UUID.randomUUID(), payer.getId(), merchant.getId(), BigDecimal.TEN);
+        var original = ledgerService.createEntry(request);
+
+        transferIdFilter.rotate();
+        assertThat(transferIdFilter.mightContain(request.transferId())).isFalse();
+
+        // when
+        var replay = ledgerService.createEntry(request);
+
+        // then
+        assertThat(replay.debitEntry()).isEqualTo(original.debitEntry());
+        assertThat(replay.creditEntry()).isEqualTo(original.creditEntry());
+        assertThat(ledgerRepository.findByTransferId(request.transferId())).hasSize(2);
+        assertThat(accountRepository.findById(payer.getId()).orElseThrow().getBalance()).isEqualTo(90_00);
+    }
+}
@@ -0,0 +1,191 @@
+package co.za.payments.ledger.service.dedup;
+
+import co.za.payments.ledger.config.LedgerTransferFilterProperties;
+import co.za.payments.ledger.domain.LedgerEntry;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransferIdFilterTest {
+
+    @Mock
+    private LedgerEntryRepository ledgerRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private LedgerTransferFilterProperties properties;
+    private TransferIdFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new LedgerTransferFilterProperties();
+        properties.setEnabled(true);
+        properties.setExpectedInsertions(1_000);
+        properties.setGenerations(2);
+        properties.setWindow(Duration.ofMinutes(10));
+        filter = new TransferIdFilter(ledgerRepository, properties, meterRegistry);
+    }
+
+    @Test
+    void load_addsTheTransferIdsOfTheRetainedWindow() {
+        // given
+        var transferId = UUID.randomUUID();
+        when(ledgerRepository.streamTransferIdsCreatedSince(any())).thenReturn(Stream.of(transferId));
+
+        // when
+        filter.load();
+
+        // then
+        assertThat(filter.mightContain(transferId)).isTrue();
+    }
+
+    @Test
+    void existingEntries_skipsTheLookup_whenTheTransferIdIsDefinitelyNew() {
+        // given
+        when(ledgerRepository.streamTransferIdsCreatedSince(any())).thenReturn(Stream.empty());
+        filter.load();
+
+        // when
+        var entries = filter.existingEntries(UUID.randomUUID());
+
+        // then
+        assertThat(entries).isEmpty();
+        verify(ledgerRepository, never()).findByTransferId(any());
+        assertThat(meterRegistry.counter("ledger.transfer_filter.lookups.saved").count()).isEqualTo(1);
+    }
+
+    @Test
+    void existingEntries_looksUpTheTransferIdsTheFilterMightContain() {
+        // given
+        when(ledgerRepository.streamTransferIdsCreatedSince(any())).thenReturn(Stream.empty());
+        filter.load();
+
+        var replayed = UUID.randomUUID();
+        var fresh = UUID.randomUUID();
+        filter.add(replayed);
+
+        var debit = LedgerEntry.debit(replayed, UUID.randomUUID(), 10_00);
+        var credit = LedgerEntry.credit(replayed, UUID.randomUUID(), 10_00);
+        when(ledgerRepository.findByTransferIdIn(List.of(replayed))).thenReturn(List.of(debit, credit));
+
+        // when
+        var entries = filter.existingEntries(List.of(replayed, fresh));
+
+        // then
+        assertThat(entries).containsExactly(debit, credit);
+        assertThat(meterRegistry.counter("ledger.transfer_filter.lookups.saved").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("ledger.transfer_filter.false_positives").count()).isZero();
+    }
+
+    @Test
+    void existingEntries_countsAFalsePositive_whenTheLookupFindsNothing() {
+        // given
+        when(ledgerRepository.streamTransferIdsCreatedSince(any())).thenReturn(Stream.empty());
+        filter.load();
+
+        var rolledBack = UUID.randomUUID();
+        filter.add(rolledBack);
+        when(ledgerRepository.findByTransferId(rolledBack)).thenReturn(List.of());
+
+        // when
+        filter.existingEntries(rolledBack);
+
+        // then
+        assertThat(meterRegistry.counter("ledger.transfer_filter.false_positives").count()).isEqualTo(1);
+        assertThat(meterRegistry.get("ledger.transfer_filter.false_positive.rate").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    void existingEntries_alwaysLooksUp_untilTheWindowIsLoaded() {
+        // given
+        var transferId = UUID.randomUUID();
+
+        // when
+        filter.existingEntries(transferId);
+
+        // then
+        verify(ledgerRepository).findByTransferId(transferId);
+    }
+
+    @Test
+    void existingEntries_alwaysLooksUp_whenDisabled() {
+        // given
+        properties.setEnabled(false);
+        filter.load();
+        var transferId = UUID.randomUUID();
+
+        // when
+        filter.existingEntries(transferId);
+
+        // then
+        verify(ledgerRepository).findByTransferId(transferId);
+        verify(ledgerRepository, never()).streamTransferIdsCreatedSince(any());
+    }
+
+    @Test
+    void rotate_dropsTheOldestGeneration() {
+        // given
+        when(ledgerRepository.streamTransferIdsCreatedSince(any())).thenReturn(Stream.empty());
+        filter.load();
+
+        var oldest = UUID.randomUUID();
+        filter.add(oldest);
+        filter.rotate();
+        var previous = UUID.randomUUID();
+        filter.add(previous);
+
+        // when
+        filter.rotate();
+
+        // then
+        assertThat(filter.mightContain(oldest)).isFalse();
+        assertThat(filter.mightContain(previous)).isTrue();
+    }
+
+    @Test
+    void add_rotatesEarly_whenTheCurrentGenerationIsFull() {
+        // given
+        when(ledgerRepository.streamTransferIdsCreatedSince(any())).thenReturn(Stream.empty());
+        filter.load();
+
+        var transferIds = IntStream.range(0, 2_500).mapToObj(i -> UUID.randomUUID()).toList();
+
+        // when
+        filter.addAll(transferIds);
+
+        // then the first generation was dropped, the last two still hold the most recent ids
+        assertThat(filter.mightContain(transferIds.getFirst())).isFalse();
+        assertThat(transferIds.subList(1_000, 2_500)).allMatch(filter::mightContain);
+    }
+
+    @Test
+    void mightContain_hasNoFalseNegatives_andFalsePositivesNearTheConfiguredProbability() {
+        // given
+        var bloomFilter = new BloomFilter(10_000, 0.01);
+        var added = IntStream.range(0, 10_000).mapToObj(i -> UUID.randomUUID()).toList();
+        added.forEach(bloomFilter::put);
+
+        // when
+        var falsePositives = IntStream.range(0, 10_000)
+                .filter(i -> bloomFilter.mightContain(UUID.randomUUID()))
+                .count();
+
+        // then
+        assertThat(added).allMatch(bloomFilter::mightContain);
+        assertThat(falsePositives).isLessThan(200);
+    }
+}
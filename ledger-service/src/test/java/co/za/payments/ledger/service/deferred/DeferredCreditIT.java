@@ -0,0 +1,145 @@
+package co.za.payments.ledger.service.deferred;
+
+import co.za.payments.ledger.config.LedgerDeferredCreditProperties;
+import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.domain.Money;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.exception.InsufficientAccountBalanceException;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import co.za.payments.ledger.service.AccountService;
+import co.za.payments.ledger.service.LedgerService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "ledger.deferred-credits.enabled=true",
+        "logging.level.org.hibernate.SQL=off"
+})
+@Slf4j
+class DeferredCreditIT {
+
+    private static final int PAYERS = 32;
+    private static final int TRANSFERS = 320;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private LedgerDeferredCreditProperties properties;
+
+    @Autowired
+    private LedgerEntryRepository ledgerRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @AfterEach
+    void cleanUp() {
+        properties.getAccountIds().clear();
+        ledgerRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    void createEntry_reportsExactBalance_whileCreditsAreStillDeferred() throws Exception {
+        // given
+        var payer = accountRepository.save(Account.instanceOf(100_00));
+        var merchant = accountRepository.save(Account.instanceOf(0));
+        properties.getAccountIds().add(merchant.getId());
+
+        // when
+        ledgerService.createEntry(new TransferRequest(UUID.randomUUID(), payer.getId(), merchant.getId(), BigDecimal.valueOf(40)));
+
+        // then
+        assertThat(accountService.getAccount(merchant.getId()).balance()).isEqualByComparingTo("40");
+        assertThat(accountService.getAccount(payer.getId()).balance()).isEqualByComparingTo("60");
+
+        awaitCreditsApplied(merchant.getId());
+        assertThat(accountRepository.findById(merchant.getId()).orElseThrow().getBalance()).isEqualTo(40_00);
+    }
+
+    @Test
+    void createEntry_conservesMoney_withConcurrentCreditsAndPayouts() throws Exception {
+        // given
+        var merchant = accountRepository.save(Account.instanceOf(0));
+        var payoutAccount = accountRepository.save(Account.instanceOf(0));
+        properties.getAccountIds().add(merchant.getId());
+
+        List<UUID> payers = new ArrayList<>();
+        for (int i = 0; i < PAYERS; i++) {
+            payers.add(accountRepository.save(Account.instanceOf(1_000_00)).getId());
+        }
+
+        var payouts = new AtomicInteger();
+        var rejectedPayouts = new AtomicInteger();
+        var failed = new AtomicInteger();
+
+        // when
+        var started = System.nanoTime();
+        try (var executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int i = 0; i < TRANSFERS; i++) {
+                var payout = i % 4 == 0;
+                var request = payout
+                        ? new TransferRequest(UUID.randomUUID(), merchant.getId(), payoutAccount.getId(), BigDecimal.valueOf(3))
+                        : new TransferRequest(UUID.randomUUID(), payers.get(i % PAYERS), merchant.getId(), BigDecimal.ONE);
+                executor.submit(() -> {
+                    try {
+                        ledgerService.createEntry(request);
+                        if (payout) {
+                            payouts.incrementAndGet();
+                        }
+                    } catch (InsufficientAccountBalanceException e) {
+                        rejectedPayouts.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                    }
+                });
+            }
+            executor.shutdown();
+            assertThat(executor.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+        }
+        var elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        log.info("Deferred credits: {} transfers in {} ms ({} transfers/s), {} payouts rejected",
+                TRANSFERS - failed.get(), elapsedMillis, (TRANSFERS - failed.get()) * 1000L / elapsedMillis, rejectedPayouts.get());
+
+        // then
+        var credits = TRANSFERS - TRANSFERS / 4;
+        var expectedMerchantBalance = BigDecimal.valueOf(credits - 3L * payouts.get());
+
+        assertThat(failed.get()).isZero();
+        assertThat(accountService.getAccount(merchant.getId()).balance()).isEqualByComparingTo(expectedMerchantBalance);
+
+        awaitCreditsApplied(merchant.getId());
+        assertThat(accountRepository.findById(merchant.getId()).orElseThrow().getBalance())
+                .isEqualTo(Money.toMinorUnits(expectedMerchantBalance));
+        assertThat(accountRepository.findById(payoutAccount.getId()).orElseThrow().getBalance())
+                .isEqualTo(3_00L * payouts.get());
+    }
+
+    private void awaitCreditsApplied(UUID accountId) throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (ledgerRepository.sumUnappliedCredits(accountId) > 0) {
+            assertThat(System.nanoTime()).as("deferred credits applied in time").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
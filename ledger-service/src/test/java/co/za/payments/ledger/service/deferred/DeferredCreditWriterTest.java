@@ -0,0 +1,115 @@
+package co.za.payments.ledger.service.deferred;
+
+import co.za.payments.ledger.config.LedgerDeferredCreditProperties;
+import co.za.payments.ledger.config.LedgerTransferFilterProperties;
+import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.domain.LedgerEntry;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.exception.InsufficientAccountBalanceException;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import co.za.payments.ledger.service.dedup.LedgerEntryKeys;
+import co.za.payments.ledger.service.dedup.TransferIdFilter;
+import co.za.payments.ledger.service.impl.AccountCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeferredCreditWriterTest {
+
+    @Mock
+    private LedgerEntryRepository ledgerRepository;
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private AccountCache accountCache;
+    @Mock
+    private LedgerEntryKeys entryKeys;
+
+    private DeferredCreditWriter writer;
+
+    private UUID payerId;
+    private UUID merchantId;
+
+    @BeforeEach
+    void setUp() {
+        payerId = UUID.randomUUID();
+        merchantId = UUID.randomUUID();
+
+        var properties = new LedgerDeferredCreditProperties();
+        properties.setAccountIds(Set.of(merchantId));
+        writer = new DeferredCreditWriter(ledgerRepository, accountRepository, properties,
+                new TransferIdFilter(ledgerRepository, new LedgerTransferFilterProperties(), new SimpleMeterRegistry()), accountCache, entryKeys);
+
+        lenient().when(ledgerRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void write_insertsUnappliedCredit_withoutUpdatingDeferredAccount() {
+        // given
+        var request = new TransferRequest(UUID.randomUUID(), payerId, merchantId, BigDecimal.TEN);
+
+        // when
+        when(accountRepository.debitReturningBalance(eq(payerId), eq(10_00L), any())).thenReturn(OptionalLong.of(90_00));
+        when(accountRepository.existsById(merchantId)).thenReturn(true);
+
+        writer.write(request);
+
+        // then
+        ArgumentCaptor<List<LedgerEntry>> captor = ArgumentCaptor.forClass(List.class);
+        verify(ledgerRepository).saveAll(captor.capture());
+        assertThat(captor.getValue()).extracting(LedgerEntry::isBalanceApplied).containsExactly(true, false);
+        verify(accountRepository, never()).creditReturningBalance(any(), anyLong(), any());
+    }
+
+    @Test
+    void write_countsUnappliedCredits_whenDebitingDeferredAccount() {
+        // given
+        var request = new TransferRequest(UUID.randomUUID(), merchantId, payerId, BigDecimal.TEN);
+
+        // when
+        when(accountRepository.lockAllById(List.of(merchantId))).thenReturn(List.of(Account.instanceOf(4_00)));
+        when(ledgerRepository.sumUnappliedCredits(merchantId)).thenReturn(6_00L);
+        when(accountRepository.creditReturningBalance(eq(payerId), eq(10_00L), any())).thenReturn(OptionalLong.of(110_00));
+
+        writer.write(request);
+
+        // then
+        verify(accountRepository).applyDelta(eq(merchantId), eq(-10_00L), any());
+    }
+
+    @Test
+    void write_throwsInsufficientBalanceException_whenBalanceAndUnappliedCreditsAreLess() {
+        // given
+        var request = new TransferRequest(UUID.randomUUID(), merchantId, payerId, BigDecimal.TEN);
+
+        // when
+        when(accountRepository.lockAllById(List.of(merchantId))).thenReturn(List.of(Account.instanceOf(4_00)));
+        when(ledgerRepository.sumUnappliedCredits(merchantId)).thenReturn(5_00L);
+        lenient().when(accountRepository.creditReturningBalance(eq(payerId), eq(10_00L), any())).thenReturn(OptionalLong.of(110_00));
+
+        // then
+        assertThatExceptionOfType(InsufficientAccountBalanceException.class)
+                .isThrownBy(() -> writer.write(request));
+        verify(accountRepository, never()).applyDelta(any(), anyLong(), any());
+        verify(ledgerRepository, never()).saveAll(any());
+    }
+}
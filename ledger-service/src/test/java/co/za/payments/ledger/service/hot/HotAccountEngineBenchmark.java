@@ -0,0 +1,115 @@
+package co.za.payments.ledger.service.hot;
+
+import co.za.payments.ledger.domain.Account;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Compares the per-transfer work of the hot account engine with the entity arithmetic of the JPA path.</p>
+ * <p>Run {@link #main(String[])} from the test classpath after {@code mvn test-compile}. The end to end
+ * comparison against the database is in {@link HotAccountEngineIT}.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HotAccountEngineBenchmark {
+
+    @Param({"1", "64", "256"})
+    private int batchSize;
+
+    private UUID fromAccountId;
+    private UUID toAccountId;
+    private HotBalanceMap balances;
+    private Account fromAccount;
+    private Account toAccount;
+    private Path journalDir;
+    private TransferJournal journal;
+
+    @Setup
+    public void setUp() throws IOException {
+        fromAccountId = UUID.randomUUID();
+        toAccountId = UUID.randomUUID();
+
+        balances = new HotBalanceMap(2);
+        balances.put(fromAccountId, Long.MAX_VALUE / 2);
+        balances.put(toAccountId, 0);
+
+        fromAccount = Account.instanceOf(Long.MAX_VALUE / 2);
+        toAccount = Account.instanceOf(0);
+
+        journalDir = Files.createTempDirectory("ledger-journal-benchmark");
+        journal = new TransferJournal(journalDir, batchSize);
+        journal.recover();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        try (var files = Files.list(journalDir)) {
+            for (var file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(journalDir);
+    }
+
+    /**
+     * Debit and credit on the entities, as done by the JPA path before Hibernate flushes them.
+     */
+    @Benchmark
+    @OperationsPerInvocation(256)
+    public long jpaEntityArithmetic() {
+        var amount = 100;
+        for (int i = 0; i < 256; i++) {
+            fromAccount.debit(amount);
+            toAccount.credit(amount);
+        }
+        return toAccount.getBalance();
+    }
+
+    /**
+     * Debit and credit in the open addressing map, as done by the sequencer.
+     */
+    @Benchmark
+    @OperationsPerInvocation(256)
+    public long hotBalanceMapArithmetic() {
+        for (int i = 0; i < 256; i++) {
+            var fromSlot = balances.slotOf(fromAccountId);
+            if (balances.balance(fromSlot) >= 100) {
+                balances.add(fromSlot, -100);
+                balances.add(balances.slotOf(toAccountId), 100);
+            }
+        }
+        return balances.balance(balances.slotOf(toAccountId));
+    }
+
+    /**
+     * Journals one group of {@code batchSize} transfers and makes it durable with a single fsync.
+     */
+    @Benchmark
+    public long journalGroupSync() throws IOException {
+        for (int i = 0; i < batchSize; i++) {
+            journal.append(new JournalRecord(journal.nextSequence(), UUID.randomUUID(), fromAccountId, toAccountId, 100, 0L));
+        }
+        journal.sync();
+        return journal.lastSequence();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HotAccountEngineBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,223 @@
+package co.za.payments.ledger.service.hot;
+
+import co.za.payments.ledger.config.LedgerHotAccountProperties;
+import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.domain.EntryType;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.exception.InsufficientAccountBalanceException;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import co.za.payments.ledger.service.LedgerService;
+import co.za.payments.ledger.service.impl.LedgerEntryServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Starts its own {@link HotAccountEngine} per test, since hot accounts have to exist before the engine loads them.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "ledger.hot-accounts.enabled=true",
+        "ledger.hot-accounts.journal-dir=${java.io.tmpdir}/ledger-hot-accounts-it",
+        "logging.level.org.hibernate.SQL=off"
+})
+@Slf4j
+class HotAccountEngineIT {
+
+    private static final int CALLERS = 16;
+    private static final int TRANSFERS = 400;
+
+    @TempDir
+    private Path journalDir;
+
+    @Autowired
+    private HotAccountStore store;
+
+    @Autowired
+    private LedgerEntryServiceImpl ledgerEntryService;
+
+    @Autowired
+    private LedgerEntryRepository ledgerRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    private HotAccountEngine engine;
+
+    @AfterEach
+    void cleanUp() throws Exception {
+        if (null != engine) {
+            engine.stop();
+        }
+        ledgerRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    void createEntry_rejectsDebitBeyondInMemoryBalance() throws Exception {
+        // given
+        var hotAccount = accountRepository.save(Account.instanceOf(5_00));
+        var coldAccount = accountRepository.save(Account.instanceOf(0));
+        var ledgerService = startEngine(hotAccount.getId());
+
+        var request = new TransferRequest(UUID.randomUUID(), hotAccount.getId(), coldAccount.getId(), BigDecimal.valueOf(6));
+
+        // when / then
+        assertThatExceptionOfType(InsufficientAccountBalanceException.class)
+                .isThrownBy(() -> ledgerService.createEntry(request));
+        assertThat(engine.balanceOf(hotAccount.getId())).isEqualTo(5_00L);
+    }
+
+    @Test
+    void createEntry_returnsSameResponse_forDuplicateTransferBeforeAndAfterFlush() throws Exception {
+        // given
+        var hotAccount = accountRepository.save(Account.instanceOf(50_00));
+        var coldAccount = accountRepository.save(Account.instanceOf(0));
+        var ledgerService = startEngine(hotAccount.getId());
+
+        var request = new TransferRequest(UUID.randomUUID(), hotAccount.getId(), coldAccount.getId(), BigDecimal.TEN);
+
+        // when
+        var first = ledgerService.createEntry(request);
+        var beforeFlush = ledgerService.createEntry(request);
+        engine.stop();
+        engine = null;
+        var afterFlush = startEngine(hotAccount.getId()).createEntry(request);
+
+        // then
+        assertThat(beforeFlush.transferId()).isEqualTo(first.transferId());
+        assertThat(afterFlush.transferId()).isEqualTo(first.transferId());
+        assertThat(ledgerRepository.findByTransferId(request.transferId())).hasSize(2);
+        assertThat(accountRepository.findById(hotAccount.getId()).orElseThrow().getBalance()).isEqualTo(40_00);
+        assertThat(accountRepository.findById(coldAccount.getId()).orElseThrow().getBalance()).isEqualTo(10_00);
+    }
+
+    @Test
+    void createEntry_refusesHotDebits_butKeepsInboundCredits_onceTheEngineStopped() throws Exception {
+        // given
+        var hotAccount = accountRepository.save(Account.instanceOf(10_00));
+        var coldAccount = accountRepository.save(Account.instanceOf(100_00));
+        var ledgerService = startEngine(hotAccount.getId());
+        var stopped = engine;
+        stopped.stop();
+        engine = null;
+
+        // when
+        ledgerService.createEntry(new TransferRequest(UUID.randomUUID(), coldAccount.getId(), hotAccount.getId(), BigDecimal.valueOf(30)));
+
+        // then
+        assertThatExceptionOfType(IllegalStateException.class)
+                .isThrownBy(() -> ledgerService.createEntry(
+                        new TransferRequest(UUID.randomUUID(), hotAccount.getId(), coldAccount.getId(), BigDecimal.ONE)));
+        assertThat(stopped.balanceOf(hotAccount.getId())).isEqualTo(40_00L);
+        assertThat(accountRepository.findById(hotAccount.getId()).orElseThrow().getBalance()).isEqualTo(40_00);
+    }
+
+    @Test
+    void createEntry_keepsInMemoryBalance_inStepWithInboundCredits() throws Exception {
+        // given
+        var hotAccount = accountRepository.save(Account.instanceOf(0));
+        var coldAccount = accountRepository.save(Account.instanceOf(100_00));
+        var ledgerService = startEngine(hotAccount.getId());
+
+        // when
+        ledgerService.createEntry(new TransferRequest(UUID.randomUUID(), coldAccount.getId(), hotAccount.getId(), BigDecimal.valueOf(30)));
+        var outbound = ledgerService.createEntry(new TransferRequest(UUID.randomUUID(), hotAccount.getId(), coldAccount.getId(), BigDecimal.valueOf(20)));
+
+        // then
+        assertThat(outbound.debitEntry().accountId()).isEqualTo(hotAccount.getId());
+        assertThat(engine.balanceOf(hotAccount.getId())).isEqualTo(10_00L);
+
+        engine.stop();
+        engine = null;
+        assertThat(accountRepository.findById(hotAccount.getId()).orElseThrow().getBalance()).isEqualTo(10_00);
+        assertThat(accountRepository.findById(coldAccount.getId()).orElseThrow().getBalance()).isEqualTo(90_00);
+    }
+
+    @Test
+    void createEntry_outperformsJpaPath_onHotAccountContention() throws Exception {
+        // given
+        var jpaSettlement = accountRepository.save(Account.instanceOf(1_000_000_00));
+        var hotSettlement = accountRepository.save(Account.instanceOf(1_000_000_00));
+        var merchants = new ArrayList<UUID>();
+        for (int i = 0; i < 8; i++) {
+            merchants.add(accountRepository.save(Account.instanceOf(0)).getId());
+        }
+
+        var hotLedgerService = startEngine(hotSettlement.getId());
+
+        // when
+        var jpa = run("JPA", ledgerEntryService, jpaSettlement.getId(), merchants);
+        var hot = run("hot account engine", hotLedgerService, hotSettlement.getId(), merchants);
+
+        engine.stop();
+        engine = null;
+
+        // then
+        assertThat(hot.succeeded()).isEqualTo(TRANSFERS);
+        assertThat(hot.perSecond()).isGreaterThan(jpa.perSecond());
+        assertThat(accountRepository.findById(hotSettlement.getId()).orElseThrow().getBalance())
+                .isEqualTo((1_000_000L - TRANSFERS) * 100);
+        assertThat(ledgerRepository.findAll().stream()
+                .filter(entry -> entry.getType() == EntryType.DEBIT && entry.getAccountId().equals(hotSettlement.getId())))
+                .hasSize(TRANSFERS);
+    }
+
+    private Throughput run(String name, LedgerService ledgerService, UUID settlementId, List<UUID> merchants) throws InterruptedException {
+        var succeeded = new AtomicInteger();
+        var failed = new AtomicInteger();
+
+        var started = System.nanoTime();
+        try (var executor = Executors.newFixedThreadPool(CALLERS)) {
+            for (int i = 0; i < TRANSFERS; i++) {
+                var request = new TransferRequest(UUID.randomUUID(), settlementId, merchants.get(i % merchants.size()), BigDecimal.ONE);
+                executor.submit(() -> {
+                    try {
+                        ledgerService.createEntry(request);
+                        succeeded.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                    }
+                });
+            }
+            executor.shutdown();
+            assertThat(executor.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+        }
+        var elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        var rate = succeeded.get() * 1000L / elapsedMillis;
+
+        log.info("{}: {} transfers debiting one account from {} callers in {} ms ({} transfers/s), {} failed",
+                name, succeeded.get(), CALLERS, elapsedMillis, rate, failed.get());
+
+        return new Throughput(succeeded.get(), rate);
+    }
+
+    private record Throughput(int succeeded, long perSecond) { }
+
+    private LedgerService startEngine(UUID... hotAccountIds) throws Exception {
+        var properties = new LedgerHotAccountProperties();
+        properties.setAccountIds(new HashSet<>(Arrays.asList(hotAccountIds)));
+        properties.setJournalDir(journalDir);
+        properties.setFlushInterval(Duration.ofMillis(10));
+
+        engine = new HotAccountEngine(store, properties, new SimpleMeterRegistry());
+        engine.start();
+
+        return new HotAccountLedgerService(engine, store, accountRepository, properties, ledgerEntryService);
+    }
+}
@@ -0,0 +1,30 @@
+package co.za.payments.ledger.service.hot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HotBalanceMapTest {
+
+    @Test
+    void slotOf_findsEveryAccount_andAddAppliesDeltas() {
+        // given
+        var balances = new HotBalanceMap(100);
+        var accountIds = new UUID[100];
+        for (int i = 0; i < accountIds.length; i++) {
+            accountIds[i] = UUID.randomUUID();
+            balances.put(accountIds[i], i);
+        }
+
+        // when
+        balances.add(balances.slotOf(accountIds[42]), -40);
+
+        // then
+        assertThat(balances.size()).isEqualTo(100);
+        assertThat(balances.slotOf(UUID.randomUUID())).isEqualTo(-1);
+        assertThat(balances.balance(balances.slotOf(accountIds[42]))).isEqualTo(2);
+        assertThat(balances.balance(balances.slotOf(accountIds[99]))).isEqualTo(99);
+    }
+}
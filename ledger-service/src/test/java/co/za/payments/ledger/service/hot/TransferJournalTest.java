@@ -0,0 +1,108 @@
+package co.za.payments.ledger.service.hot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransferJournalTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void recover_returnsSyncedRecordsAfterTheCheckpoint() throws IOException {
+        // given
+        try (var journal = new TransferJournal(directory, 8)) {
+            journal.recover();
+            for (int i = 0; i < 3; i++) {
+                journal.append(record(journal.nextSequence()));
+            }
+            journal.sync();
+            journal.markFlushed(1);
+        }
+
+        // when
+        try (var journal = new TransferJournal(directory, 8)) {
+            var records = journal.recover();
+
+            // then
+            assertThat(records).extracting(JournalRecord::sequence).containsExactly(2L, 3L);
+            assertThat(journal.nextSequence()).isEqualTo(4);
+        }
+    }
+
+    @Test
+    void recover_truncatesTornRecordAtTheEnd() throws IOException {
+        // given
+        try (var journal = new TransferJournal(directory, 8)) {
+            journal.recover();
+            journal.append(record(journal.nextSequence()));
+            journal.append(record(journal.nextSequence()));
+            journal.sync();
+        }
+
+        try (var channel = FileChannel.open(directory.resolve(TransferJournal.JOURNAL_FILE), StandardOpenOption.WRITE)) {
+            channel.truncate(JournalRecord.SIZE + 10);
+        }
+
+        // when
+        try (var journal = new TransferJournal(directory, 8)) {
+            var records = journal.recover();
+
+            // then
+            assertThat(records).extracting(JournalRecord::sequence).containsExactly(1L);
+            assertThat(directory.resolve(TransferJournal.JOURNAL_FILE)).hasSize(JournalRecord.SIZE);
+        }
+    }
+
+    @Test
+    void discardBuffered_dropsRecordsThatWereNotSynced() throws IOException {
+        // given
+        try (var journal = new TransferJournal(directory, 8)) {
+            journal.recover();
+            journal.append(record(journal.nextSequence()));
+            journal.sync();
+
+            // when
+            journal.append(record(journal.nextSequence()));
+            journal.discardBuffered();
+        }
+
+        // then
+        try (var journal = new TransferJournal(directory, 8)) {
+            assertThat(journal.recover()).extracting(JournalRecord::sequence).containsExactly(1L);
+        }
+    }
+
+    @Test
+    void compactIfFlushed_keepsSequenceAfterRestart() throws IOException {
+        // given
+        try (var journal = new TransferJournal(directory, 8)) {
+            journal.recover();
+            journal.append(record(journal.nextSequence()));
+            journal.append(record(journal.nextSequence()));
+            journal.sync();
+            journal.markFlushed(2);
+
+            // when
+            assertThat(journal.compactIfFlushed(0)).isTrue();
+        }
+
+        // then
+        try (var journal = new TransferJournal(directory, 8)) {
+            assertThat(journal.recover()).isEmpty();
+            assertThat(journal.nextSequence()).isEqualTo(3);
+        }
+    }
+
+    private static JournalRecord record(long sequence) {
+        return new JournalRecord(sequence, UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), 100, System.currentTimeMillis());
+    }
+}
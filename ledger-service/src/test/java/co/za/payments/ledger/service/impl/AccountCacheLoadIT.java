@@ -0,0 +1,142 @@
+package co.za.payments.ledger.service.impl;
+
+import co.za.payments.ledger.config.LedgerAccountCacheProperties;
+import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import co.za.payments.ledger.service.AccountService;
+import co.za.payments.ledger.service.LedgerService;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * <p>Balance polling workload: reader threads poll a small set of accounts while one writer keeps moving money
+ * between them. Runs with and without the {@link AccountCache} and logs the read throughput and the number of
+ * statements prepared per read, so the database load of the two can be compared.</p>
+ * <p>The writer reads both accounts after every transfer it made and checks it sees that transfer, as the
+ * cache must never serve a balance older than the last committed one.</p>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.SQL=off",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=off",
+        "logging.level.co.za.payments.ledger=warn"
+})
+@Slf4j
+class AccountCacheLoadIT {
+
+    private static final int ACCOUNTS = 16;
+    private static final int READERS = 8;
+    private static final long DURATION_MILLIS = 2_000;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private LedgerAccountCacheProperties cacheProperties;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private LedgerEntryRepository ledgerRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @AfterEach
+    void cleanUp() {
+        cacheProperties.setEnabled(false);
+        ledgerRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void getAccount_neverServesAnOlderBalance_underPollingReads(boolean cacheEnabled) throws Exception {
+        // given
+        cacheProperties.setEnabled(cacheEnabled);
+
+        List<UUID> accountIds = new ArrayList<>();
+        var balances = new long[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            balances[i] = 1_000_000_00L;
+            accountIds.add(accountRepository.save(Account.instanceOf(balances[i])).getId());
+        }
+
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        var running = new AtomicBoolean(true);
+        var reads = new AtomicLong();
+        var transfers = new AtomicLong();
+        var staleReads = new AtomicLong();
+
+        // when
+        statistics.clear();
+        var started = System.nanoTime();
+        try (var executor = Executors.newFixedThreadPool(READERS + 1)) {
+            for (int reader = 0; reader < READERS; reader++) {
+                var offset = reader;
+                executor.submit(() -> {
+                    for (int i = offset; running.get(); i++) {
+                        accountService.getAccount(accountIds.get(i % ACCOUNTS));
+                        reads.incrementAndGet();
+                    }
+                });
+            }
+
+            executor.submit(() -> {
+                for (int i = 0; running.get(); i++) {
+                    var from = i % ACCOUNTS;
+                    var to = (i + 1) % ACCOUNTS;
+                    ledgerService.createEntry(new TransferRequest(UUID.randomUUID(), accountIds.get(from), accountIds.get(to), BigDecimal.ONE));
+                    balances[from] -= 1_00;
+                    balances[to] += 1_00;
+                    transfers.incrementAndGet();
+
+                    if (accountService.getAccount(accountIds.get(from)).balance().compareTo(BigDecimal.valueOf(balances[from], 2)) != 0
+                            || accountService.getAccount(accountIds.get(to)).balance().compareTo(BigDecimal.valueOf(balances[to], 2)) != 0) {
+                        staleReads.incrementAndGet();
+                    }
+                }
+            });
+
+            Thread.sleep(DURATION_MILLIS);
+            running.set(false);
+            executor.shutdown();
+            assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        }
+        var elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        log.warn("Account cache enabled [{}]: {} reads in {} ms ({} reads/s) alongside {} transfers, {} statements prepared ({} per read)",
+                cacheEnabled, reads.get(), elapsedMillis, reads.get() * 1000 / elapsedMillis, transfers.get(),
+                statistics.getPrepareStatementCount(),
+                "%.2f".formatted((double) statistics.getPrepareStatementCount() / Math.max(1, reads.get())));
+
+        // then
+        assertThat(staleReads.get()).isZero();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            assertThat(accountService.getAccount(accountIds.get(i)).balance()).isEqualByComparingTo(BigDecimal.valueOf(balances[i], 2));
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package co.za.payments.ledger.service.impl;
+
+import co.za.payments.ledger.config.LedgerAccountCacheProperties;
+import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AccountCacheTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private LedgerEntryRepository ledgerRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private LedgerAccountCacheProperties properties;
+    private AccountCache accountCache;
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        properties = new LedgerAccountCacheProperties();
+        properties.setEnabled(true);
+        accountCache = new AccountCache(accountRepository, ledgerRepository, properties, meterRegistry);
+
+        account = account(100_00, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void get_loadsOnce_andServesTheCachedAccountAfterwards() {
+        // when
+        accountCache.get(account.getId(), () -> Optional.of(account));
+        var cached = accountCache.get(account.getId(), Optional::empty);
+
+        // then
+        assertThat(cached).map(AccountCache.Snapshot::balance).contains(100_00L);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "ledger.accounts").tag("result", "hit").functionCounter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void get_readsTheDatabase_whileAWriteOnTheAccountIsInFlight() {
+        // given
+        accountCache.get(account.getId(), () -> Optional.of(account));
+        TransactionSynchronizationManager.initSynchronization();
+        accountCache.evictOnCommit(List.of(account.getId()));
+
+        // when
+        var duringWrite = accountCache.get(account.getId(), () -> Optional.of(account));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        var afterCommit = accountCache.get(account.getId(), () -> Optional.of(account(150_00, 1)));
+
+        // then
+        assertThat(duringWrite).map(AccountCache.Snapshot::balance).contains(100_00L);
+        assertThat(afterCommit).map(AccountCache.Snapshot::balance).contains(150_00L);
+        assertThat(meterRegistry.counter("ledger.account_cache.bypasses").count()).isEqualTo(1);
+    }
+
+    @Test
+    void get_doesNotCacheAnAccountLoadedBeforeAConcurrentWrite() {
+        // given a read that loads the balance, then a write commits before the read caches it
+        var stale = accountCache.get(account.getId(), () -> {
+            accountCache.evictOnCommit(List.of(account.getId()));
+            return Optional.of(account);
+        });
+
+        // when
+        var next = accountCache.get(account.getId(), () -> Optional.of(account(150_00, 1)));
+
+        // then
+        assertThat(stale).map(AccountCache.Snapshot::balance).contains(100_00L);
+        assertThat(next).map(AccountCache.Snapshot::balance).contains(150_00L);
+    }
+
+    @Test
+    void get_goesToTheDatabase_whenDisabled() {
+        // given
+        properties.setEnabled(false);
+        accountCache.get(account.getId(), () -> Optional.of(account));
+
+        // when
+        var second = accountCache.get(account.getId(), () -> Optional.of(account(150_00, 1)));
+
+        // then
+        assertThat(second).map(AccountCache.Snapshot::balance).contains(150_00L);
+    }
+
+    @Test
+    void warmUp_cachesTheMostActiveAccounts() {
+        // given
+        properties.setWarmUpSize(10);
+        when(ledgerRepository.findMostActiveAccountIds(any(), any())).thenReturn(List.of(account.getId()));
+        when(accountRepository.findAllById(anyList())).thenReturn(List.of(account));
+
+        // when
+        accountCache.warmUp();
+        var cached = accountCache.get(account.getId(), Optional::empty);
+
+        // then
+        assertThat(cached).map(AccountCache.Snapshot::balance).contains(100_00L);
+    }
+
+    private Account account(long balance, int version) {
+        var loaded = Account.instanceOf(balance);
+        loaded.setId(null == account ? UUID.randomUUID() : account.getId());
+        loaded.setVersion(version);
+        return loaded;
+    }
+}
@@ -0,0 +1,140 @@
+package co.za.payments.ledger.service.impl;
+
+import co.za.payments.ledger.config.LedgerLaneProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccountLanesTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AccountLanes lanes;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+
+        var properties = new LedgerLaneProperties();
+        properties.setCount(16);
+        lanes = new AccountLanes(properties, meterRegistry);
+    }
+
+    @Test
+    void execute_runsTransfersSharingAnAccountOneAfterAnother() throws Exception {
+        // given
+        var shared = UUID.randomUUID();
+        var running = new AtomicInteger();
+        var maxRunning = new AtomicInteger();
+
+        // when
+        try (var executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 200; i++) {
+                executor.submit(() -> lanes.execute(shared, UUID.randomUUID(), () -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.onSpinWait();
+                    return running.decrementAndGet();
+                }));
+            }
+            executor.shutdown();
+            assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        }
+
+        // then
+        assertThat(maxRunning.get()).isEqualTo(1);
+    }
+
+    @Test
+    void execute_doesNotDeadlock_forOpposingTransfers() throws Exception {
+        // given
+        var first = UUID.randomUUID();
+        var second = UUID.randomUUID();
+        var completed = new AtomicInteger();
+
+        // when
+        try (var executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 1_000; i++) {
+                var forward = i % 2 == 0;
+                executor.submit(() -> lanes.execute(forward ? first : second, forward ? second : first,
+                        completed::incrementAndGet));
+            }
+            executor.shutdown();
+            assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        }
+
+        // then
+        assertThat(completed.get()).isEqualTo(1_000);
+    }
+
+    @Test
+    void execute_countsAnAvoidedRetry_whenTheLaneIsHeldForTheSameAccount() throws Exception {
+        // given
+        var account = UUID.randomUUID();
+
+        // when
+        waitBehind(account, account, UUID.randomUUID());
+
+        // then
+        assertThat(meterRegistry.get("ledger.lanes.waits").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("ledger.lanes.retries.avoided").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("ledger.lanes.queue.depth").gauge().value()).isZero();
+    }
+
+    @Test
+    void execute_countsOnlyAWait_whenTheLaneIsHeldForAnotherAccountHashedToIt() throws Exception {
+        // given
+        var account = UUID.randomUUID();
+        var neighbour = UUID.randomUUID();
+        while (lanes.laneOf(neighbour) != lanes.laneOf(account)) {
+            neighbour = UUID.randomUUID();
+        }
+
+        // when
+        waitBehind(account, neighbour, neighbour);
+
+        // then
+        assertThat(meterRegistry.get("ledger.lanes.waits").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("ledger.lanes.retries.avoided").counter().count()).isZero();
+    }
+
+    /**
+     * Holds the lane of the account with a transfer on it, and runs a transfer between the other two accounts
+     * once that one is waiting.
+     */
+    private void waitBehind(UUID heldAccountId, UUID fromAccountId, UUID toAccountId) throws Exception {
+        var holding = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        try (var executor = Executors.newFixedThreadPool(2)) {
+            executor.submit(() -> lanes.execute(heldAccountId, heldAccountId, () -> {
+                holding.countDown();
+                return awaitQuietly(release);
+            }));
+            holding.await();
+
+            var waiting = executor.submit(() -> lanes.execute(fromAccountId, toAccountId, () -> true));
+            while (meterRegistry.get("ledger.lanes.queue.depth").gauge().value() < 1) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+            waiting.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private static boolean awaitQuietly(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
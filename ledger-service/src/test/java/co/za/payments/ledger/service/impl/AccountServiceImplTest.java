@@ -1,23 +1,39 @@
 package co.za.payments.ledger.service.impl;
 
+import co.za.payments.ledger.config.LedgerAccountCacheProperties;
 import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.domain.Money;
+import co.za.payments.ledger.dto.AccountResponse;
 import co.za.payments.ledger.dto.CreateAccountRequest;
 import co.za.payments.ledger.exception.AccountNotFoundException;
+import co.za.payments.ledger.repository.AccountBalanceView;
 import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
 import co.za.payments.ledger.service.AccountService;
+import co.za.payments.ledger.service.BalanceAdjuster;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatExceptionOfType;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,11 +42,22 @@ class AccountServiceImplTest {
     @Mock
     private AccountRepository repository;
 
+    @Mock
+    private LedgerEntryRepository ledgerRepository;
+
+    @Mock
+    private ObjectProvider<BalanceAdjuster> balanceAdjusters;
+
+    private LedgerAccountCacheProperties cacheProperties;
+    private AccountCache accountCache;
     private AccountService accountService;
 
     @BeforeEach
     void setUp() {
-        accountService = new AccountServiceImpl(repository);
+        lenient().when(balanceAdjusters.orderedStream()).thenAnswer(invocation -> Stream.empty());
+        cacheProperties = new LedgerAccountCacheProperties();
+        accountCache = new AccountCache(repository, ledgerRepository, cacheProperties, new SimpleMeterRegistry());
+        accountService = new AccountServiceImpl(repository, balanceAdjusters, accountCache);
     }
 
     @Test
@@ -38,7 +65,7 @@ class AccountServiceImplTest {
         // given
         var initialBalance  = BigDecimal.valueOf(500_123);
 
-        var account = Account.instanceOf(initialBalance);
+        var account = Account.instanceOf(Money.toMinorUnits(initialBalance));
 
         // when
         when(repository.save(any())).thenReturn(account);
@@ -47,7 +74,7 @@ class AccountServiceImplTest {
 
         // then
         assertThat(response).isNotNull();
-        assertThat(response.balance()).isEqualTo(initialBalance);
+        assertThat(response.balance()).isEqualByComparingTo(initialBalance);
     }
 
     @Test
@@ -68,7 +95,7 @@ class AccountServiceImplTest {
     void getAccount_returnsResponse_whenAccountExist() {
         // given
         var accountId = UUID.randomUUID();
-        var account = Account.instanceOf(BigDecimal.valueOf(500_123));
+        var account = Account.instanceOf(500_123_00);
 
         when(repository.findById(accountId)).thenReturn(Optional.of(account));
 
@@ -76,6 +103,54 @@ class AccountServiceImplTest {
 
         // then
         assertThat(response).isNotNull();
-        assertThat(response.balance()).isEqualTo(account.getBalance());
+        assertThat(response.balance()).isEqualByComparingTo("500123.00");
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAccount_servesTheCachedAccount_untilAWriteEvictsIt() {
+        // given
+        cacheProperties.setEnabled(true);
+
+        var account = Account.instanceOf(100_00);
+        account.setId(UUID.randomUUID());
+        var credited = Account.instanceOf(150_00);
+        credited.setId(account.getId());
+        credited.setVersion(1);
+
+        when(repository.findById(account.getId())).thenReturn(Optional.of(account), Optional.of(credited));
+
+        // when
+        var first = accountService.getAccount(account.getId());
+        var cached = accountService.getAccount(account.getId());
+        accountCache.evictOnCommit(List.of(account.getId()));
+        var afterWrite = accountService.getAccount(account.getId());
+
+        // then
+        assertThat(first.balance()).isEqualByComparingTo("100.00");
+        assertThat(cached.balance()).isEqualByComparingTo("100.00");
+        assertThat(afterWrite.balance()).isEqualByComparingTo("150.00");
+        verify(repository, times(2)).findById(account.getId());
+    }
+
+    @Test
+    void queryAccounts_passesEveryAccountToTheConsumer_withAdjustedBalances() {
+        // given
+        var sharded = UUID.randomUUID();
+        var plain = UUID.randomUUID();
+        when(repository.streamByIdIn(any())).thenReturn(Stream.of(
+                new AccountBalanceView(sharded, "ACC1", 100_00, Instant.now()),
+                new AccountBalanceView(plain, "ACC2", 200_00, Instant.now())));
+        BalanceAdjuster buckets = (accountId, balance) -> accountId.equals(sharded) ? balance + 50_00 : balance;
+        when(balanceAdjusters.orderedStream()).thenAnswer(invocation -> Stream.of(buckets));
+
+        // when
+        var responses = new ArrayList<AccountResponse>();
+        accountService.queryAccounts(List.of(sharded, plain, sharded), responses::add);
+
+        // then
+        assertThat(responses.get(0).balance()).isEqualByComparingTo("150.00");
+        assertThat(responses.get(1).balance()).isEqualByComparingTo("200.00");
+        verify(repository).streamByIdIn(new LinkedHashSet<>(List.of(sharded, plain)));
+    }
+}
+
@@ -0,0 +1,220 @@
+package co.za.payments.ledger.service.impl;
+
+import co.za.payments.ledger.config.LedgerStatementProperties;
+import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.domain.AccountBalanceCheckpoint;
+import co.za.payments.ledger.domain.EntryType;
+import co.za.payments.ledger.dto.AccountEntryResponse;
+import co.za.payments.ledger.dto.EntryCursor;
+import co.za.payments.ledger.exception.AccountNotFoundException;
+import co.za.payments.ledger.exception.InvalidPageRequestException;
+import co.za.payments.ledger.repository.AccountBalanceBucketRepository;
+import co.za.payments.ledger.repository.AccountBalanceCheckpointRepository;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import co.za.payments.ledger.repository.LedgerEntryView;
+import co.za.payments.ledger.service.AccountStatementService;
+import co.za.payments.ledger.service.archive.SegmentStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Limit;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AccountStatementServiceImplTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private LedgerEntryRepository ledgerRepository;
+
+    @Mock
+    private AccountBalanceBucketRepository bucketRepository;
+
+    @Mock
+    private AccountBalanceCheckpointRepository checkpointRepository;
+
+    @Mock
+    private ObjectProvider<SegmentStore> segmentStore;
+
+    private LedgerStatementProperties properties;
+    private AccountStatementService statementService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new LedgerStatementProperties();
+        properties.setDefaultPageSize(2);
+        properties.setMaxPageSize(10);
+        statementService = new AccountStatementServiceImpl(accountRepository, ledgerRepository, bucketRepository, checkpointRepository, properties, segmentStore);
+    }
+
+    @Test
+    void getEntries_returnsTheCursorOfTheLastEntry_whenThereIsAnotherPage() {
+        // given
+        var accountId = UUID.randomUUID();
+        var entries = entries(3);
+        when(ledgerRepository.findEntriesAfter(accountId, EntryCursor.START.createdAt(), EntryCursor.START.id(), Limit.of(3)))
+                .thenReturn(entries);
+
+        // when
+        var page = statementService.getEntries(accountId, EntryCursor.START, null);
+
+        // then
+        assertThat(page.entries()).extracting(AccountEntryResponse::id).containsExactly(entries.get(0).id(), entries.get(1).id());
+        assertThat(EntryCursor.decode(page.nextCursor())).isEqualTo(new EntryCursor(entries.get(1).createdAt(), entries.get(1).id()));
+        assertThat(page.openingBalance()).isEqualByComparingTo("0.00");
+        assertThat(page.closingBalance()).isEqualByComparingTo("2.00");
+    }
+
+    @Test
+    void getEntries_returnsNoCursor_onTheLastPage() {
+        // given
+        var accountId = UUID.randomUUID();
+        var after = new EntryCursor(Instant.now(), UUID.randomUUID());
+        when(ledgerRepository.findEntriesAfter(accountId, after.createdAt(), after.id(), Limit.of(6))).thenReturn(entries(5));
+
+        // when
+        var page = statementService.getEntries(accountId, after, 5);
+
+        // then
+        assertThat(page.entries()).hasSize(5);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void getEntries_throwsAccountNotFoundException_whenThereAreNoEntriesAndNoAccount() {
+        // given
+        var accountId = UUID.randomUUID();
+        when(ledgerRepository.findEntriesAfter(any(), any(), any(), any())).thenReturn(List.of());
+        when(accountRepository.existsById(accountId)).thenReturn(false);
+
+        // then
+        assertThatExceptionOfType(AccountNotFoundException.class)
+                .isThrownBy(() -> statementService.getEntries(accountId, EntryCursor.START, null));
+    }
+
+    @Test
+    void getEntries_throwsInvalidPageRequestException_whenSizeIsOutOfRange() {
+        // then
+        assertThatExceptionOfType(InvalidPageRequestException.class)
+                .isThrownBy(() -> statementService.getEntries(UUID.randomUUID(), EntryCursor.START, 11))
+                .withMessage("Page size of 11 must be between 1 and 10");
+        assertThatExceptionOfType(InvalidPageRequestException.class)
+                .isThrownBy(() -> statementService.getEntries(UUID.randomUUID(), EntryCursor.START, 0));
+        verifyNoInteractions(ledgerRepository);
+    }
+
+    @Test
+    void streamEntries_passesEveryEntryToTheConsumer() {
+        // given
+        var accountId = UUID.randomUUID();
+        var entries = entries(4);
+        when(ledgerRepository.streamEntriesAfter(accountId, EntryCursor.START.createdAt(), EntryCursor.START.id()))
+                .thenReturn(entries.stream());
+
+        // when
+        var responses = new ArrayList<AccountEntryResponse>();
+        statementService.streamEntries(accountId, EntryCursor.START, responses::add);
+
+        // then
+        assertThat(responses).extracting(AccountEntryResponse::id).containsExactlyElementsOf(entries.stream().map(LedgerEntryView::id).toList());
+        assertThat(responses.getFirst().amount()).isEqualByComparingTo("1.00");
+    }
+
+    @Test
+    void entryCursor_roundTripsThroughItsToken_andRejectsAnInvalidOne() {
+        // given
+        var cursor = new EntryCursor(Instant.parse("2025-03-01T10:15:30.123456Z"), UUID.randomUUID());
+
+        // then
+        assertThat(EntryCursor.decode(cursor.encode())).isEqualTo(cursor);
+        assertThat(EntryCursor.decode(null)).isEqualTo(EntryCursor.START);
+        assertThatExceptionOfType(InvalidPageRequestException.class).isThrownBy(() -> EntryCursor.decode("not-a-cursor"));
+    }
+
+    @Test
+    void getBalance_addsTheEntriesSinceTheLatestCheckpoint() {
+        // given
+        var account = account(Instant.parse("2025-01-01T00:00:00Z"));
+        var checkpointAt = Instant.parse("2025-03-01T00:00:00Z");
+        var asOf = Instant.parse("2025-03-01T12:00:00Z");
+
+        when(accountRepository.findById(account.getId())).thenReturn(Optional.of(account));
+        when(checkpointRepository.findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(account.getId(), asOf))
+                .thenReturn(Optional.of(AccountBalanceCheckpoint.of(account.getId(), checkpointAt, 500_00)));
+        when(ledgerRepository.sumSignedAmountsBetween(account.getId(), checkpointAt, asOf)).thenReturn(-120_50L);
+
+        // when
+        var response = statementService.getBalance(account.getId(), asOf);
+
+        // then
+        assertThat(response.balance()).isEqualByComparingTo("379.50");
+        verifyNoInteractions(bucketRepository);
+    }
+
+    @Test
+    void getBalance_takesTheEntriesOffTheEarliestLaterCheckpoint_whenThereIsNoEarlierOne() {
+        // given
+        var account = account(Instant.parse("2025-01-01T00:00:00Z"));
+        var checkpointAt = Instant.parse("2025-03-01T00:00:00Z");
+        var asOf = Instant.parse("2025-02-15T00:00:00Z");
+
+        when(accountRepository.findById(account.getId())).thenReturn(Optional.of(account));
+        when(checkpointRepository.findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(account.getId(), asOf))
+                .thenReturn(Optional.empty());
+        when(checkpointRepository.findFirstByAccountIdAndAsOfGreaterThanOrderByAsOfAsc(account.getId(), asOf))
+                .thenReturn(Optional.of(AccountBalanceCheckpoint.of(account.getId(), checkpointAt, 500_00)));
+        when(ledgerRepository.sumSignedAmountsBetween(account.getId(), asOf, checkpointAt)).thenReturn(200_00L);
+
+        // when
+        var response = statementService.getBalance(account.getId(), asOf);
+
+        // then
+        assertThat(response.balance()).isEqualByComparingTo("300.00");
+    }
+
+    @Test
+    void getBalance_returnsZero_beforeTheAccountWasCreated() {
+        // given
+        var account = account(Instant.parse("2025-01-01T00:00:00Z"));
+        when(accountRepository.findById(account.getId())).thenReturn(Optional.of(account));
+
+        // when
+        var response = statementService.getBalance(account.getId(), Instant.parse("2024-12-31T23:59:59Z"));
+
+        // then
+        assertThat(response.balance()).isEqualByComparingTo("0.00");
+        verifyNoInteractions(checkpointRepository, ledgerRepository);
+    }
+
+    private static Account account(Instant createdAt) {
+        var account = Account.instanceOf(1_000_00);
+        account.setId(UUID.randomUUID());
+        account.setCreatedAt(createdAt);
+        return account;
+    }
+
+    private static List<LedgerEntryView> entries(int count) {
+        var now = Instant.now();
+        return IntStream.range(0, count)
+                .mapToObj(i -> new LedgerEntryView(UUID.randomUUID(), UUID.randomUUID(), EntryType.CREDIT, 100, 100L * (i + 1), now.plusMillis(i)))
+                .toList();
+    }
+}
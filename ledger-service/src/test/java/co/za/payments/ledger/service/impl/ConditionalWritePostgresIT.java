@@ -0,0 +1,116 @@
+package co.za.payments.ledger.service.impl;
+
+import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.domain.LedgerEntry;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.exception.AccountNotFoundException;
+import co.za.payments.ledger.exception.InsufficientAccountBalanceException;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import co.za.payments.ledger.service.LedgerService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * The conditional write mode on PostgreSQL, where the guarded updates return the balance they left behind with
+ * {@code UPDATE ... RETURNING} instead of reading it back.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "ledger.write.mode=conditional",
+        "logging.level.org.hibernate.SQL=off"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class ConditionalWritePostgresIT {
+
+    private static final int ACCOUNTS = 4;
+    private static final int TRANSFERS = 60;
+
+    @Container
+    @ServiceConnection
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15");
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private LedgerEntryRepository ledgerRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @AfterEach
+    void cleanUp() {
+        ledgerRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    void createEntry_recordsTheBalanceReturnedByEachUpdate() {
+        // given
+        var accounts = IntStream.range(0, ACCOUNTS)
+                .mapToObj(i -> accountRepository.save(Account.instanceOf(1_000_00)))
+                .toList();
+
+        // when
+        var random = new Random(11);
+        for (int i = 0; i < TRANSFERS; i++) {
+            var from = random.nextInt(ACCOUNTS);
+            var to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+            ledgerService.createEntry(new TransferRequest(UUID.randomUUID(), accounts.get(from).getId(),
+                    accounts.get(to).getId(), BigDecimal.valueOf(1 + random.nextInt(50))));
+        }
+
+        // then
+        for (var account : accounts) {
+            var balance = 1_000_00L;
+            for (var entry : history(account.getId())) {
+                balance += entry.signedAmount();
+                assertThat(entry.getBalanceAfter()).isEqualTo(balance);
+            }
+            assertThat(accountRepository.findBalance(account.getId())).isEqualTo(balance);
+        }
+    }
+
+    @Test
+    void createEntry_rejectsTheTransfer_whenAGuardedUpdateReturnsNoBalance() {
+        // given
+        var account = accountRepository.save(Account.instanceOf(10_00));
+        var other = accountRepository.save(Account.instanceOf(0));
+        var insufficient = new TransferRequest(UUID.randomUUID(), account.getId(), other.getId(), BigDecimal.valueOf(20));
+        var unknown = new TransferRequest(UUID.randomUUID(), account.getId(), UUID.randomUUID(), BigDecimal.ONE);
+
+        // when
+        assertThatExceptionOfType(InsufficientAccountBalanceException.class)
+                .isThrownBy(() -> ledgerService.createEntry(insufficient));
+        assertThatExceptionOfType(AccountNotFoundException.class)
+                .isThrownBy(() -> ledgerService.createEntry(unknown));
+
+        // then
+        assertThat(accountRepository.findBalance(account.getId())).isEqualTo(10_00);
+    }
+
+    private List<LedgerEntry> history(UUID accountId) {
+        return ledgerRepository.findAll().stream()
+                .filter(entry -> entry.getAccountId().equals(accountId))
+                .sorted(Comparator.comparing(LedgerEntry::getCreatedAt))
+                .toList();
+    }
+}
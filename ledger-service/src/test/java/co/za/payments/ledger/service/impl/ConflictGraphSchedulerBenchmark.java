@@ -0,0 +1,111 @@
+package co.za.payments.ledger.service.impl;
+
+import co.za.payments.ledger.config.LedgerBatchProperties;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.exception.AccountNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+/**
+ * <p>Compares writing a ledger batch chunk by chunk with the waves of the {@link ConflictGraphScheduler}, for
+ * batches where a growing share of the transfers moves money between a small set of shared accounts.</p>
+ * <p>The writer stands in for {@link LedgerBatchWriter} with a fixed cost per transaction and per transfer, so
+ * the benchmark measures the scheduling and not the database. Run {@link #main(String[])} from the test
+ * classpath after {@code mvn test-compile}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConflictGraphSchedulerBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int SHARED_ACCOUNTS = 16;
+    private static final long TRANSACTION_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long TRANSFER_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+
+    /**
+     * Share of the transfers whose accounts both come from the shared accounts, the others use accounts of their own.
+     */
+    @Param({"0", "0.01", "0.1", "0.5"})
+    private double overlapRatio;
+
+    private LedgerBatchProperties properties;
+    private ConflictGraphScheduler scheduler;
+    private List<TransferRequest> requests;
+
+    @Setup
+    public void setUp() {
+        properties = new LedgerBatchProperties();
+        properties.setChunkSize(50);
+        properties.setParallelism(4);
+        scheduler = new ConflictGraphScheduler(properties, new SimpleMeterRegistry());
+
+        var random = new Random(42);
+        var shared = IntStream.range(0, SHARED_ACCOUNTS).mapToObj(i -> UUID.randomUUID()).toList();
+
+        requests = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            if (random.nextDouble() < overlapRatio) {
+                var from = random.nextInt(SHARED_ACCOUNTS);
+                var to = (from + 1 + random.nextInt(SHARED_ACCOUNTS - 1)) % SHARED_ACCOUNTS;
+                requests.add(new TransferRequest(UUID.randomUUID(), shared.get(from), shared.get(to), BigDecimal.ONE));
+            } else {
+                requests.add(new TransferRequest(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), BigDecimal.ONE));
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        scheduler.stop();
+    }
+
+    /**
+     * Chunks written one after another, as {@link LedgerBatchServiceImpl} does without a scheduler.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int sequential() {
+        var written = 0;
+        for (int from = 0; from < requests.size(); from += properties.getChunkSize()) {
+            var to = Math.min(from + properties.getChunkSize(), requests.size());
+            written += write(requests.subList(from, to)).size();
+        }
+        return written;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int conflictGraph() {
+        return scheduler.execute(requests, ConflictGraphSchedulerBenchmark::write).size();
+    }
+
+    private static List<TransferOutcome> write(List<TransferRequest> chunk) {
+        LockSupport.parkNanos(TRANSACTION_NANOS + TRANSFER_NANOS * chunk.size());
+        return chunk.stream()
+                .map(request -> TransferOutcome.rejected(request.transferId(), new AccountNotFoundException(request.fromAccountId())))
+                .toList();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ConflictGraphSchedulerBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
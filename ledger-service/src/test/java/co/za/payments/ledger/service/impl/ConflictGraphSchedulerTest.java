@@ -0,0 +1,130 @@
+package co.za.payments.ledger.service.impl;
+
+import co.za.payments.ledger.config.LedgerBatchProperties;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.exception.AccountNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConflictGraphSchedulerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<List<TransferRequest>> writtenChunks = Collections.synchronizedList(new ArrayList<>());
+
+    private ConflictGraphScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        var properties = new LedgerBatchProperties();
+        properties.setChunkSize(2);
+        properties.setParallelism(4);
+        scheduler = new ConflictGraphScheduler(properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        scheduler.stop();
+    }
+
+    @Test
+    void waves_placesTransfersSharingAnAccountInLaterWaves() {
+        // given
+        var a = UUID.randomUUID();
+        var b = UUID.randomUUID();
+        var c = UUID.randomUUID();
+        var d = UUID.randomUUID();
+
+        var requests = List.of(
+                transfer(a, b),
+                transfer(c, d),
+                transfer(b, c),
+                transfer(a, d),
+                transfer(b, a));
+
+        // when
+        var waves = ConflictGraphScheduler.waves(requests);
+
+        // then
+        assertThat(waves).containsExactly(List.of(0, 1), List.of(2, 3), List.of(4));
+    }
+
+    @Test
+    void waves_separatesTransfersWithTheSameTransferId() {
+        // given
+        var first = transfer(UUID.randomUUID(), UUID.randomUUID());
+        var replay = new TransferRequest(first.transferId(), UUID.randomUUID(), UUID.randomUUID(), BigDecimal.TEN);
+
+        // when
+        var waves = ConflictGraphScheduler.waves(List.of(first, replay));
+
+        // then
+        assertThat(waves).containsExactly(List.of(0), List.of(1));
+    }
+
+    @Test
+    void execute_writesEachWaveInParallelChunks_andReturnsOutcomesInSubmissionOrder() {
+        // given
+        var accounts = IntStream.range(0, 8).mapToObj(i -> UUID.randomUUID()).toList();
+        var requests = new ArrayList<TransferRequest>();
+        for (int i = 0; i < 8; i += 2) {
+            requests.add(transfer(accounts.get(i), accounts.get(i + 1)));
+        }
+        for (int i = 0; i < 8; i += 2) {
+            requests.add(transfer(accounts.get(i + 1), accounts.get(i)));
+        }
+
+        // when
+        var outcomes = scheduler.execute(requests, this::write);
+
+        // then
+        assertThat(outcomes)
+                .extracting(TransferOutcome::transferId)
+                .containsExactlyElementsOf(requests.stream().map(TransferRequest::transferId).toList());
+        assertThat(writtenChunks).hasSize(4);
+        assertThat(meterRegistry.summary("ledger.batch.waves").totalAmount()).isEqualTo(2);
+
+        var firstWave = requests.subList(0, 4);
+        assertThat(writtenChunks.subList(0, 2).stream().flatMap(List::stream)).containsExactlyInAnyOrderElementsOf(firstWave);
+    }
+
+    @Test
+    void execute_writesSequentially_whenOneAccountIsInEveryTransfer() {
+        // given
+        var hot = UUID.randomUUID();
+        var requests = IntStream.range(0, 6)
+                .mapToObj(i -> transfer(hot, UUID.randomUUID()))
+                .toList();
+
+        // when
+        var outcomes = scheduler.execute(requests, this::write);
+
+        // then
+        assertThat(outcomes)
+                .extracting(TransferOutcome::transferId)
+                .containsExactlyElementsOf(requests.stream().map(TransferRequest::transferId).toList());
+        assertThat(writtenChunks).containsExactly(requests.subList(0, 2), requests.subList(2, 4), requests.subList(4, 6));
+        assertThat(meterRegistry.counter("ledger.batch.waves.fallback").count()).isEqualTo(1);
+    }
+
+    private List<TransferOutcome> write(List<TransferRequest> chunk) {
+        writtenChunks.add(chunk);
+        return chunk.stream()
+                .map(request -> TransferOutcome.rejected(request.transferId(), new AccountNotFoundException(request.fromAccountId())))
+                .toList();
+    }
+
+    private static TransferRequest transfer(UUID fromAccountId, UUID toAccountId) {
+        return new TransferRequest(UUID.randomUUID(), fromAccountId, toAccountId, BigDecimal.TEN);
+    }
+}
@@ -0,0 +1,136 @@
+package co.za.payments.ledger.service.impl;
+
+import co.za.payments.ledger.config.LedgerGroupCommitProperties;
+import co.za.payments.ledger.dto.BatchTransferStatus;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.exception.AccountNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GroupCommitEngineTest {
+
+    @Mock
+    private LedgerBatchWriter batchWriter;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private GroupCommitEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        var properties = new LedgerGroupCommitProperties();
+        properties.setWriterThreads(1);
+        properties.setMaxBatchSize(8);
+        properties.setMaxWait(Duration.ofMillis(50));
+
+        meterRegistry = new SimpleMeterRegistry();
+        engine = new GroupCommitEngine(batchWriter, properties, meterRegistry);
+        engine.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        engine.stop();
+    }
+
+    @Test
+    void submit_completesEveryFutureWithItsOwnOutcome_fromSharedMicroBatches() {
+        // given
+        when(batchWriter.writeLocked(any())).thenAnswer(invocation -> invocation.<List<TransferRequest>>getArgument(0).stream()
+                .map(request -> TransferOutcome.rejected(request.transferId(), new AccountNotFoundException(request.toAccountId())))
+                .toList());
+
+        var requests = IntStream.range(0, 20)
+                .mapToObj(i -> new TransferRequest(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), BigDecimal.TEN))
+                .toList();
+
+        // when
+        var futures = requests.stream().map(engine::submit).toList();
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).orTimeout(5, TimeUnit.SECONDS).join();
+
+        // then
+        for (int i = 0; i < requests.size(); i++) {
+            var outcome = futures.get(i).join();
+            assertThat(outcome.transferId()).isEqualTo(requests.get(i).transferId());
+            assertThat(outcome.status()).isEqualTo(BatchTransferStatus.ACCOUNT_NOT_FOUND);
+        }
+
+        // and transfers were committed in micro-batches of at most 8
+        var batchSize = meterRegistry.get("ledger.group_commit.batch.size").summary();
+        assertThat(batchSize.totalAmount()).isEqualTo(20);
+        assertThat(batchSize.max()).isLessThanOrEqualTo(8);
+        assertThat(batchSize.count()).isLessThan(20);
+        assertThat(meterRegistry.get("ledger.group_commit.wait").timer().count()).isEqualTo(20);
+    }
+
+    @Test
+    void submit_failsEveryFutureInTheBatch_whenTheSharedCommitFails() {
+        // given
+        when(batchWriter.writeLocked(any())).thenThrow(new IllegalStateException("commit failed"));
+
+        // when
+        var future = engine.submit(new TransferRequest(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), BigDecimal.TEN));
+
+        // then
+        assertThat(future).failsWithin(Duration.ofSeconds(5))
+                .withThrowableOfType(Exception.class)
+                .havingCause()
+                .isInstanceOf(IllegalStateException.class)
+                .withMessage("commit failed");
+    }
+
+    @Test
+    void submit_givesUp_whenTheQueueStaysFullForTheSubmitTimeout() throws InterruptedException {
+        // given a writer stuck on a commit and a queue of one that is already taken
+        engine.stop();
+        var properties = new LedgerGroupCommitProperties();
+        properties.setWriterThreads(1);
+        properties.setMaxBatchSize(1);
+        properties.setQueueCapacity(1);
+        properties.setSubmitTimeout(Duration.ofMillis(50));
+        engine = new GroupCommitEngine(batchWriter, properties, meterRegistry);
+        engine.start();
+
+        var taken = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(batchWriter.writeLocked(any())).thenAnswer(invocation -> {
+            taken.countDown();
+            release.await();
+            return List.of();
+        });
+        engine.submit(new TransferRequest(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), BigDecimal.TEN));
+        assertThat(taken.await(5, TimeUnit.SECONDS)).isTrue();
+        engine.submit(new TransferRequest(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), BigDecimal.TEN));
+
+        // when
+        var request = new TransferRequest(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), BigDecimal.TEN);
+
+        // then
+        try {
+            assertThatThrownBy(() -> engine.submit(request))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("queue is full");
+        } finally {
+            release.countDown();
+        }
+    }
+}
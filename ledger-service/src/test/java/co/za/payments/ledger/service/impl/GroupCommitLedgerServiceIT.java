@@ -0,0 +1,112 @@
+package co.za.payments.ledger.service.impl;
+
+import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.domain.EntryType;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.exception.InsufficientAccountBalanceException;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import co.za.payments.ledger.service.LedgerService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "ledger.group-commit.enabled=true",
+        "ledger.group-commit.max-wait=2ms",
+        "logging.level.org.hibernate.SQL=off"
+})
+@Slf4j
+class GroupCommitLedgerServiceIT {
+
+    private static final int CALLERS = 40;
+    private static final int TRANSFERS = 400;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private LedgerEntryRepository ledgerRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void cleanUp() {
+        ledgerRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    void createEntry_isRoutedThroughGroupCommit() {
+        assertThat(ledgerService).isInstanceOf(GroupCommitLedgerService.class);
+    }
+
+    @Test
+    void createEntry_throwsInsufficientBalanceException_whenRejectedInsideMicroBatch() {
+        var fromAccount = accountRepository.save(Account.instanceOf(5_00));
+        var toAccount = accountRepository.save(Account.instanceOf(5_00));
+
+        var request = new TransferRequest(UUID.randomUUID(), fromAccount.getId(), toAccount.getId(), BigDecimal.valueOf(50));
+
+        assertThatExceptionOfType(InsufficientAccountBalanceException.class)
+                .isThrownBy(() -> ledgerService.createEntry(request))
+                .withMessage("Insufficient funds in account %s".formatted(fromAccount.getId()));
+    }
+
+    @Test
+    void createEntry_conservesMoney_withMoreConcurrentCallersThanPooledConnections() throws Exception {
+        // given
+        List<UUID> accountIds = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            accountIds.add(accountRepository.save(Account.instanceOf(100_000_00)).getId());
+        }
+
+        var succeeded = new AtomicInteger();
+
+        // when
+        var started = System.nanoTime();
+        try (var executor = Executors.newFixedThreadPool(CALLERS)) {
+            for (int i = 0; i < TRANSFERS; i++) {
+                var request = new TransferRequest(UUID.randomUUID(),
+                        accountIds.get(i % 4), accountIds.get((i + 1) % 4), BigDecimal.ONE);
+
+                executor.submit(() -> {
+                    ledgerService.createEntry(request);
+                    succeeded.incrementAndGet();
+                });
+            }
+            executor.shutdown();
+            assertThat(executor.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+        }
+        var elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        var batchSize = meterRegistry.get("ledger.group_commit.batch.size").summary();
+        log.info("Group commit: {} transfers from {} callers in {} ms ({} transfers/s), mean batch size {}",
+                succeeded.get(), CALLERS, elapsedMillis, succeeded.get() * 1000L / elapsedMillis, batchSize.mean());
+
+        // then
+        assertThat(succeeded.get()).isEqualTo(TRANSFERS);
+        assertThat(ledgerRepository.findAll().stream().filter(entry -> entry.getType() == EntryType.DEBIT)).hasSize(TRANSFERS);
+        assertThat(accountRepository.findAllById(accountIds).stream().mapToLong(Account::getBalance).sum())
+                .isEqualTo(400_000_00L);
+        assertThat(batchSize.mean()).isGreaterThan(1.0);
+    }
+}
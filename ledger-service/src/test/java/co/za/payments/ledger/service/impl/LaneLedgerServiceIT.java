@@ -0,0 +1,108 @@
+package co.za.payments.ledger.service.impl;
+
+import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.domain.EntryType;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import co.za.payments.ledger.service.LedgerService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Same contended workload as {@link LedgerContentionIT} in the default JPA write mode, but routed
+ * through the account lanes, so transfers on the same accounts no longer race on optimistic locks.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "ledger.lanes.enabled=true",
+        "logging.level.org.hibernate.SQL=off"
+})
+@Slf4j
+class LaneLedgerServiceIT {
+
+    private static final int HOT_ACCOUNTS = 3;
+    private static final int TRANSFERS = 120;
+    private static final int THREADS = 8;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private LedgerEntryRepository ledgerRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void cleanUp() {
+        ledgerRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    void createEntry_isRoutedThroughLanes() {
+        assertThat(ledgerService).isInstanceOf(LaneLedgerService.class);
+    }
+
+    @Test
+    void createEntry_completesEveryContendedTransfer() throws Exception {
+        // given
+        List<UUID> accountIds = new ArrayList<>();
+        for (int i = 0; i < HOT_ACCOUNTS; i++) {
+            accountIds.add(accountRepository.save(Account.instanceOf(100_000_00)).getId());
+        }
+
+        var succeeded = new AtomicInteger();
+        var failed = new AtomicInteger();
+
+        // when
+        var started = System.nanoTime();
+        try (var executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int i = 0; i < TRANSFERS; i++) {
+                var request = new TransferRequest(UUID.randomUUID(),
+                        accountIds.get(i % HOT_ACCOUNTS), accountIds.get((i + 1) % HOT_ACCOUNTS), BigDecimal.TEN);
+
+                executor.submit(() -> {
+                    try {
+                        ledgerService.createEntry(request);
+                        succeeded.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                    }
+                });
+            }
+            executor.shutdown();
+            assertThat(executor.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+        }
+        var elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        var laneWaits = meterRegistry.get("ledger.lanes.waits").counter().count();
+        var retriesAvoided = meterRegistry.get("ledger.lanes.retries.avoided").counter().count();
+        log.info("Lanes: {} transfers in {} ms ({} transfers/s), {} failed, {} waited for a lane, {} behind a shared account",
+                succeeded.get(), elapsedMillis, succeeded.get() * 1000L / elapsedMillis, failed.get(), laneWaits, retriesAvoided);
+
+        // then
+        assertThat(failed.get()).isZero();
+        assertThat(retriesAvoided).isPositive().isLessThanOrEqualTo(laneWaits);
+        assertThat(ledgerRepository.findAll().stream().filter(entry -> entry.getType() == EntryType.DEBIT)).hasSize(TRANSFERS);
+        assertThat(accountRepository.findAllById(accountIds).stream().mapToLong(Account::getBalance).sum())
+                .isEqualTo(100_000_00L * HOT_ACCOUNTS);
+    }
+}
@@ -0,0 +1,133 @@
+package co.za.payments.ledger.service.impl;
+
+import co.za.payments.ledger.config.LedgerBatchProperties;
+import co.za.payments.ledger.dto.BatchTransferRequest;
+import co.za.payments.ledger.dto.BatchTransferResult;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.exception.AccountNotFoundException;
+import co.za.payments.ledger.exception.InvalidBatchSizeException;
+import co.za.payments.ledger.dto.BatchTransferStatus;
+import co.za.payments.ledger.dto.LedgerTransferResponse;
+import co.za.payments.ledger.exception.InsufficientAccountBalanceException;
+import co.za.payments.ledger.service.LedgerBatchService;
+import co.za.payments.ledger.service.LedgerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerBatchServiceImplTest {
+
+    @Mock
+    private LedgerBatchWriter batchWriter;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private ObjectProvider<ConflictGraphScheduler> conflictGraphScheduler;
+
+    private LedgerBatchProperties properties;
+
+    private LedgerBatchService batchService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new LedgerBatchProperties();
+        properties.setMaxSize(10);
+        properties.setChunkSize(4);
+        batchService = new LedgerBatchServiceImpl(batchWriter, ledgerService, properties, conflictGraphScheduler);
+    }
+
+    @Test
+    void createEntries_writesTransfersInChunks_andKeepsSubmissionOrder() {
+        // given
+        var requests = IntStream.range(0, 10)
+                .mapToObj(i -> new TransferRequest(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), BigDecimal.TEN))
+                .toList();
+
+        when(batchWriter.write(any())).thenAnswer(invocation -> invocation.<List<TransferRequest>>getArgument(0).stream()
+                .map(request -> TransferOutcome.rejected(request.transferId(), new AccountNotFoundException(request.fromAccountId())))
+                .toList());
+
+        // when
+        var response = batchService.createEntries(new BatchTransferRequest(requests));
+
+        // then
+        verify(batchWriter, times(3)).write(any());
+        assertThat(response.results())
+                .extracting(BatchTransferResult::transferId)
+                .containsExactlyElementsOf(requests.stream().map(TransferRequest::transferId).toList());
+    }
+
+    @Test
+    void createEntries_routesTransfersOnHeldAccountsThroughTheLedgerService_inSubmissionOrder() {
+        // given
+        var hotAccountId = UUID.randomUUID();
+        var requests = IntStream.range(0, 6)
+                .mapToObj(i -> new TransferRequest(UUID.randomUUID(), i % 3 == 1 ? hotAccountId : UUID.randomUUID(),
+                        UUID.randomUUID(), BigDecimal.TEN))
+                .toList();
+
+        when(batchWriter.heldAccounts(requests)).thenReturn(Set.of(hotAccountId));
+        when(batchWriter.write(any())).thenAnswer(invocation -> invocation.<List<TransferRequest>>getArgument(0).stream()
+                .map(request -> TransferOutcome.rejected(request.transferId(), new AccountNotFoundException(request.fromAccountId())))
+                .toList());
+        when(ledgerService.createEntry(requests.get(1))).thenReturn(LedgerTransferResponse.builder()
+                .transferId(requests.get(1).transferId())
+                .createdAt(Instant.now().plusSeconds(1))
+                .build());
+        when(ledgerService.createEntry(requests.get(4))).thenThrow(new InsufficientAccountBalanceException(hotAccountId));
+
+        // when
+        var response = batchService.createEntries(new BatchTransferRequest(requests));
+
+        // then
+        var inOrder = inOrder(batchWriter, ledgerService);
+        inOrder.verify(batchWriter).write(requests.subList(0, 1));
+        inOrder.verify(ledgerService).createEntry(requests.get(1));
+        inOrder.verify(batchWriter).write(requests.subList(2, 4));
+        inOrder.verify(ledgerService).createEntry(requests.get(4));
+        inOrder.verify(batchWriter).write(requests.subList(5, 6));
+        assertThat(response.results())
+                .extracting(BatchTransferResult::transferId, BatchTransferResult::status)
+                .containsExactly(
+                        tuple(requests.get(0).transferId(), BatchTransferStatus.ACCOUNT_NOT_FOUND),
+                        tuple(requests.get(1).transferId(), BatchTransferStatus.CREATED),
+                        tuple(requests.get(2).transferId(), BatchTransferStatus.ACCOUNT_NOT_FOUND),
+                        tuple(requests.get(3).transferId(), BatchTransferStatus.ACCOUNT_NOT_FOUND),
+                        tuple(requests.get(4).transferId(), BatchTransferStatus.INSUFFICIENT_FUNDS),
+                        tuple(requests.get(5).transferId(), BatchTransferStatus.ACCOUNT_NOT_FOUND));
+    }
+
+    @Test
+    void createEntries_throwsInvalidBatchSizeException_whenBatchExceedsMaxSize() {
+        // given
+        var requests = IntStream.range(0, 11)
+                .mapToObj(i -> new TransferRequest(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), BigDecimal.TEN))
+                .toList();
+        var request = new BatchTransferRequest(requests);
+
+        // then
+        assertThatExceptionOfType(InvalidBatchSizeException.class)
+                .isThrownBy(() -> batchService.createEntries(request))
+                .withMessage("Batch size of 11 exceeds max allowed size of 10");
+
+        verifyNoInteractions(batchWriter);
+    }
+}
@@ -0,0 +1,161 @@
+package co.za.payments.ledger.service.impl;
+
+import co.za.payments.ledger.config.LedgerLockingProperties;
+import co.za.payments.ledger.config.LedgerTransferFilterProperties;
+import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.domain.LedgerEntry;
+import co.za.payments.ledger.dto.BatchTransferStatus;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import co.za.payments.ledger.service.BalanceAdjuster;
+import co.za.payments.ledger.service.dedup.LedgerEntryKeys;
+import co.za.payments.ledger.service.dedup.TransferIdFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static co.za.payments.ledger.config.AppConstants.ACCOUNT_NOT_BATCHABLE;
+import static co.za.payments.ledger.config.AppConstants.ACCOUNT_NOT_FOUND_CODE;
+import static co.za.payments.ledger.config.AppConstants.INSUFFICIENT_BAL;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerBatchWriterTest {
+
+    @Mock
+    private LedgerEntryRepository ledgerRepository;
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private AccountCache accountCache;
+    @Mock
+    private LedgerEntryKeys entryKeys;
+    @Mock
+    private ObjectProvider<BalanceAdjuster> balanceAdjusters;
+
+    private LedgerBatchWriter batchWriter;
+
+    private Account fromAccount;
+    private Account toAccount;
+
+    @BeforeEach
+    void setUp() {
+        batchWriter = new LedgerBatchWriter(ledgerRepository, accountRepository, new LedgerLockingProperties(),
+                new TransferIdFilter(ledgerRepository, new LedgerTransferFilterProperties(), new SimpleMeterRegistry()), accountCache, entryKeys,
+                balanceAdjusters);
+
+        fromAccount = Account.instanceOf(500_00);
+        fromAccount.setId(UUID.randomUUID());
+        toAccount = Account.instanceOf(100_00);
+        toAccount.setId(UUID.randomUUID());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void write_appliesEachTransfer_andReportsPerItemResults() {
+        // given
+        var created = new TransferRequest(UUID.randomUUID(), fromAccount.getId(), toAccount.getId(), BigDecimal.valueOf(300));
+        var insufficient = new TransferRequest(UUID.randomUUID(), fromAccount.getId(), toAccount.getId(), BigDecimal.valueOf(300));
+        var missingAccount = new TransferRequest(UUID.randomUUID(), fromAccount.getId(), UUID.randomUUID(), BigDecimal.valueOf(10));
+        var reversed = new TransferRequest(UUID.randomUUID(), toAccount.getId(), fromAccount.getId(), BigDecimal.valueOf(50));
+
+        when(ledgerRepository.findByTransferIdIn(any())).thenReturn(List.of());
+        when(accountRepository.findAllById(any())).thenReturn(List.of(fromAccount, toAccount));
+
+        // when
+        var results = batchWriter.write(List.of(created, insufficient, missingAccount, reversed));
+
+        // then
+        assertThat(results).extracting("status").containsExactly(
+                BatchTransferStatus.CREATED,
+                BatchTransferStatus.INSUFFICIENT_FUNDS,
+                BatchTransferStatus.ACCOUNT_NOT_FOUND,
+                BatchTransferStatus.CREATED);
+        assertThat(results.get(1).error().getCode()).isEqualTo(INSUFFICIENT_BAL);
+        assertThat(results.get(2).error().getCode()).isEqualTo(ACCOUNT_NOT_FOUND_CODE);
+
+        // and balances reflect only accepted transfers, applied in submission order
+        assertThat(fromAccount.getBalance()).isEqualTo(250_00);
+        assertThat(toAccount.getBalance()).isEqualTo(350_00);
+
+        // and all new entries are saved in one call
+        ArgumentCaptor<List<LedgerEntry>> captor = ArgumentCaptor.forClass(List.class);
+        verify(ledgerRepository, times(1)).saveAll(captor.capture());
+        assertThat(captor.getValue()).hasSize(4);
+    }
+
+    @Test
+    void write_returnsDuplicate_forExistingAndRepeatedTransferIds() {
+        // given
+        var existingId = UUID.randomUUID();
+        var repeatedId = UUID.randomUUID();
+
+        when(ledgerRepository.findByTransferIdIn(any())).thenReturn(List.of(
+                LedgerEntry.debit(existingId, fromAccount.getId(), 75_00),
+                LedgerEntry.credit(existingId, toAccount.getId(), 75_00)));
+        when(accountRepository.findAllById(any())).thenReturn(List.of(fromAccount, toAccount));
+
+        // when
+        var results = batchWriter.write(List.of(
+                new TransferRequest(existingId, fromAccount.getId(), toAccount.getId(), BigDecimal.valueOf(10)),
+                new TransferRequest(repeatedId, fromAccount.getId(), toAccount.getId(), BigDecimal.valueOf(20)),
+                new TransferRequest(repeatedId, fromAccount.getId(), toAccount.getId(), BigDecimal.valueOf(20))));
+
+        // then
+        assertThat(results).extracting("status").containsExactly(
+                BatchTransferStatus.DUPLICATE,
+                BatchTransferStatus.CREATED,
+                BatchTransferStatus.DUPLICATE);
+        assertThat(results.get(0).response().debitEntry().amount()).isEqualByComparingTo("75");
+
+        // and the repeated transfer was applied once
+        assertThat(fromAccount.getBalance()).isEqualTo(480_00);
+        assertThat(toAccount.getBalance()).isEqualTo(120_00);
+    }
+
+    @Test
+    void write_rejectsTransfersOnHeldAccounts_withoutLoadingThem() {
+        // given
+        var hotAccountId = UUID.randomUUID();
+        var hotAccounts = new BalanceAdjuster() {
+            @Override
+            public long adjust(UUID accountId, long persistedBalance) {
+                return persistedBalance;
+            }
+
+            @Override
+            public boolean holdsBalanceOf(UUID accountId) {
+                return accountId.equals(hotAccountId);
+            }
+        };
+        when(balanceAdjusters.orderedStream()).thenAnswer(invocation -> Stream.of(hotAccounts));
+        when(ledgerRepository.findByTransferIdIn(any())).thenReturn(List.of());
+        when(accountRepository.findAllById(any())).thenReturn(List.of(fromAccount, toAccount));
+
+        // when
+        var results = batchWriter.write(List.of(
+                new TransferRequest(UUID.randomUUID(), fromAccount.getId(), hotAccountId, BigDecimal.valueOf(10)),
+                new TransferRequest(UUID.randomUUID(), fromAccount.getId(), toAccount.getId(), BigDecimal.valueOf(20))));
+
+        // then
+        assertThat(results).extracting("status").containsExactly(
+                BatchTransferStatus.ACCOUNT_NOT_BATCHABLE,
+                BatchTransferStatus.CREATED);
+        assertThat(results.get(0).error().getCode()).isEqualTo(ACCOUNT_NOT_BATCHABLE);
+        assertThat(fromAccount.getBalance()).isEqualTo(480_00);
+        verify(accountRepository).findAllById(argThat(ids -> !((Collection<?>) ids).contains(hotAccountId)));
+    }
+}
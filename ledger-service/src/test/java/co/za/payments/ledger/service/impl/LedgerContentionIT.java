@@ -0,0 +1,139 @@
+package co.za.payments.ledger.service.impl;
+
+import co.za.payments.ledger.config.LedgerLockingProperties;
+import co.za.payments.ledger.config.LedgerLockingProperties.LockingStrategy;
+import co.za.payments.ledger.config.LedgerWriteProperties;
+import co.za.payments.ledger.config.LedgerWriteProperties.WriteMode;
+import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.domain.EntryType;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import co.za.payments.ledger.service.LedgerService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * <p>Contention benchmark for the ways {@link LedgerEntryServiceImpl} writes a transfer: the JPA write mode with
+ * either locking strategy, and the conditional write mode. The same transfer workload is spread over a varying
+ * number of hot accounts, so most concurrent transfers touch the same rows, and the throughput and p50/p99
+ * latency of each run are logged for comparison.</p>
+ */
+@SpringBootTest(properties = "logging.level.org.hibernate.SQL=off", webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@Slf4j
+class LedgerContentionIT {
+
+    private static final int TRANSFERS = 160;
+    private static final int THREADS = 8;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private LedgerWriteProperties writeProperties;
+
+    @Autowired
+    private LedgerLockingProperties lockingProperties;
+
+    @Autowired
+    private LedgerEntryRepository ledgerRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @AfterEach
+    void cleanUp() {
+        writeProperties.setMode(WriteMode.JPA);
+        lockingProperties.setStrategy(LockingStrategy.OPTIMISTIC);
+        ledgerRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    /**
+     * The locking strategy only applies to the JPA write mode.
+     */
+    static Stream<Arguments> writePathsAndHotAccounts() {
+        return Stream.of(
+                        Arguments.of(WriteMode.JPA, LockingStrategy.OPTIMISTIC),
+                        Arguments.of(WriteMode.JPA, LockingStrategy.PESSIMISTIC),
+                        Arguments.of(WriteMode.CONDITIONAL, LockingStrategy.OPTIMISTIC))
+                .flatMap(path -> Stream.of(2, 4, 16).map(hotAccounts -> Arguments.of(path.get()[0], path.get()[1], hotAccounts)));
+    }
+
+    @ParameterizedTest(name = "{0} {1} with {2} hot accounts")
+    @MethodSource("writePathsAndHotAccounts")
+    void createEntry_conservesMoney_underContendedTransfers(WriteMode mode, LockingStrategy strategy, int hotAccounts) throws Exception {
+        // given
+        writeProperties.setMode(mode);
+        lockingProperties.setStrategy(strategy);
+
+        List<UUID> accountIds = new ArrayList<>();
+        for (int i = 0; i < hotAccounts; i++) {
+            accountIds.add(accountRepository.save(Account.instanceOf(100_000_00)).getId());
+        }
+
+        var latencies = new ConcurrentLinkedQueue<Long>();
+        var failed = new AtomicInteger();
+
+        // when
+        var started = System.nanoTime();
+        try (var executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int i = 0; i < TRANSFERS; i++) {
+                var request = new TransferRequest(UUID.randomUUID(),
+                        accountIds.get(i % hotAccounts), accountIds.get((i + 1) % hotAccounts), BigDecimal.TEN);
+
+                executor.submit(() -> {
+                    var requestStarted = System.nanoTime();
+                    try {
+                        ledgerService.createEntry(request);
+                        latencies.add(System.nanoTime() - requestStarted);
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                    }
+                });
+            }
+            executor.shutdown();
+            assertThat(executor.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+        }
+        var elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        var sorted = latencies.stream().sorted().toList();
+        log.info("Write mode [{}], locking [{}] with {} hot accounts: {} transfers in {} ms ({} transfers/s), p50 {} ms, p99 {} ms, {} failed",
+                mode, strategy, hotAccounts, sorted.size(), elapsedMillis, sorted.size() * 1000L / elapsedMillis,
+                percentileMillis(sorted, 0.50), percentileMillis(sorted, 0.99), failed.get());
+
+        // then
+        assertThat(accountRepository.findAllById(accountIds).stream().mapToLong(Account::getBalance).sum())
+                .isEqualTo(100_000_00L * hotAccounts);
+        assertThat(ledgerRepository.findAll().stream().filter(entry -> entry.getType() == EntryType.DEBIT))
+                .hasSize(sorted.size());
+
+        // only optimistic JPA writes can run out of retries
+        if (mode == WriteMode.CONDITIONAL || strategy == LockingStrategy.PESSIMISTIC) {
+            assertThat(failed.get()).isZero();
+        }
+    }
+
+    private static long percentileMillis(List<Long> sortedNanos, double percentile) {
+        if (sortedNanos.isEmpty()) {
+            return 0;
+        }
+        var index = (int) Math.ceil(percentile * sortedNanos.size()) - 1;
+        return TimeUnit.NANOSECONDS.toMillis(sortedNanos.get(Math.max(0, index)));
+    }
+}
@@ -41,8 +41,8 @@ class LedgerEntryServiceIT {
     @Test
     void createEntry_debitsFromAccount_creditsToAccount_createsLedgerEntries() {
         //given
-        var fromAccount = accountRepository.save(Account.instanceOf(BigDecimal.valueOf(500)));
-        var toAccount = accountRepository.save(Account.instanceOf(BigDecimal.valueOf(10)));
+        var fromAccount = accountRepository.save(Account.instanceOf(500_00));
+        var toAccount = accountRepository.save(Account.instanceOf(10_00));
         var transferId = UUID.randomUUID();
 
         var request = new TransferRequest(transferId, fromAccount.getId(), toAccount.getId(), BigDecimal.valueOf(100));
@@ -54,8 +54,8 @@ class LedgerEntryServiceIT {
         var updatedFromAccount = accountRepository.findById(fromAccount.getId()).orElseThrow();
         var updateToAccount = accountRepository.findById(toAccount.getId()).orElseThrow();
 
-        assertThat(updateToAccount.getBalance()).isEqualByComparingTo("110.00");
-        assertThat(updatedFromAccount.getBalance()).isEqualByComparingTo("400.00");
+        assertThat(updateToAccount.getBalance()).isEqualTo(110_00);
+        assertThat(updatedFromAccount.getBalance()).isEqualTo(400_00);
         var entries = ledgerRepository.findAll(Sort.by(Sort.Order.by("createdAt")));
 
         // and
@@ -64,17 +64,19 @@ class LedgerEntryServiceIT {
                 .hasSize(2);
         assertThat(entries.get(0).getType()).isEqualTo(EntryType.DEBIT);
         assertThat(entries.get(0).getAccountId()).isEqualTo(fromAccount.getId());
-        assertThat(entries.get(0).getAmount()).isEqualByComparingTo("100.00");
+        assertThat(entries.get(0).getAmount()).isEqualTo(100_00);
         assertThat(entries.get(1).getType()).isEqualTo(EntryType.CREDIT);
         assertThat(entries.get(1).getAccountId()).isEqualTo(toAccount.getId());
-        assertThat(entries.get(1).getAmount()).isEqualByComparingTo("100.00");
+        assertThat(entries.get(1).getAmount()).isEqualTo(100_00);
+        assertThat(entries.get(0).getBalanceAfter()).isEqualTo(400_00);
+        assertThat(entries.get(1).getBalanceAfter()).isEqualTo(110_00);
     }
 
     @Test
     void createEntry_throwsInsufficientBalanceException_whenFromAccountBalanceIsTooLow() {
         // given
-        var fromAccount = accountRepository.save(Account.instanceOf(BigDecimal.valueOf(500)));
-        var toAccount = accountRepository.save(Account.instanceOf(BigDecimal.valueOf(10)));
+        var fromAccount = accountRepository.save(Account.instanceOf(500_00));
+        var toAccount = accountRepository.save(Account.instanceOf(10_00));
         var transferId = UUID.randomUUID();
 
         // and
@@ -92,8 +94,8 @@ class LedgerEntryServiceIT {
     @Test
     void createEntry_throwsInvalidAmountException_whenTransferAmountIsNotValid() {
         // given
-        var fromAccount = accountRepository.save(Account.instanceOf(BigDecimal.valueOf(500)));
-        var toAccount = accountRepository.save(Account.instanceOf(BigDecimal.valueOf(10)));
+        var fromAccount = accountRepository.save(Account.instanceOf(500_00));
+        var toAccount = accountRepository.save(Account.instanceOf(10_00));
         var transferId = UUID.randomUUID();
 
         // and
@@ -110,10 +112,10 @@ class LedgerEntryServiceIT {
     @Test
     void createEntry_returnsExistingTransfer_whenExistingTransferIdIsUsed() {
         // given from account with balance of 2500
-        var fromAccount = accountRepository.save(Account.instanceOf(BigDecimal.valueOf(2_500)));
+        var fromAccount = accountRepository.save(Account.instanceOf(2_500_00));
 
         // and to account with balance of 10
-        var toAccount = accountRepository.save(Account.instanceOf(BigDecimal.valueOf(10)));
+        var toAccount = accountRepository.save(Account.instanceOf(10_00));
 
         // and
         var transferId = UUID.randomUUID();
@@ -140,10 +142,10 @@ class LedgerEntryServiceIT {
         toAccount = accountRepository.findById(toAccount.getId()).orElseThrow();
 
         // and to account balance was increased by 2000 - once
-        assertThat(toAccount.getBalance()).isEqualByComparingTo("2010.00");
+        assertThat(toAccount.getBalance()).isEqualTo(2010_00);
 
         // and fro account balance was decreased by 2000 - once
-        assertThat(fromAccount.getBalance()).isEqualByComparingTo("500.00");
+        assertThat(fromAccount.getBalance()).isEqualTo(500_00);
 
     }
 }
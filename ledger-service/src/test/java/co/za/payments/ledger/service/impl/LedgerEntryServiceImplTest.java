@@ -1,7 +1,13 @@
 package co.za.payments.ledger.service.impl;
 
+import co.za.payments.ledger.config.LedgerLockingProperties;
+import co.za.payments.ledger.config.LedgerLockingProperties.LockingStrategy;
+import co.za.payments.ledger.config.LedgerTransferFilterProperties;
+import co.za.payments.ledger.config.LedgerWriteProperties;
+import co.za.payments.ledger.config.LedgerWriteProperties.WriteMode;
 import co.za.payments.ledger.domain.Account;
 import co.za.payments.ledger.domain.LedgerEntry;
+import co.za.payments.ledger.domain.Money;
 import co.za.payments.ledger.dto.TransferRequest;
 import co.za.payments.ledger.exception.AccountNotFoundException;
 import co.za.payments.ledger.exception.InsufficientAccountBalanceException;
@@ -9,15 +15,22 @@ import co.za.payments.ledger.exception.InvalidAmountException;
 import co.za.payments.ledger.repository.AccountRepository;
 import co.za.payments.ledger.repository.LedgerEntryRepository;
 import co.za.payments.ledger.service.LedgerService;
+import co.za.payments.ledger.service.dedup.LedgerEntryKeys;
+import co.za.payments.ledger.service.dedup.TransferIdFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.*;
@@ -30,6 +43,15 @@ class LedgerEntryServiceImplTest {
     private LedgerEntryRepository ledgerRepository;
     @Mock
     private AccountRepository accountRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private AccountCache accountCache;
+    @Mock
+    private LedgerEntryKeys entryKeys;
+
+    private LedgerWriteProperties writeProperties;
+    private LedgerLockingProperties lockingProperties;
 
     private LedgerService ledgerService;
 
@@ -42,69 +64,112 @@ class LedgerEntryServiceImplTest {
         fromAccountId = UUID.randomUUID();
         toAccountId = UUID.randomUUID();
         transferId = UUID.randomUUID();
-        ledgerService = new LedgerEntryServiceImpl(ledgerRepository, accountRepository);
+        writeProperties = new LedgerWriteProperties();
+        lockingProperties = new LedgerLockingProperties();
+        ledgerService = new LedgerEntryServiceImpl(ledgerRepository, accountRepository, writeProperties, lockingProperties,
+                new TransactionTemplate(transactionManager), new TransferIdFilter(ledgerRepository, new LedgerTransferFilterProperties(), new SimpleMeterRegistry()),
+                accountCache, entryKeys);
     }
 
     @Test
     void createEntry_createsLedgerEntriesAndReturnsResponse() {
         // given
-        var fromAccount = Account.instanceOf(BigDecimal.valueOf(500));
-        var toAccount = Account.instanceOf(BigDecimal.valueOf(450));
+        var fromAccount = Account.instanceOf(500_00);
+        var toAccount = Account.instanceOf(450_00);
 
         // when
         when(accountRepository.findById(fromAccountId)).thenReturn(Optional.of(fromAccount));
         when(accountRepository.findById(toAccountId)).thenReturn(Optional.of(toAccount));
 
         // and
-        var debit = LedgerEntry.debit(transferId, fromAccountId, BigDecimal.valueOf(100));
-        var credit = LedgerEntry.credit(transferId, toAccountId, BigDecimal.valueOf(100));
+        var debit = LedgerEntry.debit(transferId, fromAccountId, 100_00);
+        var credit = LedgerEntry.credit(transferId, toAccountId, 100_00);
 
-        when(ledgerRepository.saveAll(any())).thenReturn(List.of(debit, credit));
+        when(ledgerRepository.saveAllAndFlush(any())).thenReturn(List.of(debit, credit));
 
         var response = ledgerService.createEntry(new TransferRequest(transferId, fromAccountId, toAccountId, BigDecimal.valueOf(100)));
 
         // then
-        assertThat(response.debitEntry().amount()).isEqualTo(BigDecimal.valueOf(100));
+        assertThat(response.debitEntry().amount()).isEqualByComparingTo(BigDecimal.valueOf(100));
         assertThat(response.debitEntry().type()).isEqualTo("DEBIT");
         assertThat(response.debitEntry().accountId()).isEqualTo(fromAccountId);
 
-        assertThat(response.creditEntry().amount()).isEqualTo(BigDecimal.valueOf(100));
+        assertThat(response.creditEntry().amount()).isEqualByComparingTo(BigDecimal.valueOf(100));
         assertThat(response.creditEntry().type()).isEqualTo("CREDIT");
         assertThat(response.creditEntry().accountId()).isEqualTo(toAccountId);
 
-        verify(ledgerRepository).findByTransferId(any());
-        verify(ledgerRepository, times(1)).saveAll(any());
+        verify(ledgerRepository, never()).findByTransferId(any());
+        verify(ledgerRepository, times(1)).saveAllAndFlush(any());
+        verify(transactionManager).commit(any());
     }
 
     @Test
-    void createEntry_returnsExistingLedgerEntryResponse() {
+    void createEntry_returnsExistingLedgerEntryResponse_whenTransferIdViolatesUniqueConstraint() {
         // given
-        var debit = LedgerEntry.debit(transferId, fromAccountId, BigDecimal.valueOf(21_349));
-        var credit = LedgerEntry.credit(transferId, fromAccountId, BigDecimal.valueOf(21_349));
+        var debit = LedgerEntry.debit(transferId, fromAccountId, 21_349_00);
+        var credit = LedgerEntry.credit(transferId, fromAccountId, 21_349_00);
 
         // when
+        when(accountRepository.findById(fromAccountId)).thenReturn(Optional.of(Account.instanceOf(500_00)));
+        when(accountRepository.findById(toAccountId)).thenReturn(Optional.of(Account.instanceOf(450_00)));
+        when(ledgerRepository.saveAllAndFlush(any())).thenThrow(new DataIntegrityViolationException("uq_transfer_id_type"));
         when(ledgerRepository.findByTransferId(any())).thenReturn(List.of(debit, credit));
 
         var response = ledgerService.createEntry(new TransferRequest(transferId, fromAccountId, toAccountId, BigDecimal.valueOf(100)));
 
         // then
-        assertThat(response.debitEntry().amount()).isEqualTo(BigDecimal.valueOf(21_349));
+        assertThat(response.debitEntry().amount()).isEqualByComparingTo(BigDecimal.valueOf(21_349));
         assertThat(response.debitEntry().type()).isEqualTo("DEBIT");
         assertThat(response.debitEntry().accountId()).isEqualTo(fromAccountId);
 
-        assertThat(response.creditEntry().amount()).isEqualTo(BigDecimal.valueOf(21_349));
+        assertThat(response.creditEntry().amount()).isEqualByComparingTo(BigDecimal.valueOf(21_349));
         assertThat(response.creditEntry().type()).isEqualTo("CREDIT");
         assertThat(response.creditEntry().accountId()).isEqualTo(fromAccountId);
 
         verify(ledgerRepository).findByTransferId(transferId);
-        verify(ledgerRepository, never()).saveAll(any());
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void createEntry_returnsExistingLedgerEntryResponse_whenReplayIsRejectedForInsufficientFunds() {
+        // given the original transfer already moved the whole balance
+        var debit = LedgerEntry.debit(transferId, fromAccountId, 100_00);
+        var credit = LedgerEntry.credit(transferId, toAccountId, 100_00);
+
+        // when
+        when(accountRepository.findById(fromAccountId)).thenReturn(Optional.of(Account.instanceOf(0)));
+        when(accountRepository.findById(toAccountId)).thenReturn(Optional.of(Account.instanceOf(100_00)));
+        when(ledgerRepository.findByTransferId(transferId)).thenReturn(List.of(debit, credit));
+
+        var response = ledgerService.createEntry(new TransferRequest(transferId, fromAccountId, toAccountId, BigDecimal.valueOf(100)));
+
+        // then
+        assertThat(response.transferId()).isEqualTo(transferId);
+        assertThat(response.debitEntry().amount()).isEqualByComparingTo("100.00");
+        verify(ledgerRepository, never()).saveAllAndFlush(any());
+    }
+
+    @Test
+    void createEntry_rethrowsConstraintViolation_whenNoEntriesExistForTransferId() {
+        // given
+        var violation = new DataIntegrityViolationException("fk_account_id");
+        var request = new TransferRequest(transferId, fromAccountId, toAccountId, BigDecimal.valueOf(100));
+
+        // when
+        when(accountRepository.findById(fromAccountId)).thenReturn(Optional.of(Account.instanceOf(500_00)));
+        when(accountRepository.findById(toAccountId)).thenReturn(Optional.of(Account.instanceOf(450_00)));
+        when(ledgerRepository.saveAllAndFlush(any())).thenThrow(violation);
+        when(ledgerRepository.findByTransferId(transferId)).thenReturn(List.of());
+
+        // then
+        assertThatThrownBy(() -> ledgerService.createEntry(request)).isSameAs(violation);
     }
 
     @Test
     void createEntry_throwsInsufficientBalanceException_whenAccountBalanceIsLess() {
         // given
-        var fromAccount = Account.instanceOf(BigDecimal.valueOf(10));
-        var toAccount = Account.instanceOf(BigDecimal.valueOf(400));
+        var fromAccount = Account.instanceOf(10_00);
+        var toAccount = Account.instanceOf(400_00);
 
         // when
         when(accountRepository.findById(fromAccountId)).thenReturn(Optional.of(fromAccount));
@@ -117,14 +182,14 @@ class LedgerEntryServiceImplTest {
                 .hasMessageContaining("Insufficient funds in account");
 
 
-        verify(ledgerRepository, never()).saveAll(any());
+        verify(ledgerRepository, never()).saveAllAndFlush(any());
     }
 
     @Test
     void createEntry_throwsInvalidAmountException_whenDebitTransferAmountIsNotValid() {
         // given
-        var fromAccount = Account.instanceOf(BigDecimal.valueOf(10));
-        var toAccount = Account.instanceOf(BigDecimal.valueOf(400));
+        var fromAccount = Account.instanceOf(10_00);
+        var toAccount = Account.instanceOf(400_00);
 
         // when
         when(accountRepository.findById(fromAccountId)).thenReturn(Optional.of(fromAccount));
@@ -151,7 +216,7 @@ class LedgerEntryServiceImplTest {
     @Test
     void createEntry_throwsAccountNotFoundException_whenToAccountDoesNotExist() {
         // when
-        var fromAccount = Account.instanceOf(BigDecimal.valueOf(10));
+        var fromAccount = Account.instanceOf(10_00);
 
         when(accountRepository.findById(fromAccountId)).thenReturn(Optional.of(fromAccount));
         when(accountRepository.findById(toAccountId)).thenReturn(Optional.empty());
@@ -164,4 +229,134 @@ class LedgerEntryServiceImplTest {
                 .withMessage("Account with ID: %s does not exist".formatted(toAccountId));
     }
 
-}
\ No newline at end of file
+    @Test
+    void createEntry_conditionalMode_appliesGuardedUpdatesWithoutLoadingAccounts() {
+        // given
+        writeProperties.setMode(WriteMode.CONDITIONAL);
+        var amount = BigDecimal.valueOf(100);
+
+        // when
+        when(accountRepository.debitReturningBalance(eq(fromAccountId), eq(Money.toMinorUnits(amount)), any())).thenReturn(OptionalLong.of(90_00));
+        when(accountRepository.creditReturningBalance(eq(toAccountId), eq(Money.toMinorUnits(amount)), any())).thenReturn(OptionalLong.of(110_00));
+        when(ledgerRepository.saveAllAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        var response = ledgerService.createEntry(new TransferRequest(transferId, fromAccountId, toAccountId, amount));
+
+        // then
+        assertThat(response.debitEntry().accountId()).isEqualTo(fromAccountId);
+        assertThat(response.creditEntry().accountId()).isEqualTo(toAccountId);
+        assertThat(response.debitEntry().amount()).isEqualByComparingTo(amount);
+
+        verify(accountRepository, never()).findById(any());
+        verify(ledgerRepository, times(1)).saveAllAndFlush(any());
+    }
+
+    @Test
+    void createEntry_conditionalMode_throwsInsufficientBalanceException_whenDebitIsRejected() {
+        // given
+        writeProperties.setMode(WriteMode.CONDITIONAL);
+        var amount = BigDecimal.valueOf(500);
+
+        // when
+        lenient().when(accountRepository.creditReturningBalance(eq(toAccountId), eq(Money.toMinorUnits(amount)), any())).thenReturn(OptionalLong.of(110_00));
+        when(accountRepository.debitReturningBalance(eq(fromAccountId), eq(Money.toMinorUnits(amount)), any())).thenReturn(OptionalLong.empty());
+        when(accountRepository.existsById(fromAccountId)).thenReturn(true);
+
+        // then
+        assertThatExceptionOfType(InsufficientAccountBalanceException.class)
+                .isThrownBy(() -> ledgerService.createEntry(new TransferRequest(transferId, fromAccountId, toAccountId, amount)))
+                .withMessage("Insufficient funds in account %s".formatted(fromAccountId));
+
+        verify(ledgerRepository, never()).saveAllAndFlush(any());
+    }
+
+    @Test
+    void createEntry_conditionalMode_throwsAccountNotFoundException_whenFromAccountDoesNotExist() {
+        // given
+        writeProperties.setMode(WriteMode.CONDITIONAL);
+        var amount = BigDecimal.valueOf(50);
+
+        // when
+        lenient().when(accountRepository.creditReturningBalance(eq(toAccountId), eq(Money.toMinorUnits(amount)), any())).thenReturn(OptionalLong.of(110_00));
+        when(accountRepository.debitReturningBalance(eq(fromAccountId), eq(Money.toMinorUnits(amount)), any())).thenReturn(OptionalLong.empty());
+        when(accountRepository.existsById(fromAccountId)).thenReturn(false);
+
+        // then
+        assertThatExceptionOfType(AccountNotFoundException.class)
+                .isThrownBy(() -> ledgerService.createEntry(new TransferRequest(transferId, fromAccountId, toAccountId, amount)))
+                .withMessage("Account with ID: %s does not exist".formatted(fromAccountId));
+    }
+
+    @Test
+    void createEntry_conditionalMode_throwsAccountNotFoundException_whenToAccountDoesNotExist() {
+        // given
+        writeProperties.setMode(WriteMode.CONDITIONAL);
+        var amount = BigDecimal.valueOf(50);
+
+        // when
+        lenient().when(accountRepository.debitReturningBalance(eq(fromAccountId), eq(Money.toMinorUnits(amount)), any())).thenReturn(OptionalLong.of(90_00));
+        when(accountRepository.creditReturningBalance(eq(toAccountId), eq(Money.toMinorUnits(amount)), any())).thenReturn(OptionalLong.empty());
+
+        // then
+        assertThatExceptionOfType(AccountNotFoundException.class)
+                .isThrownBy(() -> ledgerService.createEntry(new TransferRequest(transferId, fromAccountId, toAccountId, amount)))
+                .withMessage("Account with ID: %s does not exist".formatted(toAccountId));
+
+        verify(ledgerRepository, never()).saveAllAndFlush(any());
+    }
+
+    @Test
+    void createEntry_conditionalMode_throwsInvalidAmountException_whenAmountIsNotPositive() {
+        // given
+        writeProperties.setMode(WriteMode.CONDITIONAL);
+
+        // then
+        assertThatThrownBy(() -> ledgerService.createEntry(new TransferRequest(transferId, fromAccountId, toAccountId, BigDecimal.ZERO)))
+                .isInstanceOf(InvalidAmountException.class);
+
+        verifyNoInteractions(accountRepository);
+    }
+
+    @Test
+    void createEntry_pessimisticStrategy_locksBothAccountsBeforeApplyingTransfer() {
+        // given
+        lockingProperties.setStrategy(LockingStrategy.PESSIMISTIC);
+
+        var fromAccount = Account.instanceOf(500_00);
+        fromAccount.setId(fromAccountId);
+        var toAccount = Account.instanceOf(450_00);
+        toAccount.setId(toAccountId);
+
+        // when
+        when(accountRepository.lockAllById(List.of(fromAccountId, toAccountId))).thenReturn(List.of(toAccount, fromAccount));
+        when(ledgerRepository.saveAllAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        var response = ledgerService.createEntry(new TransferRequest(transferId, fromAccountId, toAccountId, BigDecimal.valueOf(100)));
+
+        // then
+        assertThat(response.debitEntry().accountId()).isEqualTo(fromAccountId);
+        assertThat(fromAccount.getBalance()).isEqualTo(400_00);
+        assertThat(toAccount.getBalance()).isEqualTo(550_00);
+
+        verify(accountRepository, never()).findById(any());
+    }
+
+    @Test
+    void createEntry_pessimisticStrategy_throwsAccountNotFoundException_whenToAccountDoesNotExist() {
+        // given
+        lockingProperties.setStrategy(LockingStrategy.PESSIMISTIC);
+
+        var fromAccount = Account.instanceOf(500_00);
+        fromAccount.setId(fromAccountId);
+
+        // when
+        when(accountRepository.lockAllById(any())).thenReturn(List.of(fromAccount));
+
+        // then
+        assertThatExceptionOfType(AccountNotFoundException.class)
+                .isThrownBy(() -> ledgerService.createEntry(new TransferRequest(transferId, fromAccountId, toAccountId, BigDecimal.valueOf(100))))
+                .withMessage("Account with ID: %s does not exist".formatted(toAccountId));
+
+        verify(ledgerRepository, never()).saveAllAndFlush(any());
+    }
+}
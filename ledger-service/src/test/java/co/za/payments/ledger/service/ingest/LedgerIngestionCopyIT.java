@@ -0,0 +1,125 @@
+package co.za.payments.ledger.service.ingest;
+
+import co.za.payments.ledger.config.LedgerIngestProperties;
+import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.domain.EntryType;
+import co.za.payments.ledger.domain.LedgerEntry;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Ingests a file through the binary {@code COPY} of PostgreSQL and logs the rate, checking that the entries read
+ * back as written and every balance moved by its net amount.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "ledger.ingest.chunk-size=10000",
+        "logging.level.org.hibernate.SQL=off"
+})
+@Testcontainers(disabledWithoutDocker = true)
+@Slf4j
+class LedgerIngestionCopyIT {
+
+    private static final int ACCOUNTS = 100;
+    private static final int TRANSFERS = 200_000;
+    private static final long OPENING_BALANCE = 1_000_000_00;
+
+    @Container
+    @ServiceConnection
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15");
+
+    @TempDir
+    private Path directory;
+
+    @Autowired
+    private LedgerIngestion ingestion;
+
+    @Autowired
+    private LedgerIngestProperties properties;
+
+    @Autowired
+    private LedgerEntryRepository ledgerRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Test
+    void ingest_copiesEveryEntry_andAppliesTheNetBalanceChanges() throws IOException {
+        // given
+        properties.setRunId("copy");
+        var accounts = new ArrayList<UUID>(ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts.add(accountRepository.save(Account.instanceOf(OPENING_BALANCE)).getId());
+        }
+        var expected = new long[ACCOUNTS];
+        var first = UUID.randomUUID();
+        var createdAt = Instant.parse("2019-03-01T08:30:15.123456Z");
+        var file = write(accounts, expected, first, createdAt);
+
+        // when
+        var started = System.nanoTime();
+        var run = ingestion.ingest(file);
+        var elapsed = System.nanoTime() - started;
+        log.info("Ingested [{}] transfers in [{}] ms, [{}] entries/s", TRANSFERS, elapsed / 1_000_000,
+                TRANSFERS * 2L * 1_000_000_000L / elapsed);
+
+        // then
+        assertThat(run.getTransfers()).isEqualTo(TRANSFERS);
+        assertThat(ledgerRepository.count()).isEqualTo(TRANSFERS * 2L);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            assertThat(accountRepository.findBalance(accounts.get(i))).isEqualTo(OPENING_BALANCE + expected[i]);
+        }
+        assertThat(ledgerRepository.findByTransferId(first))
+                .extracting(LedgerEntry::getAccountId, LedgerEntry::getType, LedgerEntry::getAmount, LedgerEntry::getCreatedAt,
+                        LedgerEntry::isBalanceApplied)
+                .containsExactlyInAnyOrder(tuple(accounts.get(0), EntryType.DEBIT, 12_34L, createdAt, true),
+                        tuple(accounts.get(1), EntryType.CREDIT, 12_34L, createdAt, true));
+    }
+
+    /**
+     * Writes random transfers between the accounts after one of 12.34 from the first to the second, adding the
+     * net change of every account to {@code expected}.
+     */
+    private Path write(List<UUID> accounts, long[] expected, UUID first, Instant createdAt) throws IOException {
+        var random = ThreadLocalRandom.current();
+        var path = directory.resolve("entries.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+            writer.write("transfer_id,account_id,type,amount,created_at\n");
+            for (int i = 0; i < TRANSFERS; i++) {
+                var from = i == 0 ? 0 : random.nextInt(ACCOUNTS);
+                var to = i == 0 ? 1 : (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                var amount = i == 0 ? 12_34 : random.nextLong(1, 10_000);
+                var transferId = i == 0 ? first : UUID.randomUUID();
+                var at = createdAt.plusSeconds(i);
+                writer.write("%s,%s,DEBIT,%d.%02d,%s\n".formatted(transferId, accounts.get(from), amount / 100, amount % 100, at));
+                writer.write("%s,%s,CREDIT,%d.%02d,%s\n".formatted(transferId, accounts.get(to), amount / 100, amount % 100, at));
+                expected[from] -= amount;
+                expected[to] += amount;
+            }
+        }
+        return path;
+    }
+}
@@ -0,0 +1,132 @@
+package co.za.payments.ledger.service.ingest;
+
+import co.za.payments.ledger.config.LedgerIngestProperties;
+import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.domain.EntryType;
+import co.za.payments.ledger.domain.LedgerEntry;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import co.za.payments.ledger.repository.LedgerIngestRunRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "ledger.ingest.chunk-size=2",
+        "logging.level.org.hibernate.SQL=off"
+})
+class LedgerIngestionIT {
+
+    @TempDir
+    private Path directory;
+
+    @Autowired
+    private LedgerIngestion ingestion;
+
+    @Autowired
+    private LedgerIngestProperties properties;
+
+    @Autowired
+    private LedgerIngestRunRepository runRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @AfterEach
+    void cleanUp() {
+        properties.setRunId("default");
+        runRepository.deleteAll();
+        ledgerRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    void ingest_resumesAfterTheLastChunkWritten_withoutLoadingAnyTransferTwice() throws IOException {
+        // given
+        properties.setRunId("resume");
+        var from = accountRepository.save(Account.instanceOf(100_00));
+        var to = accountRepository.save(Account.instanceOf(0));
+        var unknown = UUID.randomUUID();
+        var transfers = IntStream.range(0, 5).mapToObj(i -> UUID.randomUUID()).toList();
+        var file = write(transfers, from.getId(), to.getId(), unknown);
+
+        // when the fourth transfer credits an account that does not exist
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() -> ingestion.ingest(file))
+                .withMessage("Transfers up to line 9 reference 1 accounts that do not exist");
+
+        // then the first chunk stays
+        assertThat(accountRepository.findBalance(from.getId())).isEqualTo(80_00);
+        assertThat(runRepository.findByRunId("resume")).hasValueSatisfying(run -> assertThat(run.getLine()).isEqualTo(5));
+
+        // when the file is corrected and ingested again
+        Files.writeString(file, Files.readString(file).replace(unknown.toString(), to.getId().toString()));
+        var run = ingestion.ingest(file);
+
+        // then
+        assertThat(run.isCompleted()).isTrue();
+        assertThat(run.getTransfers()).isEqualTo(5);
+        assertThat(accountRepository.findBalance(from.getId())).isEqualTo(50_00);
+        assertThat(accountRepository.findBalance(to.getId())).isEqualTo(50_00);
+        assertThat(ledgerRepository.findByTransferIdIn(transfers))
+                .hasSize(10)
+                .extracting(LedgerEntry::getAccountId, LedgerEntry::getType, LedgerEntry::getAmount, LedgerEntry::getBalanceAfter)
+                .containsOnly(tuple(from.getId(), EntryType.DEBIT, 10_00L, null), tuple(to.getId(), EntryType.CREDIT, 10_00L, null));
+
+        // and a completed run is not ingested again
+        assertThat(ingestion.ingest(file).getTransfers()).isEqualTo(5);
+        assertThat(accountRepository.findBalance(to.getId())).isEqualTo(50_00);
+    }
+
+    @Test
+    void ingest_writesNothingOfAnUnbalancedChunk() throws IOException {
+        // given
+        properties.setRunId("unbalanced");
+        var from = accountRepository.save(Account.instanceOf(100_00));
+        var to = accountRepository.save(Account.instanceOf(0));
+        var transferId = UUID.randomUUID();
+        var file = directory.resolve("unbalanced.csv");
+        Files.writeString(file, """
+                %1$s,%2$s,DEBIT,10.00,2021-06-01T10:00:00Z
+                %1$s,%3$s,CREDIT,1.00,2021-06-01T10:00:00Z
+                """.formatted(transferId, from.getId(), to.getId()));
+
+        // then
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() -> ingestion.ingest(file))
+                .withMessageStartingWith("Line 2: ");
+        assertThat(ledgerRepository.findByTransferId(transferId)).isEmpty();
+        assertThat(accountRepository.findBalance(from.getId())).isEqualTo(100_00);
+    }
+
+    /**
+     * Writes a debit and a credit of 10.00 per transfer, the fourth credited to {@code unknown}.
+     */
+    private Path write(List<UUID> transfers, UUID from, UUID to, UUID unknown) throws IOException {
+        var createdAt = Instant.parse("2021-06-01T10:00:00Z");
+        var file = new StringBuilder("transfer_id,account_id,type,amount,created_at\n");
+        for (int i = 0; i < transfers.size(); i++) {
+            var at = createdAt.plusSeconds(i);
+            file.append("%s,%s,DEBIT,10.00,%s\n".formatted(transfers.get(i), from, at))
+                    .append("%s,%s,CREDIT,10.00,%s\n".formatted(transfers.get(i), i == 3 ? unknown : to, at));
+        }
+        var path = directory.resolve("entries.csv");
+        Files.writeString(path, file);
+        return path;
+    }
+}
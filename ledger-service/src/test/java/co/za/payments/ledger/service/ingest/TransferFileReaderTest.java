@@ -0,0 +1,118 @@
+package co.za.payments.ledger.service.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class TransferFileReaderTest {
+
+    private static final UUID FROM = UUID.randomUUID();
+    private static final UUID TO = UUID.randomUUID();
+
+    @Test
+    void next_returnsEachBalancedTransfer_inAnyOrderOfItsEntries() throws IOException {
+        // given
+        var first = UUID.randomUUID();
+        var second = UUID.randomUUID();
+        var file = """
+                transfer_id,account_id,type,amount,created_at
+                %s
+                %s
+
+                %s\r
+                %s
+                """.formatted(line(first, FROM, "DEBIT", "10.50"), line(first, TO, "CREDIT", "10.50"),
+                line(second, TO, "CREDIT", "3"), line(second, FROM, "DEBIT", "3.00"));
+
+        // when
+        var transfers = readAll(file, 0, 0);
+
+        // then
+        assertThat(transfers).containsExactly(
+                new IngestTransfer(first, FROM, TO, 10_50, Instant.parse("2020-01-01T00:00:00Z"), Instant.parse("2020-01-01T00:00:00Z")),
+                new IngestTransfer(second, FROM, TO, 3_00, Instant.parse("2020-01-01T00:00:00Z"), Instant.parse("2020-01-01T00:00:00Z")));
+    }
+
+    @Test
+    void offset_resumesWithTheTransferAfterIt() throws IOException {
+        // given
+        var ids = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        var file = new StringBuilder("transfer_id,account_id,type,amount,created_at\n");
+        ids.forEach(id -> file.append(line(id, FROM, "DEBIT", "1")).append('\n').append(line(id, TO, "CREDIT", "1")).append('\n'));
+
+        long offset;
+        long line;
+        try (var reader = reader(file.toString(), 0, 0)) {
+            reader.next();
+
+            // when
+            reader.next();
+            offset = reader.offset();
+            line = reader.line();
+        }
+
+        // then
+        assertThat(line).isEqualTo(5);
+        var rest = readAll(file.substring((int) offset), offset, line);
+        assertThat(rest).extracting(IngestTransfer::transferId).containsExactly(ids.get(2));
+    }
+
+    @Test
+    void next_rejectsATransferWhoseDebitsAndCreditsDiffer() {
+        // given
+        var id = UUID.randomUUID();
+        var unbalanced = line(id, FROM, "DEBIT", "10") + "\n" + line(id, TO, "CREDIT", "9.99") + "\n";
+        var oneSided = line(id, FROM, "DEBIT", "10") + "\n" + line(UUID.randomUUID(), TO, "CREDIT", "10") + "\n";
+        var twoDebits = line(id, FROM, "DEBIT", "10") + "\n" + line(id, TO, "DEBIT", "10") + "\n";
+
+        // then
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() -> readAll(unbalanced, 0, 0))
+                .withMessage("Line 2: transfer %s debits 10.00 but credits 9.99".formatted(id));
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() -> readAll(oneSided, 0, 0))
+                .withMessage("Line 1: transfer %s has no CREDIT".formatted(id));
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() -> readAll(twoDebits, 0, 0))
+                .withMessage("Line 2: transfer %s has more than one DEBIT".formatted(id));
+    }
+
+    @Test
+    void next_rejectsAnInvalidLine_withItsNumber() {
+        // then
+        assertThatExceptionOfType(IllegalArgumentException.class)
+                .isThrownBy(() -> readAll(line(UUID.randomUUID(), FROM, "DEBIT", "-1"), 0, 0))
+                .withMessageStartingWith("Line 1: amount [-1]");
+        assertThatExceptionOfType(IllegalArgumentException.class)
+                .isThrownBy(() -> readAll("\n" + line(UUID.randomUUID(), FROM, "REFUND", "1"), 0, 0))
+                .withMessageStartingWith("Line 2: type [REFUND]");
+        assertThatExceptionOfType(IllegalArgumentException.class)
+                .isThrownBy(() -> readAll("not,enough,columns", 0, 0))
+                .withMessage("Line 1: expected 5 columns but found 3");
+    }
+
+    private static String line(UUID transferId, UUID accountId, String type, String amount) {
+        return "%s,%s,%s,%s,2020-01-01T00:00:00Z".formatted(transferId, accountId, type, amount);
+    }
+
+    private static List<IngestTransfer> readAll(String file, long offset, long line) throws IOException {
+        var transfers = new ArrayList<IngestTransfer>();
+        try (var reader = reader(file, offset, line)) {
+            IngestTransfer transfer;
+            while ((transfer = reader.next()) != null) {
+                transfers.add(transfer);
+            }
+        }
+        return transfers;
+    }
+
+    private static TransferFileReader reader(String file, long offset, long line) {
+        return new TransferFileReader(new ByteArrayInputStream(file.getBytes(StandardCharsets.UTF_8)), offset, line);
+    }
+}
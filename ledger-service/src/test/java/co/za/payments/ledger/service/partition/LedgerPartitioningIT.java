@@ -0,0 +1,200 @@
+package co.za.payments.ledger.service.partition;
+
+import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.dto.EntryCursor;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.service.AccountStatementService;
+import co.za.payments.ledger.service.LedgerService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * <p>Benchmark of a partitioned {@code ledger_entry} on PostgreSQL: history is added one month at a time and
+ * after each month the latency of new transfers and of a statement page of the latest month is logged, which
+ * stays flat as the history grows because both only touch the newest partitions.</p>
+ * <p>The assertions check what makes it so, statements pruned to the partitions after their cursor, rather than
+ * timings that depend on the machine.</p>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "ledger.partitions.enabled=true",
+        "logging.level.org.hibernate.SQL=off"
+})
+@Testcontainers(disabledWithoutDocker = true)
+@Slf4j
+class LedgerPartitioningIT {
+
+    private static final int ACCOUNTS = 100;
+    private static final int MONTHS = 6;
+    private static final int ENTRIES_PER_MONTH = 100_000;
+    private static final int SAMPLES = 200;
+
+    @Container
+    @ServiceConnection
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15");
+
+    @Autowired
+    private LedgerPartitionManager partitionManager;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private AccountStatementService statementService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void latency_staysFlat_asHistoryGrows() {
+        // given
+        assertThat(partitionManager.isPartitioned()).isTrue();
+
+        var accounts = new ArrayList<UUID>(ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts.add(accountRepository.save(Account.instanceOf(1_000_000_00)).getId());
+        }
+        var first = YearMonth.now(ZoneOffset.UTC).plusMonths(1);
+
+        for (int i = 0; i < MONTHS; i++) {
+            // when a month of history is added
+            var month = first.plusMonths(i);
+            partitionManager.maintain(month);
+            insertHistory(month, accounts);
+
+            // then
+            var insert = percentiles(() -> transfer(accounts));
+            var cursor = new EntryCursor(month.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC), new UUID(0, 0));
+            var statement = percentiles(() -> statementService.getEntries(accounts.getFirst(), cursor, 100));
+            log.info("History of [{}] entries: insert p50 [{}] us p99 [{}] us, statement page p50 [{}] us p99 [{}] us",
+                    (long) (i + 1) * ENTRIES_PER_MONTH, insert[0], insert[1], statement[0], statement[1]);
+
+            assertThat(plan(accounts.getFirst(), month)).contains(LedgerPartitionManager.nameOf(month))
+                    .doesNotContain(LedgerPartitionManager.LEGACY_PARTITION);
+            if (i > 0) {
+                assertThat(plan(accounts.getFirst(), month)).doesNotContain(LedgerPartitionManager.nameOf(month.minusMonths(1)));
+            }
+        }
+
+        assertThat(partitionManager.partitions()).hasSizeGreaterThan(MONTHS);
+    }
+
+    @Test
+    void insert_rejectsAReplayedTransferId_acrossPartitions() {
+        // given
+        var month = YearMonth.now(ZoneOffset.UTC).plusMonths(1);
+        partitionManager.maintain(month);
+        var transferId = UUID.randomUUID();
+        var accountId = UUID.randomUUID();
+        insert(transferId, accountId, month.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC));
+
+        // then
+        assertThatExceptionOfType(DataIntegrityViolationException.class)
+                .isThrownBy(() -> insert(transferId, accountId, month.plusMonths(1).atDay(2).atStartOfDay().toInstant(ZoneOffset.UTC)));
+    }
+
+    @Test
+    void detach_leavesThePartitionAsAPlainTable() {
+        // given
+        var month = YearMonth.now(ZoneOffset.UTC).plusMonths(12);
+        partitionManager.maintain(month);
+        var name = LedgerPartitionManager.nameOf(month.plusMonths(1));
+
+        // when
+        partitionManager.detach(name);
+
+        // then
+        assertThat(partitionManager.partitions()).noneMatch(partition -> partition.name().equals(name));
+        assertThat(jdbcTemplate.queryForObject("select count(*) from " + name, Long.class)).isZero();
+    }
+
+    private void insertHistory(YearMonth month, List<UUID> accounts) {
+        var start = month.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+        var span = month.plusMonths(1).atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli() - start;
+        var random = ThreadLocalRandom.current();
+
+        var rows = new ArrayList<Object[]>(ENTRIES_PER_MONTH);
+        for (int i = 0; i < ENTRIES_PER_MONTH; i++) {
+            var createdAt = new Timestamp(start + random.nextLong(span));
+            rows.add(new Object[]{UUID.randomUUID(), UUID.randomUUID(), accounts.get(random.nextInt(accounts.size())),
+                    random.nextLong(1, 10_000), i % 2 == 0 ? "DEBIT" : "CREDIT", createdAt, createdAt});
+        }
+        jdbcTemplate.batchUpdate("""
+                insert into ledger_entry (id, transfer_id, account_id, amount, type, balance_applied, created_at, updated_at)
+                values (?, ?, ?, ?, ?, true, ?, ?)
+                """, rows, 1_000, (statement, row) -> {
+            for (int i = 0; i < row.length; i++) {
+                statement.setObject(i + 1, row[i]);
+            }
+        });
+        jdbcTemplate.execute("analyze ledger_entry");
+    }
+
+    private void insert(UUID transferId, UUID accountId, Instant createdAt) {
+        jdbcTemplate.update("""
+                insert into ledger_entry (id, transfer_id, account_id, amount, type, balance_applied, created_at, updated_at)
+                values (?, ?, ?, 100, 'DEBIT', true, ?, ?)
+                """, UUID.randomUUID(), transferId, accountId, Timestamp.from(createdAt), Timestamp.from(createdAt));
+    }
+
+    private void transfer(List<UUID> accounts) {
+        var random = ThreadLocalRandom.current();
+        var from = random.nextInt(accounts.size());
+        var to = (from + 1 + random.nextInt(accounts.size() - 1)) % accounts.size();
+        ledgerService.createEntry(new TransferRequest(UUID.randomUUID(), accounts.get(from), accounts.get(to), BigDecimal.ONE));
+    }
+
+    /**
+     * @return the plan of the statement query from the start of the month, with literals so it is pruned when planned
+     */
+    private String plan(UUID accountId, YearMonth month) {
+        var start = "%s 00:00:00+00".formatted(month.atDay(1));
+        return String.join("\n", jdbcTemplate.queryForList("""
+                explain select * from ledger_entry
+                 where account_id = '%s' and created_at >= '%s' and (created_at, id) > ('%s', '%s')
+                 order by created_at, id limit 100
+                """.formatted(accountId, start, start, new UUID(0, 0)), String.class));
+    }
+
+    /**
+     * @return the median and 99th percentile in microseconds
+     */
+    private static long[] percentiles(Runnable operation) {
+        var samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            var started = System.nanoTime();
+            operation.run();
+            samples[i] = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started);
+        }
+        Arrays.sort(samples);
+        return new long[]{samples[SAMPLES / 2], samples[SAMPLES * 99 / 100]};
+    }
+}
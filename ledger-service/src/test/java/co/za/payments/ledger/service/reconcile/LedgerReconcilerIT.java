@@ -0,0 +1,155 @@
+package co.za.payments.ledger.service.reconcile;
+
+import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.domain.LedgerEntry;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.repository.AccountReconciliationRepository;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import co.za.payments.ledger.repository.ReconciliationMarkRepository;
+import co.za.payments.ledger.repository.TransferMismatchRepository;
+import co.za.payments.ledger.service.LedgerService;
+import co.za.payments.ledger.service.ReconciliationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "ledger.reconciliation.enabled=true",
+        "ledger.reconciliation.check-interval=1h",
+        "ledger.reconciliation.chunk-size=3",
+        "ledger.reconciliation.parallelism=2",
+        "ledger.reconciliation.chunk-pause=0s",
+        "logging.level.org.hibernate.SQL=off"
+})
+class LedgerReconcilerIT {
+
+    @Autowired
+    private LedgerReconciler reconciler;
+
+    @Autowired
+    private ReconciliationService reconciliationService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private AccountReconciliationRepository reconciliationRepository;
+
+    @Autowired
+    private TransferMismatchRepository transferMismatchRepository;
+
+    @Autowired
+    private ReconciliationMarkRepository markRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @AfterEach
+    void cleanUp() {
+        markRepository.deleteAll();
+        transferMismatchRepository.deleteAll();
+        reconciliationRepository.deleteAll();
+        ledgerRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    void reconcile_checksOnlyNewEntries_andFindsNoMismatchOnAConsistentLedger() throws InterruptedException {
+        // given
+        var first = accountRepository.save(Account.instanceOf(1_000_00));
+        var second = accountRepository.save(Account.instanceOf(1_000_00));
+        transfer(first, second, 100);
+
+        // when the first run only places the mark
+        var started = reconciler.reconcile(tick());
+        transfer(first, second, 200);
+        transfer(second, first, 50);
+        var baselined = reconciler.reconcile(tick());
+        transfer(first, second, 25);
+        transfer(second, first, 10);
+        transfer(first, second, 5);
+        var checked = reconciler.reconcile(tick());
+        var repeated = reconciler.reconcile(tick());
+
+        // then
+        assertThat(started.entries()).isZero();
+        assertThat(baselined.entries()).isEqualTo(4);
+        assertThat(checked.entries()).isEqualTo(6);
+        assertThat(checked.accountMismatches()).isZero();
+        assertThat(checked.transferMismatches()).isZero();
+        assertThat(repeated.entries()).isZero();
+
+        var report = reconciliationService.getReport(null);
+        assertThat(report.accountMismatchCount()).isZero();
+        assertThat(report.transferMismatchCount()).isZero();
+        assertThat(report.reconciledTo()).isNotNull();
+    }
+
+    @Test
+    void reconcile_reportsAccountsAndTransfersThatDoNotAddUp() throws InterruptedException {
+        // given
+        var first = accountRepository.save(Account.instanceOf(1_000_00));
+        var second = accountRepository.save(Account.instanceOf(1_000_00));
+        reconciler.reconcile(tick());
+        transfer(first, second, 100);
+        reconciler.reconcile(tick());
+
+        // a balance changed without entries and a debit without its credit
+        var tampered = accountRepository.findById(second.getId()).orElseThrow();
+        tampered.setBalance(tampered.getBalance() + 1_00);
+        accountRepository.save(tampered);
+        var orphan = ledgerRepository.save(LedgerEntry.debit(UUID.randomUUID(), first.getId(), 40_00));
+        transfer(first, second, 10);
+
+        // when
+        var result = reconciler.reconcile(tick());
+
+        // then
+        assertThat(result.entries()).isEqualTo(3);
+        assertThat(result.accountMismatches()).isEqualTo(2);
+        assertThat(result.transferMismatches()).isEqualTo(1);
+
+        var report = reconciliationService.getReport(10);
+        assertThat(report.accountMismatchCount()).isEqualTo(2);
+        assertThat(report.accountMismatches())
+                .anySatisfy(mismatch -> {
+                    assertThat(mismatch.accountId()).isEqualTo(second.getId());
+                    assertThat(mismatch.difference()).isEqualByComparingTo("1.00");
+                })
+                .anySatisfy(mismatch -> {
+                    assertThat(mismatch.accountId()).isEqualTo(first.getId());
+                    assertThat(mismatch.difference()).isEqualByComparingTo("40.00");
+                });
+        assertThat(report.transferMismatches()).singleElement().satisfies(mismatch -> {
+            assertThat(mismatch.transferId()).isEqualTo(orphan.getTransferId());
+            assertThat(mismatch.debits()).isEqualByComparingTo("40.00");
+            assertThat(mismatch.credits()).isEqualByComparingTo("0.00");
+        });
+    }
+
+    private void transfer(Account from, Account to, int amount) {
+        ledgerService.createEntry(new TransferRequest(UUID.randomUUID(), from.getId(), to.getId(), BigDecimal.valueOf(amount)));
+    }
+
+    /**
+     * @return an instant strictly between the entries written before and after it
+     */
+    private static Instant tick() throws InterruptedException {
+        Thread.sleep(5);
+        var now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        Thread.sleep(5);
+        return now;
+    }
+}
@@ -0,0 +1,168 @@
+package co.za.payments.ledger.service.shard;
+
+import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.domain.Money;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.exception.InsufficientAccountBalanceException;
+import co.za.payments.ledger.repository.AccountBalanceBucketRepository;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import co.za.payments.ledger.service.AccountService;
+import co.za.payments.ledger.service.LedgerService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * <p>Many payers paying one receiving account, which is split into a varying number of balance buckets. Logs the
+ * throughput per bucket count and checks that no money is created or lost, also while the receiving account
+ * pays out concurrently.</p>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "ledger.sharding.enabled=true",
+        "logging.level.org.hibernate.SQL=off"
+})
+@Slf4j
+class ShardedAccountIT {
+
+    private static final int PAYERS = 32;
+    private static final int TRANSFERS = 320;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountShardRegistry registry;
+
+    @Autowired
+    private LedgerEntryRepository ledgerRepository;
+
+    @Autowired
+    private AccountBalanceBucketRepository bucketRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @AfterEach
+    void cleanUp() {
+        ledgerRepository.deleteAll();
+        bucketRepository.deleteAll();
+        accountRepository.deleteAll();
+        registry.load();
+    }
+
+    @ParameterizedTest(name = "{0} buckets")
+    @ValueSource(ints = {1, 4, 16})
+    void createEntry_keepsTotalBalance_whenManyPayersPayOneShardedAccount(int buckets) throws Exception {
+        // given
+        var merchant = accountRepository.save(Account.instanceOf(0));
+        registry.shard(merchant.getId(), buckets);
+        var payers = payers();
+
+        var failed = new AtomicInteger();
+
+        // when
+        var started = System.nanoTime();
+        try (var executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int i = 0; i < TRANSFERS; i++) {
+                var request = new TransferRequest(UUID.randomUUID(), payers.get(i % PAYERS), merchant.getId(), BigDecimal.ONE);
+                executor.submit(() -> {
+                    try {
+                        ledgerService.createEntry(request);
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                    }
+                });
+            }
+            executor.shutdown();
+            assertThat(executor.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+        }
+        var elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        log.info("Sharded account with {} buckets: {} credits in {} ms ({} transfers/s), {} failed",
+                buckets, TRANSFERS - failed.get(), elapsedMillis, (TRANSFERS - failed.get()) * 1000L / elapsedMillis, failed.get());
+
+        // then
+        assertThat(failed.get()).isZero();
+        assertThat(accountService.getAccount(merchant.getId()).balance()).isEqualByComparingTo(BigDecimal.valueOf(TRANSFERS));
+        assertThat(bucketRepository.findByAccountId(merchant.getId()).stream().filter(bucket -> bucket.getBalance() > 0))
+                .hasSizeGreaterThan(buckets == 1 ? 0 : 1);
+    }
+
+    @Test
+    void createEntry_neverOverdrawsShardedAccount_withConcurrentPayouts() throws Exception {
+        // given
+        var merchant = accountRepository.save(Account.instanceOf(50_00));
+        registry.shard(merchant.getId(), 8);
+        var payers = payers();
+        var payoutAccount = accountRepository.save(Account.instanceOf(0));
+
+        var payouts = new AtomicInteger();
+        var rejectedPayouts = new AtomicInteger();
+        var failed = new AtomicInteger();
+
+        // when
+        try (var executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int i = 0; i < TRANSFERS; i++) {
+                var payout = i % 4 == 0;
+                var request = payout
+                        ? new TransferRequest(UUID.randomUUID(), merchant.getId(), payoutAccount.getId(), BigDecimal.valueOf(3))
+                        : new TransferRequest(UUID.randomUUID(), payers.get(i % PAYERS), merchant.getId(), BigDecimal.ONE);
+                executor.submit(() -> {
+                    try {
+                        ledgerService.createEntry(request);
+                        if (payout) {
+                            payouts.incrementAndGet();
+                        }
+                    } catch (InsufficientAccountBalanceException e) {
+                        rejectedPayouts.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                    }
+                });
+            }
+            executor.shutdown();
+            assertThat(executor.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+        }
+
+        // then
+        var credits = TRANSFERS - TRANSFERS / 4;
+        var merchantBalance = accountService.getAccount(merchant.getId()).balance();
+        var payerTotal = accountRepository.findAllById(payers).stream().mapToLong(Account::getBalance).sum();
+
+        assertThat(failed.get()).isZero();
+        assertThat(payouts.get() + rejectedPayouts.get()).isEqualTo(TRANSFERS / 4);
+        assertThat(merchantBalance).isEqualByComparingTo(BigDecimal.valueOf(50L + credits - 3L * payouts.get()));
+        assertThat(merchantBalance.signum()).isNotNegative();
+        assertThat(accountRepository.findById(merchant.getId()).orElseThrow().getBalance()).isNotNegative();
+        assertThat(bucketRepository.findByAccountId(merchant.getId())).allSatisfy(bucket -> assertThat(bucket.getBalance()).isNotNegative());
+        assertThat(Money.toMinorUnits(merchantBalance) + payerTotal + accountRepository.findById(payoutAccount.getId()).orElseThrow().getBalance())
+                .isEqualTo((50L + 1_000L * PAYERS) * 100);
+    }
+
+    private List<UUID> payers() {
+        var payers = new ArrayList<UUID>();
+        for (int i = 0; i < PAYERS; i++) {
+            payers.add(accountRepository.save(Account.instanceOf(1_000_00)).getId());
+        }
+        return payers;
+    }
+}
@@ -0,0 +1,146 @@
+package co.za.payments.ledger.service.shard;
+
+import co.za.payments.ledger.config.LedgerTransferFilterProperties;
+import co.za.payments.ledger.domain.Account;
+import co.za.payments.ledger.domain.AccountBalanceBucket;
+import co.za.payments.ledger.dto.TransferRequest;
+import co.za.payments.ledger.exception.InsufficientAccountBalanceException;
+import co.za.payments.ledger.repository.AccountBalanceBucketRepository;
+import co.za.payments.ledger.repository.AccountRepository;
+import co.za.payments.ledger.repository.LedgerEntryRepository;
+import co.za.payments.ledger.service.dedup.LedgerEntryKeys;
+import co.za.payments.ledger.service.dedup.TransferIdFilter;
+import co.za.payments.ledger.service.impl.AccountCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ShardedTransferWriterTest {
+
+    private static final int BUCKETS = 4;
+
+    @Mock
+    private LedgerEntryRepository ledgerRepository;
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private AccountCache accountCache;
+    @Mock
+    private LedgerEntryKeys entryKeys;
+    @Mock
+    private AccountBalanceBucketRepository bucketRepository;
+    @Mock
+    private AccountShardRegistry registry;
+
+    private ShardedTransferWriter writer;
+
+    private UUID payerId;
+    private UUID merchantId;
+
+    @BeforeEach
+    void setUp() {
+        writer = new ShardedTransferWriter(ledgerRepository, accountRepository, bucketRepository, registry,
+                new TransferIdFilter(ledgerRepository, new LedgerTransferFilterProperties(), new SimpleMeterRegistry()), accountCache,
+                entryKeys, new SimpleMeterRegistry());
+
+        payerId = UUID.randomUUID();
+        merchantId = UUID.randomUUID();
+
+        lenient().when(registry.bucketCount(merchantId)).thenReturn(BUCKETS);
+        lenient().when(ledgerRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void write_creditsTheBucketPickedByTransferId() {
+        // given
+        var request = new TransferRequest(UUID.randomUUID(), payerId, merchantId, BigDecimal.TEN);
+        var bucket = ShardedTransferWriter.bucketOf(request.transferId(), BUCKETS);
+
+        // when
+        when(accountRepository.debitReturningBalance(eq(payerId), eq(10_00L), any())).thenReturn(OptionalLong.of(90_00));
+        when(bucketRepository.credit(eq(merchantId), eq(bucket), eq(10_00L), any())).thenReturn(1);
+
+        var response = writer.write(request);
+
+        // then
+        assertThat(response.creditEntry().accountId()).isEqualTo(merchantId);
+        verify(accountRepository, never()).creditReturningBalance(any(), anyLong(), any());
+    }
+
+    @Test
+    void write_debitsABucket_whenAccountRowHasInsufficientFunds() {
+        // given
+        var request = new TransferRequest(UUID.randomUUID(), merchantId, payerId, BigDecimal.TEN);
+
+        // when
+        when(accountRepository.debitIfSufficient(eq(merchantId), eq(10_00L), any())).thenReturn(0);
+        when(accountRepository.existsById(merchantId)).thenReturn(true);
+        when(bucketRepository.debitIfSufficient(eq(merchantId), anyInt(), eq(10_00L), any())).thenReturn(0, 1);
+        when(accountRepository.creditReturningBalance(eq(payerId), eq(10_00L), any())).thenReturn(OptionalLong.of(110_00));
+
+        writer.write(request);
+
+        // then
+        verify(bucketRepository, times(2)).debitIfSufficient(eq(merchantId), anyInt(), eq(10_00L), any());
+        verify(bucketRepository, never()).lockByAccountId(any());
+    }
+
+    @Test
+    void write_consolidatesBuckets_whenNoSingleBucketHasEnoughFunds() {
+        // given
+        var request = new TransferRequest(UUID.randomUUID(), merchantId, payerId, BigDecimal.TEN);
+        var first = AccountBalanceBucket.empty(merchantId, 0);
+        first.setBalance(6_00);
+        var second = AccountBalanceBucket.empty(merchantId, 1);
+        second.setBalance(6_00);
+
+        // when
+        when(accountRepository.debitIfSufficient(eq(merchantId), eq(10_00L), any())).thenReturn(0, 1);
+        when(accountRepository.existsById(merchantId)).thenReturn(true);
+        when(bucketRepository.debitIfSufficient(eq(merchantId), anyInt(), eq(10_00L), any())).thenReturn(0);
+        when(accountRepository.lockAllById(List.of(merchantId))).thenReturn(List.of(Account.instanceOf(0)));
+        when(bucketRepository.lockByAccountId(merchantId)).thenReturn(List.of(first, second));
+        when(accountRepository.creditReturningBalance(eq(payerId), eq(10_00L), any())).thenReturn(OptionalLong.of(110_00));
+
+        writer.write(request);
+
+        // then
+        var inOrder = inOrder(accountRepository, bucketRepository);
+        inOrder.verify(accountRepository).lockAllById(List.of(merchantId));
+        inOrder.verify(bucketRepository).lockByAccountId(merchantId);
+        inOrder.verify(bucketRepository).drain(eq(merchantId), any());
+        inOrder.verify(accountRepository).applyDelta(eq(merchantId), eq(12_00L), any());
+    }
+
+    @Test
+    void write_throwsInsufficientBalanceException_whenConsolidatedBalanceIsLess() {
+        // given
+        var request = new TransferRequest(UUID.randomUUID(), merchantId, payerId, BigDecimal.TEN);
+
+        // when
+        when(accountRepository.debitIfSufficient(eq(merchantId), eq(10_00L), any())).thenReturn(0);
+        when(accountRepository.existsById(merchantId)).thenReturn(true);
+        when(bucketRepository.debitIfSufficient(eq(merchantId), anyInt(), eq(10_00L), any())).thenReturn(0);
+        when(bucketRepository.lockByAccountId(merchantId)).thenReturn(List.of());
+        lenient().when(accountRepository.creditReturningBalance(eq(payerId), eq(10_00L), any())).thenReturn(OptionalLong.of(110_00));
+
+        // then
+        assertThatExceptionOfType(InsufficientAccountBalanceException.class)
+                .isThrownBy(() -> writer.write(request));
+        verify(ledgerRepository, never()).saveAll(any());
+    }
+}
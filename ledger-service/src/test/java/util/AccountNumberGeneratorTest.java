@@ -0,0 +1,70 @@
+package util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class AccountNumberGeneratorTest {
+
+    @AfterEach
+    void resetNodeId() {
+        AccountNumberGenerator.useNodeId(0);
+    }
+
+    @Test
+    void generate_isUnique_fromManyThreadsGeneratingAndReserving() throws InterruptedException, ExecutionException {
+        // given
+        var threads = 8;
+        var perThread = 20_000;
+        var executor = Executors.newFixedThreadPool(threads);
+        var tasks = new ArrayList<Callable<List<String>>>();
+        for (int i = 0; i < threads; i++) {
+            var reserving = i % 2 == 0;
+            tasks.add(() -> {
+                var numbers = new ArrayList<String>(perThread);
+                while (numbers.size() < perThread) {
+                    if (reserving) {
+                        var first = AccountNumberGenerator.reserve(100);
+                        for (int j = 0; j < 100; j++) {
+                            numbers.add(AccountNumberGenerator.format(first + j));
+                        }
+                    } else {
+                        numbers.add(AccountNumberGenerator.generate());
+                    }
+                }
+                return numbers;
+            });
+        }
+
+        // when
+        var results = executor.invokeAll(tasks);
+        executor.shutdown();
+
+        // then
+        var numbers = new HashSet<String>();
+        for (var result : results) {
+            numbers.addAll(result.get());
+        }
+        assertThat(numbers).hasSize(threads * perThread);
+    }
+
+    @Test
+    void format_padsTheNodeIdAndSequence() {
+        // given
+        AccountNumberGenerator.useNodeId(42);
+
+        // then
+        assertThat(AccountNumberGenerator.format(1_234)).isEqualTo("ACC0420000000000001234");
+        assertThat(AccountNumberGenerator.generate()).hasSize(22).startsWith("ACC042");
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() -> AccountNumberGenerator.useNodeId(1_000));
+    }
+}